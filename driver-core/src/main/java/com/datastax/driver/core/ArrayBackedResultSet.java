@@ -160,6 +160,14 @@ abstract class ArrayBackedResultSet implements ResultSet {
         return wasApplied;
     }
 
+    @SuppressWarnings("unchecked")
+    protected ColumnBatch drain(Queue<List<ByteBuffer>> page) {
+        List<ByteBuffer>[] rows = new List[page.size()];
+        for (int i = 0; i < rows.length; i++)
+            rows[i] = page.poll();
+        return new ColumnBatch(metadata, protocolVersion, rows);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
@@ -194,6 +202,11 @@ abstract class ArrayBackedResultSet implements ResultSet {
             return ArrayBackedRow.fromData(metadata, tokenFactory, protocolVersion, rows.poll());
         }
 
+        @Override
+        public ColumnBatch nextBatch() {
+            return drain(rows);
+        }
+
         @Override
         public int getAvailableWithoutFetching() {
             return rows.size();
@@ -276,6 +289,12 @@ abstract class ArrayBackedResultSet implements ResultSet {
             return ArrayBackedRow.fromData(metadata, tokenFactory, protocolVersion, currentPage.poll());
         }
 
+        @Override
+        public ColumnBatch nextBatch() {
+            prepareNextRow();
+            return drain(currentPage);
+        }
+
         @Override
         public int getAvailableWithoutFetching() {
             int available = currentPage.size();
@@ -18,6 +18,8 @@ package com.datastax.driver.core;
 import com.datastax.driver.core.exceptions.DriverInternalError;
 import com.google.common.collect.ImmutableMap;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
 import io.netty.util.CharsetUtil;
 
 import java.net.InetAddress;
@@ -32,6 +34,12 @@ import java.util.*;
  */
 abstract class CBUtil { // TODO rename
 
+    /**
+     * Direct values of at least this size are not copied into composite request bodies, see {@link #writeValue(ByteBuffer, ByteBuf)}.
+     * A value of 0 or less disables this behavior.
+     */
+    static final int ZERO_COPY_THRESHOLD = SystemProperties.getInt("com.datastax.driver.ZERO_COPY_THRESHOLD", 64 * 1024);
+
     private CBUtil() {
     }
 
@@ -58,6 +66,14 @@ abstract class CBUtil { // TODO rename
         }
     }
 
+    public static void skipString(ByteBuf cb) {
+        try {
+            cb.skipBytes(cb.readUnsignedShort());
+        } catch (IndexOutOfBoundsException e) {
+            throw new DriverInternalError("Not enough bytes to read an UTF8 serialized string preceded by it's 2 bytes length");
+        }
+    }
+
     public static void writeString(String str, ByteBuf cb) {
         byte[] bytes = str.getBytes(CharsetUtil.UTF_8);
         cb.writeShort(bytes.length);
@@ -316,7 +332,59 @@ abstract class CBUtil { // TODO rename
         }
 
         cb.writeInt(bytes.remaining());
-        cb.writeBytes(bytes.duplicate());
+        if (cb instanceof CompositeByteBuf && isZeroCopyValue(bytes))
+            appendComponent((CompositeByteBuf) cb, bytes);
+        else
+            cb.writeBytes(bytes.duplicate());
+    }
+
+    /**
+     * Whether {@link #writeValue(ByteBuffer, ByteBuf)} will add the given value as a component of a composite
+     * buffer instead of copying it.
+     */
+    static boolean isZeroCopyValue(ByteBuffer bytes) {
+        return ZERO_COPY_THRESHOLD > 0
+                && bytes != null
+                && bytes.isDirect()
+                && bytes.remaining() >= ZERO_COPY_THRESHOLD;
+    }
+
+    /**
+     * Returns the total size of the values that {@link #writeValue(ByteBuffer, ByteBuf)} will not copy
+     * into a composite buffer.
+     */
+    static int sizeOfZeroCopyValues(Iterable<ByteBuffer> values) {
+        int size = 0;
+        for (ByteBuffer value : values) {
+            if (isZeroCopyValue(value))
+                size += value.remaining();
+        }
+        return size;
+    }
+
+    // The body is pre-allocated for everything but the zero-copy values (see Message.ProtocolEncoder), as a
+    // single buffer that is the last component. Split it at the writer index, and insert the value between the
+    // written part and the unwritten part: the message is never allocated more than once.
+    private static void appendComponent(CompositeByteBuf cb, ByteBuffer bytes) {
+        int length = bytes.remaining();
+        int unwritten = cb.capacity() - cb.writerIndex();
+        ByteBuf tail = null;
+        if (unwritten > 0) {
+            int last = cb.numComponents() - 1;
+            ByteBuf segment = cb.internalComponent(last);
+            int written = cb.writerIndex() - cb.toByteIndex(last);
+            // the slices share the segment's reference count: one reference for each of them, minus the one
+            // released when the segment is removed
+            segment.retain(2);
+            cb.addComponent(last, segment.slice(0, written));
+            cb.removeComponent(last + 1);
+            tail = segment.slice(written, unwritten);
+        }
+        // wrapping a direct ByteBuffer does not take ownership of its memory, so releasing the body is always safe
+        cb.addComponent(Unpooled.wrappedBuffer(bytes.duplicate()));
+        cb.writerIndex(cb.writerIndex() + length);
+        if (tail != null)
+            cb.addComponent(tail);
     }
 
     public static int sizeOfValue(byte[] bytes) {
@@ -1330,6 +1330,9 @@ public class Cluster implements Closeable {
         // Work Queue used by blockingExecutor.
         LinkedBlockingQueue<Runnable> blockingExecutorQueue;
 
+        // An executor to decode large responses off the I/O threads. Null if disabled, see QueryOptions.setLargeResponseDecodingThreshold.
+        ListeningExecutorService decodingExecutor;
+
         ConnectionReaper reaper;
 
         final AtomicReference<CloseFuture> closeFuture = new AtomicReference<CloseFuture>();
@@ -1342,6 +1345,8 @@ public class Cluster implements Closeable {
 
         final Set<Host.StateListener> listeners;
         final Set<LatencyTracker> latencyTrackers = new CopyOnWriteArraySet<LatencyTracker>();
+        // Non-null if latency updates are dispatched asynchronously
+        volatile LatencyTrackerDispatcher latencyTrackerDispatcher;
         final Set<SchemaChangeListener> schemaChangeListeners = new CopyOnWriteArraySet<SchemaChangeListener>();
 
         EventDebouncer<NodeListRefreshRequest> nodeListRefreshRequestDebouncer;
@@ -1375,6 +1380,9 @@ public class Cluster implements Closeable {
             // scheduledTasksExecutor is used to process C* notifications. So having it mono-threaded ensures notifications are
             // applied in the order received.
             this.scheduledTasksExecutor = new ScheduledThreadPoolExecutor(1, threadFactory("scheduled-task-worker"));
+            if (configuration.getQueryOptions().getLargeResponseDecodingThreshold() >= 0)
+                this.decodingExecutor = makeExecutor(configuration.getQueryOptions().getLargeResponseDecodingThreads(),
+                        "response-decoder", new LinkedBlockingQueue<Runnable>());
 
             this.reaper = new ConnectionReaper(this);
             this.metadata = new Metadata(this);
@@ -1484,6 +1492,9 @@ public class Cluster implements Closeable {
                 configuration.getPolicies().getRetryPolicy().init(Cluster.this);
                 reconnectionPolicy().init(Cluster.this);
                 configuration.getPolicies().getAddressTranslator().init(Cluster.this);
+                if (queryOptions.isAsyncLatencyTrackerDispatch())
+                    latencyTrackerDispatcher = new LatencyTrackerDispatcher(latencyTrackers,
+                            queryOptions.getLatencyTrackerBufferSize(), threadFactory("latency-tracker-dispatcher"));
                 for (LatencyTracker tracker : latencyTrackers)
                     tracker.onRegister(Cluster.this);
                 for (Host.StateListener listener : listeners)
@@ -1592,6 +1603,11 @@ public class Cluster implements Closeable {
         }
 
         void reportQuery(Host host, Statement statement, Exception exception, long latencyNanos) {
+            LatencyTrackerDispatcher dispatcher = latencyTrackerDispatcher;
+            if (dispatcher != null) {
+                dispatcher.publish(host, statement, exception, latencyNanos);
+                return;
+            }
             for (LatencyTracker tracker : latencyTrackers) {
                 tracker.update(host, statement, exception, latencyNanos);
             }
@@ -1623,6 +1639,9 @@ public class Cluster implements Closeable {
 
                 // but for the worker executor, we want to let submitted tasks finish unless the shutdown is forced.
                 executor.shutdown();
+                // same for decoding tasks, which own the buffers of the responses they decode
+                if (decodingExecutor != null)
+                    decodingExecutor.shutdown();
 
                 // We also close the metrics
                 if (metrics != null)
@@ -1633,6 +1652,8 @@ public class Cluster implements Closeable {
                 configuration.getPolicies().getRetryPolicy().close();
                 reconnectionPolicy().close();
                 configuration.getPolicies().getAddressTranslator().close();
+                if (latencyTrackerDispatcher != null)
+                    latencyTrackerDispatcher.stop();
                 for (LatencyTracker tracker : latencyTrackers)
                     tracker.onUnregister(Cluster.this);
                 for (Host.StateListener listener : listeners)
@@ -2284,14 +2305,12 @@ public class Cluster implements Closeable {
         private void maybeRefreshSchemaAndSignal(final Connection connection, final DefaultResultSetFuture future, final ResultSet rs, final SchemaElement targetType, final String targetKeyspace, final String targetName, final List<String> targetSignature) {
             final boolean refreshSchema = (targetKeyspace != null); // if false, only wait for schema agreement
 
-            executor.submit(new Runnable() {
+            // Before refreshing the schema, wait for schema agreement so
+            // that querying a table just after having created it don't fail.
+            Futures.addCallback(controlConnection.waitForSchemaAgreementAsync(connection), new FutureCallback<Boolean>() {
                 @Override
-                public void run() {
-                    boolean schemaInAgreement = false;
+                public void onSuccess(Boolean schemaInAgreement) {
                     try {
-                        // Before refreshing the schema, wait for schema agreement so
-                        // that querying a table just after having created it don't fail.
-                        schemaInAgreement = ControlConnection.waitForSchemaAgreement(connection, Cluster.Manager.this);
                         if (!schemaInAgreement)
                             logger.warn("No schema agreement from live replicas after {} s. The schema may not be up to date on some nodes.", configuration.getProtocolOptions().getMaxSchemaAgreementWaitSeconds());
 
@@ -2314,13 +2333,18 @@ public class Cluster implements Closeable {
                         }, MoreExecutors.sameThreadExecutor());
 
                     } catch (Exception e) {
-                        logger.warn("Error while waiting for schema agreement", e);
-                        // This is not fatal, complete the future anyway
-                        rs.getExecutionInfo().setSchemaInAgreement(schemaInAgreement);
-                        future.setResult(rs);
+                        onFailure(e);
                     }
                 }
-            });
+
+                @Override
+                public void onFailure(Throwable t) {
+                    logger.warn("Error while waiting for schema agreement", t);
+                    // This is not fatal, complete the future anyway
+                    rs.getExecutionInfo().setSchemaInAgreement(false);
+                    future.setResult(rs);
+                }
+            }, executor);
         }
 
         // Called when some message has been received but has been initiated from the server (streamId < 0).
@@ -2350,6 +2374,7 @@ public class Cluster implements Closeable {
                             submitNodeRefresh(tpAddr, HostEvent.REMOVED);
                             break;
                         case MOVED_NODE:
+                            controlConnection.onPeerMoved(tpAddr);
                             submitNodeListRefresh();
                             break;
                     }
@@ -2368,6 +2393,7 @@ public class Cluster implements Closeable {
                     }
                     break;
                 case SCHEMA_CHANGE:
+                    controlConnection.onSchemaAgreementEvent();
                     if (!configuration.getQueryOptions().isMetadataEnabled())
                         return;
 
@@ -2520,6 +2546,9 @@ public class Cluster implements Closeable {
                             scheduledTasksExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
                             executor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
                             blockingExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
+                            // decoding tasks are not cancelled by force(), but they are short and always complete
+                            if (decodingExecutor != null)
+                                decodingExecutor.awaitTermination(Long.MAX_VALUE, TimeUnit.SECONDS);
 
                             // Some of the jobs on the executors can be doing query stuff, so close the
                             // connectionFactory at the very last
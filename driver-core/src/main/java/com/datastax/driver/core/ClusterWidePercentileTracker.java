@@ -27,8 +27,11 @@ public class ClusterWidePercentileTracker extends PercentileTracker {
     private ClusterWidePercentileTracker(long highestTrackableLatencyMillis,
                                          int numberOfSignificantValueDigits,
                                          int minRecordedValues,
-                                         long intervalMs) {
-        super(highestTrackableLatencyMillis, numberOfSignificantValueDigits, minRecordedValues, intervalMs);
+                                         long intervalMs,
+                                         int subIntervals,
+                                         double decayFactor) {
+        super(highestTrackableLatencyMillis, numberOfSignificantValueDigits, minRecordedValues, intervalMs,
+                subIntervals, decayFactor);
     }
 
     @Override
@@ -70,7 +73,7 @@ public class ClusterWidePercentileTracker extends PercentileTracker {
         @Override
         public ClusterWidePercentileTracker build() {
             return new ClusterWidePercentileTracker(highestTrackableLatencyMillis, numberOfSignificantValueDigits,
-                    minRecordedValues, intervalMs);
+                    minRecordedValues, intervalMs, subIntervals, decayFactor);
         }
     }
 }
@@ -15,6 +15,7 @@
  */
 package com.datastax.driver.core;
 
+import com.codahale.metrics.Counter;
 import com.datastax.driver.core.exceptions.CodecNotFoundException;
 import com.google.common.base.Objects;
 import com.google.common.cache.*;
@@ -30,8 +31,11 @@ import java.nio.ByteBuffer;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static com.datastax.driver.core.DataType.Name.*;
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -123,6 +127,18 @@ import static com.google.common.base.Preconditions.checkNotNull;
  * <li>the second lookup will hit the cache directly, and reuse the previously generated instance.</li>
  * </ol>
  * The javadoc for each {@link #codecFor(DataType) codecFor} variant specifies whether the result can be cached or not.
+ * <p/>
+ * Cached lookups go through two levels:
+ * <ol>
+ * <li>a lock-free first level that holds codecs for native CQL types (e.g. {@code int}, {@code text}) and for
+ * collections of native CQL types (e.g. {@code list<int>}, {@code map<text,bigint>}). Native CQL types are singletons,
+ * so they are matched by identity, and Java types requested as raw classes are matched without creating a
+ * {@link TypeToken}. Codecs in this level are never evicted;</li>
+ * <li>a second level backed by a weighted Guava cache, which handles everything else (in particular codecs generated
+ * for nested collections, user types and tuples).</li>
+ * </ol>
+ * {@link #getFastPathHitCount()} and {@link #getSlowPathLookupCount()} can be used to check that hot lookups are served
+ * by the first level.
  * <h3>
  * Codec order
  * </h3>
@@ -164,6 +180,18 @@ public final class CodecRegistry {
             TypeCodec.inet()
     );
 
+    /**
+     * The maximum number of entries in the first level cache.
+     * Eligible CQL types are finite, but Java types are not, so this protects against unbounded growth
+     * if the registry gets queried with many different Java types.
+     */
+    private static final int MAX_FAST_PATH_ENTRIES = 2048;
+
+    /**
+     * The key used in the first level cache when no Java type is requested.
+     */
+    private static final Object ANY_JAVA_TYPE = new Object();
+
     /**
      * The default {@code CodecRegistry} instance.
      * <p/>
@@ -202,6 +230,90 @@ public final class CodecRegistry {
 
     }
 
+    /**
+     * First level cache for codecs of native CQL types and collections thereof.
+     * <p/>
+     * Lookups never lock: native CQL types are indexed by the ordinal of their name (they are singletons),
+     * collection types are looked up in a {@link ConcurrentHashMap}. Java types are keyed by their raw class
+     * whenever possible, so that {@code Class} lookups are identity-based and do not allocate.
+     * <p/>
+     * This cache is only populated with results obtained from the second level cache, and codecs
+     * for those types always weigh 0 there (see {@link TypeCodecWeigher}), so both levels always agree.
+     */
+    private static class FastPathCache {
+
+        private final ConcurrentMap<Object, TypeCodec<?>>[] nativeCodecs;
+
+        private final ConcurrentMap<DataType, ConcurrentMap<Object, TypeCodec<?>>> collectionCodecs =
+                new ConcurrentHashMap<DataType, ConcurrentMap<Object, TypeCodec<?>>>();
+
+        private final AtomicInteger size = new AtomicInteger();
+
+        private final Counter hits = new Counter();
+
+        @SuppressWarnings("unchecked")
+        FastPathCache() {
+            nativeCodecs = new ConcurrentMap[DataType.Name.values().length];
+            for (int i = 0; i < nativeCodecs.length; i++)
+                nativeCodecs[i] = new ConcurrentHashMap<Object, TypeCodec<?>>();
+        }
+
+        @SuppressWarnings("unchecked")
+        <T> TypeCodec<T> get(DataType cqlType, Object javaKey) {
+            ConcurrentMap<Object, TypeCodec<?>> codecs = codecsFor(cqlType, false);
+            if (codecs == null)
+                return null;
+            TypeCodec<?> codec = codecs.get(javaKey == null ? ANY_JAVA_TYPE : javaKey);
+            if (codec != null)
+                hits.inc();
+            return (TypeCodec<T>) codec;
+        }
+
+        void put(DataType cqlType, Object javaKey, TypeCodec<?> codec) {
+            if (size.get() >= MAX_FAST_PATH_ENTRIES)
+                return;
+            ConcurrentMap<Object, TypeCodec<?>> codecs = codecsFor(cqlType, true);
+            if (codecs != null && codecs.putIfAbsent(javaKey == null ? ANY_JAVA_TYPE : javaKey, codec) == null)
+                size.incrementAndGet();
+        }
+
+        private ConcurrentMap<Object, TypeCodec<?>> codecsFor(DataType cqlType, boolean create) {
+            if (cqlType instanceof DataType.NativeType)
+                return nativeCodecs[cqlType.getName().ordinal()];
+            if (!isShallowCollection(cqlType))
+                return null;
+            ConcurrentMap<Object, TypeCodec<?>> codecs = collectionCodecs.get(cqlType);
+            if (codecs == null && create) {
+                codecs = new ConcurrentHashMap<Object, TypeCodec<?>>();
+                ConcurrentMap<Object, TypeCodec<?>> previous = collectionCodecs.putIfAbsent(cqlType, codecs);
+                if (previous != null)
+                    codecs = previous;
+            }
+            return codecs;
+        }
+
+        private static boolean isShallowCollection(DataType cqlType) {
+            if (!(cqlType instanceof DataType.CollectionType))
+                return false;
+            for (DataType eltType : cqlType.getTypeArguments()) {
+                if (!(eltType instanceof DataType.NativeType))
+                    return false;
+            }
+            return true;
+        }
+
+        /**
+         * Returns the key to use for the given Java type: its raw class if it is not parameterized,
+         * the type token itself otherwise.
+         */
+        static Object keyFor(TypeToken<?> javaType) {
+            if (javaType == null)
+                return null;
+            Type type = javaType.getType();
+            return type instanceof Class ? type : javaType;
+        }
+    }
+
     /**
      * Cache loader for the codecs cache.
      */
@@ -289,12 +401,23 @@ public final class CodecRegistry {
      */
     private final LoadingCache<CacheKey, TypeCodec<?>> cache;
 
+    /**
+     * A lock-free cache that serves the most common requests before they reach {@link #cache}.
+     */
+    private final FastPathCache fastPath;
+
+    /**
+     * The number of cached lookups that were not served by {@link #fastPath}.
+     */
+    private final Counter slowPathLookups = new Counter();
+
     /**
      * Creates a new instance initialized with built-in codecs for all the base CQL types.
      */
     public CodecRegistry() {
         this.codecs = new CopyOnWriteArrayList<TypeCodec<?>>(PRIMITIVE_CODECS);
         this.cache = defaultCacheBuilder().build(new TypeCodecCacheLoader());
+        this.fastPath = new FastPathCache();
     }
 
     private CacheBuilder<CacheKey, TypeCodec<?>> defaultCacheBuilder() {
@@ -408,7 +531,8 @@ public final class CodecRegistry {
      * @throws CodecNotFoundException if a suitable codec cannot be found.
      */
     public <T> TypeCodec<T> codecFor(DataType cqlType) throws CodecNotFoundException {
-        return lookupCodec(cqlType, null);
+        TypeCodec<T> codec = fastPath.get(cqlType, null);
+        return codec != null ? codec : this.<T>lookupCodec(cqlType, null, null);
     }
 
     /**
@@ -427,7 +551,8 @@ public final class CodecRegistry {
      * @throws CodecNotFoundException if a suitable codec cannot be found.
      */
     public <T> TypeCodec<T> codecFor(DataType cqlType, Class<T> javaType) throws CodecNotFoundException {
-        return codecFor(cqlType, TypeToken.of(javaType));
+        TypeCodec<T> codec = fastPath.get(cqlType, javaType);
+        return codec != null ? codec : lookupCodec(cqlType, javaType, javaType == null ? null : TypeToken.of(javaType));
     }
 
     /**
@@ -445,7 +570,9 @@ public final class CodecRegistry {
      * @throws CodecNotFoundException if a suitable codec cannot be found.
      */
     public <T> TypeCodec<T> codecFor(DataType cqlType, TypeToken<T> javaType) throws CodecNotFoundException {
-        return lookupCodec(cqlType, javaType);
+        Object javaKey = FastPathCache.keyFor(javaType);
+        TypeCodec<T> codec = fastPath.get(cqlType, javaKey);
+        return codec != null ? codec : lookupCodec(cqlType, javaKey, javaType);
     }
 
     /**
@@ -470,15 +597,41 @@ public final class CodecRegistry {
         return findCodec(cqlType, value);
     }
 
+    /**
+     * Returns the number of cached lookups that were served by the lock-free first level cache.
+     * <p/>
+     * See the {@link CodecRegistry top-level documentation} of this class for more explanations about caching.
+     *
+     * @return the number of lookups served by the first level cache.
+     */
+    public long getFastPathHitCount() {
+        return fastPath.hits.getCount();
+    }
+
+    /**
+     * Returns the number of cached lookups that were not served by the lock-free first level cache,
+     * and had to go through the second level cache.
+     * <p/>
+     * For a given mapping, a well-behaved application should only see this counter increase once,
+     * unless the mapping involves nested collections, user types or tuples.
+     *
+     * @return the number of lookups served by the second level cache.
+     */
+    public long getSlowPathLookupCount() {
+        return slowPathLookups.getCount();
+    }
+
     @SuppressWarnings("unchecked")
-    private <T> TypeCodec<T> lookupCodec(DataType cqlType, TypeToken<T> javaType) {
+    private <T> TypeCodec<T> lookupCodec(DataType cqlType, Object javaKey, TypeToken<T> javaType) {
         checkNotNull(cqlType, "Parameter cqlType cannot be null");
+        slowPathLookups.inc();
         if (logger.isTraceEnabled())
             logger.trace("Querying cache for codec [{} <-> {}]", toString(cqlType), toString(javaType));
         CacheKey cacheKey = new CacheKey(cqlType, javaType);
         try {
             TypeCodec<?> codec = cache.get(cacheKey);
             logger.trace("Returning cached codec {}", codec);
+            fastPath.put(cqlType, javaKey, codec);
             return (TypeCodec<T>) codec;
         } catch (UncheckedExecutionException e) {
             if (e.getCause() instanceof CodecNotFoundException) {
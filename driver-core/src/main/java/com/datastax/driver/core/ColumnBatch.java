@@ -0,0 +1,305 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.CodecNotFoundException;
+
+import java.nio.ByteBuffer;
+import java.util.BitSet;
+import java.util.List;
+
+/**
+ * A batch of rows from a {@link ResultSet}, accessed column by column.
+ * <p/>
+ * Batches are obtained with {@link ResultSet#nextBatch()}. Contrary to {@link Row}, a batch does not create
+ * an object per row: each of the {@code getXxxs} methods decodes a whole column at once, directly from the
+ * buffers received from the server, into an array indexed by row. Numeric columns are decoded with the
+ * "no boxing" methods of the primitive codecs (for example {@link TypeCodec.PrimitiveLongCodec}), so no
+ * per-cell object is created either.
+ * <p/>
+ * Since primitive arrays cannot hold {@code null}, the {@code getXxxs} methods for primitive types return
+ * {@code 0} for {@code null} cells; use {@link #getNulls(int)} or {@link #isNull(int, int)} to tell them apart.
+ * <p/>
+ * Each call to a {@code getXxxs} method decodes the column again, so clients that need the same column several
+ * times should keep a reference to the returned array.
+ * <p/>
+ * Note that this class is not thread-safe.
+ */
+public class ColumnBatch {
+
+    private final ColumnDefinitions metadata;
+    private final ProtocolVersion protocolVersion;
+    private final List<ByteBuffer>[] rows;
+
+    ColumnBatch(ColumnDefinitions metadata, ProtocolVersion protocolVersion, List<ByteBuffer>[] rows) {
+        this.metadata = metadata;
+        this.protocolVersion = protocolVersion;
+        this.rows = rows;
+    }
+
+    /**
+     * Returns the columns contained in this batch.
+     *
+     * @return the columns contained in this batch.
+     */
+    public ColumnDefinitions getColumnDefinitions() {
+        return metadata;
+    }
+
+    /**
+     * Returns the number of rows in this batch.
+     *
+     * @return the number of rows in this batch. This is also the length of the arrays returned by all
+     * {@code getXxxs} methods.
+     */
+    public int size() {
+        return rows.length;
+    }
+
+    /**
+     * Returns whether this batch contains no rows.
+     *
+     * @return whether this batch contains no rows.
+     */
+    public boolean isEmpty() {
+        return rows.length == 0;
+    }
+
+    /**
+     * Returns whether the value of the {@code i}th column in the given row is {@code null}.
+     *
+     * @param row the index of the row in this batch.
+     * @param i   the index ({@code 0 <= i < getColumnDefinitions().size()}) of the column.
+     * @return whether the value is {@code null}.
+     * @throws IndexOutOfBoundsException if {@code row} or {@code i} is not a valid index.
+     */
+    public boolean isNull(int row, int i) {
+        checkColumn(i);
+        return rows[row].get(i) == null;
+    }
+
+    /**
+     * Returns a bitmap of the {@code null} values of the {@code i}th column.
+     *
+     * @param i the index ({@code 0 <= i < getColumnDefinitions().size()}) of the column.
+     * @return a bitmap where bit {@code n} is set if and only if the value of row {@code n} is {@code null}.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index.
+     */
+    public BitSet getNulls(int i) {
+        checkColumn(i);
+        BitSet nulls = new BitSet(rows.length);
+        for (int row = 0; row < rows.length; row++) {
+            if (rows[row].get(i) == null)
+                nulls.set(row);
+        }
+        return nulls;
+    }
+
+    /**
+     * Returns a bitmap of the {@code null} values of the column named {@code name}.
+     *
+     * @param name the name of the column.
+     * @return a bitmap where bit {@code n} is set if and only if the value of row {@code n} is {@code null}.
+     * @throws IllegalArgumentException if {@code name} is not part of the columns of this batch.
+     */
+    public BitSet getNulls(String name) {
+        return getNulls(metadata.getFirstIdx(name));
+    }
+
+    /**
+     * Decodes the {@code i}th column as an array of Java {@code int}s.
+     * <p/>
+     * This method uses the {@link CodecRegistry} to find a codec to convert the underlying CQL type to a Java
+     * {@code int} (for CQL type {@code int}, this will be the built-in codec).
+     *
+     * @param i the index ({@code 0 <= i < getColumnDefinitions().size()}) of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code 0}.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index.
+     * @throws CodecNotFoundException    if there is no registered codec to convert the column's CQL type to a Java int.
+     */
+    public int[] getInts(int i) {
+        TypeCodec<Integer> codec = codecFor(i, Integer.class);
+        int[] values = new int[rows.length];
+        if (codec instanceof TypeCodec.PrimitiveIntCodec) {
+            TypeCodec.PrimitiveIntCodec primitiveCodec = (TypeCodec.PrimitiveIntCodec) codec;
+            for (int row = 0; row < rows.length; row++)
+                values[row] = primitiveCodec.deserializeNoBoxing(rows[row].get(i), protocolVersion);
+        } else {
+            for (int row = 0; row < rows.length; row++) {
+                Integer value = codec.deserialize(rows[row].get(i), protocolVersion);
+                values[row] = value == null ? 0 : value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Decodes the column named {@code name} as an array of Java {@code int}s.
+     *
+     * @param name the name of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code 0}.
+     * @throws IllegalArgumentException if {@code name} is not part of the columns of this batch.
+     * @throws CodecNotFoundException   if there is no registered codec to convert the column's CQL type to a Java int.
+     * @see #getInts(int)
+     */
+    public int[] getInts(String name) {
+        return getInts(metadata.getFirstIdx(name));
+    }
+
+    /**
+     * Decodes the {@code i}th column as an array of Java {@code long}s.
+     * <p/>
+     * This method uses the {@link CodecRegistry} to find a codec to convert the underlying CQL type to a Java
+     * {@code long} (for CQL types {@code bigint} and {@code counter}, this will be the built-in codec).
+     *
+     * @param i the index ({@code 0 <= i < getColumnDefinitions().size()}) of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code 0L}.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index.
+     * @throws CodecNotFoundException    if there is no registered codec to convert the column's CQL type to a Java long.
+     */
+    public long[] getLongs(int i) {
+        TypeCodec<Long> codec = codecFor(i, Long.class);
+        long[] values = new long[rows.length];
+        if (codec instanceof TypeCodec.PrimitiveLongCodec) {
+            TypeCodec.PrimitiveLongCodec primitiveCodec = (TypeCodec.PrimitiveLongCodec) codec;
+            for (int row = 0; row < rows.length; row++)
+                values[row] = primitiveCodec.deserializeNoBoxing(rows[row].get(i), protocolVersion);
+        } else {
+            for (int row = 0; row < rows.length; row++) {
+                Long value = codec.deserialize(rows[row].get(i), protocolVersion);
+                values[row] = value == null ? 0L : value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Decodes the column named {@code name} as an array of Java {@code long}s.
+     *
+     * @param name the name of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code 0L}.
+     * @throws IllegalArgumentException if {@code name} is not part of the columns of this batch.
+     * @throws CodecNotFoundException   if there is no registered codec to convert the column's CQL type to a Java long.
+     * @see #getLongs(int)
+     */
+    public long[] getLongs(String name) {
+        return getLongs(metadata.getFirstIdx(name));
+    }
+
+    /**
+     * Decodes the {@code i}th column as an array of Java {@code double}s.
+     * <p/>
+     * This method uses the {@link CodecRegistry} to find a codec to convert the underlying CQL type to a Java
+     * {@code double} (for CQL type {@code double}, this will be the built-in codec).
+     *
+     * @param i the index ({@code 0 <= i < getColumnDefinitions().size()}) of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code 0.0}.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index.
+     * @throws CodecNotFoundException    if there is no registered codec to convert the column's CQL type to a Java double.
+     */
+    public double[] getDoubles(int i) {
+        TypeCodec<Double> codec = codecFor(i, Double.class);
+        double[] values = new double[rows.length];
+        if (codec instanceof TypeCodec.PrimitiveDoubleCodec) {
+            TypeCodec.PrimitiveDoubleCodec primitiveCodec = (TypeCodec.PrimitiveDoubleCodec) codec;
+            for (int row = 0; row < rows.length; row++)
+                values[row] = primitiveCodec.deserializeNoBoxing(rows[row].get(i), protocolVersion);
+        } else {
+            for (int row = 0; row < rows.length; row++) {
+                Double value = codec.deserialize(rows[row].get(i), protocolVersion);
+                values[row] = value == null ? 0.0 : value;
+            }
+        }
+        return values;
+    }
+
+    /**
+     * Decodes the column named {@code name} as an array of Java {@code double}s.
+     *
+     * @param name the name of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code 0.0}.
+     * @throws IllegalArgumentException if {@code name} is not part of the columns of this batch.
+     * @throws CodecNotFoundException   if there is no registered codec to convert the column's CQL type to a Java double.
+     * @see #getDoubles(int)
+     */
+    public double[] getDoubles(String name) {
+        return getDoubles(metadata.getFirstIdx(name));
+    }
+
+    /**
+     * Decodes the {@code i}th column as an array of Java {@code String}s.
+     * <p/>
+     * This method uses the {@link CodecRegistry} to find a codec to convert the underlying CQL type to a Java
+     * {@code String} (for CQL types {@code text}, {@code varchar} and {@code ascii}, this will be the built-in codec).
+     *
+     * @param i the index ({@code 0 <= i < getColumnDefinitions().size()}) of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code null}.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index.
+     * @throws CodecNotFoundException    if there is no registered codec to convert the column's CQL type to a Java String.
+     */
+    public String[] getStrings(int i) {
+        TypeCodec<String> codec = codecFor(i, String.class);
+        String[] values = new String[rows.length];
+        for (int row = 0; row < rows.length; row++)
+            values[row] = codec.deserialize(rows[row].get(i), protocolVersion);
+        return values;
+    }
+
+    /**
+     * Decodes the column named {@code name} as an array of Java {@code String}s.
+     *
+     * @param name the name of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code null}.
+     * @throws IllegalArgumentException if {@code name} is not part of the columns of this batch.
+     * @throws CodecNotFoundException   if there is no registered codec to convert the column's CQL type to a Java String.
+     * @see #getStrings(int)
+     */
+    public String[] getStrings(String name) {
+        return getStrings(metadata.getFirstIdx(name));
+    }
+
+    /**
+     * Returns the raw, serialized values of the {@code i}th column.
+     * <p/>
+     * The returned buffers are shared with this batch; clients should not modify their position or limit.
+     *
+     * @param i the index ({@code 0 <= i < getColumnDefinitions().size()}) of the column.
+     * @return the values of the column, indexed by row. {@code null} values are returned as {@code null}.
+     * @throws IndexOutOfBoundsException if {@code i} is not a valid index.
+     */
+    public ByteBuffer[] getBytesUnsafe(int i) {
+        checkColumn(i);
+        ByteBuffer[] values = new ByteBuffer[rows.length];
+        for (int row = 0; row < rows.length; row++)
+            values[row] = rows[row].get(i);
+        return values;
+    }
+
+    private <T> TypeCodec<T> codecFor(int i, Class<T> javaType) {
+        checkColumn(i);
+        return metadata.codecRegistry.codecFor(metadata.getType(i), javaType);
+    }
+
+    private void checkColumn(int i) {
+        if (i < 0 || i >= metadata.size())
+            throw new IndexOutOfBoundsException(String.format("Column index %d out of bounds (%d columns)", i, metadata.size()));
+    }
+
+    @Override
+    public String toString() {
+        return "ColumnBatch[" + rows.length + " rows, " + metadata + ']';
+    }
+}
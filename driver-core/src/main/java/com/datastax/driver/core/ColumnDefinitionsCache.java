@@ -0,0 +1,139 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A bounded cache of the column definitions decoded from ROWS responses, indexed by the raw bytes of the column
+ * specifications.
+ * <p/>
+ * Responses to the same query (or to successive pages of it) carry identical metadata; when it is found in the cache,
+ * the response decoder only skips over the bytes instead of decoding names and types and building a new
+ * {@link ColumnDefinitions}. Since the whole serialized form (including the definitions of user types) is compared,
+ * a schema change produces different bytes and therefore a different entry.
+ * <p/>
+ * The cache is a fixed-size table indexed by the hash of the bytes; a new entry replaces the one in its slot. Entries
+ * are immutable, so the table is read and written without synchronization.
+ */
+class ColumnDefinitionsCache {
+
+    static final ColumnDefinitionsCache INSTANCE = create(
+            SystemProperties.getInt("com.datastax.driver.RESULT_METADATA_CACHE_SIZE", 256));
+
+    // Metadata larger than this is not worth keeping
+    private static final int MAX_ENTRY_BYTES = 16 * 1024;
+
+    private final Entry[] entries;
+    private final int mask;
+
+    private static ColumnDefinitionsCache create(int size) {
+        return size <= 0 ? null : new ColumnDefinitionsCache(size);
+    }
+
+    ColumnDefinitionsCache(int size) {
+        int capacity = Integer.highestOneBit(Math.min(size, 1 << 20));
+        if (capacity < size)
+            capacity <<= 1;
+        this.entries = new Entry[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * Decodes the column specifications that start at the reader index of {@code body}, or returns the cached
+     * definitions if the same bytes were decoded before. In both cases, the reader index is advanced past the
+     * specifications.
+     */
+    ColumnDefinitions decode(ByteBuf body, int columnCount, boolean globalTablesSpec,
+                             ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
+        int start = body.readerIndex();
+        skip(body, columnCount, globalTablesSpec);
+        int length = body.readerIndex() - start;
+        if (length > MAX_ENTRY_BYTES) {
+            body.readerIndex(start);
+            return Responses.Result.Rows.Metadata.decodeColumns(body, columnCount, globalTablesSpec, protocolVersion, codecRegistry);
+        }
+
+        int hash = hash(body, start, length);
+        int slot = (hash ^ (hash >>> 16)) & mask;
+        Entry entry = entries[slot];
+        if (entry != null && entry.matches(hash, body, start, length, columnCount, globalTablesSpec, protocolVersion, codecRegistry))
+            return entry.columns;
+
+        body.readerIndex(start);
+        ColumnDefinitions columns = Responses.Result.Rows.Metadata.decodeColumns(body, columnCount, globalTablesSpec, protocolVersion, codecRegistry);
+        byte[] bytes = new byte[length];
+        body.getBytes(start, bytes);
+        entries[slot] = new Entry(bytes, hash, columnCount, globalTablesSpec, protocolVersion, codecRegistry, columns);
+        return columns;
+    }
+
+    private static void skip(ByteBuf body, int columnCount, boolean globalTablesSpec) {
+        if (globalTablesSpec) {
+            CBUtil.skipString(body);
+            CBUtil.skipString(body);
+        }
+        for (int i = 0; i < columnCount; i++) {
+            if (!globalTablesSpec) {
+                CBUtil.skipString(body);
+                CBUtil.skipString(body);
+            }
+            CBUtil.skipString(body);
+            DataType.skip(body);
+        }
+    }
+
+    private static int hash(ByteBuf body, int start, int length) {
+        int hash = 1;
+        for (int i = start; i < start + length; i++)
+            hash = 31 * hash + body.getByte(i);
+        return hash;
+    }
+
+    private static class Entry {
+        final byte[] bytes;
+        final int hash;
+        final int columnCount;
+        final boolean globalTablesSpec;
+        final ProtocolVersion protocolVersion;
+        final CodecRegistry codecRegistry;
+        final ColumnDefinitions columns;
+
+        Entry(byte[] bytes, int hash, int columnCount, boolean globalTablesSpec,
+              ProtocolVersion protocolVersion, CodecRegistry codecRegistry, ColumnDefinitions columns) {
+            this.bytes = bytes;
+            this.hash = hash;
+            this.columnCount = columnCount;
+            this.globalTablesSpec = globalTablesSpec;
+            this.protocolVersion = protocolVersion;
+            this.codecRegistry = codecRegistry;
+            this.columns = columns;
+        }
+
+        boolean matches(int hash, ByteBuf body, int start, int length, int columnCount, boolean globalTablesSpec,
+                        ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
+            if (this.hash != hash || bytes.length != length
+                    || this.columnCount != columnCount || this.globalTablesSpec != globalTablesSpec
+                    || this.protocolVersion != protocolVersion || this.codecRegistry != codecRegistry)
+                return false;
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != body.getByte(start + i))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
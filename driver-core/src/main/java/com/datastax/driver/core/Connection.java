@@ -19,6 +19,7 @@ import com.datastax.driver.core.Responses.Result.SetKeyspace;
 import com.datastax.driver.core.exceptions.*;
 import com.datastax.driver.core.utils.MoreFutures;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Function;
 import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
 import com.google.common.util.concurrent.*;
@@ -87,6 +88,10 @@ class Connection {
     private volatile String keyspace;
 
     private volatile boolean isInitialized;
+
+    // Start of the handshake and of its current phase, see Metrics.Handshake
+    private volatile long handshakeStart;
+    private volatile long handshakePhaseStart;
     private final AtomicBoolean isDefunct = new AtomicBoolean();
     private final AtomicBoolean signaled = new AtomicBoolean();
 
@@ -126,6 +131,7 @@ class Connection {
         ProtocolVersion protocolVersion = factory.protocolVersion == null ? ProtocolVersion.NEWEST_SUPPORTED : factory.protocolVersion;
         final SettableFuture<Void> channelReadyFuture = SettableFuture.create();
 
+        handshakeStart = handshakePhaseStart = System.nanoTime();
         try {
             Bootstrap bootstrap = factory.newBootstrap();
             ProtocolOptions protocolOptions = factory.configuration.getProtocolOptions();
@@ -133,7 +139,9 @@ class Connection {
                     new Initializer(this, protocolVersion, protocolOptions.getCompression().compressor(), protocolOptions.getSSLOptions(),
                             factory.configuration.getPoolingOptions().getHeartbeatIntervalSeconds(),
                             factory.configuration.getNettyOptions(),
-                            factory.configuration.getCodecRegistry()));
+                            factory.configuration.getCodecRegistry(),
+                            factory.manager.decodingExecutor,
+                            factory.configuration.getQueryOptions().getLargeResponseDecodingThreshold()));
 
             ChannelFuture future = bootstrap.connect(address);
 
@@ -158,6 +166,7 @@ class Connection {
                             channelReadyFuture.setException(new TransportException(Connection.this.address, "Cannot connect", future.cause()));
                         } else {
                             logger.debug("{} Connection established, initializing transport", Connection.this);
+                            recordHandshakePhase(HandshakePhase.CONNECT);
                             channel.closeFuture().addListener(new ChannelCloseListener());
                             channelReadyFuture.set(null);
                         }
@@ -235,9 +244,10 @@ class Connection {
         return new AsyncFunction<Message.Response, Void>() {
             @Override
             public ListenableFuture<Void> apply(Message.Response response) throws Exception {
+                recordHandshakePhase(HandshakePhase.STARTUP);
                 switch (response.type) {
                     case READY:
-                        return checkClusterName(protocolVersion, initExecutor);
+                        return finishHandshake(protocolVersion, initExecutor, false);
                     case ERROR:
                         Responses.Error error = (Responses.Error) response;
                         // Testing for a specific string is a tad fragile but well, we don't have much choice
@@ -270,17 +280,75 @@ class Connection {
         };
     }
 
+    // Called once the connection is ready to accept queries (after authentication if required).
+    // The steps that follow are independent, so they can be sent together.
+    private ListenableFuture<Void> finishHandshake(ProtocolVersion protocolVersion, Executor executor, boolean authenticated) {
+        if (authenticated)
+            recordHandshakePhase(HandshakePhase.AUTHENTICATION);
+
+        List<ListenableFuture<Void>> steps = Lists.newArrayListWithCapacity(2);
+        steps.add(checkClusterName(protocolVersion, executor));
+        if (factory.configuration.getPoolingOptions().isFastHandshakeEnabled()) {
+            Owner owner = ownerRef.get();
+            String keyspace = (owner instanceof HostConnectionPool)
+                    ? ((HostConnectionPool) owner).manager.poolsState.keyspace
+                    : null;
+            if (keyspace != null)
+                steps.add(trySetKeyspace(keyspace, executor));
+        }
+        return Futures.transform(Futures.allAsList(steps), new Function<List<Void>, Void>() {
+            @Override
+            public Void apply(List<Void> input) {
+                recordHandshakePhase(HandshakePhase.FINALIZATION);
+                recordHandshakePhase(HandshakePhase.TOTAL);
+                markInitialized();
+                return null;
+            }
+        }, executor);
+    }
+
+    private enum HandshakePhase {CONNECT, STARTUP, AUTHENTICATION, FINALIZATION, TOTAL}
+
+    private void recordHandshakePhase(HandshakePhase phase) {
+        long now = System.nanoTime();
+        Metrics metrics = factory.manager.metrics;
+        if (metrics != null) {
+            Metrics.Handshake handshake = metrics.getHandshakeMetrics();
+            switch (phase) {
+                case CONNECT:
+                    handshake.getConnectTimer().update(now - handshakePhaseStart, TimeUnit.NANOSECONDS);
+                    break;
+                case STARTUP:
+                    handshake.getStartupTimer().update(now - handshakePhaseStart, TimeUnit.NANOSECONDS);
+                    break;
+                case AUTHENTICATION:
+                    handshake.getAuthenticationTimer().update(now - handshakePhaseStart, TimeUnit.NANOSECONDS);
+                    break;
+                case FINALIZATION:
+                    handshake.getFinalizationTimer().update(now - handshakePhaseStart, TimeUnit.NANOSECONDS);
+                    break;
+                case TOTAL:
+                    handshake.getTotalTimer().update(now - handshakeStart, TimeUnit.NANOSECONDS);
+                    break;
+            }
+        }
+        handshakePhaseStart = now;
+    }
+
     // Due to C* gossip bugs, system.peers may report nodes that are gone from the cluster.
     // If these nodes have been recommissionned to another cluster and are up, nothing prevents the driver from connecting
     // to them. So we check that the cluster the node thinks it belongs to is our cluster (JAVA-397).
+    // With the fast handshake, this is only checked by the first connection to the host after it comes up.
     private ListenableFuture<Void> checkClusterName(ProtocolVersion protocolVersion, final Executor executor) {
         final String expected = factory.manager.metadata.clusterName;
 
         // At initialization, the cluster is not known yet
-        if (expected == null) {
-            markInitialized();
+        if (expected == null)
+            return MoreFutures.VOID_SUCCESS;
+
+        final Host host = factory.manager.metadata.getHost(address);
+        if (factory.configuration.getPoolingOptions().isFastHandshakeEnabled() && host != null && host.clusterNameChecked)
             return MoreFutures.VOID_SUCCESS;
-        }
 
         DefaultResultSetFuture clusterNameFuture = new DefaultResultSetFuture(null, protocolVersion, new Requests.Query("select cluster_name from system.local"));
         try {
@@ -293,7 +361,8 @@ class Connection {
                             String actual = row.getString("cluster_name");
                             if (!expected.equals(actual))
                                 throw new ClusterNameMismatchException(address, actual, expected);
-                            markInitialized();
+                            if (host != null)
+                                host.clusterNameChecked = true;
                             return MoreFutures.VOID_SUCCESS;
                         }
                     }, executor);
@@ -302,6 +371,29 @@ class Connection {
         }
     }
 
+    // Unlike setKeyspaceAsync, an error does not fail the handshake: the keyspace might be invalid or dropped,
+    // and that must only fail the requests (the pool sets the keyspace again when the connection is borrowed).
+    private ListenableFuture<Void> trySetKeyspace(final String keyspace, Executor executor) {
+        logger.trace("{} Setting keyspace {} during handshake", this, keyspace);
+        Future future;
+        try {
+            future = write(new Requests.Query("USE \"" + keyspace + '"'));
+        } catch (Exception e) {
+            return Futures.immediateFailedFuture(e);
+        }
+        return Futures.transform(future, new Function<Message.Response, Void>() {
+            @Override
+            public Void apply(Message.Response response) {
+                if (response instanceof SetKeyspace)
+                    Connection.this.keyspace = ((SetKeyspace) response).keyspace;
+                else
+                    logger.debug("{} Could not set keyspace {} during handshake, will retry on first use: {}",
+                            Connection.this, keyspace, response);
+                return null;
+            }
+        }, executor);
+    }
+
     private void markInitialized() {
         isInitialized = true;
         Host.statesLogger.debug("[{}] {} Transport initialized, connection ready", address, this);
@@ -317,7 +409,7 @@ class Connection {
                         public ListenableFuture<Void> apply(Message.Response authResponse) throws Exception {
                             switch (authResponse.type) {
                                 case READY:
-                                    return checkClusterName(protocolVersion, executor);
+                                    return finishHandshake(protocolVersion, executor, true);
                                 case ERROR:
                                     throw new AuthenticationException(address, ((Responses.Error) authResponse).message);
                                 default:
@@ -351,14 +443,14 @@ class Connection {
                     case AUTH_SUCCESS:
                         logger.trace("{} Authentication complete", this);
                         authenticator.onAuthenticationSuccess(((Responses.AuthSuccess) authResponse).token);
-                        return checkClusterName(protocolVersion, executor);
+                        return finishHandshake(protocolVersion, executor, true);
                     case AUTH_CHALLENGE:
                         byte[] responseToServer = authenticator.evaluateChallenge(((Responses.AuthChallenge) authResponse).token);
                         if (responseToServer == null) {
                             // If we generate a null response, then authentication has completed, proceed without
                             // sending a further response back to the server.
                             logger.trace("{} Authentication complete (No response to server)", this);
-                            return checkClusterName(protocolVersion, executor);
+                            return finishHandshake(protocolVersion, executor, true);
                         } else {
                             // Otherwise, send the challenge response back to the server
                             logger.trace("{} Sending Auth response to challenge", this);
@@ -1291,14 +1383,19 @@ class Connection {
         private final NettyOptions nettyOptions;
         private final ChannelHandler idleStateHandler;
         private final CodecRegistry codecRegistry;
+        private final Executor decodingExecutor;
+        private final int decodingThreshold;
 
-        Initializer(Connection connection, ProtocolVersion protocolVersion, FrameCompressor compressor, SSLOptions sslOptions, int heartBeatIntervalSeconds, NettyOptions nettyOptions, CodecRegistry codecRegistry) {
+        Initializer(Connection connection, ProtocolVersion protocolVersion, FrameCompressor compressor, SSLOptions sslOptions, int heartBeatIntervalSeconds, NettyOptions nettyOptions, CodecRegistry codecRegistry,
+                    Executor decodingExecutor, int decodingThreshold) {
             this.connection = connection;
             this.protocolVersion = protocolVersion;
             this.compressor = compressor;
             this.sslOptions = sslOptions;
             this.nettyOptions = nettyOptions;
             this.codecRegistry = codecRegistry;
+            this.decodingExecutor = decodingExecutor;
+            this.decodingThreshold = decodingThreshold;
             this.idleStateHandler = new IdleStateHandler(0, 0, heartBeatIntervalSeconds);
         }
 
@@ -1324,7 +1421,10 @@ class Connection {
                 pipeline.addLast("frameCompressor", new Frame.Compressor(compressor));
             }
 
-            pipeline.addLast("messageDecoder", messageDecoder);
+            if (decodingExecutor != null && decodingThreshold >= 0)
+                pipeline.addLast("messageDecoder", new Message.OffloadingProtocolDecoder(decodingExecutor, decodingThreshold));
+            else
+                pipeline.addLast("messageDecoder", messageDecoder);
             pipeline.addLast("messageEncoder", messageEncoderFor(protocolVersion));
 
             pipeline.addLast("idleStateHandler", idleStateHandler);
@@ -19,6 +19,7 @@ import com.datastax.driver.core.exceptions.*;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Objects;
 import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -26,8 +27,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.net.UnknownHostException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ExecutionException;
-import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicReference;
 
 import static com.datastax.driver.core.SchemaElement.KEYSPACE;
@@ -51,8 +52,11 @@ class ControlConnection implements Connection.Owner {
     private static final String SELECT_PEERS = "SELECT * FROM system.peers";
     private static final String SELECT_LOCAL = "SELECT * FROM system.local WHERE key='local'";
 
-    private static final String SELECT_SCHEMA_PEERS = "SELECT peer, rpc_address, schema_version FROM system.peers";
-    private static final String SELECT_SCHEMA_LOCAL = "SELECT schema_version FROM system.local WHERE key='local'";
+    // Used by incremental node list refreshes, see QueryOptions#setIncrementalNodeListRefreshEnabled
+    private static final String SELECT_PEERS_IDENTITY = "SELECT peer, rpc_address, host_id, data_center, rack, release_version FROM system.peers";
+
+    static final String SELECT_SCHEMA_PEERS = "SELECT peer, rpc_address, schema_version FROM system.peers";
+    static final String SELECT_SCHEMA_LOCAL = "SELECT schema_version FROM system.local WHERE key='local'";
 
     @VisibleForTesting
     final AtomicReference<Connection> connectionRef = new AtomicReference<Connection>();
@@ -63,6 +67,15 @@ class ControlConnection implements Connection.Owner {
 
     private volatile boolean isShutdown;
 
+    // What the last node list refresh read about each peer, to perform incremental refreshes.
+    // Only valid for the connection it was read from (peerSnapshotConnection).
+    private volatile Map<InetSocketAddress, PeerInfo> peerSnapshot = Collections.emptyMap();
+    private volatile Connection peerSnapshotConnection;
+    // Peers whose tokens changed since the last refresh
+    private final Set<InetSocketAddress> movedPeers = Collections.newSetFromMap(new ConcurrentHashMap<InetSocketAddress, Boolean>());
+
+    private final Set<SchemaAgreementWaiter> schemaAgreementWaiters = Collections.newSetFromMap(new ConcurrentHashMap<SchemaAgreementWaiter, Boolean>());
+
     public ControlConnection(Cluster.Manager manager) {
         this.cluster = manager;
     }
@@ -364,7 +377,7 @@ class ControlConnection implements Connection.Owner {
         }
     }
 
-    private static InetSocketAddress rpcAddressForPeerHost(Row peersRow, InetSocketAddress connectedHost, Cluster.Manager cluster) {
+    static InetSocketAddress rpcAddressForPeerHost(Row peersRow, InetSocketAddress connectedHost, Cluster.Manager cluster) {
 
         // after CASSANDRA-9436, system.peers contains the following inet columns:
         // - peer: this is actually broadcast_address
@@ -533,15 +546,26 @@ class ControlConnection implements Connection.Owner {
             cluster.loadBalancingPolicy().onAdd(host);
     }
 
-    private static void refreshNodeListAndTokenMap(Connection connection, Cluster.Manager cluster, boolean isInitialConnection, boolean logInvalidPeers) throws ConnectionException, BusyConnectionException, ExecutionException, InterruptedException {
-        logger.debug("[Control connection] Refreshing node list and token map");
+    /**
+     * Signals that the tokens of a peer changed, so that the next incremental node list refresh
+     * reads them again.
+     */
+    void onPeerMoved(InetSocketAddress address) {
+        movedPeers.add(address);
+    }
+
+    private void refreshNodeListAndTokenMap(Connection connection, Cluster.Manager cluster, boolean isInitialConnection, boolean logInvalidPeers) throws ConnectionException, BusyConnectionException, ExecutionException, InterruptedException {
+        boolean incremental = !isInitialConnection
+                && cluster.configuration.getQueryOptions().isIncrementalNodeListRefreshEnabled()
+                && peerSnapshotConnection == connection;
+        logger.debug("[Control connection] Refreshing node list and token map{}", incremental ? " (incremental)" : "");
 
         boolean metadataEnabled = cluster.configuration.getQueryOptions().isMetadataEnabled();
 
         // Make sure we're up to date on nodes and tokens
 
         DefaultResultSetFuture localFuture = new DefaultResultSetFuture(null, cluster.protocolVersion(), new Requests.Query(SELECT_LOCAL));
-        DefaultResultSetFuture peersFuture = new DefaultResultSetFuture(null, cluster.protocolVersion(), new Requests.Query(SELECT_PEERS));
+        DefaultResultSetFuture peersFuture = new DefaultResultSetFuture(null, cluster.protocolVersion(), new Requests.Query(incremental ? SELECT_PEERS_IDENTITY : SELECT_PEERS));
         connection.write(localFuture);
         connection.write(peersFuture);
 
@@ -590,8 +614,16 @@ class ControlConnection implements Connection.Owner {
         List<Boolean> dseGraphEnabled = new ArrayList<Boolean>();
         List<String> dseWorkloads = new ArrayList<String>();
 
-        for (Row row : peersFuture.get()) {
-            if (!isValidPeer(row, logInvalidPeers))
+        Set<InetSocketAddress> refreshedMovedPeers = new HashSet<InetSocketAddress>(movedPeers);
+        Iterable<Row> peerRows = incremental
+                ? fetchChangedPeers(connection, peersFuture.get(), refreshedMovedPeers, cluster)
+                : peersFuture.get();
+        Map<InetSocketAddress, PeerInfo> newPeerSnapshot = new HashMap<InetSocketAddress, PeerInfo>();
+
+        for (Row row : peerRows) {
+            // Rows of unchanged peers only contain their identity, they were validated when they were first read
+            boolean isFullRow = row.getColumnDefinitions().contains("tokens");
+            if (isFullRow && !isValidPeer(row, logInvalidPeers))
                 continue;
 
             InetSocketAddress rpcAddress = rpcAddressForPeerHost(row, connection.address, cluster);
@@ -602,14 +634,19 @@ class ControlConnection implements Connection.Owner {
             racks.add(row.getString("rack"));
             cassandraVersions.add(row.getString("release_version"));
             broadcastAddresses.add(row.getInet("peer"));
-            if (metadataEnabled && factory != null) {
+            Set<Token> tokens = null;
+            if (!isFullRow) {
+                tokens = peerSnapshot.get(rpcAddress).tokens;
+            } else if (metadataEnabled && factory != null) {
                 Set<String> tokensStr = row.getSet("tokens", String.class);
-                Set<Token> tokens = null;
                 if (!tokensStr.isEmpty()) {
                     tokens = toTokens(factory, tokensStr);
                 }
-                allTokens.add(tokens);
             }
+            if (metadataEnabled && factory != null)
+                allTokens.add(tokens);
+            UUID hostId = row.getColumnDefinitions().contains("host_id") ? row.getUUID("host_id") : null;
+            newPeerSnapshot.put(rpcAddress, new PeerInfo(hostId, tokens));
             InetAddress listenAddress = row.getColumnDefinitions().contains("listen_address") ? row.getInet("listen_address") : null;
             listenAddresses.add(listenAddress);
             String dseWorkload = row.getColumnDefinitions().contains("workload") ? row.getString("workload") : null;
@@ -667,6 +704,63 @@ class ControlConnection implements Connection.Owner {
 
         if (metadataEnabled && factory != null && !tokenMap.isEmpty())
             cluster.metadata.rebuildTokenMap(factory, tokenMap);
+
+        peerSnapshot = newPeerSnapshot;
+        peerSnapshotConnection = connection;
+        movedPeers.removeAll(refreshedMovedPeers);
+    }
+
+    /**
+     * Given the identity rows of all peers, returns the rows to process for an incremental refresh:
+     * the identity rows of unchanged peers, and the full rows of the other ones.
+     */
+    private Iterable<Row> fetchChangedPeers(Connection connection, ResultSet identityRows, Set<InetSocketAddress> movedPeers, Cluster.Manager cluster) throws ConnectionException, BusyConnectionException, ExecutionException, InterruptedException {
+        List<Row> rows = new ArrayList<Row>();
+        List<InetAddress> changedPeers = new ArrayList<InetAddress>();
+        for (Row row : identityRows) {
+            InetSocketAddress rpcAddress = rpcAddressForPeerHost(row, connection.address, cluster);
+            PeerInfo previous = rpcAddress == null ? null : peerSnapshot.get(rpcAddress);
+            UUID hostId = row.getUUID("host_id");
+            if (previous != null && hostId != null && hostId.equals(previous.hostId) && !movedPeers.contains(rpcAddress))
+                rows.add(row);
+            else if (row.getInet("peer") != null)
+                changedPeers.add(row.getInet("peer"));
+        }
+        if (changedPeers.isEmpty())
+            return rows;
+
+        // If most peers changed, a single full scan is cheaper than individual queries
+        if (changedPeers.size() * 2 > rows.size() + changedPeers.size()) {
+            logger.debug("[Control connection] {} peers changed, reading the full peers table", changedPeers.size());
+            DefaultResultSetFuture future = new DefaultResultSetFuture(null, cluster.protocolVersion(), new Requests.Query(SELECT_PEERS));
+            connection.write(future);
+            return future.get();
+        }
+
+        logger.debug("[Control connection] Reading full rows of changed peers {}", changedPeers);
+        List<DefaultResultSetFuture> futures = new ArrayList<DefaultResultSetFuture>(changedPeers.size());
+        for (InetAddress peer : changedPeers) {
+            DefaultResultSetFuture future = new DefaultResultSetFuture(null, cluster.protocolVersion(), new Requests.Query(SELECT_PEERS + " WHERE peer='" + peer.getHostAddress() + '\''));
+            connection.write(future);
+            futures.add(future);
+        }
+        for (DefaultResultSetFuture future : futures) {
+            Row row = future.get().one();
+            // the peer might have been removed in the meantime
+            if (row != null)
+                rows.add(row);
+        }
+        return rows;
+    }
+
+    private static class PeerInfo {
+        final UUID hostId;
+        final Set<Token> tokens;
+
+        PeerInfo(UUID hostId, Set<Token> tokens) {
+            this.hostId = hostId;
+            this.tokens = tokens;
+        }
     }
 
     private static Set<Token> toTokens(Token.Factory factory, Set<String> tokensStr) {
@@ -717,22 +811,33 @@ class ControlConnection implements Connection.Owner {
             sb.append(", ").append(columnName).append("=null");
     }
 
-    static boolean waitForSchemaAgreement(Connection connection, Cluster.Manager cluster) throws ConnectionException, BusyConnectionException, ExecutionException, InterruptedException {
-        long start = System.nanoTime();
-        long elapsed = 0;
-        int maxSchemaAgreementWaitSeconds = cluster.configuration.getProtocolOptions().getMaxSchemaAgreementWaitSeconds();
-        while (elapsed < maxSchemaAgreementWaitSeconds * 1000) {
-
-            if (checkSchemaAgreement(connection, cluster))
-                return true;
-
-            // let's not flood the node too much
-            Thread.sleep(200);
+    static boolean waitForSchemaAgreement(Connection connection, Cluster.Manager cluster) throws ExecutionException, InterruptedException {
+        return cluster.controlConnection.waitForSchemaAgreementAsync(connection).get();
+    }
 
-            elapsed = Cluster.timeSince(start, TimeUnit.MILLISECONDS);
-        }
+    /**
+     * Waits until the hosts that are up agree on the schema version, querying them through the given connection.
+     *
+     * @return a future that completes with whether agreement was reached before
+     * {@link ProtocolOptions#getMaxSchemaAgreementWaitSeconds()}.
+     */
+    ListenableFuture<Boolean> waitForSchemaAgreementAsync(Connection connection) {
+        final SchemaAgreementWaiter waiter = new SchemaAgreementWaiter(connection, cluster);
+        schemaAgreementWaiters.add(waiter);
+        ListenableFuture<Boolean> future = waiter.start();
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                schemaAgreementWaiters.remove(waiter);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+        return future;
+    }
 
-        return false;
+    // Called on events that might end a schema disagreement
+    void onSchemaAgreementEvent() {
+        for (SchemaAgreementWaiter waiter : schemaAgreementWaiters)
+            waiter.checkNow();
     }
 
     private static boolean checkSchemaAgreement(Connection connection, Cluster.Manager cluster) throws InterruptedException, ExecutionException {
@@ -781,10 +886,12 @@ class ControlConnection implements Connection.Owner {
 
     public void onDown(Host host) {
         onHostGone(host);
+        onSchemaAgreementEvent();
     }
 
     public void onRemove(Host host) {
         onHostGone(host);
+        onSchemaAgreementEvent();
     }
 
     private void onHostGone(Host host) {
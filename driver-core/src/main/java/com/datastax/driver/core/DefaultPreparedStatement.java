@@ -41,6 +41,7 @@ public class DefaultPreparedStatement implements PreparedStatement {
     volatile RetryPolicy retryPolicy;
     volatile ImmutableMap<String, ByteBuffer> outgoingPayload;
     volatile Boolean idempotent;
+    volatile ResultCacheOptions resultCacheOptions;
 
     private DefaultPreparedStatement(PreparedId id, String query, String queryKeyspace, Map<String, ByteBuffer> incomingPayload, Cluster cluster) {
         this.preparedId = id;
@@ -252,4 +253,21 @@ public class DefaultPreparedStatement implements PreparedStatement {
     public Boolean isIdempotent() {
         return this.idempotent;
     }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public PreparedStatement setResultCacheOptions(ResultCacheOptions options) {
+        this.resultCacheOptions = options;
+        return this;
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    @Override
+    public ResultCacheOptions getResultCacheOptions() {
+        return this.resultCacheOptions;
+    }
 }
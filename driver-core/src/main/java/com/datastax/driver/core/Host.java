@@ -55,6 +55,9 @@ public class Host {
     enum State {ADDED, DOWN, UP}
 
     volatile State state;
+
+    // Whether a connection already checked that this host belongs to our cluster, see Connection#checkClusterName
+    volatile boolean clusterNameChecked;
     /**
      * Ensures state change notifications for that host are handled serially
      */
@@ -384,6 +387,8 @@ public class Host {
 
     void setDown() {
         state = State.DOWN;
+        // the node might come back as a member of another cluster
+        clusterNameChecked = false;
     }
 
     void setUp() {
@@ -0,0 +1,181 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Set;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Delivers latency updates to the {@link LatencyTracker}s from a dedicated thread, so that slow trackers don't delay
+ * the I/O threads that complete requests.
+ * <p/>
+ * Updates are published in a bounded ring buffer, that supports multiple producers and a single consumer without
+ * locking. When the buffer is full, updates are dropped and counted.
+ *
+ * @see QueryOptions#setAsyncLatencyTrackerDispatch(boolean)
+ */
+class LatencyTrackerDispatcher {
+
+    private static final Logger logger = LoggerFactory.getLogger(LatencyTrackerDispatcher.class);
+
+    // How long the consumer waits when it finds the buffer empty; doubles while it stays empty, up to the maximum
+    private static final long MIN_IDLE_PARK_NANOS = TimeUnit.MICROSECONDS.toNanos(200);
+    private static final long MAX_IDLE_PARK_NANOS = TimeUnit.MILLISECONDS.toNanos(5);
+
+    private final Set<LatencyTracker> trackers;
+
+    private final AtomicReferenceArray<Update> buffer;
+    private final int mask;
+    private final AtomicLong producerIndex = new AtomicLong();
+    // Only written by the consumer thread
+    private volatile long consumerIndex;
+
+    private final AtomicLong droppedUpdates = new AtomicLong();
+
+    private final Thread consumer;
+    private volatile boolean stopped;
+
+    /**
+     * @param capacity the capacity of the buffer, rounded up to a power of two.
+     */
+    LatencyTrackerDispatcher(Set<LatencyTracker> trackers, int capacity, ThreadFactory threadFactory) {
+        this.trackers = trackers;
+        int size = Integer.highestOneBit(capacity) == capacity ? capacity : Integer.highestOneBit(capacity) << 1;
+        this.buffer = new AtomicReferenceArray<Update>(size);
+        this.mask = size - 1;
+        this.consumer = threadFactory.newThread(new Runnable() {
+            @Override
+            public void run() {
+                consume();
+            }
+        });
+        this.consumer.start();
+    }
+
+    /**
+     * Publishes an update; never blocks.
+     *
+     * @return whether the update was published, {@code false} if it was dropped because the buffer is full.
+     */
+    boolean publish(Host host, Statement statement, Exception exception, long latencyNanos) {
+        long index;
+        do {
+            index = producerIndex.get();
+            if (index - consumerIndex >= buffer.length()) {
+                droppedUpdates.incrementAndGet();
+                return false;
+            }
+        } while (!producerIndex.compareAndSet(index, index + 1));
+        buffer.lazySet((int) (index & mask), new Update(host, statement, exception, latencyNanos));
+        return true;
+    }
+
+    /**
+     * @return the number of updates waiting to be delivered.
+     */
+    int getPendingUpdates() {
+        return (int) Math.max(0, producerIndex.get() - consumerIndex);
+    }
+
+    /**
+     * @return the number of updates dropped because the buffer was full.
+     */
+    long getDroppedUpdates() {
+        return droppedUpdates.get();
+    }
+
+    /**
+     * Stops the consumer thread, after it has delivered the updates published so far.
+     */
+    void stop() {
+        stopped = true;
+        LockSupport.unpark(consumer);
+        try {
+            consumer.join(TimeUnit.SECONDS.toMillis(1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void consume() {
+        long parkNanos = MIN_IDLE_PARK_NANOS;
+        while (true) {
+            boolean wasStopped = stopped;
+            int delivered = drain();
+            if (delivered == 0) {
+                if (wasStopped)
+                    return;
+                LockSupport.parkNanos(parkNanos);
+                parkNanos = Math.min(parkNanos * 2, MAX_IDLE_PARK_NANOS);
+            } else {
+                parkNanos = MIN_IDLE_PARK_NANOS;
+            }
+        }
+    }
+
+    // Delivers all the updates that are currently published, returns how many
+    private int drain() {
+        long index = consumerIndex;
+        int delivered = 0;
+        while (true) {
+            int offset = (int) (index & mask);
+            Update update = buffer.get(offset);
+            if (update == null) {
+                // Either the buffer is empty, or a producer claimed the slot but has not written it yet
+                if (index == producerIndex.get())
+                    break;
+                Thread.yield();
+                continue;
+            }
+            buffer.lazySet(offset, null);
+            consumerIndex = ++index;
+            deliver(update);
+            delivered += 1;
+        }
+        return delivered;
+    }
+
+    private void deliver(Update update) {
+        for (LatencyTracker tracker : trackers) {
+            try {
+                tracker.update(update.host, update.statement, update.exception, update.latencyNanos);
+            } catch (Exception e) {
+                logger.warn("Unexpected error while delivering latency update to " + tracker, e);
+            }
+        }
+    }
+
+    private static class Update {
+        final Host host;
+        final Statement statement;
+        final Exception exception;
+        final long latencyNanos;
+
+        Update(Host host, Statement statement, Exception exception, long latencyNanos) {
+            this.host = host;
+            this.statement = statement;
+            this.exception = exception;
+            this.latencyNanos = latencyNanos;
+        }
+    }
+}
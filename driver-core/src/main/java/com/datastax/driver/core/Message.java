@@ -20,6 +20,8 @@ import com.datastax.driver.core.exceptions.UnsupportedFeatureException;
 import io.netty.buffer.ByteBuf;
 import io.netty.channel.ChannelHandler;
 import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.handler.codec.DecoderException;
 import io.netty.handler.codec.MessageToMessageDecoder;
 import io.netty.handler.codec.MessageToMessageEncoder;
 import io.netty.util.AttributeKey;
@@ -28,6 +30,8 @@ import org.slf4j.LoggerFactory;
 
 import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * A message from the CQL binary protocol.
@@ -130,6 +134,14 @@ abstract class Message {
             return tracingRequested;
         }
 
+        /**
+         * The total size of the values of this request that will not be copied into the frame body,
+         * but added to it as separate buffers (see {@link CBUtil#writeValue(ByteBuffer, ByteBuf)}).
+         */
+        int zeroCopySize() {
+            return 0;
+        }
+
         ConsistencyLevel consistency() {
             switch (this.type) {
                 case QUERY:
@@ -259,6 +271,13 @@ abstract class Message {
 
         @Override
         protected void decode(ChannelHandlerContext ctx, Frame frame, List<Object> out) throws Exception {
+            out.add(decodeResponse(frame, ctx.channel().attr(CODEC_REGISTRY_ATTRIBUTE_KEY).get()));
+        }
+
+        /**
+         * Decodes the response contained in a frame, and releases the frame's body.
+         */
+        static Response decodeResponse(Frame frame, CodecRegistry codecRegistry) {
             boolean isTracing = frame.header.flags.contains(Frame.Header.Flag.TRACING);
             boolean isCustomPayload = frame.header.flags.contains(Frame.Header.Flag.CUSTOM_PAYLOAD);
             UUID tracingId = isTracing ? CBUtil.readUUID(frame.body) : null;
@@ -272,7 +291,6 @@ abstract class Message {
             List<String> warnings = hasWarnings ? CBUtil.readStringList(frame.body) : Collections.<String>emptyList();
 
             try {
-                CodecRegistry codecRegistry = ctx.channel().attr(CODEC_REGISTRY_ATTRIBUTE_KEY).get();
                 assert codecRegistry != null;
                 Response response = Response.Type.fromOpcode(frame.header.opcode).decoder.decode(frame.body, frame.header.version, codecRegistry);
                 response
@@ -280,7 +298,7 @@ abstract class Message {
                         .setWarnings(warnings)
                         .setCustomPayload(customPayload)
                         .setStreamId(frame.header.streamId);
-                out.add(response);
+                return response;
             } finally {
                 frame.body.release();
             }
@@ -288,6 +306,109 @@ abstract class Message {
 
     }
 
+    /**
+     * A replacement for {@link ProtocolDecoder} that decodes large frames on a separate executor, in order not to
+     * block the I/O thread, which is shared with other connections.
+     * <p/>
+     * Responses are still passed to the next handler in the order of the frames, on the I/O thread: while a large
+     * frame is being decoded, the responses that follow it are decoded but held back until it completes.
+     * This handler is stateful, so each connection has its own instance.
+     */
+    static class OffloadingProtocolDecoder extends ChannelInboundHandlerAdapter {
+
+        private final Executor executor;
+        private final int threshold;
+
+        // Responses that can't be passed on yet, in order. Only accessed from the I/O thread.
+        private final Queue<PendingResponse> pending = new ArrayDeque<PendingResponse>();
+
+        OffloadingProtocolDecoder(Executor executor, int threshold) {
+            this.executor = executor;
+            this.threshold = threshold;
+        }
+
+        @Override
+        public void channelRead(final ChannelHandlerContext ctx, Object msg) throws Exception {
+            if (!(msg instanceof Frame)) {
+                ctx.fireChannelRead(msg);
+                return;
+            }
+            final Frame frame = (Frame) msg;
+            final CodecRegistry codecRegistry = ctx.channel().attr(CODEC_REGISTRY_ATTRIBUTE_KEY).get();
+
+            if (frame.body.readableBytes() < threshold) {
+                if (pending.isEmpty()) {
+                    ctx.fireChannelRead(decode(frame, codecRegistry));
+                } else {
+                    PendingResponse response = new PendingResponse();
+                    response.complete(frame, codecRegistry);
+                    pending.add(response);
+                }
+                return;
+            }
+
+            final PendingResponse response = new PendingResponse();
+            pending.add(response);
+            try {
+                executor.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        response.complete(frame, codecRegistry);
+                        try {
+                            ctx.executor().execute(new Runnable() {
+                                @Override
+                                public void run() {
+                                    drain(ctx);
+                                }
+                            });
+                        } catch (RejectedExecutionException e) {
+                            // The event loop is shutting down, the connection is gone anyway
+                        }
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // The executor is shutting down
+                response.complete(frame, codecRegistry);
+                drain(ctx);
+            }
+        }
+
+        private void drain(ChannelHandlerContext ctx) {
+            while (!pending.isEmpty() && pending.peek().done) {
+                PendingResponse response = pending.poll();
+                if (response.error != null)
+                    ctx.fireExceptionCaught(response.error);
+                else
+                    ctx.fireChannelRead(response.response);
+            }
+        }
+
+        private static Response decode(Frame frame, CodecRegistry codecRegistry) {
+            try {
+                return ProtocolDecoder.decodeResponse(frame, codecRegistry);
+            } catch (DecoderException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new DecoderException(e);
+            }
+        }
+
+        private static class PendingResponse {
+            Response response;
+            Throwable error;
+            volatile boolean done;
+
+            void complete(Frame frame, CodecRegistry codecRegistry) {
+                try {
+                    response = decode(frame, codecRegistry);
+                } catch (Throwable t) {
+                    error = t;
+                }
+                done = true;
+            }
+        }
+    }
+
     @ChannelHandler.Sharable
     static class ProtocolEncoder extends MessageToMessageEncoder<Request> {
 
@@ -319,7 +440,17 @@ abstract class Message {
                 payloadLength = CBUtil.sizeOfBytesMap(customPayload);
                 messageSize += payloadLength;
             }
-            ByteBuf body = ctx.alloc().buffer(messageSize);
+            int zeroCopySize = request.zeroCopySize();
+            if (customPayload != null)
+                zeroCopySize += CBUtil.sizeOfZeroCopyValues(customPayload.values());
+            ByteBuf body;
+            if (zeroCopySize > 0) {
+                // Large direct values will be inserted as components by CBUtil.writeValue, only allocate
+                // memory for the rest of the message. Never consolidate components, that would copy the values.
+                body = ctx.alloc().compositeBuffer(Integer.MAX_VALUE).capacity(messageSize - zeroCopySize);
+            } else {
+                body = ctx.alloc().buffer(messageSize);
+            }
             if (customPayload != null) {
                 CBUtil.writeBytesMap(customPayload, body);
                 if (logger.isTraceEnabled()) {
@@ -18,6 +18,9 @@ package com.datastax.driver.core;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.collect.Maps;
+import com.google.common.util.concurrent.FutureFallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -378,6 +381,30 @@ public class Metadata {
         }
     }
 
+    /**
+     * Waits until hosts that are currently up agree on the schema definition, without blocking the calling thread.
+     * <p/>
+     * The check is retried until agreement is reached or {@link Cluster.Builder#withMaxSchemaAgreementWaitSeconds(int)}
+     * elapses. Retries start with a short delay that grows progressively; schema and status events received by the
+     * driver trigger a retry immediately, so that the future completes as soon as agreement is reached.
+     *
+     * @return a future that completes with {@code true} if all hosts agree on the schema; {@code false} if they didn't
+     * agree within the maximum wait time, or if the check could not be performed (for example, if the control connection
+     * is down).
+     */
+    public ListenableFuture<Boolean> awaitSchemaAgreementAsync() {
+        Connection connection = cluster.controlConnection.connectionRef.get();
+        if (connection == null || connection.isClosed())
+            return Futures.immediateFuture(false);
+        return Futures.withFallback(cluster.controlConnection.waitForSchemaAgreementAsync(connection), new FutureFallback<Boolean>() {
+            @Override
+            public ListenableFuture<Boolean> create(Throwable t) {
+                logger.warn("Error while waiting for schema agreement", t);
+                return Futures.immediateFuture(false);
+            }
+        });
+    }
+
     /**
      * Returns the metadata of a keyspace given its name.
      *
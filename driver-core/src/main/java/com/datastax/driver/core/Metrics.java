@@ -39,8 +39,10 @@ public class Metrics {
     private final MetricRegistry registry = new MetricRegistry();
     private final JmxReporter jmxReporter;
     private final Errors errors = new Errors();
+    private final Handshake handshake = new Handshake();
 
     private final Timer requests = registry.timer("requests");
+    private final Counter coalescedRequests = registry.counter("coalesced-requests");
 
     private final Gauge<Integer> knownHosts = registry.register("known-hosts", new Gauge<Integer>() {
         @Override
@@ -92,6 +94,22 @@ public class Metrics {
         }
     });
 
+    private final Gauge<Integer> pendingLatencyUpdates = registry.register("latency-tracker-pending-updates", new Gauge<Integer>() {
+        @Override
+        public Integer getValue() {
+            LatencyTrackerDispatcher dispatcher = manager.latencyTrackerDispatcher;
+            return dispatcher == null ? 0 : dispatcher.getPendingUpdates();
+        }
+    });
+
+    private final Gauge<Long> droppedLatencyUpdates = registry.register("latency-tracker-dropped-updates", new Gauge<Long>() {
+        @Override
+        public Long getValue() {
+            LatencyTrackerDispatcher dispatcher = manager.latencyTrackerDispatcher;
+            return dispatcher == null ? 0L : dispatcher.getDroppedUpdates();
+        }
+    });
+
     private final Gauge<Integer> reconnectionSchedulerQueueSize = registry.register("reconnection-scheduler-task-count", new Gauge<Integer>() {
         @Override
         public Integer getValue() {
@@ -175,6 +193,19 @@ public class Metrics {
         return requests;
     }
 
+    /**
+     * Returns the number of user requests that were not sent to Cassandra because an
+     * identical read was already in flight.
+     * <p/>
+     * This is only incremented when {@link QueryOptions#setReadCoalescingEnabled(boolean)
+     * read coalescing} is enabled.
+     *
+     * @return a {@code Counter} metric object exposing the number of coalesced requests.
+     */
+    public Counter getCoalescedRequests() {
+        return coalescedRequests;
+    }
+
     /**
      * Returns an object grouping metrics related to the errors encountered.
      *
@@ -184,6 +215,15 @@ public class Metrics {
         return errors;
     }
 
+    /**
+     * Returns an object grouping metrics related to the initialization of new connections.
+     *
+     * @return an object grouping metrics related to connection handshakes.
+     */
+    public Handshake getHandshakeMetrics() {
+        return handshake;
+    }
+
     /**
      * Returns the number of Cassandra hosts currently known by the driver (that is
      * whether they are currently considered up or down).
@@ -241,6 +281,23 @@ public class Metrics {
         return blockingExecutorQueueDepth;
     }
 
+    /**
+     * @return The number of latency updates waiting to be delivered to the registered {@link LatencyTracker}s, when
+     * they are {@link QueryOptions#setAsyncLatencyTrackerDispatch(boolean) dispatched asynchronously}.
+     */
+    public Gauge<Integer> getPendingLatencyUpdates() {
+        return pendingLatencyUpdates;
+    }
+
+    /**
+     * @return The number of latency updates that were dropped instead of being delivered to the registered
+     * {@link LatencyTracker}s, because too many updates were waiting to be
+     * {@link QueryOptions#setAsyncLatencyTrackerDispatch(boolean) dispatched asynchronously}.
+     */
+    public Gauge<Long> getDroppedLatencyUpdates() {
+        return droppedLatencyUpdates;
+    }
+
     /**
      * @return The size of the work queue for the reconnection scheduler (Reconnection).  A queue size > 0 does not
      * necessarily indicate a backlog as some tasks may not have been scheduled to execute yet.
@@ -553,4 +610,70 @@ public class Metrics {
             return speculativeExecutions;
         }
     }
+
+    /**
+     * Metrics on the handshake of new connections, broken down by phase.
+     * <p/>
+     * A handshake goes through the following phases: opening the socket ({@link #getConnectTimer() connect}),
+     * sending the {@code STARTUP} message and waiting for the response, which includes the TLS handshake if
+     * SSL is enabled ({@link #getStartupTimer() startup}), the authentication exchanges if the server requires
+     * authentication ({@link #getAuthenticationTimer() authentication}), and finally checking the name of the
+     * cluster and, if {@link PoolingOptions#setFastHandshakeEnabled(boolean) the fast handshake} is enabled, setting the keyspace
+     * ({@link #getFinalizationTimer() finalization}).
+     */
+    public class Handshake {
+
+        private final Timer connect = registry.timer("handshake-connect");
+        private final Timer startup = registry.timer("handshake-startup");
+        private final Timer authentication = registry.timer("handshake-authentication");
+        private final Timer finalization = registry.timer("handshake-finalization");
+        private final Timer total = registry.timer("handshake-total");
+
+        /**
+         * Returns the time spent opening the socket of new connections.
+         *
+         * @return the connect phase timer.
+         */
+        public Timer getConnectTimer() {
+            return connect;
+        }
+
+        /**
+         * Returns the time spent between sending the {@code STARTUP} message and receiving its response.
+         *
+         * @return the startup phase timer.
+         */
+        public Timer getStartupTimer() {
+            return startup;
+        }
+
+        /**
+         * Returns the time spent authenticating new connections. This is only updated if the server
+         * requires authentication.
+         *
+         * @return the authentication phase timer.
+         */
+        public Timer getAuthenticationTimer() {
+            return authentication;
+        }
+
+        /**
+         * Returns the time spent checking the cluster name (and setting the keyspace, if the fast
+         * handshake is enabled) once the connection is ready.
+         *
+         * @return the finalization phase timer.
+         */
+        public Timer getFinalizationTimer() {
+            return finalization;
+        }
+
+        /**
+         * Returns the total time of successful handshakes.
+         *
+         * @return the total handshake timer.
+         */
+        public Timer getTotalTimer() {
+            return total;
+        }
+    }
 }
@@ -24,8 +24,11 @@ public class PerHostPercentileTracker extends PercentileTracker {
     private PerHostPercentileTracker(long highestTrackableLatencyMillis,
                                      int numberOfSignificantValueDigits,
                                      int minRecordedValues,
-                                     long intervalMs) {
-        super(highestTrackableLatencyMillis, numberOfSignificantValueDigits, minRecordedValues, intervalMs);
+                                     long intervalMs,
+                                     int subIntervals,
+                                     double decayFactor) {
+        super(highestTrackableLatencyMillis, numberOfSignificantValueDigits, minRecordedValues, intervalMs,
+                subIntervals, decayFactor);
     }
 
     @Override
@@ -62,7 +65,7 @@ public class PerHostPercentileTracker extends PercentileTracker {
         @Override
         public PerHostPercentileTracker build() {
             return new PerHostPercentileTracker(highestTrackableLatencyMillis, numberOfSignificantValueDigits,
-                    minRecordedValues, intervalMs);
+                    minRecordedValues, intervalMs, subIntervals, decayFactor);
         }
     }
 }
@@ -21,12 +21,14 @@ import com.google.common.util.concurrent.Futures;
 import com.google.common.util.concurrent.ListenableFuture;
 import com.google.common.util.concurrent.SettableFuture;
 import org.HdrHistogram.Histogram;
+import org.HdrHistogram.HistogramIterationValue;
 import org.HdrHistogram.Recorder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.Set;
 import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 import static com.google.common.base.Preconditions.checkArgument;
 import static java.util.concurrent.TimeUnit.*;
@@ -47,6 +49,11 @@ import static java.util.concurrent.TimeUnit.*;
  * histogram that is used when clients call {@link #getLatencyAtPercentile(Host, Statement, Exception, double)}. Each
  * time the cached histogram becomes older than the interval, the two histograms are switched. Statistics will not be
  * available during the first interval at cluster startup, since we don't have a cached histogram yet.
+ * <p/>
+ * Alternatively, the interval can be divided in sub-intervals (see {@link Builder#withSlidingWindow(int)}): the
+ * histograms of the last sub-intervals are kept, and the statistics are computed from their union, which is refreshed
+ * at the end of each sub-interval. This makes the statistics follow changes in latencies more closely, at the cost of a
+ * few more histograms per category.
  */
 public abstract class PercentileTracker implements LatencyTracker {
     private static final Logger logger = LoggerFactory.getLogger(PercentileTracker.class);
@@ -55,6 +62,8 @@ public abstract class PercentileTracker implements LatencyTracker {
     private final int numberOfSignificantValueDigits;
     private final int minRecordedValues;
     private final long intervalMs;
+    private final int subIntervals;
+    private final double decayFactor;
 
     // The "live" recorders: this is where we store the latencies received from the cluster
     private final ConcurrentMap<Object, Recorder> recorders;
@@ -62,6 +71,8 @@ public abstract class PercentileTracker implements LatencyTracker {
     // user requests them. Each histogram is valid for a given duration, when it gets stale we request a new one from
     // the corresponding recorder.
     private final ConcurrentMap<Object, CachedHistogram> cachedHistograms;
+    // Used instead of the two maps above if there is more than one sub-interval
+    private final ConcurrentMap<Object, SlidingWindow> slidingWindows;
 
     /**
      * Builds a new instance.
@@ -72,12 +83,33 @@ public abstract class PercentileTracker implements LatencyTracker {
                                 int numberOfSignificantValueDigits,
                                 int minRecordedValues,
                                 long intervalMs) {
+        this(highestTrackableLatencyMillis, numberOfSignificantValueDigits, minRecordedValues, intervalMs, 1, 1.0);
+    }
+
+    /**
+     * Builds a new instance.
+     *
+     * @see Builder
+     */
+    protected PercentileTracker(long highestTrackableLatencyMillis,
+                                int numberOfSignificantValueDigits,
+                                int minRecordedValues,
+                                long intervalMs,
+                                int subIntervals,
+                                double decayFactor) {
+        checkArgument(subIntervals >= 1 && subIntervals <= intervalMs,
+                "subIntervals must be between 1 and the interval in milliseconds (was %s)", subIntervals);
+        checkArgument(decayFactor > 0 && decayFactor <= 1,
+                "decayFactor must be between 0 (exclusive) and 1 (was %s)", decayFactor);
         this.highestTrackableLatencyMillis = highestTrackableLatencyMillis;
         this.numberOfSignificantValueDigits = numberOfSignificantValueDigits;
         this.minRecordedValues = minRecordedValues;
         this.intervalMs = intervalMs;
+        this.subIntervals = subIntervals;
+        this.decayFactor = decayFactor;
         this.recorders = new ConcurrentHashMap<Object, Recorder>();
         this.cachedHistograms = new ConcurrentHashMap<Object, CachedHistogram>();
+        this.slidingWindows = new ConcurrentHashMap<Object, SlidingWindow>();
     }
 
     /**
@@ -123,7 +155,9 @@ public abstract class PercentileTracker implements LatencyTracker {
     public long getLatencyAtPercentile(Host host, Statement statement, Exception exception, double percentile) {
         checkArgument(percentile >= 0.0 && percentile < 100,
                 "percentile must be between 0.0 and 100 (was %s)", percentile);
-        Histogram histogram = getLastIntervalHistogram(host, statement, exception);
+        Histogram histogram = (subIntervals > 1)
+                ? getSlidingWindowHistogram(host, statement, exception)
+                : getLastIntervalHistogram(host, statement, exception);
         if (histogram == null || histogram.getTotalCount() < minRecordedValues)
             return -1;
 
@@ -135,6 +169,17 @@ public abstract class PercentileTracker implements LatencyTracker {
         if (key == null)
             return null;
 
+        if (subIntervals > 1) {
+            SlidingWindow window = slidingWindows.get(key);
+            if (window == null) {
+                window = new SlidingWindow();
+                SlidingWindow old = slidingWindows.putIfAbsent(key, window);
+                if (old != null)
+                    window = old;
+            }
+            return window.recorder;
+        }
+
         Recorder recorder = recorders.get(key);
         if (recorder == null) {
             recorder = new Recorder(highestTrackableLatencyMillis, numberOfSignificantValueDigits);
@@ -193,6 +238,83 @@ public abstract class PercentileTracker implements LatencyTracker {
         }
     }
 
+    /**
+     * @return null if no histogram is available yet (no entries recorded, or not for long enough)
+     */
+    private Histogram getSlidingWindowHistogram(Host host, Statement statement, Exception exception) {
+        Object key = computeKey(host, statement, exception);
+        if (key == null)
+            return null;
+        SlidingWindow window = slidingWindows.get(key);
+        return (window == null) ? null : window.getHistogram();
+    }
+
+    /**
+     * The histograms of the last sub-intervals for a given key.
+     * <p/>
+     * Reads are lock-free: they return the last merged histogram. The first reader that notices that the current
+     * sub-interval is over rotates the window and publishes a new merged histogram; concurrent readers keep using the
+     * previous one in the meantime.
+     */
+    private class SlidingWindow {
+        final Recorder recorder = new Recorder(highestTrackableLatencyMillis, numberOfSignificantValueDigits);
+        final long subIntervalMs = intervalMs / subIntervals;
+
+        // Ring of the histograms of the last sub-intervals (null if nothing was recorded), only accessed while rotating
+        private final Histogram[] slices = new Histogram[subIntervals];
+        private int newest;
+
+        private final AtomicBoolean rotating = new AtomicBoolean();
+        private volatile long subIntervalStart = System.currentTimeMillis();
+        private volatile Histogram merged;
+
+        Histogram getHistogram() {
+            long now = System.currentTimeMillis();
+            if (now - subIntervalStart >= subIntervalMs && rotating.compareAndSet(false, true)) {
+                try {
+                    rotate(now);
+                } finally {
+                    rotating.set(false);
+                }
+            }
+            return merged;
+        }
+
+        private void rotate(long now) {
+            long elapsed = (now - subIntervalStart) / subIntervalMs;
+            // Sub-intervals that elapsed without any reads are empty: what was recorded during them is assigned to the
+            // most recent one.
+            for (long i = 1; i < Math.min(elapsed, subIntervals); i++) {
+                newest = (newest + 1) % subIntervals;
+                slices[newest] = null;
+            }
+            newest = (newest + 1) % subIntervals;
+            Histogram oldest = slices[newest];
+            slices[newest] = (oldest == null)
+                    ? recorder.getIntervalHistogram()
+                    : recorder.getIntervalHistogram(oldest);
+            subIntervalStart += elapsed * subIntervalMs;
+
+            Histogram newMerged = new Histogram(highestTrackableLatencyMillis, numberOfSignificantValueDigits);
+            for (int age = 0; age < subIntervals; age++) {
+                Histogram slice = slices[(newest - age + subIntervals) % subIntervals];
+                if (slice == null)
+                    continue;
+                if (decayFactor == 1.0) {
+                    newMerged.add(slice);
+                } else {
+                    double weight = Math.pow(decayFactor, age);
+                    for (HistogramIterationValue value : slice.recordedValues()) {
+                        long count = Math.round(value.getCountAtValueIteratedTo() * weight);
+                        if (count > 0)
+                            newMerged.recordValueWithCount(value.getValueIteratedTo(), count);
+                    }
+                }
+            }
+            merged = newMerged;
+        }
+    }
+
     /**
      * A histogram and the timestamp at which it was retrieved.
      * The data is only relevant for (timestamp + intervalMs); after that, the histogram is stale and we want to
@@ -269,6 +391,8 @@ public abstract class PercentileTracker implements LatencyTracker {
         protected int numberOfSignificantValueDigits = 3;
         protected int minRecordedValues = 1000;
         protected long intervalMs = MINUTES.toMillis(5);
+        protected int subIntervals = 1;
+        protected double decayFactor = 1.0;
 
         Builder(long highestTrackableLatencyMillis) {
             this.highestTrackableLatencyMillis = highestTrackableLatencyMillis;
@@ -331,6 +455,45 @@ public abstract class PercentileTracker implements LatencyTracker {
             return self();
         }
 
+        /**
+         * Divides the {@link #withInterval(long, TimeUnit) interval} into sub-intervals, in order to compute statistics
+         * over a sliding window.
+         * <p/>
+         * For each host, the histograms of the last {@code subIntervals} sub-intervals are kept, and
+         * {@link #getLatencyAtPercentile(Host, Statement, Exception, double)} uses their union, which is refreshed at
+         * the end of each sub-interval. For example, with an interval of 1 minute and 6 sub-intervals, statistics
+         * cover the last minute, and are updated every 10 seconds. Statistics become available at the end of the first
+         * sub-interval.
+         * <p/>
+         * If not set explicitly, this value defaults to 1, meaning that statistics are computed over the previous
+         * interval, and switched at the end of each interval.
+         *
+         * @param subIntervals the number of sub-intervals.
+         * @return this builder.
+         */
+        public B withSlidingWindow(int subIntervals) {
+            this.subIntervals = subIntervals;
+            return self();
+        }
+
+        /**
+         * Sets the weight of older sub-intervals, when {@link #withSlidingWindow(int) a sliding window} is used.
+         * <p/>
+         * The counts of each sub-interval are multiplied by {@code decayFactor^age}, where {@code age} is 0 for the
+         * most recent sub-interval, 1 for the previous one, etc. This makes statistics react faster to a change in
+         * latencies. Note that the decayed counts are also the ones compared to
+         * {@link #withMinRecordedValues(int) the minimum number of recorded values}.
+         * <p/>
+         * If not set explicitly, this value defaults to 1 (no decay).
+         *
+         * @param decayFactor the decay factor, between 0 (exclusive) and 1.
+         * @return this builder.
+         */
+        public B withDecayFactor(double decayFactor) {
+            this.decayFactor = decayFactor;
+            return self();
+        }
+
         /**
          * Builds the {@code PercentileTracker} instance configured with this builder.
          *
@@ -156,6 +156,8 @@ public class PoolingOptions {
 
     private volatile Executor initializationExecutor = DEFAULT_INITIALIZATION_EXECUTOR;
 
+    private volatile boolean fastHandshakeEnabled = false;
+
     public PoolingOptions() {
     }
 
@@ -493,6 +495,34 @@ public class PoolingOptions {
         return this;
     }
 
+    /**
+     * Sets whether new connections use a faster handshake.
+     * <p/>
+     * When this is enabled, a new pool connection sets the session's keyspace concurrently with the
+     * cluster name check, instead of after the connection is initialized; if it fails, the keyspace
+     * is set when the connection is first used, as without this option. The cluster name is also only
+     * checked by the first connection to a host, until that host goes down.
+     * <p/>
+     * This option is disabled by default.
+     *
+     * @param fastHandshakeEnabled whether to enable the fast handshake.
+     * @return this {@code PoolingOptions}
+     */
+    public PoolingOptions setFastHandshakeEnabled(boolean fastHandshakeEnabled) {
+        this.fastHandshakeEnabled = fastHandshakeEnabled;
+        return this;
+    }
+
+    /**
+     * Returns whether new connections use a faster handshake.
+     *
+     * @return the value.
+     * @see #setFastHandshakeEnabled(boolean)
+     */
+    public boolean isFastHandshakeEnabled() {
+        return fastHandshakeEnabled;
+    }
+
     synchronized void setProtocolVersion(ProtocolVersion actualVersion) {
         this.protocolVersion = actualVersion;
 
@@ -366,4 +366,34 @@ public interface PreparedStatement {
      */
     public Boolean isIdempotent();
 
+    /**
+     * Enables or disables the client-side result cache for this statement.
+     * <p/>
+     * When enabled, the first page of results of the {@link BoundStatement}s created from this
+     * prepared statement is cached by the {@link Session} that executes them, keyed by bound values
+     * (as well as consistency levels and fetch size). Subsequent executions with the same values
+     * are answered from the cache, without any network round-trip, until the result expires.
+     * <p/>
+     * Any write to the same partition executed through the same session invalidates the cached
+     * results of that partition; writes for which the partition is not known (for example simple
+     * statements without a routing key) invalidate all cached results. Schema changes invalidate
+     * the cached results of the altered table. Writes from other clients are only reflected once
+     * the cached results expire, so this is best suited to read-mostly reference data.
+     * <p/>
+     * This only applies to statements that return rows, and whose routing key is known.
+     * Executions with tracing or a paging state always go to Cassandra.
+     *
+     * @param options the options of the cache, or {@code null} to disable it.
+     * @return this {@code PreparedStatement} object.
+     */
+    public PreparedStatement setResultCacheOptions(ResultCacheOptions options);
+
+    /**
+     * Returns the options of the client-side result cache of this statement.
+     *
+     * @return the options, or {@code null} if the result cache is disabled for this statement.
+     * @see #setResultCacheOptions(ResultCacheOptions)
+     */
+    public ResultCacheOptions getResultCacheOptions();
+
 }
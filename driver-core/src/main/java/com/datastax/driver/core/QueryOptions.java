@@ -56,6 +56,22 @@ public class QueryOptions {
 
     public static final int DEFAULT_REFRESH_SCHEMA_INTERVAL_MILLIS = 1000;
 
+    /**
+     * The default value for {@link #getMaxCoalescedReads()}: 1024.
+     */
+    public static final int DEFAULT_MAX_COALESCED_READS = 1024;
+
+    /**
+     * The default size of the buffer of latency updates, when they are dispatched asynchronously.
+     */
+    public static final int DEFAULT_LATENCY_TRACKER_BUFFER_SIZE = 16384;
+
+    /**
+     * The default number of threads that decode large responses, when
+     * {@link #setLargeResponseDecodingThreshold(int) enabled}.
+     */
+    public static final int DEFAULT_LARGE_RESPONSE_DECODING_THREADS = 2;
+
     private volatile ConsistencyLevel consistency = DEFAULT_CONSISTENCY_LEVEL;
     private volatile ConsistencyLevel serialConsistency = DEFAULT_SERIAL_CONSISTENCY_LEVEL;
     private volatile int fetchSize = DEFAULT_FETCH_SIZE;
@@ -70,11 +86,21 @@ public class QueryOptions {
     private volatile int refreshNodeListIntervalMillis = DEFAULT_REFRESH_NODE_LIST_INTERVAL_MILLIS;
     private volatile int refreshNodeIntervalMillis = DEFAULT_REFRESH_NODE_INTERVAL_MILLIS;
     private volatile int refreshSchemaIntervalMillis = DEFAULT_REFRESH_SCHEMA_INTERVAL_MILLIS;
+    private volatile boolean incrementalNodeListRefreshEnabled = false;
 
     private volatile boolean reprepareOnUp = true;
     private volatile Cluster.Manager manager;
     private volatile boolean prepareOnAllHosts = true;
 
+    private volatile boolean readCoalescingEnabled = false;
+    private volatile int maxCoalescedReads = DEFAULT_MAX_COALESCED_READS;
+
+    private volatile boolean asyncLatencyTrackerDispatch = false;
+    private volatile int latencyTrackerBufferSize = DEFAULT_LATENCY_TRACKER_BUFFER_SIZE;
+
+    private volatile int largeResponseDecodingThreshold = -1;
+    private volatile int largeResponseDecodingThreads = DEFAULT_LARGE_RESPONSE_DECODING_THREADS;
+
     /**
      * Creates a new {@link QueryOptions} instance using the {@link #DEFAULT_CONSISTENCY_LEVEL},
      * {@link #DEFAULT_SERIAL_CONSISTENCY_LEVEL} and {@link #DEFAULT_FETCH_SIZE}.
@@ -404,6 +430,36 @@ public class QueryOptions {
         return refreshNodeListIntervalMillis;
     }
 
+    /**
+     * Sets whether node list refreshes are incremental.
+     * <p/>
+     * By default, each node list refresh reads all the rows of {@code system.peers}, including
+     * the tokens of every node, which gets expensive on very large clusters. When this is enabled,
+     * the driver remembers the {@code host_id} and tokens of each peer; subsequent refreshes only
+     * read the identity and location of the peers, and fetch the full row (and tokens) of peers
+     * that are new, whose {@code host_id} changed, or that were reported as moved.
+     * <p/>
+     * A full refresh is still performed each time the control connection is (re)established, or
+     * when most peers have changed.
+     *
+     * @param incrementalNodeListRefreshEnabled whether to enable incremental node list refreshes.
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setIncrementalNodeListRefreshEnabled(boolean incrementalNodeListRefreshEnabled) {
+        this.incrementalNodeListRefreshEnabled = incrementalNodeListRefreshEnabled;
+        return this;
+    }
+
+    /**
+     * Whether node list refreshes are incremental.
+     *
+     * @return the value.
+     * @see #setIncrementalNodeListRefreshEnabled(boolean)
+     */
+    public boolean isIncrementalNodeListRefreshEnabled() {
+        return incrementalNodeListRefreshEnabled;
+    }
+
     /**
      * Sets the maximum number of node list refresh requests that the control connection can accumulate
      * before executing them.
@@ -484,4 +540,193 @@ public class QueryOptions {
         return maxPendingRefreshNodeRequests;
     }
 
+    /**
+     * Toggles the coalescing of identical concurrent reads.
+     * <p/>
+     * When enabled, a {@link BoundStatement} that is idempotent (see
+     * {@link Statement#isIdempotentWithDefault(QueryOptions)}), returns rows, and is executed
+     * while an identical statement is still in flight (same prepared statement, same bound
+     * values, same consistency levels and fetch size) is not sent to Cassandra: it waits for
+     * the response of the request already in flight, and gets its own copy of the result.
+     * This can dramatically reduce the load on replicas when many threads run the same query
+     * at the same time (for example when a popular cache entry expires).
+     * <p/>
+     * Note that the coalesced executions share the outcome of the first one, including
+     * its errors, and that statements with tracing, a paging state or a custom payload are
+     * never coalesced.
+     * <p/>
+     * This feature is disabled by default. The number of coalesced requests is reported by
+     * {@link Metrics#getCoalescedRequests()}.
+     *
+     * @param enabled whether identical concurrent reads should be coalesced.
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setReadCoalescingEnabled(boolean enabled) {
+        this.readCoalescingEnabled = enabled;
+        return this;
+    }
+
+    /**
+     * Whether identical concurrent reads are coalesced.
+     *
+     * @return the value.
+     * @see #setReadCoalescingEnabled(boolean)
+     */
+    public boolean isReadCoalescingEnabled() {
+        return readCoalescingEnabled;
+    }
+
+    /**
+     * Sets the maximum number of distinct reads that can be in flight and open to coalescing
+     * at the same time.
+     * <p/>
+     * Once this limit is reached, new distinct reads are executed normally (they will not be
+     * coalesced with later identical reads) until some of the in-flight reads complete.
+     *
+     * @param maxCoalescedReads the maximum number of distinct coalesced reads in flight.
+     * @return this {@code QueryOptions} instance.
+     * @see #setReadCoalescingEnabled(boolean)
+     */
+    public QueryOptions setMaxCoalescedReads(int maxCoalescedReads) {
+        if (maxCoalescedReads <= 0)
+            throw new IllegalArgumentException("Invalid maxCoalescedReads, should be strictly positive, was " + maxCoalescedReads);
+        this.maxCoalescedReads = maxCoalescedReads;
+        return this;
+    }
+
+    /**
+     * The maximum number of distinct reads that can be in flight and open to coalescing
+     * at the same time.
+     * <p/>
+     * It defaults to {@link #DEFAULT_MAX_COALESCED_READS}.
+     *
+     * @return the value.
+     * @see #setMaxCoalescedReads(int)
+     */
+    public int getMaxCoalescedReads() {
+        return maxCoalescedReads;
+    }
+
+    /**
+     * Sets whether latency updates are delivered to the registered {@link LatencyTracker}s asynchronously.
+     * <p/>
+     * By default, trackers are invoked synchronously when a request completes, on the I/O thread that
+     * processed the response; a slow tracker therefore delays all other requests handled by that thread.
+     * When this is enabled, updates are instead published to a bounded buffer (see
+     * {@link #setLatencyTrackerBufferSize(int)}), and delivered in batches by a dedicated thread.
+     * If the buffer is full, updates are dropped; their count is reported by
+     * {@link Metrics#getDroppedLatencyUpdates()}.
+     * <p/>
+     * Note that this also applies to the trackers used internally by the driver, such as the one
+     * of {@link com.datastax.driver.core.policies.LatencyAwarePolicy}.
+     * <p/>
+     * This must be set before the {@link Cluster} is initialized, changing it afterwards has no effect.
+     *
+     * @param asyncLatencyTrackerDispatch whether to dispatch latency updates asynchronously.
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setAsyncLatencyTrackerDispatch(boolean asyncLatencyTrackerDispatch) {
+        this.asyncLatencyTrackerDispatch = asyncLatencyTrackerDispatch;
+        return this;
+    }
+
+    /**
+     * Whether latency updates are delivered to the registered {@link LatencyTracker}s asynchronously.
+     *
+     * @return the value.
+     * @see #setAsyncLatencyTrackerDispatch(boolean)
+     */
+    public boolean isAsyncLatencyTrackerDispatch() {
+        return asyncLatencyTrackerDispatch;
+    }
+
+    /**
+     * Sets the maximum number of latency updates waiting to be delivered, when they are
+     * {@link #setAsyncLatencyTrackerDispatch(boolean) dispatched asynchronously}.
+     * <p/>
+     * The value is rounded up to a power of two. It must be set before the {@link Cluster} is initialized.
+     *
+     * @param latencyTrackerBufferSize the size of the buffer.
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setLatencyTrackerBufferSize(int latencyTrackerBufferSize) {
+        if (latencyTrackerBufferSize <= 0 || latencyTrackerBufferSize > (1 << 30))
+            throw new IllegalArgumentException("Invalid latencyTrackerBufferSize, should be between 1 and 2^30, was " + latencyTrackerBufferSize);
+        this.latencyTrackerBufferSize = latencyTrackerBufferSize;
+        return this;
+    }
+
+    /**
+     * The maximum number of latency updates waiting to be delivered, when they are
+     * {@link #setAsyncLatencyTrackerDispatch(boolean) dispatched asynchronously}.
+     * <p/>
+     * It defaults to {@link #DEFAULT_LATENCY_TRACKER_BUFFER_SIZE}.
+     *
+     * @return the value.
+     * @see #setLatencyTrackerBufferSize(int)
+     */
+    public int getLatencyTrackerBufferSize() {
+        return latencyTrackerBufferSize;
+    }
+
+    /**
+     * Sets the size above which responses are decoded on a dedicated executor, instead of the I/O thread that received
+     * them.
+     * <p/>
+     * By default, every response is decoded on the I/O thread of its connection; while a large page of results is
+     * decoded, the responses of all the other connections handled by that thread wait. When this is enabled, frames
+     * whose body is at least {@code largeResponseDecodingThreshold} bytes (after decompression) are decoded by a pool
+     * of {@link #setLargeResponseDecodingThreads(int) dedicated threads}; smaller responses are still decoded on the
+     * I/O thread. Responses of a given connection are always delivered in the order they were received.
+     * <p/>
+     * This must be set before the {@link Cluster} is initialized, changing it afterwards has no effect.
+     *
+     * @param largeResponseDecodingThreshold the threshold in bytes, or a negative value to disable this feature
+     *                                       (the default).
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setLargeResponseDecodingThreshold(int largeResponseDecodingThreshold) {
+        this.largeResponseDecodingThreshold = largeResponseDecodingThreshold;
+        return this;
+    }
+
+    /**
+     * The size above which responses are decoded on a dedicated executor, or a negative value if this is disabled.
+     *
+     * @return the value.
+     * @see #setLargeResponseDecodingThreshold(int)
+     */
+    public int getLargeResponseDecodingThreshold() {
+        return largeResponseDecodingThreshold;
+    }
+
+    /**
+     * Sets the number of threads that decode large responses, when
+     * {@link #setLargeResponseDecodingThreshold(int) enabled}.
+     * <p/>
+     * This must be set before the {@link Cluster} is initialized.
+     *
+     * @param largeResponseDecodingThreads the number of threads.
+     * @return this {@code QueryOptions} instance.
+     */
+    public QueryOptions setLargeResponseDecodingThreads(int largeResponseDecodingThreads) {
+        if (largeResponseDecodingThreads <= 0)
+            throw new IllegalArgumentException("Invalid largeResponseDecodingThreads, should be > 0, was " + largeResponseDecodingThreads);
+        this.largeResponseDecodingThreads = largeResponseDecodingThreads;
+        return this;
+    }
+
+    /**
+     * The number of threads that decode large responses, when
+     * {@link #setLargeResponseDecodingThreshold(int) enabled}.
+     * <p/>
+     * It defaults to {@link #DEFAULT_LARGE_RESPONSE_DECODING_THREADS}.
+     *
+     * @return the value.
+     * @see #setLargeResponseDecodingThreads(int)
+     */
+    public int getLargeResponseDecodingThreads() {
+        return largeResponseDecodingThreads;
+    }
+
 }
@@ -0,0 +1,260 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Coalesces identical concurrent reads, so that only one of them is sent to Cassandra
+ * and its response is handed to all the others.
+ * <p/>
+ * Only idempotent {@link BoundStatement}s that return rows are eligible; two statements are
+ * identical if they share the same prepared id, bound values, consistency levels and fetch size.
+ * See {@link QueryOptions#setReadCoalescingEnabled(boolean)}.
+ */
+class RequestCoalescer {
+
+    private final SessionManager session;
+    private final ConcurrentMap<Key, Flight> inFlight = new ConcurrentHashMap<Key, Flight>();
+    private final AtomicInteger inFlightCount = new AtomicInteger();
+
+    RequestCoalescer(SessionManager session) {
+        this.session = session;
+    }
+
+    /**
+     * Executes the statement through the coalescer if possible.
+     *
+     * @return {@code true} if the statement was handled, i.e. it either joined an identical
+     * request already in flight, or was sent as a new one that later identical requests may join;
+     * {@code false} if the caller should execute it normally.
+     */
+    boolean maybeExecute(Statement statement, RequestHandler.Callback callback) {
+        QueryOptions options = session.configuration().getQueryOptions();
+        if (!options.isReadCoalescingEnabled() || !statement.isIdempotentWithDefault(options))
+            return false;
+        Key key = Key.of(statement);
+        if (key == null)
+            return false;
+
+        Flight flight = inFlight.get(key);
+        while (true) {
+            if (flight != null) {
+                if (flight.join(callback, statement)) {
+                    Metrics metrics = session.cluster.getMetrics();
+                    if (metrics != null)
+                        metrics.getCoalescedRequests().inc();
+                    return true;
+                }
+                // The flight completed between the lookup and the join
+                if (inFlight.remove(key, flight))
+                    inFlightCount.decrementAndGet();
+            }
+            if (inFlightCount.get() >= options.getMaxCoalescedReads())
+                return false;
+
+            Flight newFlight = new Flight(key, callback.request());
+            newFlight.join(callback, statement);
+            flight = inFlight.putIfAbsent(key, newFlight);
+            if (flight == null) {
+                inFlightCount.incrementAndGet();
+                new RequestHandler(session, newFlight, statement).sendRequest();
+                return true;
+            }
+        }
+    }
+
+    int inFlightCount() {
+        return inFlightCount.get();
+    }
+
+    static class Key {
+        private final MD5Digest id;
+        private final ByteBuffer[] values;
+        private final ConsistencyLevel consistency;
+        private final ConsistencyLevel serialConsistency;
+        private final int fetchSize;
+        private final int hashCode;
+
+        private Key(MD5Digest id, ByteBuffer[] values, ConsistencyLevel consistency, ConsistencyLevel serialConsistency, int fetchSize) {
+            this.id = id;
+            this.values = values;
+            this.consistency = consistency;
+            this.serialConsistency = serialConsistency;
+            this.fetchSize = fetchSize;
+            this.hashCode = 31 * (31 * (31 * (31 * id.hashCode() + Arrays.hashCode(values))
+                    + (consistency == null ? 0 : consistency.hashCode()))
+                    + (serialConsistency == null ? 0 : serialConsistency.hashCode()))
+                    + fetchSize;
+        }
+
+        /**
+         * Returns the key of the statement, or {@code null} if it is not a read whose result
+         * can be shared.
+         */
+        static Key of(Statement statement) {
+            if (!(statement instanceof BoundStatement))
+                return null;
+            BoundStatement bs = (BoundStatement) statement;
+            PreparedId preparedId = bs.preparedStatement().getPreparedId();
+            if (preparedId.resultSetMetadata == null || preparedId.resultSetMetadata.size() == 0)
+                return null;
+            if (bs.isTracing() || bs.getPagingState() != null)
+                return null;
+            if (bs.getOutgoingPayload() != null && !bs.getOutgoingPayload().isEmpty())
+                return null;
+            return new Key(preparedId.id, bs.wrapper.values.clone(),
+                    bs.getConsistencyLevel(), bs.getSerialConsistencyLevel(), bs.getFetchSize());
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof Key))
+                return false;
+            Key that = (Key) other;
+            return this.hashCode == that.hashCode
+                    && this.fetchSize == that.fetchSize
+                    && this.consistency == that.consistency
+                    && this.serialConsistency == that.serialConsistency
+                    && this.id.equals(that.id)
+                    && valuesEqual(this.values, that.values);
+        }
+
+        // Not Arrays.equals, because BoundStatement.UNSET must not be equal to an empty value
+        private static boolean valuesEqual(ByteBuffer[] values1, ByteBuffer[] values2) {
+            if (values1.length != values2.length)
+                return false;
+            for (int i = 0; i < values1.length; i++) {
+                ByteBuffer v1 = values1[i], v2 = values2[i];
+                if ((v1 == BoundStatement.UNSET) != (v2 == BoundStatement.UNSET))
+                    return false;
+                if (v1 == null ? v2 != null : !v1.equals(v2))
+                    return false;
+            }
+            return true;
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+    }
+
+    /**
+     * A request in flight, and the futures waiting for its response.
+     */
+    class Flight implements RequestHandler.Callback {
+        private final Key key;
+        private final Message.Request request;
+
+        // Guarded by this, set to null once the response is received
+        private List<Waiter> waiters = new ArrayList<Waiter>();
+
+        Flight(Key key, Message.Request request) {
+            this.key = key;
+            this.request = request;
+        }
+
+        synchronized boolean join(RequestHandler.Callback callback, Statement statement) {
+            if (waiters == null)
+                return false;
+            waiters.add(new Waiter(callback, statement));
+            return true;
+        }
+
+        @Override
+        public void register(RequestHandler handler) {
+            // The request is shared, so it is not cancelled when one of the waiting futures is
+        }
+
+        @Override
+        public Message.Request request() {
+            return request;
+        }
+
+        @Override
+        public int retryCount() {
+            // Only used for internal requests, see DefaultResultSetFuture
+            return 0;
+        }
+
+        @Override
+        public void onSet(Connection connection, Message.Response response, ExecutionInfo info, Statement statement, long latency) {
+            List<Waiter> waiting = complete();
+            // Building a result set consumes the rows, so each waiter but the last one served
+            // needs its own copy
+            for (int i = waiting.size() - 1; i >= 0; i--) {
+                Message.Response copy = (i > 0 && isRows(response))
+                        ? ((Responses.Result.Rows) response).copy()
+                        : response;
+                Waiter waiter = waiting.get(i);
+                waiter.callback.onSet(connection, copy, info, waiter.statement, latency);
+            }
+        }
+
+        @Override
+        public void onSet(Connection connection, Message.Response response, long latency, int retryCount) {
+            onSet(connection, response, null, null, latency);
+        }
+
+        @Override
+        public void onException(Connection connection, Exception exception, long latency, int retryCount) {
+            for (Waiter waiter : complete())
+                waiter.callback.onException(connection, exception, latency, retryCount);
+        }
+
+        @Override
+        public boolean onTimeout(Connection connection, long latency, int retryCount) {
+            for (Waiter waiter : complete())
+                waiter.callback.onTimeout(connection, latency, retryCount);
+            return true;
+        }
+
+        private List<Waiter> complete() {
+            List<Waiter> waiting;
+            synchronized (this) {
+                waiting = waiters;
+                waiters = null;
+            }
+            if (inFlight.remove(key, this))
+                inFlightCount.decrementAndGet();
+            return waiting;
+        }
+
+        private boolean isRows(Message.Response response) {
+            return response.type == Message.Response.Type.RESULT
+                    && ((Responses.Result) response).kind == Responses.Result.Kind.ROWS;
+        }
+    }
+
+    private static class Waiter {
+        final RequestHandler.Callback callback;
+        final Statement statement;
+
+        Waiter(RequestHandler.Callback callback, Statement statement) {
+            this.callback = callback;
+            this.statement = statement;
+        }
+    }
+}
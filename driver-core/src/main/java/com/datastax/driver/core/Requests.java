@@ -166,6 +166,11 @@ class Requests {
             return new Query(this.query, options, isTracingRequested());
         }
 
+        @Override
+        int zeroCopySize() {
+            return options.zeroCopySize();
+        }
+
         @Override
         Request copy(ConsistencyLevel newConsistencyLevel) {
             return new Query(this.query, options.copy(newConsistencyLevel), isTracingRequested());
@@ -207,6 +212,11 @@ class Requests {
             return new Execute(statementId, options, isTracingRequested());
         }
 
+        @Override
+        int zeroCopySize() {
+            return options.zeroCopySize();
+        }
+
         @Override
         Request copy(ConsistencyLevel newConsistencyLevel) {
             return new Execute(statementId, options.copy(newConsistencyLevel), isTracingRequested());
@@ -350,6 +360,13 @@ class Requests {
             }
         }
 
+        int zeroCopySize() {
+            int size = CBUtil.sizeOfZeroCopyValues(positionalValues) + CBUtil.sizeOfZeroCopyValues(namedValues.values());
+            if (CBUtil.isZeroCopyValue(pagingState))
+                size += pagingState.remaining();
+            return size;
+        }
+
         int encodedSize(ProtocolVersion version) {
             switch (version) {
                 case V1:
@@ -464,6 +481,14 @@ class Requests {
             return new Batch(type, queryOrIdList, values, options, isTracingRequested());
         }
 
+        @Override
+        int zeroCopySize() {
+            int size = 0;
+            for (List<ByteBuffer> statementValues : values)
+                size += CBUtil.sizeOfZeroCopyValues(statementValues);
+            return size;
+        }
+
         @Override
         Request copy(ConsistencyLevel newConsistencyLevel) {
             return new Batch(type, queryOrIdList, values, options.copy(newConsistencyLevel), isTracingRequested());
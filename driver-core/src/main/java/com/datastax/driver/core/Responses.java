@@ -396,6 +396,16 @@ class Responses {
 
                     boolean globalTablesSpec = flags.contains(Flag.GLOBAL_TABLES_SPEC);
 
+                    ColumnDefinitionsCache cache = ColumnDefinitionsCache.INSTANCE;
+                    ColumnDefinitions columns = (cache == null)
+                            ? decodeColumns(body, columnCount, globalTablesSpec, protocolVersion, codecRegistry)
+                            : cache.decode(body, columnCount, globalTablesSpec, protocolVersion, codecRegistry);
+
+                    return new Metadata(columnCount, columns, state, pkIndices);
+                }
+
+                static ColumnDefinitions decodeColumns(ByteBuf body, int columnCount, boolean globalTablesSpec,
+                                                       ProtocolVersion protocolVersion, CodecRegistry codecRegistry) {
                     String globalKsName = null;
                     String globalCfName = null;
                     if (globalTablesSpec) {
@@ -413,7 +423,7 @@ class Responses {
                         defs[i] = new ColumnDefinitions.Definition(ksName, cfName, name, type);
                     }
 
-                    return new Metadata(columnCount, new ColumnDefinitions(defs, codecRegistry), state, pkIndices);
+                    return new ColumnDefinitions(defs, codecRegistry);
                 }
 
                 @Override
@@ -466,6 +476,24 @@ class Responses {
                 this.version = version;
             }
 
+            /**
+             * Returns a copy of this message that can be consumed independently.
+             * The row values are not copied, only duplicated, so this is cheap.
+             */
+            Rows copy() {
+                Queue<List<ByteBuffer>> dataCopy = new ArrayDeque<List<ByteBuffer>>(data.size());
+                for (List<ByteBuffer> row : data) {
+                    List<ByteBuffer> rowCopy = new ArrayList<ByteBuffer>(row.size());
+                    for (ByteBuffer value : row)
+                        rowCopy.add(value == null ? null : value.duplicate());
+                    dataCopy.add(rowCopy);
+                }
+                Rows copy = new Rows(metadata, dataCopy, version);
+                copy.setTracingId(tracingId).setWarnings(warnings);
+                copy.setCustomPayload(getCustomPayload());
+                return copy;
+            }
+
             @Override
             public String toString() {
                 StringBuilder sb = new StringBuilder();
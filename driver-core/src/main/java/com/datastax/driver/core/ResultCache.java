@@ -0,0 +1,465 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.cache.*;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The client-side result cache of a session, see {@link PreparedStatement#setResultCacheOptions(ResultCacheOptions)}.
+ * <p/>
+ * There is one cache per prepared statement, keyed like coalesced reads (see {@link RequestCoalescer.Key}), and indexed
+ * by routing key so that writes can invalidate the results of the partition they touch.
+ * To avoid caching the result of a read that raced with a write, reads capture the invalidation counter of their
+ * partition before they are sent, and their result is discarded if it changed in the meantime. Counters are striped by
+ * routing key, so that writes only prevent the caching of the few reads that share a stripe with them. Writes invalidate
+ * before they are sent and again when they complete, to evict the results of reads that reached a replica before the
+ * write.
+ */
+class ResultCache {
+
+    // rough per-row overhead of the row list and the value buffers, on top of the values themselves
+    private static final int ROW_OVERHEAD = 64;
+
+    private static final int INVALIDATION_STRIPES = 64;
+
+    private final SessionManager session;
+    final ConcurrentMap<MD5Digest, StatementCache> caches = new ConcurrentHashMap<MD5Digest, StatementCache>();
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+
+    private final AtomicBoolean listenerRegistered = new AtomicBoolean();
+    private final SchemaChangeListener schemaListener = new SchemaChangeListenerBase() {
+        @Override
+        public void onKeyspaceRemoved(KeyspaceMetadata keyspace) {
+            invalidateTable(keyspace.getName(), null);
+        }
+
+        @Override
+        public void onTableRemoved(TableMetadata table) {
+            invalidateTable(table.getKeyspace().getName(), table.getName());
+        }
+
+        @Override
+        public void onTableChanged(TableMetadata current, TableMetadata previous) {
+            invalidateTable(current.getKeyspace().getName(), current.getName());
+        }
+    };
+
+    ResultCache(SessionManager session) {
+        this.session = session;
+    }
+
+    /**
+     * Completes the callback from the cache if possible.
+     *
+     * @return {@code true} if the result was cached and the callback was completed.
+     */
+    boolean maybeComplete(Statement statement, RequestHandler.Callback callback) {
+        StatementCache cache = cacheFor(statement, false);
+        if (cache == null)
+            return false;
+        RequestCoalescer.Key key = RequestCoalescer.Key.of(statement);
+        if (key == null)
+            return false;
+        CachedResult cached = cache.results.getIfPresent(key);
+        if (cached == null)
+            return false;
+        callback.onSet(null, cached.rows.copy(), cached.info, statement, 0);
+        return true;
+    }
+
+    /**
+     * Prepares the execution of the statement: if it is a write, invalidates the results it may modify and
+     * returns a callback that invalidates them again on completion; if it is a cacheable read, returns a
+     * callback that caches its result.
+     *
+     * @return the callback to execute the statement with (which is {@code callback} if the statement
+     * does not interact with the cache).
+     */
+    RequestHandler.Callback prepare(Statement statement, RequestHandler.Callback callback) {
+        StatementCache cache = cacheFor(statement, true);
+        if (cache != null) {
+            RequestCoalescer.Key key = RequestCoalescer.Key.of(statement);
+            ByteBuffer routingKey = routingKey(statement);
+            return (key == null || routingKey == null)
+                    ? callback
+                    : new CachingCallback(callback, cache, key, routingKey, invalidations(routingKey));
+        }
+        if (caches.isEmpty())
+            return callback;
+        Statement unwrapped = unwrap(statement);
+        if (isRead(unwrapped, session.cluster.manager.configuration.getCodecRegistry()))
+            return callback;
+        List<ByteBuffer> routingKeys = new ArrayList<ByteBuffer>();
+        addRoutingKeys(unwrapped, routingKeys);
+        // Invalidate before, so that reads in flight don't cache the old value, and after, to evict
+        // anything that was read in between. Also after a failure, since the write might have been applied.
+        invalidatePartitions(routingKeys);
+        return new InvalidatingCallback(callback, routingKeys);
+    }
+
+    long invalidations(ByteBuffer routingKey) {
+        return invalidations.get(stripe(routingKey));
+    }
+
+    private static int stripe(ByteBuffer routingKey) {
+        int h = routingKey.hashCode();
+        return (h ^ (h >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    private void invalidateAllStripes() {
+        for (int i = 0; i < INVALIDATION_STRIPES; i++)
+            invalidations.incrementAndGet(i);
+    }
+
+    /**
+     * Returns the cache of the statement if it is enabled.
+     *
+     * @param create whether to create the cache if the statement is cacheable and has no cache yet.
+     */
+    private StatementCache cacheFor(Statement statement, boolean create) {
+        if (!(statement instanceof BoundStatement))
+            return null;
+        PreparedStatement prepared = ((BoundStatement) statement).preparedStatement();
+        ResultCacheOptions options = prepared.getResultCacheOptions();
+        PreparedId id = prepared.getPreparedId();
+        StatementCache cache = caches.get(id.id);
+        if (options == null) {
+            // the cache was disabled since the last execution
+            if (cache != null && caches.remove(id.id, cache))
+                cache.invalidateAll();
+            return null;
+        }
+        if ((cache == null || cache.options != options) && create) {
+            if (!isRead(statement, session.cluster.manager.configuration.getCodecRegistry()))
+                return null;
+            if (listenerRegistered.compareAndSet(false, true))
+                session.cluster.register(schemaListener);
+            StatementCache newCache = new StatementCache(options,
+                    id.resultSetMetadata.getKeyspace(0), id.resultSetMetadata.getTable(0));
+            if (cache == null) {
+                cache = caches.putIfAbsent(id.id, newCache);
+                if (cache == null)
+                    cache = newCache;
+            } else if (caches.replace(id.id, cache, newCache)) {
+                cache.invalidateAll();
+                cache = newCache;
+            } else {
+                cache = caches.get(id.id);
+            }
+        }
+        return (cache == null || cache.options != options) ? null : cache;
+    }
+
+    /**
+     * Collects the routing keys of the partitions that a write may modify; {@code null} stands for an unknown partition.
+     */
+    private void addRoutingKeys(Statement statement, List<ByteBuffer> routingKeys) {
+        if (statement instanceof BatchStatement) {
+            for (Statement child : ((BatchStatement) statement).getStatements())
+                addRoutingKeys(child, routingKeys);
+        } else {
+            routingKeys.add(routingKey(statement));
+        }
+    }
+
+    void invalidatePartitions(List<ByteBuffer> routingKeys) {
+        for (ByteBuffer routingKey : routingKeys) {
+            if (routingKey == null) {
+                invalidateAllStripes();
+                break;
+            }
+            invalidations.incrementAndGet(stripe(routingKey));
+        }
+        for (StatementCache cache : caches.values()) {
+            for (ByteBuffer routingKey : routingKeys) {
+                if (routingKey == null) {
+                    cache.invalidateAll();
+                    break;
+                }
+                cache.invalidatePartition(routingKey);
+            }
+        }
+    }
+
+    private void invalidateTable(String keyspace, String table) {
+        invalidateAllStripes();
+        for (StatementCache cache : caches.values()) {
+            if (cache.keyspace.equals(keyspace) && (table == null || cache.table.equals(table)))
+                cache.invalidateAll();
+        }
+    }
+
+    void close() {
+        if (listenerRegistered.get())
+            session.cluster.unregister(schemaListener);
+        for (StatementCache cache : caches.values())
+            cache.invalidateAll();
+        caches.clear();
+    }
+
+    private ByteBuffer routingKey(Statement statement) {
+        return statement.getRoutingKey(session.cluster.manager.protocolVersion(),
+                session.cluster.manager.configuration.getCodecRegistry());
+    }
+
+    private static Statement unwrap(Statement statement) {
+        return (statement instanceof StatementWrapper)
+                ? ((StatementWrapper) statement).getWrappedStatement()
+                : statement;
+    }
+
+    /**
+     * Whether the statement only reads data; when unsure, it is considered as a write.
+     */
+    static boolean isRead(Statement statement, CodecRegistry codecRegistry) {
+        if (statement instanceof BoundStatement) {
+            ColumnDefinitions resultMetadata = ((BoundStatement) statement).preparedStatement().getPreparedId().resultSetMetadata;
+            // conditional updates return rows too, but their first column is always [applied]
+            return resultMetadata != null && resultMetadata.size() > 0
+                    && !"[applied]".equals(resultMetadata.getName(0));
+        }
+        if (statement instanceof RegularStatement) {
+            String query = ((RegularStatement) statement).getQueryString(codecRegistry).trim();
+            return query.regionMatches(true, 0, "SELECT", 0, 6);
+        }
+        return false;
+    }
+
+    static int weigh(Responses.Result.Rows rows) {
+        int weight = 0;
+        for (List<ByteBuffer> row : rows.data) {
+            weight += ROW_OVERHEAD;
+            for (ByteBuffer value : row) {
+                if (value != null)
+                    weight += value.remaining();
+            }
+        }
+        return weight;
+    }
+
+    /**
+     * The cached results of a prepared statement.
+     */
+    class StatementCache {
+        final ResultCacheOptions options;
+        final String keyspace;
+        final String table;
+        final Cache<RequestCoalescer.Key, CachedResult> results;
+
+        // Guarded by this
+        private final Map<ByteBuffer, Set<RequestCoalescer.Key>> keysByPartition = new HashMap<ByteBuffer, Set<RequestCoalescer.Key>>();
+
+        StatementCache(ResultCacheOptions options, String keyspace, String table) {
+            this.options = options;
+            this.keyspace = keyspace;
+            this.table = table;
+            CacheBuilder<Object, Object> builder = CacheBuilder.newBuilder()
+                    .expireAfterWrite(options.getTimeToLive(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS);
+            if (options.getMaximumWeightBytes() > 0) {
+                builder.maximumWeight(options.getMaximumWeightBytes())
+                        .weigher(new Weigher<RequestCoalescer.Key, CachedResult>() {
+                            @Override
+                            public int weigh(RequestCoalescer.Key key, CachedResult value) {
+                                return value.weight;
+                            }
+                        });
+            } else {
+                builder.maximumSize(options.getMaximumSize());
+            }
+            this.results = builder
+                    .removalListener(new RemovalListener<RequestCoalescer.Key, CachedResult>() {
+                        @Override
+                        public void onRemoval(RemovalNotification<RequestCoalescer.Key, CachedResult> notification) {
+                            CachedResult value = notification.getValue();
+                            if (value != null && notification.getCause() != RemovalCause.REPLACED)
+                                unindex(value.routingKey, notification.getKey());
+                        }
+                    })
+                    .build();
+        }
+
+        void put(RequestCoalescer.Key key, CachedResult result, long invalidationsBeforeRead) {
+            synchronized (this) {
+                Set<RequestCoalescer.Key> keys = keysByPartition.get(result.routingKey);
+                if (keys == null) {
+                    keys = new HashSet<RequestCoalescer.Key>();
+                    keysByPartition.put(result.routingKey, keys);
+                }
+                keys.add(key);
+            }
+            results.put(key, result);
+            // A write may have invalidated the partition while the read was in flight. It
+            // does not matter if it happened after the put, since it will then have removed it.
+            if (invalidations(result.routingKey) != invalidationsBeforeRead)
+                results.invalidate(key);
+        }
+
+        void invalidatePartition(ByteBuffer routingKey) {
+            Set<RequestCoalescer.Key> keys;
+            synchronized (this) {
+                keys = keysByPartition.remove(routingKey);
+            }
+            if (keys != null)
+                results.invalidateAll(keys);
+        }
+
+        void invalidateAll() {
+            results.invalidateAll();
+        }
+
+        private synchronized void unindex(ByteBuffer routingKey, RequestCoalescer.Key key) {
+            Set<RequestCoalescer.Key> keys = keysByPartition.get(routingKey);
+            if (keys != null) {
+                keys.remove(key);
+                if (keys.isEmpty())
+                    keysByPartition.remove(routingKey);
+            }
+        }
+    }
+
+    static class CachedResult {
+        final Responses.Result.Rows rows;
+        final ExecutionInfo info;
+        final ByteBuffer routingKey;
+        final int weight;
+
+        CachedResult(Responses.Result.Rows rows, ExecutionInfo info, ByteBuffer routingKey) {
+            this.rows = rows;
+            this.info = info;
+            this.routingKey = routingKey;
+            this.weight = weigh(rows);
+        }
+    }
+
+    /**
+     * Forwards all calls to the actual callback.
+     */
+    private abstract static class ForwardingCallback implements RequestHandler.Callback {
+        final RequestHandler.Callback delegate;
+
+        ForwardingCallback(RequestHandler.Callback delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public void onSet(Connection connection, Message.Response response, ExecutionInfo info, Statement statement, long latency) {
+            delegate.onSet(connection, response, info, statement, latency);
+        }
+
+        @Override
+        public void register(RequestHandler handler) {
+            delegate.register(handler);
+        }
+
+        @Override
+        public Message.Request request() {
+            return delegate.request();
+        }
+
+        @Override
+        public int retryCount() {
+            return delegate.retryCount();
+        }
+
+        @Override
+        public void onSet(Connection connection, Message.Response response, long latency, int retryCount) {
+            delegate.onSet(connection, response, latency, retryCount);
+        }
+
+        @Override
+        public void onException(Connection connection, Exception exception, long latency, int retryCount) {
+            delegate.onException(connection, exception, latency, retryCount);
+        }
+
+        @Override
+        public boolean onTimeout(Connection connection, long latency, int retryCount) {
+            return delegate.onTimeout(connection, latency, retryCount);
+        }
+    }
+
+    /**
+     * Caches the result of a read before handing it to the actual callback.
+     */
+    private static class CachingCallback extends ForwardingCallback {
+        private final StatementCache cache;
+        private final RequestCoalescer.Key key;
+        private final ByteBuffer routingKey;
+        private final long invalidationsBeforeRead;
+
+        CachingCallback(RequestHandler.Callback delegate, StatementCache cache, RequestCoalescer.Key key, ByteBuffer routingKey, long invalidationsBeforeRead) {
+            super(delegate);
+            this.cache = cache;
+            this.key = key;
+            this.routingKey = routingKey;
+            this.invalidationsBeforeRead = invalidationsBeforeRead;
+        }
+
+        @Override
+        public void onSet(Connection connection, Message.Response response, ExecutionInfo info, Statement statement, long latency) {
+            if (response.type == Message.Response.Type.RESULT
+                    && ((Responses.Result) response).kind == Responses.Result.Kind.ROWS) {
+                // Building the result set consumes the rows, so cache a copy
+                cache.put(key, new CachedResult(((Responses.Result.Rows) response).copy(), info, routingKey), invalidationsBeforeRead);
+            }
+            delegate.onSet(connection, response, info, statement, latency);
+        }
+    }
+
+    /**
+     * Invalidates the partitions modified by a write when it completes, before handing the outcome to the
+     * actual callback.
+     */
+    class InvalidatingCallback extends ForwardingCallback {
+        private final List<ByteBuffer> routingKeys;
+
+        InvalidatingCallback(RequestHandler.Callback delegate, List<ByteBuffer> routingKeys) {
+            super(delegate);
+            this.routingKeys = routingKeys;
+        }
+
+        @Override
+        public void onSet(Connection connection, Message.Response response, ExecutionInfo info, Statement statement, long latency) {
+            invalidatePartitions(routingKeys);
+            delegate.onSet(connection, response, info, statement, latency);
+        }
+
+        @Override
+        public void onSet(Connection connection, Message.Response response, long latency, int retryCount) {
+            invalidatePartitions(routingKeys);
+            delegate.onSet(connection, response, latency, retryCount);
+        }
+
+        @Override
+        public void onException(Connection connection, Exception exception, long latency, int retryCount) {
+            invalidatePartitions(routingKeys);
+            delegate.onException(connection, exception, latency, retryCount);
+        }
+
+        @Override
+        public boolean onTimeout(Connection connection, long latency, int retryCount) {
+            invalidatePartitions(routingKeys);
+            return delegate.onTimeout(connection, latency, retryCount);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Options of the client-side result cache of a prepared statement.
+ * <p/>
+ * The cache is disabled by default; it is enabled per prepared statement with
+ * {@link PreparedStatement#setResultCacheOptions(ResultCacheOptions)}. Each {@link Session}
+ * maintains its own cache.
+ */
+public class ResultCacheOptions {
+
+    /**
+     * The default maximum number of results in the cache.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 1000;
+
+    /**
+     * The default time-to-live of cached results, in milliseconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60000;
+
+    private volatile long maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private volatile long maximumWeightBytes = -1;
+    private volatile long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+
+    /**
+     * Returns the maximum number of results in the cache.
+     *
+     * @return the maximum number of results in the cache.
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum number of results in the cache. When it is reached,
+     * the least recently used results are evicted.
+     * <p/>
+     * This is ignored if a {@link #setMaximumWeightBytes(long) maximum weight} is set.
+     *
+     * @param maximumSize the maximum number of results; must be strictly positive.
+     * @return this {@code ResultCacheOptions} object.
+     * @throws IllegalArgumentException if {@code maximumSize <= 0}.
+     */
+    public ResultCacheOptions setMaximumSize(long maximumSize) {
+        checkArgument(maximumSize > 0, "Maximum size must be strictly positive, got %s", maximumSize);
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Returns the maximum estimated size of the cached results, in bytes, or -1 if the cache
+     * is bounded by {@link #getMaximumSize() number of results}.
+     *
+     * @return the maximum weight of the cache.
+     */
+    public long getMaximumWeightBytes() {
+        return maximumWeightBytes;
+    }
+
+    /**
+     * Bounds the cache by the estimated size of the cached results instead of their number.
+     * When it is reached, the least recently used results are evicted.
+     * <p/>
+     * The size of a result is estimated from the size of its serialized values, plus a fixed
+     * overhead per row.
+     *
+     * @param maximumWeightBytes the maximum weight, in bytes; must be strictly positive.
+     * @return this {@code ResultCacheOptions} object.
+     * @throws IllegalArgumentException if {@code maximumWeightBytes <= 0}.
+     */
+    public ResultCacheOptions setMaximumWeightBytes(long maximumWeightBytes) {
+        checkArgument(maximumWeightBytes > 0, "Maximum weight must be strictly positive, got %s", maximumWeightBytes);
+        this.maximumWeightBytes = maximumWeightBytes;
+        return this;
+    }
+
+    /**
+     * Returns the time after which a cached result expires.
+     *
+     * @param unit the unit of the result.
+     * @return the time-to-live of cached results.
+     */
+    public long getTimeToLive(TimeUnit unit) {
+        return unit.convert(timeToLiveMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the time after which a cached result expires, counted from the moment it was read
+     * from Cassandra.
+     * <p/>
+     * This bounds how stale a cached result can get because of writes from other clients: writes
+     * to the same partition issued through the same {@code Session} invalidate the cache immediately.
+     *
+     * @param timeToLive the time-to-live; must be strictly positive.
+     * @param unit       the unit of {@code timeToLive}.
+     * @return this {@code ResultCacheOptions} object.
+     * @throws IllegalArgumentException if {@code timeToLive <= 0}.
+     */
+    public ResultCacheOptions setTimeToLive(long timeToLive, TimeUnit unit) {
+        checkArgument(timeToLive > 0, "Time-to-live must be strictly positive, got %s", timeToLive);
+        this.timeToLiveMillis = unit.toMillis(timeToLive);
+        return this;
+    }
+}
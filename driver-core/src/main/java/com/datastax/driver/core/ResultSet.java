@@ -47,6 +47,26 @@ public interface ResultSet extends PagingIterable<ResultSet, Row> {
      */
     public ColumnDefinitions getColumnDefinitions();
 
+    /**
+     * Returns the rows of the current page that have not been consumed yet, as a {@link ColumnBatch}.
+     * <p/>
+     * The returned rows are consumed, exactly as if they had been retrieved with {@link #one()}. If all the rows
+     * of the current page have already been consumed, the next page is fetched first (which may block, see
+     * {@link #one()}); this method never returns rows from more than one page, so that a batch never requires
+     * more memory than a page. Therefore, a typical loop to consume a whole result set column by column is:
+     * <pre>
+     * while (!rs.isExhausted()) {
+     *     ColumnBatch batch = rs.nextBatch();
+     *     long[] values = batch.getLongs("v");
+     *     ...
+     * }
+     * </pre>
+     * The next page can be prefetched while the current one is processed with {@link #fetchMoreResults()}.
+     *
+     * @return the remaining rows of the current page. This is an empty batch if the result set is exhausted.
+     */
+    public ColumnBatch nextBatch();
+
     /**
      * If the query that produced this ResultSet was a conditional update,
      * return whether it was successfully applied.
@@ -0,0 +1,200 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.SettableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Waits until the hosts that are up agree on the schema version.
+ * <p/>
+ * The first check reads the schema version of all hosts. As long as they disagree, the next checks only read the
+ * versions of the connected host and of the peers that disagreed, with a delay that doubles from
+ * {@link #MIN_DELAY_MILLIS} up to {@link #MAX_DELAY_MILLIS}. Once these agree, a last full check confirms the agreement.
+ * <p/>
+ * {@link #checkNow()} is called when the control connection receives an event that might end the disagreement
+ * (schema change, host going down or being removed), in order to check again without waiting for the delay.
+ */
+class SchemaAgreementWaiter {
+
+    private static final Logger logger = LoggerFactory.getLogger(SchemaAgreementWaiter.class);
+
+    static final long MIN_DELAY_MILLIS = 10;
+    static final long MAX_DELAY_MILLIS = 200;
+
+    private final Connection connection;
+    private final Cluster.Manager cluster;
+    private final long deadline;
+    private final SettableFuture<Boolean> future = SettableFuture.create();
+
+    // All guarded by this
+    private boolean checking;
+    private boolean checkAgain;
+    private ScheduledFuture<?> scheduledCheck;
+    private long delayMillis = MIN_DELAY_MILLIS;
+
+    // Broadcast addresses of the peers that disagreed at the last check, null to check all hosts.
+    // Only accessed by the check in progress.
+    private Set<InetAddress> disagreeingPeers;
+
+    SchemaAgreementWaiter(Connection connection, Cluster.Manager cluster) {
+        this.connection = connection;
+        this.cluster = cluster;
+        int maxSchemaAgreementWaitSeconds = cluster.configuration.getProtocolOptions().getMaxSchemaAgreementWaitSeconds();
+        this.deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(maxSchemaAgreementWaitSeconds);
+        if (maxSchemaAgreementWaitSeconds == 0)
+            future.set(false);
+    }
+
+    /**
+     * Starts waiting.
+     *
+     * @return a future that completes with {@code true} if agreement was reached, or {@code false} if it was not
+     * reached within {@link ProtocolOptions#getMaxSchemaAgreementWaitSeconds()}.
+     */
+    ListenableFuture<Boolean> start() {
+        checkNow();
+        return future;
+    }
+
+    void checkNow() {
+        synchronized (this) {
+            if (future.isDone())
+                return;
+            if (checking) {
+                checkAgain = true;
+                return;
+            }
+            if (scheduledCheck != null) {
+                scheduledCheck.cancel(false);
+                scheduledCheck = null;
+            }
+            checking = true;
+        }
+        check();
+    }
+
+    private void check() {
+        final boolean fullCheck = disagreeingPeers == null || disagreeingPeers.isEmpty();
+
+        List<DefaultResultSetFuture> futures = new ArrayList<DefaultResultSetFuture>();
+        futures.add(new DefaultResultSetFuture(null, cluster.protocolVersion(), new Requests.Query(ControlConnection.SELECT_SCHEMA_LOCAL)));
+        if (fullCheck) {
+            futures.add(new DefaultResultSetFuture(null, cluster.protocolVersion(), new Requests.Query(ControlConnection.SELECT_SCHEMA_PEERS)));
+        } else {
+            for (InetAddress peer : disagreeingPeers)
+                futures.add(new DefaultResultSetFuture(null, cluster.protocolVersion(),
+                        new Requests.Query(ControlConnection.SELECT_SCHEMA_PEERS + " WHERE peer='" + peer.getHostAddress() + '\'')));
+        }
+        try {
+            for (DefaultResultSetFuture f : futures)
+                connection.write(f);
+        } catch (Exception e) {
+            future.setException(e);
+            return;
+        }
+
+        // Processing the results is cheap and never blocks, so do it on the I/O thread: any pool of the cluster might have
+        // its threads blocked waiting for this future (see Cluster#prepareAllQueries and ControlConnection#waitForSchemaAgreement)
+        Futures.addCallback(Futures.<ResultSet>allAsList(futures), new FutureCallback<List<ResultSet>>() {
+            @Override
+            public void onSuccess(List<ResultSet> results) {
+                try {
+                    onCheckDone(fullCheck, results);
+                } catch (Exception e) {
+                    future.setException(e);
+                }
+            }
+
+            @Override
+            public void onFailure(Throwable t) {
+                future.setException(t);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+    }
+
+    private void onCheckDone(boolean fullCheck, List<ResultSet> results) {
+        Row localRow = results.get(0).one();
+        UUID localVersion = (localRow == null || localRow.isNull("schema_version")) ? null : localRow.getUUID("schema_version");
+
+        Set<UUID> versions = new HashSet<UUID>();
+        if (localVersion != null)
+            versions.add(localVersion);
+        Set<InetAddress> disagreeing = new HashSet<InetAddress>();
+        for (ResultSet rs : results.subList(1, results.size())) {
+            for (Row row : rs) {
+                InetSocketAddress addr = ControlConnection.rpcAddressForPeerHost(row, connection.address, cluster);
+                if (addr == null || row.isNull("schema_version"))
+                    continue;
+
+                Host peer = cluster.metadata.getHost(addr);
+                if (peer != null && peer.isUp()) {
+                    UUID version = row.getUUID("schema_version");
+                    versions.add(version);
+                    if (!version.equals(localVersion))
+                        disagreeing.add(row.getInet("peer"));
+                }
+            }
+        }
+        logger.debug("Checking for schema agreement: versions are {}", versions);
+
+        if (fullCheck && versions.size() <= 1) {
+            future.set(true);
+            return;
+        }
+        disagreeingPeers = disagreeing;
+        // When the targeted peers all agree, confirm with a full check right away
+        scheduleNextCheck(!fullCheck && disagreeing.isEmpty());
+    }
+
+    private void scheduleNextCheck(boolean immediately) {
+        synchronized (this) {
+            checking = false;
+            if (future.isDone())
+                return;
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                future.set(false);
+                return;
+            }
+            if (!immediately && !checkAgain) {
+                long delay = Math.min(delayMillis, TimeUnit.NANOSECONDS.toMillis(remainingNanos) + 1);
+                delayMillis = Math.min(delayMillis * 2, MAX_DELAY_MILLIS);
+                scheduledCheck = cluster.scheduledTasksExecutor.schedule(new Runnable() {
+                    @Override
+                    public void run() {
+                        checkNow();
+                    }
+                }, delay, TimeUnit.MILLISECONDS);
+                return;
+            }
+            checkAgain = false;
+            checking = true;
+        }
+        check();
+    }
+}
@@ -54,6 +54,8 @@ class SessionManager extends AbstractSession {
     final Cluster cluster;
     final ConcurrentMap<Host, HostConnectionPool> pools;
     final HostConnectionPool.PoolState poolsState;
+    private final RequestCoalescer coalescer = new RequestCoalescer(this);
+    private final ResultCache resultCache = new ResultCache(this);
     private final AtomicReference<ListenableFuture<Session>> initFuture = new AtomicReference<ListenableFuture<Session>>();
     final AtomicReference<CloseFuture> closeFuture = new AtomicReference<CloseFuture>();
 
@@ -133,7 +135,11 @@ class SessionManager extends AbstractSession {
     public ResultSetFuture executeAsync(final Statement statement) {
         if (isInit) {
             DefaultResultSetFuture future = new DefaultResultSetFuture(this, cluster.manager.protocolVersion(), makeRequestMessage(statement, null));
-            new RequestHandler(this, future, statement).sendRequest();
+            if (resultCache.maybeComplete(statement, future))
+                return future;
+            RequestHandler.Callback callback = resultCache.prepare(statement, future);
+            if (!coalescer.maybeExecute(statement, callback))
+                new RequestHandler(this, callback, statement).sendRequest();
             return future;
         } else {
             // If the session is not initialized, we can't call makeRequestMessage() synchronously, because it
@@ -169,6 +175,7 @@ class SessionManager extends AbstractSession {
 
         isClosing = true;
         cluster.manager.removeSession(this);
+        resultCache.close();
 
         List<CloseFuture> futures = new ArrayList<CloseFuture>(pools.size());
         for (HostConnectionPool pool : pools.values())
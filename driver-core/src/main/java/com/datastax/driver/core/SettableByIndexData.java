@@ -208,6 +208,11 @@ public interface SettableByIndexData<T extends SettableByIndexData<T>> {
      * <p/>
      * This method uses the {@link CodecRegistry} to find a codec to handle the conversion
      * to the underlying CQL type (for CQL type {@code blob}, this will be the built-in codec).
+     * <p/>
+     * The built-in codec does not copy the buffer. Furthermore, if the buffer is direct (for example a
+     * {@link java.nio.MappedByteBuffer}, or the result of {@code nioBuffer()} on a Netty direct buffer) and at least
+     * 64KB large, it is not copied when the request is encoded either, but written to the socket as is. Therefore
+     * the contents of the buffer must not change until the query has completed.
      *
      * @param i the index of the value to set.
      * @param v the value to set.
@@ -858,6 +858,9 @@ public abstract class TypeCodec<T> {
                 return null;
             if (bytes.remaining() == 0)
                 return "";
+            // decode heap buffers in place to avoid copying the bytes first
+            if (bytes.hasArray())
+                return new String(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining(), charset);
             return new String(Bytes.getArray(bytes), charset);
         }
     }
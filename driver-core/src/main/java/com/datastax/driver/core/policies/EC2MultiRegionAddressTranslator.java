@@ -15,9 +15,14 @@
  */
 package com.datastax.driver.core.policies;
 
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.datastax.driver.core.Cluster;
+import com.datastax.driver.core.Metrics;
 import com.datastax.driver.core.exceptions.DriverException;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.util.concurrent.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -32,6 +37,8 @@ import java.net.InetAddress;
 import java.net.InetSocketAddress;
 import java.util.Enumeration;
 import java.util.Hashtable;
+import java.util.Queue;
+import java.util.concurrent.*;
 
 /**
  * {@link AddressTranslator} implementation for a multi-region EC2 deployment <b>where clients are also deployed in EC2</b>.
@@ -47,37 +54,169 @@ import java.util.Hashtable;
  * Implementation note: this class performs a reverse DNS lookup of the origin address, to find the domain name of the target
  * instance. Then it performs a forward DNS lookup of the domain name; the EC2 DNS does the private/public switch automatically
  * based on location.
+ * <p/>
+ * Translations are cached for a configurable time-to-live (10 minutes by default). Once a translation has expired, the
+ * cached one is still returned while it is refreshed in the background, on a dedicated pool of threads; if the refresh
+ * fails, the last known translation is kept. Only the first translation of an address blocks the caller; if it fails,
+ * the address is used as-is, and looked up again in the background after a short delay.
+ * <p/>
+ * If metrics are enabled, the following metrics are registered under {@code ec2-address-translator}:
+ * {@code lookup-latency} (the time taken by DNS lookups), {@code cache-hits}, {@code cache-misses} and
+ * {@code lookup-errors}.
  */
 public class EC2MultiRegionAddressTranslator implements AddressTranslator {
 
     private static final Logger logger = LoggerFactory.getLogger(EC2MultiRegionAddressTranslator.class);
 
+    /**
+     * The default time-to-live of cached translations, in milliseconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 10 * 60 * 1000;
+
+    private static final int LOOKUP_THREADS = 4;
+
+    // how long the outcome of a failed lookup is kept before it is retried (unless the time-to-live is shorter)
+    private static final long ERROR_RETRY_NANOS = TimeUnit.SECONDS.toNanos(10);
+
+    // how long close() waits for the lookups in progress
+    private static final long CLOSE_TIMEOUT_SECONDS = 5;
+
     // TODO when we switch to Netty 4.1, we can replace this with the Netty built-in DNS client
-    private final DirContext ctx;
+    // JNDI contexts are not thread-safe: each lookup borrows an idle one, or creates a new one if there is none,
+    // so there are at most as many as concurrent lookups.
+    private final Queue<DirContext> contexts = new ConcurrentLinkedQueue<DirContext>();
+    private final long timeToLiveNanos;
+    private final ExecutorService executor;
+    private volatile boolean closed;
 
+    private final ConcurrentMap<InetAddress, Translation> cache = new ConcurrentHashMap<InetAddress, Translation>();
+    private final ConcurrentMap<InetAddress, ListenableFuture<InetAddress>> lookups = new ConcurrentHashMap<InetAddress, ListenableFuture<InetAddress>>();
+
+    private volatile Timer lookupLatency;
+    private volatile Counter cacheHits;
+    private volatile Counter cacheMisses;
+    private volatile Counter lookupErrors;
+
+    /**
+     * Creates a new instance that caches translations for {@link #DEFAULT_TIME_TO_LIVE_MILLIS}.
+     */
     public EC2MultiRegionAddressTranslator() {
+        this(DEFAULT_TIME_TO_LIVE_MILLIS);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param timeToLiveMillis the time after which a cached translation gets refreshed, in milliseconds.
+     */
+    public EC2MultiRegionAddressTranslator(long timeToLiveMillis) {
+        this(newContext(), timeToLiveMillis, newExecutor());
+    }
+
+    @VisibleForTesting
+    EC2MultiRegionAddressTranslator(DirContext ctx) {
+        this(ctx, DEFAULT_TIME_TO_LIVE_MILLIS, MoreExecutors.sameThreadExecutor());
+    }
+
+    @VisibleForTesting
+    EC2MultiRegionAddressTranslator(DirContext ctx, long timeToLiveMillis, ExecutorService executor) {
+        if (timeToLiveMillis < 0)
+            throw new IllegalArgumentException("Time-to-live must be positive, got " + timeToLiveMillis);
+        this.contexts.offer(ctx);
+        this.timeToLiveNanos = TimeUnit.MILLISECONDS.toNanos(timeToLiveMillis);
+        this.executor = executor;
+    }
+
+    private static DirContext newContext() {
         Hashtable<Object, Object> env = new Hashtable<Object, Object>();
         env.put(Context.INITIAL_CONTEXT_FACTORY, "com.sun.jndi.dns.DnsContextFactory");
         try {
-            ctx = new InitialDirContext(env);
+            return new InitialDirContext(env);
         } catch (NamingException e) {
             throw new DriverException("Could not create translator", e);
         }
     }
 
-    @VisibleForTesting
-    EC2MultiRegionAddressTranslator(DirContext ctx) {
-        this.ctx = ctx;
+    private static ExecutorService newExecutor() {
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(LOOKUP_THREADS, LOOKUP_THREADS,
+                30, TimeUnit.SECONDS,
+                new LinkedBlockingQueue<Runnable>(),
+                new ThreadFactoryBuilder().setNameFormat("ec2-address-translator-%d").setDaemon(true).build());
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
     }
 
     @Override
     public void init(Cluster cluster) {
-        // nothing to do
+        Metrics metrics = cluster.getMetrics();
+        if (metrics != null) {
+            MetricRegistry registry = metrics.getRegistry();
+            lookupLatency = registry.timer("ec2-address-translator.lookup-latency");
+            cacheHits = registry.counter("ec2-address-translator.cache-hits");
+            cacheMisses = registry.counter("ec2-address-translator.cache-misses");
+            lookupErrors = registry.counter("ec2-address-translator.lookup-errors");
+        }
     }
 
     @Override
     public InetSocketAddress translate(InetSocketAddress socketAddress) {
         InetAddress address = socketAddress.getAddress();
+        Translation translation = cache.get(address);
+        InetAddress translatedAddress;
+        if (translation != null) {
+            // Serve the last known translation, even if it needs to be refreshed
+            if (System.nanoTime() - translation.resolvedAt >= translation.timeToLiveNanos)
+                lookup(address);
+            increment(cacheHits);
+            translatedAddress = translation.address;
+        } else {
+            increment(cacheMisses);
+            try {
+                translatedAddress = Uninterruptibles.getUninterruptibly(lookup(address));
+            } catch (ExecutionException e) {
+                // not expected, resolve() handles its errors
+                translatedAddress = address;
+            }
+        }
+        return translatedAddress.equals(address)
+                ? socketAddress
+                : new InetSocketAddress(translatedAddress, socketAddress.getPort());
+    }
+
+    // Concurrent lookups of the same address share the same DNS queries
+    private ListenableFuture<InetAddress> lookup(final InetAddress address) {
+        ListenableFuture<InetAddress> lookup = lookups.get(address);
+        if (lookup != null)
+            return lookup;
+
+        ListenableFutureTask<InetAddress> task = ListenableFutureTask.create(new Callable<InetAddress>() {
+            @Override
+            public InetAddress call() {
+                return resolve(address);
+            }
+        });
+        lookup = lookups.putIfAbsent(address, task);
+        if (lookup != null)
+            return lookup;
+
+        task.addListener(new Runnable() {
+            @Override
+            public void run() {
+                lookups.remove(address);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+        try {
+            executor.execute(task);
+        } catch (RejectedExecutionException e) {
+            // the translator was closed
+            task.run();
+        }
+        return task;
+    }
+
+    private InetAddress resolve(InetAddress address) {
+        long start = System.nanoTime();
+        InetAddress translatedAddress;
         try {
             // InetAddress#getHostName() is supposed to perform a reverse DNS lookup, but for some reason it doesn't work
             // within the same EC2 region (it returns the IP address itself).
@@ -85,30 +224,77 @@ public class EC2MultiRegionAddressTranslator implements AddressTranslator {
             String domainName = lookupPtrRecord(reverse(address));
             if (domainName == null) {
                 logger.warn("Found no domain name for {}, returning it as-is", address);
-                return socketAddress;
+                translatedAddress = address;
+            } else {
+                translatedAddress = InetAddress.getByName(domainName);
+                logger.debug("Resolved {} to {}", address, translatedAddress);
             }
-
-            InetAddress translatedAddress = InetAddress.getByName(domainName);
-            logger.debug("Resolved {} to {}", address, translatedAddress);
-            return new InetSocketAddress(translatedAddress, socketAddress.getPort());
         } catch (Exception e) {
-            logger.warn("Error resolving " + address + ", returning it as-is", e);
-            return socketAddress;
+            increment(lookupErrors);
+            Translation previous = cache.get(address);
+            if (previous == null) {
+                logger.warn("Error resolving " + address + ", returning it as-is", e);
+                translatedAddress = address;
+            } else {
+                logger.warn("Error resolving " + address + ", keeping last known translation " + previous.address, e);
+                translatedAddress = previous.address;
+            }
+            // Cache the fallback too, so that callers don't block or trigger a lookup on every access while DNS is
+            // failing; it will be retried in the background after a short delay
+            cache.put(address, new Translation(translatedAddress, System.nanoTime(), Math.min(ERROR_RETRY_NANOS, timeToLiveNanos)));
+            return translatedAddress;
+        } finally {
+            Timer timer = lookupLatency;
+            if (timer != null)
+                timer.update(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         }
+        cache.put(address, new Translation(translatedAddress, System.nanoTime(), timeToLiveNanos));
+        return translatedAddress;
+    }
+
+    private static void increment(Counter counter) {
+        if (counter != null)
+            counter.inc();
     }
 
     private String lookupPtrRecord(String reversedDomain) throws Exception {
-        Attributes attrs = ctx.getAttributes(reversedDomain, new String[]{"PTR"});
-        for (NamingEnumeration ae = attrs.getAll(); ae.hasMoreElements(); ) {
-            Attribute attr = (Attribute) ae.next();
-            for (Enumeration<?> vals = attr.getAll(); vals.hasMoreElements(); )
-                return vals.nextElement().toString();
+        DirContext ctx = contexts.poll();
+        if (ctx == null)
+            ctx = newContext();
+        try {
+            Attributes attrs = ctx.getAttributes(reversedDomain, new String[]{"PTR"});
+            for (NamingEnumeration ae = attrs.getAll(); ae.hasMoreElements(); ) {
+                Attribute attr = (Attribute) ae.next();
+                for (Enumeration<?> vals = attr.getAll(); vals.hasMoreElements(); )
+                    return vals.nextElement().toString();
+            }
+            return null;
+        } finally {
+            contexts.offer(ctx);
+            // close() might have closed the idle contexts already
+            if (closed && contexts.remove(ctx))
+                closeContext(ctx);
         }
-        return null;
     }
 
     @Override
     public void close() {
+        closed = true;
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(CLOSE_TIMEOUT_SECONDS, TimeUnit.SECONDS))
+                logger.warn("Some DNS lookups did not complete after {} seconds, their contexts will be closed when they do",
+                        CLOSE_TIMEOUT_SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        cache.clear();
+        DirContext ctx;
+        while ((ctx = contexts.poll()) != null)
+            closeContext(ctx);
+    }
+
+    private static void closeContext(DirContext ctx) {
         try {
             ctx.close();
         } catch (NamingException e) {
@@ -116,6 +302,18 @@ public class EC2MultiRegionAddressTranslator implements AddressTranslator {
         }
     }
 
+    private static class Translation {
+        final InetAddress address;
+        final long resolvedAt;
+        final long timeToLiveNanos;
+
+        Translation(InetAddress address, long resolvedAt, long timeToLiveNanos) {
+            this.address = address;
+            this.resolvedAt = resolvedAt;
+            this.timeToLiveNanos = timeToLiveNanos;
+        }
+    }
+
     // Builds the "reversed" domain name in the ARPA domain to perform the reverse lookup
     @VisibleForTesting
     static String reverse(InetAddress address) {
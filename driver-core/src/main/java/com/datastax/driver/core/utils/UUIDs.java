@@ -28,7 +28,8 @@ import java.net.UnknownHostException;
 import java.security.MessageDigest;
 import java.security.NoSuchAlgorithmException;
 import java.util.*;
-import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
 
 /**
  * Utility methods to help working with UUIDs, and more specifically, with time-based UUIDs
@@ -51,6 +52,12 @@ import java.util.concurrent.atomic.AtomicLong;
  * <li>If all of the above fails, a random integer will be generated and used as a surrogate PID.</li>
  * </ol>
  * </li>
+ * <li>To avoid contention between threads, the generator uses several clock sequences (by default, as many as the
+ * number of available processors, rounded up to a power of two). Each thread is assigned one of them, and timestamps are
+ * only guaranteed to be unique and increasing for a given clock sequence: UUIDs generated by a given thread are always
+ * increasing, but UUIDs generated concurrently by different threads might share the same timestamp. The number of
+ * clock sequences can be forced with the System property <code>{@value CLOCK_SEQUENCES_SYSTEM_PROPERTY}</code>; set it
+ * to 1 to have timestamps increase across all threads.</li>
  * </ol>
  *
  * @jira_ticket JAVA-444
@@ -63,13 +70,33 @@ public final class UUIDs {
      */
     public static final String PID_SYSTEM_PROPERTY = "com.datastax.driver.PID";
 
+    /**
+     * The System property to use to force the number of clock sequences used to generate time-based UUIDs.
+     */
+    public static final String CLOCK_SEQUENCES_SYSTEM_PROPERTY = "com.datastax.driver.UUID_CLOCK_SEQUENCES";
+
+    // The clock sequence is 14 bits long
+    private static final int MAX_CLOCK_SEQUENCES = 1 << 14;
+
     private static final Logger LOGGER = LoggerFactory.getLogger(UUIDs.class);
 
     private UUIDs() {
     }
 
     private static final long START_EPOCH = makeEpoch();
-    private static final long CLOCK_SEQ_AND_NODE = makeClockSeqAndNode();
+    // Distance between the last timestamps of two clock sequences, so that each one sits on its own cache line
+    // (8 longs = 64 bytes). The first slot is left unused to keep the array header off the first line.
+    private static final int TIMESTAMP_STRIDE = 8;
+    private static final ClockSequence[] CLOCK_SEQUENCES = makeClockSequences();
+    private static final AtomicLongArray LAST_TIMESTAMPS = new AtomicLongArray((CLOCK_SEQUENCES.length + 1) * TIMESTAMP_STRIDE);
+
+    private static final AtomicInteger nextClockSequence = new AtomicInteger();
+    private static final ThreadLocal<ClockSequence> threadClockSequence = new ThreadLocal<ClockSequence>() {
+        @Override
+        protected ClockSequence initialValue() {
+            return CLOCK_SEQUENCES[nextClockSequence.getAndIncrement() & (CLOCK_SEQUENCES.length - 1)];
+        }
+    };
 
     /*
      * The min and max possible lsb for a UUID.
@@ -85,8 +112,6 @@ public final class UUIDs {
     private static final long MIN_CLOCK_SEQ_AND_NODE = 0x8080808080808080L;
     private static final long MAX_CLOCK_SEQ_AND_NODE = 0x7f7f7f7f7f7f7f7fL;
 
-    private static final AtomicLong lastTimestamp = new AtomicLong(0L);
-
     private static long makeEpoch() {
         // UUID v1 timestamp must be in 100-nanoseconds interval since 00:00:00.000 15 Oct 1582.
         Calendar c = Calendar.getInstance(TimeZone.getTimeZone("GMT-0"));
@@ -181,15 +206,35 @@ public final class UUIDs {
             digest.update(value.getBytes(Charsets.UTF_8));
     }
 
-    private static long makeClockSeqAndNode() {
+    private static ClockSequence[] makeClockSequences() {
         long clock = new Random(System.currentTimeMillis()).nextLong();
         long node = makeNode();
 
-        long lsb = 0;
-        lsb |= (clock & 0x0000000000003FFFL) << 48;
-        lsb |= 0x8000000000000000L;
-        lsb |= node;
-        return lsb;
+        ClockSequence[] sequences = new ClockSequence[getClockSequenceCount()];
+        for (int i = 0; i < sequences.length; i++) {
+            long lsb = 0;
+            lsb |= ((clock + i) & 0x0000000000003FFFL) << 48;
+            lsb |= 0x8000000000000000L;
+            lsb |= node;
+            sequences[i] = new ClockSequence(lsb, (i + 1) * TIMESTAMP_STRIDE);
+        }
+        return sequences;
+    }
+
+    // Always a power of two
+    private static int getClockSequenceCount() {
+        int count = Runtime.getRuntime().availableProcessors();
+        String countProperty = System.getProperty(CLOCK_SEQUENCES_SYSTEM_PROPERTY);
+        if (countProperty != null) {
+            try {
+                count = Integer.parseInt(countProperty);
+                LOGGER.info("Number of clock sequences obtained from System property {}: {}", CLOCK_SEQUENCES_SYSTEM_PROPERTY, count);
+            } catch (NumberFormatException e) {
+                LOGGER.warn("Incorrect integer specified for the number of clock sequences in System property {}: {}", CLOCK_SEQUENCES_SYSTEM_PROPERTY, countProperty);
+            }
+        }
+        count = Math.max(1, Math.min(count, MAX_CLOCK_SEQUENCES));
+        return Integer.highestOneBit(count) == count ? count : Integer.highestOneBit(count) << 1;
     }
 
     /**
@@ -223,7 +268,51 @@ public final class UUIDs {
      * @return a new time-based UUID.
      */
     public static UUID timeBased() {
-        return new UUID(makeMSB(getCurrentTimestamp()), CLOCK_SEQ_AND_NODE);
+        ClockSequence sequence = threadClockSequence.get();
+        return new UUID(makeMSB(getCurrentTimestamp(sequence)), sequence.clockSeqAndNode);
+    }
+
+    /**
+     * Creates new time-based (version 1) UUIDs.
+     * <p/>
+     * This is equivalent to calling {@link #timeBased()} {@code n} times, but more efficient: consecutive timestamps
+     * are reserved in batches instead of one at a time.
+     *
+     * @param n the number of UUIDs to create.
+     * @return a list of {@code n} new time-based UUIDs, in increasing order.
+     * @throws IllegalArgumentException if {@code n < 0}.
+     */
+    public static List<UUID> timeBased(int n) {
+        if (n < 0)
+            throw new IllegalArgumentException("Invalid number of UUIDs: " + n);
+        ClockSequence sequence = threadClockSequence.get();
+        List<UUID> uuids = new ArrayList<UUID>(n);
+        int remaining = n;
+        while (remaining > 0) {
+            long now = fromUnixTimestamp(System.currentTimeMillis());
+            long last = sequence.lastTimestamp();
+            long first, end;
+            if (now > last) {
+                first = now;
+                end = Math.min(first + remaining - 1, lastOfMillis(first));
+            } else if (millisOf(now) < millisOf(last)) {
+                // The clock went back in time, keep going from the last timestamp (see getCurrentTimestamp)
+                first = last + 1;
+                end = last + remaining;
+            } else {
+                first = last + 1;
+                // We've exhausted this millisecond, spin until the next one
+                if (millisOf(first) != millisOf(last))
+                    continue;
+                end = Math.min(first + remaining - 1, lastOfMillis(first));
+            }
+            if (sequence.compareAndSetLastTimestamp(last, end)) {
+                for (long timestamp = first; timestamp <= end; timestamp++)
+                    uuids.add(new UUID(makeMSB(timestamp), sequence.clockSeqAndNode));
+                remaining -= (int) (end - first + 1);
+            }
+        }
+        return uuids;
     }
 
     /**
@@ -310,25 +399,25 @@ public final class UUIDs {
      * modest machines), then we stall the generator (busy spin) until the next
      * millisecond as required by the RFC.
      */
-    private static long getCurrentTimestamp() {
+    private static long getCurrentTimestamp(ClockSequence sequence) {
         while (true) {
             long now = fromUnixTimestamp(System.currentTimeMillis());
-            long last = lastTimestamp.get();
+            long last = sequence.lastTimestamp();
             if (now > last) {
-                if (lastTimestamp.compareAndSet(last, now))
+                if (sequence.compareAndSetLastTimestamp(last, now))
                     return now;
             } else {
                 long lastMillis = millisOf(last);
                 // If the clock went back in time, bail out
                 if (millisOf(now) < millisOf(last))
-                    return lastTimestamp.incrementAndGet();
+                    return sequence.incrementLastTimestamp();
 
                 long candidate = last + 1;
                 // If we've generated more than 10k uuid in that millisecond,
                 // we restart the whole process until we get to the next millis.
                 // Otherwise, we try use our candidate ... unless we've been
                 // beaten by another thread in which case we try again.
-                if (millisOf(candidate) == lastMillis && lastTimestamp.compareAndSet(last, candidate))
+                if (millisOf(candidate) == lastMillis && sequence.compareAndSetLastTimestamp(last, candidate))
                     return candidate;
             }
         }
@@ -343,6 +432,10 @@ public final class UUIDs {
         return timestamp / 10000;
     }
 
+    private static long lastOfMillis(long timestamp) {
+        return (millisOf(timestamp) + 1) * 10000 - 1;
+    }
+
     // Package visible for testing
     static long makeMSB(long timestamp) {
         long msb = 0L;
@@ -353,6 +446,29 @@ public final class UUIDs {
         return msb;
     }
 
+    private static class ClockSequence {
+        final long clockSeqAndNode;
+        // Index of the last timestamp in LAST_TIMESTAMPS
+        private final int index;
+
+        ClockSequence(long clockSeqAndNode, int index) {
+            this.clockSeqAndNode = clockSeqAndNode;
+            this.index = index;
+        }
+
+        long lastTimestamp() {
+            return LAST_TIMESTAMPS.get(index);
+        }
+
+        boolean compareAndSetLastTimestamp(long expect, long update) {
+            return LAST_TIMESTAMPS.compareAndSet(index, expect, update);
+        }
+
+        long incrementLastTimestamp() {
+            return LAST_TIMESTAMPS.incrementAndGet(index);
+        }
+    }
+
     private static Set<String> getAllLocalAddresses() {
         Set<String> allIps = new HashSet<String>();
         try {
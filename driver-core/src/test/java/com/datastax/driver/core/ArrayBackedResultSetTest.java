@@ -0,0 +1,139 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.LinkedList;
+import java.util.Queue;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.*;
+
+public class ArrayBackedResultSetTest {
+
+    private static final CodecRegistry REGISTRY = CodecRegistry.DEFAULT_INSTANCE;
+
+    private static final ColumnDefinitions RESULT = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "cf", "v", DataType.cint())
+    }, REGISTRY);
+
+    private Cluster cluster;
+    private SessionManager session;
+    private BoundStatement statement;
+    // the pages returned when fetching more results
+    private Queue<Responses.Result> nextPages;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        // not initialized, only provides (empty) metadata to the result sets
+        cluster = Cluster.builder().addContactPoint("127.0.0.1").build();
+        cluster.manager.metadata = new Metadata(cluster.manager);
+        session = mock(SessionManager.class);
+        when(session.getCluster()).thenReturn(cluster);
+        nextPages = new LinkedList<Responses.Result>();
+        doAnswer(new Answer<Void>() {
+            @Override
+            public Void answer(InvocationOnMock invocation) throws Throwable {
+                RequestHandler.Callback callback = (RequestHandler.Callback) invocation.getArguments()[0];
+                callback.onSet(null, nextPages.poll(), new ExecutionInfo(Collections.<Host>emptyList()), statement, 0);
+                return null;
+            }
+        }).when(session).execute(any(RequestHandler.Callback.class), any(Statement.class));
+
+        PreparedId id = new PreparedId(MD5Digest.wrap(new byte[16]), ColumnDefinitions.EMPTY, RESULT, null, V4);
+        PreparedStatement prepared = mock(PreparedStatement.class);
+        when(prepared.getVariables()).thenReturn(ColumnDefinitions.EMPTY);
+        when(prepared.getPreparedId()).thenReturn(id);
+        when(prepared.getCodecRegistry()).thenReturn(REGISTRY);
+        statement = new BoundStatement(prepared);
+    }
+
+    @AfterMethod(groups = "unit", alwaysRun = true)
+    public void teardown() {
+        cluster.close();
+    }
+
+    @Test(groups = "unit")
+    public void should_return_one_batch_per_page() {
+        ResultSet rs = resultSet(page(true, 0, 1, 2));
+        nextPages.add(page(true, 3, 4));
+        nextPages.add(page(false, 5));
+
+        assertThat(rs.nextBatch().getInts(0)).containsExactly(0, 1, 2);
+        assertThat(rs.nextBatch().getInts(0)).containsExactly(3, 4);
+        assertThat(rs.nextBatch().getInts(0)).containsExactly(5);
+        assertThat(rs.isExhausted()).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_return_empty_batch_when_exhausted() {
+        ResultSet singlePage = resultSet(page(false, 0, 1));
+        assertThat(singlePage.nextBatch().size()).isEqualTo(2);
+        assertThat(singlePage.nextBatch().size()).isEqualTo(0);
+
+        ResultSet multiPage = resultSet(page(true, 0, 1));
+        // the last page is empty, which can happen if the previous one ended exactly at the end of the results
+        nextPages.add(page(false));
+        assertThat(multiPage.nextBatch().size()).isEqualTo(2);
+        assertThat(multiPage.nextBatch().size()).isEqualTo(0);
+        assertThat(multiPage.nextBatch().size()).isEqualTo(0);
+        assertThat(multiPage.isFullyFetched()).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_mix_rows_and_batches() {
+        ResultSet rs = resultSet(page(true, 0, 1, 2));
+        nextPages.add(page(true, 3, 4));
+        nextPages.add(page(false, 5));
+
+        assertThat(rs.one().getInt(0)).isEqualTo(0);
+        // the rest of the current page
+        assertThat(rs.nextBatch().getInts(0)).containsExactly(1, 2);
+        assertThat(rs.one().getInt(0)).isEqualTo(3);
+        assertThat(rs.nextBatch().getInts(0)).containsExactly(4);
+        assertThat(rs.getAvailableWithoutFetching()).isEqualTo(0);
+        assertThat(rs.nextBatch().getInts(0)).containsExactly(5);
+        assertThat(rs.one()).isNull();
+        assertThat(rs.nextBatch().size()).isEqualTo(0);
+    }
+
+    private ResultSet resultSet(Responses.Result firstPage) {
+        return ArrayBackedResultSet.fromMessage(firstPage, session, V4, new ExecutionInfo(Collections.<Host>emptyList()), statement);
+    }
+
+    private static Responses.Result page(boolean hasMorePages, int... values) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(hasMorePages ? 0x0004 | 0x0002 : 0x0004); // NO_METADATA, HAS_MORE_PAGES
+        body.writeInt(1); // column count
+        if (hasMorePages)
+            CBUtil.writeValue(ByteBuffer.wrap(new byte[]{1}), body); // paging state
+        body.writeInt(values.length); // row count
+        for (int value : values)
+            CBUtil.writeValue(TypeCodec.cint().serialize(value, V4), body);
+        return Responses.Result.Rows.subcodec.decode(body, V4, REGISTRY);
+    }
+}
@@ -476,6 +476,49 @@ public class CodecRegistryTest {
         stopCapturingLogs(logs);
     }
 
+    @Test(groups = "unit")
+    public void should_serve_native_and_shallow_collection_codecs_from_fast_path() {
+        CodecRegistry registry = new CodecRegistry();
+
+        TypeCodec<Integer> intCodec = registry.codecFor(cint(), Integer.class);
+        TypeCodec<List<String>> listCodec = registry.codecFor(list(varchar()), listOf(String.class));
+        assertThat(registry.getSlowPathLookupCount()).isEqualTo(2);
+        assertThat(registry.getFastPathHitCount()).isEqualTo(0);
+
+        // TypeToken and Class lookups for a raw type share the same entry
+        assertThat(registry.codecFor(cint(), of(Integer.class))).isSameAs(intCodec);
+        assertThat(registry.codecFor(cint(), Integer.class)).isSameAs(intCodec);
+        // collection types are matched by equality, not identity
+        assertThat(registry.codecFor(list(varchar()), listOf(String.class))).isSameAs(listCodec);
+        assertThat(registry.getSlowPathLookupCount()).isEqualTo(2);
+        assertThat(registry.getFastPathHitCount()).isEqualTo(3);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_serve_nested_collection_codecs_from_fast_path() {
+        CodecRegistry registry = new CodecRegistry();
+
+        TypeCodec<List<List<Integer>>> codec = registry.codecFor(list(list(cint())), listOf(listOf(Integer.class)));
+        assertThat(registry.codecFor(list(list(cint())), listOf(listOf(Integer.class)))).isSameAs(codec);
+        assertThat(registry.getSlowPathLookupCount()).isEqualTo(2);
+        assertThat(registry.getFastPathHitCount()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_cache_failed_lookups_in_fast_path() {
+        CodecRegistry registry = new CodecRegistry();
+        for (int i = 0; i < 2; i++) {
+            try {
+                registry.codecFor(cint(), String.class);
+                fail("Should not have found a codec for int <-> String");
+            } catch (CodecNotFoundException e) {
+                // expected
+            }
+        }
+        assertThat(registry.getSlowPathLookupCount()).isEqualTo(2);
+        assertThat(registry.getFastPathHitCount()).isEqualTo(0);
+    }
+
     private MemoryAppender startCapturingLogs() {
         Logger registryLogger = Logger.getLogger(CodecRegistry.class);
         registryLogger.setLevel(Level.WARN);
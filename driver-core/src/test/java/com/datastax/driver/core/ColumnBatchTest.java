@@ -0,0 +1,85 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.CodecNotFoundException;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.fail;
+
+public class ColumnBatchTest {
+
+    private static final ColumnDefinitions METADATA = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "cf", "i", DataType.cint()),
+            new ColumnDefinitions.Definition("ks", "cf", "l", DataType.bigint()),
+            new ColumnDefinitions.Definition("ks", "cf", "d", DataType.cdouble()),
+            new ColumnDefinitions.Definition("ks", "cf", "s", DataType.text())
+    }, CodecRegistry.DEFAULT_INSTANCE);
+
+    @Test(groups = "unit")
+    public void should_decode_columns_into_arrays() {
+        ColumnBatch batch = newBatch(
+                row(1, 10L, 1.5, "a"),
+                Arrays.<ByteBuffer>asList(null, null, null, null),
+                row(3, 30L, 3.5, "c"));
+
+        assertThat(batch.size()).isEqualTo(3);
+        assertThat(batch.getInts("i")).containsExactly(1, 0, 3);
+        assertThat(batch.getLongs(1)).containsExactly(10L, 0L, 30L);
+        assertThat(batch.getDoubles("d")).containsExactly(1.5, 0.0, 3.5);
+        assertThat(batch.getStrings(3)).containsExactly("a", null, "c");
+        assertThat(batch.getNulls("l").cardinality()).isEqualTo(1);
+        assertThat(batch.getNulls("l").get(1)).isTrue();
+        assertThat(batch.isNull(0, 0)).isFalse();
+        assertThat(batch.isNull(1, 0)).isTrue();
+    }
+
+    @Test(groups = "unit")
+    public void should_fail_if_column_type_cannot_be_decoded() {
+        ColumnBatch batch = newBatch(row(1, 10L, 1.5, "a"));
+        try {
+            batch.getLongs("s");
+            fail("Expected a CodecNotFoundException");
+        } catch (CodecNotFoundException e) {
+            // expected
+        }
+        try {
+            batch.getLongs(4);
+            fail("Expected an IndexOutOfBoundsException");
+        } catch (IndexOutOfBoundsException e) {
+            // expected
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private static ColumnBatch newBatch(List<ByteBuffer>... rows) {
+        return new ColumnBatch(METADATA, V4, rows);
+    }
+
+    private static List<ByteBuffer> row(int i, long l, double d, String s) {
+        return Arrays.asList(
+                TypeCodec.cint().serialize(i, V4),
+                TypeCodec.bigint().serialize(l, V4),
+                TypeCodec.cdouble().serialize(d, V4),
+                TypeCodec.varchar().serialize(s, V4));
+    }
+}
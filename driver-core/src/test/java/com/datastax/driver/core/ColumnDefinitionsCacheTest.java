@@ -0,0 +1,87 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.Test;
+
+import static com.datastax.driver.core.ProtocolVersion.V3;
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ColumnDefinitionsCacheTest {
+
+    private static final CodecRegistry REGISTRY = CodecRegistry.DEFAULT_INSTANCE;
+
+    @Test(groups = "unit")
+    public void should_return_cached_definitions_for_same_bytes() {
+        ColumnDefinitionsCache cache = new ColumnDefinitionsCache(16);
+        ByteBuf first = specs("v");
+        ByteBuf second = specs("v");
+
+        ColumnDefinitions columns = cache.decode(first, 2, true, V4, REGISTRY);
+
+        assertThat(first.readableBytes()).isEqualTo(1); // the trailing marker
+        assertThat(columns.size()).isEqualTo(2);
+        assertThat(columns.getName(1)).isEqualTo("v");
+        assertThat(columns.getType(1)).isEqualTo(DataType.map(DataType.text(), DataType.list(DataType.cint())));
+        assertThat(cache.decode(second, 2, true, V4, REGISTRY)).isSameAs(columns);
+        assertThat(second.readableBytes()).isEqualTo(1);
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_again_if_bytes_or_context_differ() {
+        ColumnDefinitionsCache cache = new ColumnDefinitionsCache(16);
+        ColumnDefinitions columns = cache.decode(specs("v"), 2, true, V4, REGISTRY);
+
+        ColumnDefinitions other = cache.decode(specs("w"), 2, true, V4, REGISTRY);
+        assertThat(other).isNotSameAs(columns);
+        assertThat(other.getName(1)).isEqualTo("w");
+
+        assertThat(cache.decode(specs("v"), 2, true, V3, REGISTRY)).isNotSameAs(columns);
+        assertThat(cache.decode(specs("v"), 2, true, V4, new CodecRegistry())).isNotSameAs(columns);
+    }
+
+    @Test(groups = "unit")
+    public void should_stay_correct_when_entries_collide() {
+        // a single slot: every new entry replaces the previous one
+        ColumnDefinitionsCache cache = new ColumnDefinitionsCache(1);
+        for (int i = 0; i < 5; i++) {
+            assertThat(cache.decode(specs("v"), 2, true, V4, REGISTRY).getName(1)).isEqualTo("v");
+            assertThat(cache.decode(specs("w"), 2, true, V4, REGISTRY).getName(1)).isEqualTo("w");
+        }
+    }
+
+    /**
+     * Encodes the specs of two columns with global table specs: "k int" and "{name} map<text, list<int>>",
+     * followed by a marker byte.
+     */
+    private static ByteBuf specs(String name) {
+        ByteBuf body = Unpooled.buffer();
+        CBUtil.writeString("ks", body);
+        CBUtil.writeString("t", body);
+        CBUtil.writeString("k", body);
+        body.writeShort(DataType.Name.INT.protocolId);
+        CBUtil.writeString(name, body);
+        body.writeShort(DataType.Name.MAP.protocolId);
+        body.writeShort(DataType.Name.VARCHAR.protocolId);
+        body.writeShort(DataType.Name.LIST.protocolId);
+        body.writeShort(DataType.Name.INT.protocolId);
+        body.writeByte(42);
+        return body;
+    }
+}
@@ -0,0 +1,142 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import org.scassandra.http.client.Query;
+import org.scassandra.http.client.Result;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static com.datastax.driver.core.TestUtils.nonQuietClusterCloseOptions;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.scassandra.http.client.PrimingRequest.queryBuilder;
+import static org.scassandra.http.client.PrimingRequest.then;
+
+public class ConnectionHandshakeTest {
+
+    private ScassandraCluster scassandras;
+
+    @BeforeMethod(groups = "short")
+    public void startScassandra() {
+        // primes the cluster name
+        scassandras = ScassandraCluster.builder().withNodes(1).build();
+        scassandras.init();
+    }
+
+    @AfterMethod(groups = "short", alwaysRun = true)
+    public void stopScassandra() {
+        if (scassandras != null)
+            scassandras.stop();
+    }
+
+    @Test(groups = "short")
+    public void should_record_handshake_phases() {
+        Cluster cluster = clusterBuilder().build();
+        try {
+            cluster.connect();
+
+            Metrics.Handshake handshake = cluster.getMetrics().getHandshakeMetrics();
+            // the control connection and the pool's connection
+            assertThat(handshake.getFinalizationTimer().getCount()).isEqualTo(2);
+            assertThat(handshake.getTotalTimer().getCount()).isEqualTo(2);
+            // plus the attempts that negotiated the protocol version
+            assertThat(handshake.getConnectTimer().getCount()).isGreaterThanOrEqualTo(2);
+            assertThat(handshake.getStartupTimer().getCount()).isGreaterThanOrEqualTo(2);
+            // no authentication required
+            assertThat(handshake.getAuthenticationTimer().getCount()).isEqualTo(0);
+        } finally {
+            cluster.close();
+        }
+    }
+
+    @Test(groups = "short")
+    public void should_check_cluster_name_once_per_host_until_it_goes_down() throws Exception {
+        Cluster cluster = buildWithFastHandshake();
+        try {
+            SessionManager session = (SessionManager) cluster.connect();
+            Host host = scassandras.host(cluster, 1, 1);
+            HostConnectionPool pool = session.pools.get(host);
+            // checked by the first connection of the pool
+            assertThat(host.clusterNameChecked).isTrue();
+            scassandras.node(1).activityClient().clearAllRecordedActivity();
+
+            cluster.manager.connectionFactory.open(pool).closeAsync().force();
+            assertThat(clusterNameChecks()).isEqualTo(0);
+
+            host.setDown();
+            assertThat(host.clusterNameChecked).isFalse();
+            cluster.manager.connectionFactory.open(pool).closeAsync().force();
+            assertThat(clusterNameChecks()).isEqualTo(1);
+            assertThat(host.clusterNameChecked).isTrue();
+        } finally {
+            cluster.close();
+        }
+    }
+
+    @Test(groups = "short")
+    public void should_not_fail_handshake_if_keyspace_cannot_be_set() throws Exception {
+        Cluster cluster = buildWithFastHandshake();
+        try {
+            SessionManager session = (SessionManager) cluster.connect();
+            Host host = scassandras.host(cluster, 1, 1);
+            // e.g. the keyspace was dropped since the session was created
+            session.poolsState.setKeyspace("ks");
+            scassandras.node(1).primingClient().prime(queryBuilder()
+                    .withQuery("USE \"ks\"")
+                    .withThen(then().withResult(Result.invalid))
+                    .build());
+
+            Connection connection = cluster.manager.connectionFactory.open(session.pools.get(host));
+            try {
+                assertThat(connection.isDefunct()).isFalse();
+                assertThat(connection.keyspace()).isNull();
+                assertThat(host.isUp()).isTrue();
+            } finally {
+                connection.closeAsync().force();
+            }
+        } finally {
+            cluster.close();
+        }
+    }
+
+    private Cluster.Builder clusterBuilder() {
+        return Cluster.builder()
+                .addContactPoints(scassandras.address(1).getAddress())
+                .withPort(scassandras.getBinaryPort())
+                .withPoolingOptions(new PoolingOptions()
+                        .setCoreConnectionsPerHost(HostDistance.LOCAL, 1)
+                        .setMaxConnectionsPerHost(HostDistance.LOCAL, 1)
+                        .setHeartbeatIntervalSeconds(0))
+                .withNettyOptions(nonQuietClusterCloseOptions);
+    }
+
+    private Cluster buildWithFastHandshake() {
+        Cluster cluster = clusterBuilder().build();
+        cluster.getConfiguration().getPoolingOptions().setFastHandshakeEnabled(true);
+        cluster.init();
+        return cluster;
+    }
+
+    private int clusterNameChecks() {
+        int count = 0;
+        for (Query query : scassandras.node(1).activityClient().retrieveQueries()) {
+            if (query.getQuery().equals("select cluster_name from system.local"))
+                count += 1;
+        }
+        return count;
+    }
+}
@@ -0,0 +1,232 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.collect.ImmutableSet;
+import org.scassandra.http.client.PrimingClient;
+import org.scassandra.http.client.PrimingRequest;
+import org.scassandra.http.client.Query;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.TestUtils.nonQuietClusterCloseOptions;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.scassandra.cql.PrimitiveType.*;
+import static org.scassandra.cql.SetType.set;
+import static org.scassandra.http.client.PrimingRequest.then;
+import static org.scassandra.http.client.types.ColumnMetadata.column;
+
+/**
+ * Tests of {@link QueryOptions#setIncrementalNodeListRefreshEnabled(boolean)}. The control connection
+ * is on node 1, whose system.peers table describes nodes 2 and 3.
+ */
+public class IncrementalNodeListRefreshTest {
+
+    private static final String SELECT_PEERS = "SELECT * FROM system.peers";
+    private static final String SELECT_PEERS_IDENTITY = "SELECT peer, rpc_address, host_id, data_center, rack, release_version FROM system.peers";
+
+    private static final org.scassandra.http.client.types.ColumnMetadata[] PEERS_IDENTITY = {
+            column("peer", INET),
+            column("rpc_address", INET),
+            column("host_id", UUID),
+            column("data_center", TEXT),
+            column("rack", TEXT),
+            column("release_version", TEXT)
+    };
+
+    private static final org.scassandra.http.client.types.ColumnMetadata[] PEERS = {
+            column("peer", INET),
+            column("rpc_address", INET),
+            column("host_id", UUID),
+            column("data_center", TEXT),
+            column("rack", TEXT),
+            column("release_version", TEXT),
+            column("tokens", set(TEXT))
+    };
+
+    private ScassandraCluster scassandras;
+    private Cluster cluster;
+
+    // host id and token of nodes 2 and 3, as reported by node 1
+    private final Map<Integer, java.util.UUID> hostIds = new HashMap<Integer, java.util.UUID>();
+    private final Map<Integer, Long> tokens = new HashMap<Integer, Long>();
+
+    @BeforeMethod(groups = "short")
+    public void setup() {
+        scassandras = ScassandraCluster.builder().withNodes(3).build();
+        scassandras.init();
+        for (int node = 2; node <= 3; node++) {
+            hostIds.put(node, java.util.UUID.randomUUID());
+            tokens.put(node, node * 1000L);
+        }
+        primePeers();
+
+        cluster = Cluster.builder()
+                .addContactPoints(scassandras.address(1).getAddress())
+                .withPort(scassandras.getBinaryPort())
+                .withQueryOptions(new QueryOptions().setIncrementalNodeListRefreshEnabled(true))
+                .withNettyOptions(nonQuietClusterCloseOptions)
+                .build();
+        cluster.init();
+        assertThat(tokensOf(2)).containsOnly("2000");
+        clearActivity();
+    }
+
+    @AfterMethod(groups = "short", alwaysRun = true)
+    public void teardown() {
+        if (cluster != null)
+            cluster.close();
+        if (scassandras != null)
+            scassandras.stop();
+    }
+
+    @Test(groups = "short")
+    public void should_reuse_tokens_of_unchanged_peers() {
+        cluster.manager.controlConnection.refreshNodeListAndTokenMap();
+
+        assertThat(queries()).contains(SELECT_PEERS_IDENTITY).doesNotContain(SELECT_PEERS);
+        assertThat(queries()).doesNotContain(selectPeer(2), selectPeer(3));
+        assertThat(tokensOf(2)).containsOnly("2000");
+        assertThat(tokensOf(3)).containsOnly("3000");
+    }
+
+    @Test(groups = "short")
+    public void should_read_moved_peer_again() {
+        tokens.put(2, 2500L);
+        primePeers();
+
+        cluster.manager.controlConnection.onPeerMoved(scassandras.address(2));
+        cluster.manager.controlConnection.refreshNodeListAndTokenMap();
+
+        assertThat(queries()).contains(SELECT_PEERS_IDENTITY, selectPeer(2)).doesNotContain(SELECT_PEERS, selectPeer(3));
+        assertThat(tokensOf(2)).containsOnly("2500");
+        assertThat(tokensOf(3)).containsOnly("3000");
+
+        // only re-read once
+        clearActivity();
+        cluster.manager.controlConnection.refreshNodeListAndTokenMap();
+        assertThat(queries()).doesNotContain(selectPeer(2));
+    }
+
+    @Test(groups = "short")
+    public void should_read_peer_with_new_host_id() {
+        hostIds.put(3, java.util.UUID.randomUUID());
+        tokens.put(3, 3500L);
+        primePeers();
+
+        cluster.manager.controlConnection.refreshNodeListAndTokenMap();
+
+        assertThat(queries()).contains(SELECT_PEERS_IDENTITY, selectPeer(3)).doesNotContain(SELECT_PEERS, selectPeer(2));
+        assertThat(tokensOf(2)).containsOnly("2000");
+        assertThat(tokensOf(3)).containsOnly("3500");
+    }
+
+    @Test(groups = "short")
+    public void should_read_full_table_when_most_peers_changed() {
+        for (int node = 2; node <= 3; node++) {
+            hostIds.put(node, java.util.UUID.randomUUID());
+            tokens.put(node, node * 1000L + 700);
+        }
+        primePeers();
+
+        cluster.manager.controlConnection.refreshNodeListAndTokenMap();
+
+        assertThat(queries()).contains(SELECT_PEERS_IDENTITY, SELECT_PEERS).doesNotContain(selectPeer(2), selectPeer(3));
+        assertThat(tokensOf(2)).containsOnly("2700");
+        assertThat(tokensOf(3)).containsOnly("3700");
+    }
+
+    @Test(groups = "short")
+    public void should_do_full_refresh_when_control_connection_changes() throws InterruptedException {
+        ControlConnection controlConnection = cluster.manager.controlConnection;
+        Connection previous = controlConnection.connectionRef.get();
+
+        controlConnection.triggerReconnect();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!queries().contains(SELECT_PEERS) && System.nanoTime() < deadline)
+            TimeUnit.MILLISECONDS.sleep(50);
+
+        assertThat(controlConnection.connectionRef.get()).isNotSameAs(previous);
+        assertThat(queries()).contains(SELECT_PEERS).doesNotContain(SELECT_PEERS_IDENTITY);
+
+        // the next refresh on the new connection is incremental again
+        clearActivity();
+        controlConnection.refreshNodeListAndTokenMap();
+        assertThat(queries()).contains(SELECT_PEERS_IDENTITY).doesNotContain(SELECT_PEERS);
+    }
+
+    private void primePeers() {
+        PrimingClient client = scassandras.node(1).primingClient();
+        List<Map<String, ?>> identityRows = new ArrayList<Map<String, ?>>();
+        List<Map<String, ?>> fullRows = new ArrayList<Map<String, ?>>();
+        for (int node = 2; node <= 3; node++) {
+            Map<String, Object> identity = new HashMap<String, Object>();
+            identity.put("peer", address(node));
+            identity.put("rpc_address", address(node));
+            identity.put("host_id", hostIds.get(node));
+            identity.put("data_center", ScassandraCluster.datacenter(1));
+            identity.put("rack", "rack1");
+            identity.put("release_version", "2.1.8");
+            identityRows.add(identity);
+
+            Map<String, Object> full = new HashMap<String, Object>(identity);
+            full.put("tokens", ImmutableSet.of(Long.toString(tokens.get(node))));
+            fullRows.add(full);
+            client.prime(PrimingRequest.queryBuilder()
+                    .withQuery(selectPeer(node))
+                    .withThen(then().withColumnTypes(PEERS).withRows(full).build())
+                    .build());
+        }
+        client.prime(PrimingRequest.queryBuilder()
+                .withQuery(SELECT_PEERS_IDENTITY)
+                .withThen(then().withColumnTypes(PEERS_IDENTITY).withRows(identityRows).build())
+                .build());
+        client.prime(PrimingRequest.queryBuilder()
+                .withQuery(SELECT_PEERS)
+                .withThen(then().withColumnTypes(PEERS).withRows(fullRows).build())
+                .build());
+    }
+
+    private String address(int node) {
+        return scassandras.address(node).getAddress().getHostAddress();
+    }
+
+    private String selectPeer(int node) {
+        return SELECT_PEERS + " WHERE peer='" + address(node) + "'";
+    }
+
+    private Set<String> tokensOf(int node) {
+        Set<String> result = new HashSet<String>();
+        for (Token token : scassandras.host(cluster, 1, node).getTokens())
+            result.add(token.toString());
+        return result;
+    }
+
+    private List<String> queries() {
+        List<String> result = new ArrayList<String>();
+        for (Query query : scassandras.node(1).activityClient().retrieveQueries())
+            result.add(query.getQuery());
+        return result;
+    }
+
+    private void clearActivity() {
+        scassandras.node(1).activityClient().clearAllRecordedActivity();
+    }
+}
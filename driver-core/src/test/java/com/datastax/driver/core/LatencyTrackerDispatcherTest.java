@@ -0,0 +1,109 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import org.testng.annotations.Test;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+public class LatencyTrackerDispatcherTest {
+
+    private static final ThreadFactory THREAD_FACTORY = new ThreadFactoryBuilder().setNameFormat("latency-tracker-dispatcher-test-%d").build();
+
+    @Test(groups = "unit")
+    public void should_deliver_updates_to_all_trackers() {
+        Set<LatencyTracker> trackers = new CopyOnWriteArraySet<LatencyTracker>();
+        CountingTracker tracker1 = new CountingTracker(null);
+        CountingTracker tracker2 = new CountingTracker(null);
+        trackers.add(tracker1);
+        trackers.add(tracker2);
+        LatencyTrackerDispatcher dispatcher = new LatencyTrackerDispatcher(trackers, 1024, THREAD_FACTORY);
+
+        for (int i = 0; i < 100; i++)
+            assertThat(dispatcher.publish(mock(Host.class), null, null, i)).isTrue();
+        dispatcher.stop();
+
+        assertThat(tracker1.updates.get()).isEqualTo(100);
+        assertThat(tracker2.updates.get()).isEqualTo(100);
+        assertThat(dispatcher.getPendingUpdates()).isEqualTo(0);
+        assertThat(dispatcher.getDroppedUpdates()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_drop_updates_when_buffer_is_full() throws InterruptedException {
+        CountDownLatch blocked = new CountDownLatch(1);
+        CountingTracker tracker = new CountingTracker(blocked);
+        Set<LatencyTracker> trackers = new CopyOnWriteArraySet<LatencyTracker>();
+        trackers.add(tracker);
+        // rounded up to 8
+        LatencyTrackerDispatcher dispatcher = new LatencyTrackerDispatcher(trackers, 5, THREAD_FACTORY);
+
+        // the first update blocks the consumer
+        dispatcher.publish(mock(Host.class), null, null, 0);
+        tracker.firstUpdate.await(10, TimeUnit.SECONDS);
+
+        int published = 0;
+        for (int i = 0; i < 20; i++)
+            if (dispatcher.publish(mock(Host.class), null, null, i))
+                published += 1;
+        assertThat(published).isEqualTo(8);
+        assertThat(dispatcher.getDroppedUpdates()).isEqualTo(12);
+
+        blocked.countDown();
+        dispatcher.stop();
+        assertThat(tracker.updates.get()).isEqualTo(9);
+    }
+
+    private static class CountingTracker implements LatencyTracker {
+        final AtomicInteger updates = new AtomicInteger();
+        final CountDownLatch firstUpdate = new CountDownLatch(1);
+        final CountDownLatch blocked;
+
+        CountingTracker(CountDownLatch blocked) {
+            this.blocked = blocked;
+        }
+
+        @Override
+        public void update(Host host, Statement statement, Exception exception, long newLatencyNanos) {
+            firstUpdate.countDown();
+            if (blocked != null) {
+                try {
+                    blocked.await(10, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            updates.incrementAndGet();
+        }
+
+        @Override
+        public void onRegister(Cluster cluster) {
+        }
+
+        @Override
+        public void onUnregister(Cluster cluster) {
+        }
+    }
+}
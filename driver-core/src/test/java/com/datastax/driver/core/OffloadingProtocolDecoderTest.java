@@ -0,0 +1,108 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.concurrent.Executor;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class OffloadingProtocolDecoderTest {
+
+    private static final int RESULT_OPCODE = 0x08;
+
+    @Test(groups = "unit")
+    public void should_decode_small_frames_inline() {
+        RecordingExecutor executor = new RecordingExecutor();
+        EmbeddedChannel channel = newChannel(executor);
+
+        channel.writeInbound(frame(1, 0));
+
+        assertThat(executor.tasks).isEmpty();
+        assertThat(((Message.Response) channel.readInbound()).getStreamId()).isEqualTo(1);
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_large_frames_on_executor_and_preserve_order() {
+        RecordingExecutor executor = new RecordingExecutor();
+        EmbeddedChannel channel = newChannel(executor);
+
+        channel.writeInbound(frame(1, 1000), frame(2, 0), frame(3, 0));
+
+        // the large frame is pending, so the small ones that follow are held back
+        assertThat(executor.tasks).hasSize(1);
+        assertThat(channel.readInbound()).isNull();
+
+        executor.runAll();
+        channel.runPendingTasks();
+
+        assertThat(((Message.Response) channel.readInbound()).getStreamId()).isEqualTo(1);
+        assertThat(((Message.Response) channel.readInbound()).getStreamId()).isEqualTo(2);
+        assertThat(((Message.Response) channel.readInbound()).getStreamId()).isEqualTo(3);
+        assertThat(channel.readInbound()).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_release_frames_once_decoded() {
+        RecordingExecutor executor = new RecordingExecutor();
+        EmbeddedChannel channel = newChannel(executor);
+        Frame frame = frame(1, 1000);
+
+        channel.writeInbound(frame);
+        assertThat(frame.body.refCnt()).isEqualTo(1);
+        executor.runAll();
+
+        assertThat(frame.body.refCnt()).isEqualTo(0);
+    }
+
+    private static EmbeddedChannel newChannel(Executor executor) {
+        EmbeddedChannel channel = new EmbeddedChannel(new Message.OffloadingProtocolDecoder(executor, 100));
+        channel.attr(Message.CODEC_REGISTRY_ATTRIBUTE_KEY).set(CodecRegistry.DEFAULT_INSTANCE);
+        return channel;
+    }
+
+    /**
+     * A VOID result, followed by {@code padding} unused bytes to control the size of the frame.
+     */
+    private static Frame frame(int streamId, int padding) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(1);
+        body.writeZero(padding);
+        return Frame.create(ProtocolVersion.V4, RESULT_OPCODE, streamId, EnumSet.noneOf(Frame.Header.Flag.class), body);
+    }
+
+    private static class RecordingExecutor implements Executor {
+        final List<Runnable> tasks = new ArrayList<Runnable>();
+
+        @Override
+        public void execute(Runnable command) {
+            tasks.add(command);
+        }
+
+        void runAll() {
+            for (Runnable task : tasks)
+                task.run();
+            tasks.clear();
+        }
+    }
+}
@@ -163,4 +163,75 @@ public abstract class PercentileTrackerTest<B extends PercentileTracker.Builder<
             percentileLogger.removeAppender(appender);
         }
     }
+
+    @Test(groups = "unit")
+    public void should_compute_percentiles_over_sliding_window() throws Exception {
+        // given - a percentile tracker with a window of 4 sub-intervals of 5 seconds, so that the first one can't be
+        // over by the time we check.
+        Cluster cluster0 = mock(Cluster.class);
+        T slowTracker = builder()
+                .withInterval(20, TimeUnit.SECONDS)
+                .withSlidingWindow(4)
+                .withMinRecordedValues(100).build();
+        slowTracker.onRegister(cluster0);
+
+        // when - recording measurements during the first sub-interval.
+        for (int i = 0; i < 100; i++) {
+            slowTracker.update(defaultHost, defaultStatement, defaultException, TimeUnit.NANOSECONDS.convert(1, TimeUnit.MILLISECONDS));
+        }
+
+        // then - statistics are not available before the end of the first sub-interval.
+        assertThat(slowTracker.getLatencyAtPercentile(defaultHost, defaultStatement, defaultException, 99)).isEqualTo(-1);
+
+        // given - a percentile tracker with a window of 4 sub-intervals of 250 ms.
+        T tracker = builder()
+                .withInterval(1, TimeUnit.SECONDS)
+                .withSlidingWindow(4)
+                .withMinRecordedValues(100).build();
+        tracker.onRegister(cluster0);
+
+        // when - recording measurements during the first sub-interval.
+        for (int i = 0; i < 100; i++) {
+            tracker.update(defaultHost, defaultStatement, defaultException, TimeUnit.NANOSECONDS.convert(1, TimeUnit.MILLISECONDS));
+        }
+
+        // then - they are available once it is over.
+        Uninterruptibles.sleepUninterruptibly(300, TimeUnit.MILLISECONDS);
+        assertThat(tracker.getLatencyAtPercentile(defaultHost, defaultStatement, defaultException, 99)).isEqualTo(1);
+
+        // then - they expire once the whole window has elapsed without new measurements.
+        Uninterruptibles.sleepUninterruptibly(1200, TimeUnit.MILLISECONDS);
+        assertThat(tracker.getLatencyAtPercentile(defaultHost, defaultStatement, defaultException, 99)).isEqualTo(-1);
+    }
+
+    @Test(groups = "unit")
+    public void should_give_less_weight_to_older_sub_intervals_when_decaying() throws Exception {
+        // given - a percentile tracker with a decaying sliding window.
+        Cluster cluster0 = mock(Cluster.class);
+        T tracker = builder()
+                .withInterval(1, TimeUnit.SECONDS)
+                .withSlidingWindow(10)
+                .withDecayFactor(0.01)
+                .withMinRecordedValues(100).build();
+        tracker.onRegister(cluster0);
+
+        // when - recording slow measurements, then fast measurements in the next sub-interval.
+        for (int i = 0; i < 1000; i++) {
+            tracker.update(defaultHost, defaultStatement, defaultException, TimeUnit.NANOSECONDS.convert(500, TimeUnit.MILLISECONDS));
+        }
+        Uninterruptibles.sleepUninterruptibly(150, TimeUnit.MILLISECONDS);
+        assertThat(tracker.getLatencyAtPercentile(defaultHost, defaultStatement, defaultException, 50)).isBetween(499L, 501L);
+        for (int i = 0; i < 1000; i++) {
+            tracker.update(defaultHost, defaultStatement, defaultException, TimeUnit.NANOSECONDS.convert(1, TimeUnit.MILLISECONDS));
+        }
+        Uninterruptibles.sleepUninterruptibly(150, TimeUnit.MILLISECONDS);
+
+        // then - the older measurements barely count anymore.
+        assertThat(tracker.getLatencyAtPercentile(defaultHost, defaultStatement, defaultException, 95)).isEqualTo(1);
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class)
+    public void should_reject_invalid_decay_factor() {
+        builder().withSlidingWindow(4).withDecayFactor(1.5).build();
+    }
 }
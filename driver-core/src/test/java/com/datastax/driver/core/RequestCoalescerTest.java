@@ -0,0 +1,126 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.datastax.driver.core.exceptions.DriverInternalError;
+import org.testng.annotations.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
+
+public class RequestCoalescerTest {
+
+    private static final ColumnDefinitions VARIABLES = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "cf", "k", DataType.text())
+    }, CodecRegistry.DEFAULT_INSTANCE);
+
+    private static final ColumnDefinitions RESULT = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "cf", "v", DataType.cint())
+    }, CodecRegistry.DEFAULT_INSTANCE);
+
+    @Test(groups = "unit")
+    public void should_consider_identical_reads_equal() {
+        PreparedStatement read = prepared(RESULT);
+
+        RequestCoalescer.Key key1 = RequestCoalescer.Key.of(idempotent(new BoundStatement(read).bind("a")));
+        RequestCoalescer.Key key2 = RequestCoalescer.Key.of(idempotent(new BoundStatement(read).bind("a")));
+
+        assertThat(key1).isNotNull();
+        assertThat(key1).isEqualTo(key2);
+        assertThat(key1.hashCode()).isEqualTo(key2.hashCode());
+        assertThat(key1).isNotEqualTo(RequestCoalescer.Key.of(idempotent(new BoundStatement(read).bind("b"))));
+        assertThat(key1).isNotEqualTo(RequestCoalescer.Key.of(
+                idempotent(new BoundStatement(read).bind("a")).setConsistencyLevel(ConsistencyLevel.QUORUM)));
+        assertThat(key1).isNotEqualTo(RequestCoalescer.Key.of(idempotent(new BoundStatement(read).bind("a")).setFetchSize(10)));
+    }
+
+    @Test(groups = "unit")
+    public void should_not_consider_unset_value_equal_to_empty_value() {
+        PreparedStatement read = prepared(RESULT);
+
+        RequestCoalescer.Key unset = RequestCoalescer.Key.of(idempotent(new BoundStatement(read).bind()));
+        RequestCoalescer.Key empty = RequestCoalescer.Key.of(idempotent(new BoundStatement(read).bind("")));
+
+        assertThat(unset).isNotEqualTo(empty);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_coalesce_non_eligible_statements() {
+        PreparedStatement read = prepared(RESULT);
+        PreparedStatement write = prepared(ColumnDefinitions.EMPTY);
+
+        assertThat(RequestCoalescer.Key.of(idempotent(new BoundStatement(write).bind("a")))).isNull();
+        assertThat(RequestCoalescer.Key.of(idempotent(new BoundStatement(read).bind("a")).enableTracing())).isNull();
+        assertThat(RequestCoalescer.Key.of(new SimpleStatement("SELECT v FROM ks.cf").setIdempotent(true))).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_coalesce_non_idempotent_reads() {
+        SessionManager session = mock(SessionManager.class);
+        when(session.configuration()).thenReturn(Configuration.builder()
+                .withQueryOptions(new QueryOptions().setReadCoalescingEnabled(true))
+                .build());
+        RequestCoalescer coalescer = new RequestCoalescer(session);
+
+        BoundStatement read = new BoundStatement(prepared(RESULT)).bind("a");
+        read.setIdempotent(false);
+
+        assertThat(coalescer.maybeExecute(read, mock(RequestHandler.Callback.class))).isFalse();
+        assertThat(coalescer.inFlightCount()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_fail_all_waiting_futures_and_close_the_flight() throws InterruptedException {
+        RequestCoalescer.Key key = RequestCoalescer.Key.of(idempotent(new BoundStatement(prepared(RESULT)).bind("a")));
+        RequestCoalescer.Flight flight = new RequestCoalescer(null).new Flight(key, null);
+        DefaultResultSetFuture future1 = new DefaultResultSetFuture(null, V4, null);
+        DefaultResultSetFuture future2 = new DefaultResultSetFuture(null, V4, null);
+
+        assertThat(flight.join(future1, null)).isTrue();
+        assertThat(flight.join(future2, null)).isTrue();
+        flight.onException(null, new DriverInternalError("test"), 0, 0);
+
+        for (DefaultResultSetFuture future : new DefaultResultSetFuture[]{future1, future2}) {
+            try {
+                future.get();
+                fail("Expected an ExecutionException");
+            } catch (ExecutionException e) {
+                assertThat(e.getCause()).isInstanceOf(DriverInternalError.class).hasMessage("test");
+            }
+        }
+        // Later identical requests start a new flight
+        assertThat(flight.join(new DefaultResultSetFuture(null, V4, null), null)).isFalse();
+    }
+
+    private static BoundStatement idempotent(BoundStatement statement) {
+        statement.setIdempotent(true);
+        return statement;
+    }
+
+    private static PreparedStatement prepared(ColumnDefinitions resultSetMetadata) {
+        PreparedId id = new PreparedId(MD5Digest.wrap(new byte[16]), VARIABLES, resultSetMetadata, null, V4);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.getVariables()).thenReturn(VARIABLES);
+        when(statement.getPreparedId()).thenReturn(id);
+        when(statement.getCodecRegistry()).thenReturn(CodecRegistry.DEFAULT_INSTANCE);
+        return statement;
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+public class ResultCacheTest {
+
+    private static final CodecRegistry REGISTRY = CodecRegistry.DEFAULT_INSTANCE;
+
+    private static final ColumnDefinitions VARIABLES = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "cf", "k", DataType.text())
+    }, REGISTRY);
+
+    private static final ColumnDefinitions RESULT = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "cf", "v", DataType.cint())
+    }, REGISTRY);
+
+    private static final ColumnDefinitions CONDITIONAL_RESULT = new ColumnDefinitions(new ColumnDefinitions.Definition[]{
+            new ColumnDefinitions.Definition("ks", "cf", "[applied]", DataType.cboolean())
+    }, REGISTRY);
+
+    @Test(groups = "unit")
+    public void should_tell_reads_from_writes() {
+        assertThat(ResultCache.isRead(new BoundStatement(prepared(RESULT)), REGISTRY)).isTrue();
+        assertThat(ResultCache.isRead(new BoundStatement(prepared(ColumnDefinitions.EMPTY)), REGISTRY)).isFalse();
+        assertThat(ResultCache.isRead(new BoundStatement(prepared(CONDITIONAL_RESULT)), REGISTRY)).isFalse();
+        assertThat(ResultCache.isRead(new SimpleStatement("  select v FROM ks.cf"), REGISTRY)).isTrue();
+        assertThat(ResultCache.isRead(new SimpleStatement("UPDATE ks.cf SET v = 1 WHERE k = 'a'"), REGISTRY)).isFalse();
+        assertThat(ResultCache.isRead(new BatchStatement(), REGISTRY)).isFalse();
+    }
+
+    @Test(groups = "unit")
+    public void should_invalidate_cached_results_by_partition() {
+        ResultCache.StatementCache cache = newCache();
+        PreparedStatement read = prepared(RESULT);
+        RequestCoalescer.Key keyA = RequestCoalescer.Key.of(new BoundStatement(read).bind("a"));
+        RequestCoalescer.Key keyB = RequestCoalescer.Key.of(new BoundStatement(read).bind("b"));
+
+        cache.put(keyA, result("a", 1), 0);
+        cache.put(keyB, result("b", 2), 0);
+        assertThat(cache.results.size()).isEqualTo(2);
+
+        cache.invalidatePartition(routingKey("a"));
+        assertThat(cache.results.getIfPresent(keyA)).isNull();
+        assertThat(cache.results.getIfPresent(keyB)).isNotNull();
+
+        cache.invalidateAll();
+        assertThat(cache.results.size()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_cache_result_of_read_racing_with_write() {
+        ResultCache.StatementCache cache = newCache();
+        RequestCoalescer.Key key = RequestCoalescer.Key.of(new BoundStatement(prepared(RESULT)).bind("a"));
+
+        // an invalidation happened since the read was sent
+        cache.put(key, result("a", 1), -1);
+
+        assertThat(cache.results.getIfPresent(key)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_cache_result_of_read_racing_with_write_to_other_partition() {
+        ResultCache resultCache = new ResultCache(null);
+        ResultCache.StatementCache cache = resultCache.new StatementCache(new ResultCacheOptions(), "ks", "cf");
+        resultCache.caches.put(MD5Digest.wrap(new byte[16]), cache);
+        RequestCoalescer.Key key = RequestCoalescer.Key.of(new BoundStatement(prepared(RESULT)).bind("b"));
+
+        // a read of partition b is sent, then a write to partition a (which is in another stripe) happens
+        long invalidationsBeforeRead = resultCache.invalidations(routingKey("b"));
+        resultCache.invalidatePartitions(Collections.singletonList(routingKey("a")));
+        cache.put(key, result("b", 2), invalidationsBeforeRead);
+
+        assertThat(cache.results.getIfPresent(key)).isNotNull();
+
+        // but a write to an unknown partition prevents caching
+        invalidationsBeforeRead = resultCache.invalidations(routingKey("b"));
+        resultCache.invalidatePartitions(Collections.<ByteBuffer>singletonList(null));
+        cache.put(key, result("b", 2), invalidationsBeforeRead);
+
+        assertThat(cache.results.getIfPresent(key)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_invalidate_again_when_write_completes() {
+        ResultCache resultCache = new ResultCache(null);
+        ResultCache.StatementCache cache = resultCache.new StatementCache(new ResultCacheOptions(), "ks", "cf");
+        resultCache.caches.put(MD5Digest.wrap(new byte[16]), cache);
+        RequestCoalescer.Key key = RequestCoalescer.Key.of(new BoundStatement(prepared(RESULT)).bind("a"));
+        List<ByteBuffer> writtenPartitions = Collections.singletonList(routingKey("a"));
+        RequestHandler.Callback delegate = mock(RequestHandler.Callback.class);
+
+        // the write invalidates before it is sent
+        resultCache.invalidatePartitions(writtenPartitions);
+        RequestHandler.Callback writeCallback = resultCache.new InvalidatingCallback(delegate, writtenPartitions);
+        // a read starts after that, and reaches a replica before the write is applied
+        cache.put(key, result("a", 1), resultCache.invalidations(routingKey("a")));
+        assertThat(cache.results.getIfPresent(key)).isNotNull();
+
+        writeCallback.onSet(null, null, null, null, 0);
+        assertThat(cache.results.getIfPresent(key)).isNull();
+        verify(delegate).onSet(null, null, null, null, 0);
+
+        // same if the write fails, it might have been applied
+        cache.put(key, result("a", 1), resultCache.invalidations(routingKey("a")));
+        Exception error = new Exception();
+        writeCallback.onException(null, error, 0, 0);
+        assertThat(cache.results.getIfPresent(key)).isNull();
+        verify(delegate).onException(null, error, 0, 0);
+    }
+
+    @Test(groups = "unit")
+    public void should_drop_cache_when_disabled() {
+        ResultCache resultCache = new ResultCache(null);
+        ResultCache.StatementCache cache = resultCache.new StatementCache(new ResultCacheOptions(), "ks", "cf");
+        resultCache.caches.put(MD5Digest.wrap(new byte[16]), cache);
+        RequestCoalescer.Key key = RequestCoalescer.Key.of(new BoundStatement(prepared(RESULT)).bind("a"));
+        cache.put(key, result("a", 1), resultCache.invalidations(routingKey("a")));
+
+        // the prepared statement has no result cache options anymore
+        BoundStatement statement = new BoundStatement(prepared(RESULT)).bind("a");
+        assertThat(resultCache.maybeComplete(statement, mock(RequestHandler.Callback.class))).isFalse();
+
+        assertThat(resultCache.caches).isEmpty();
+        assertThat(cache.results.size()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_estimate_weight_from_values() {
+        ResultCache.CachedResult result = result("a", 1);
+
+        assertThat(result.weight).isEqualTo(64 + 4);
+    }
+
+    private static ResultCache.StatementCache newCache() {
+        return new ResultCache(null).new StatementCache(new ResultCacheOptions(), "ks", "cf");
+    }
+
+    private static ResultCache.CachedResult result(String key, int value) {
+        ByteBuf body = Unpooled.buffer();
+        body.writeInt(4); // NO_METADATA
+        body.writeInt(1); // column count
+        body.writeInt(1); // row count
+        CBUtil.writeValue(TypeCodec.cint().serialize(value, V4), body);
+        Responses.Result.Rows rows = (Responses.Result.Rows) Responses.Result.Rows.subcodec.decode(body, V4, REGISTRY);
+        return new ResultCache.CachedResult(rows, null, routingKey(key));
+    }
+
+    private static ByteBuffer routingKey(String key) {
+        return TypeCodec.varchar().serialize(key, V4);
+    }
+
+    private static PreparedStatement prepared(ColumnDefinitions resultSetMetadata) {
+        PreparedId id = new PreparedId(MD5Digest.wrap(new byte[16]), VARIABLES, resultSetMetadata, null, V4);
+        PreparedStatement statement = mock(PreparedStatement.class);
+        when(statement.getVariables()).thenReturn(VARIABLES);
+        when(statement.getPreparedId()).thenReturn(id);
+        when(statement.getCodecRegistry()).thenReturn(REGISTRY);
+        return statement;
+    }
+}
@@ -0,0 +1,191 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import org.scassandra.http.client.PrimingClient;
+import org.scassandra.http.client.PrimingRequest;
+import org.scassandra.http.client.Query;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.util.*;
+import java.util.concurrent.TimeUnit;
+
+import static com.datastax.driver.core.ControlConnection.SELECT_SCHEMA_LOCAL;
+import static com.datastax.driver.core.ControlConnection.SELECT_SCHEMA_PEERS;
+import static com.datastax.driver.core.TestUtils.nonQuietClusterCloseOptions;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.scassandra.cql.PrimitiveType.INET;
+import static org.scassandra.cql.PrimitiveType.UUID;
+import static org.scassandra.http.client.PrimingRequest.then;
+import static org.scassandra.http.client.types.ColumnMetadata.column;
+
+/**
+ * Tests of {@link SchemaAgreementWaiter}. The control connection is on node 1, which reports the schema versions
+ * of nodes 2 and 3.
+ */
+public class SchemaAgreementWaiterTest {
+
+    private static final java.util.UUID VERSION1 = java.util.UUID.randomUUID();
+    private static final java.util.UUID VERSION2 = java.util.UUID.randomUUID();
+
+    private ScassandraCluster scassandras;
+    private Cluster cluster;
+
+    @BeforeMethod(groups = "short")
+    public void setup() {
+        scassandras = ScassandraCluster.builder().withNodes(3).build();
+        scassandras.init();
+        primeVersions(VERSION1, VERSION1, VERSION1);
+        cluster = Cluster.builder()
+                .addContactPoints(scassandras.address(1).getAddress())
+                .withPort(scassandras.getBinaryPort())
+                .withNettyOptions(nonQuietClusterCloseOptions)
+                .build();
+        cluster.init();
+        scassandras.node(1).activityClient().clearAllRecordedActivity();
+    }
+
+    @AfterMethod(groups = "short", alwaysRun = true)
+    public void teardown() {
+        if (cluster != null)
+            cluster.close();
+        if (scassandras != null)
+            scassandras.stop();
+    }
+
+    @Test(groups = "short")
+    public void should_agree_after_a_single_full_check() throws Exception {
+        assertThat(waitForSchemaAgreement(10).get(1, TimeUnit.SECONDS)).isTrue();
+
+        assertThat(schemaQueries()).containsExactly(SELECT_SCHEMA_LOCAL, SELECT_SCHEMA_PEERS);
+    }
+
+    @Test(groups = "short")
+    public void should_only_check_disagreeing_peers_then_confirm_with_full_check() throws Exception {
+        primeVersions(VERSION1, VERSION1, VERSION2);
+        ListenableFuture<Boolean> agreement = waitForSchemaAgreement(10);
+        TimeUnit.MILLISECONDS.sleep(200);
+
+        assertThat(agreement.isDone()).isFalse();
+        List<String> queries = schemaQueries();
+        assertThat(queries.subList(0, 2)).containsExactly(SELECT_SCHEMA_LOCAL, SELECT_SCHEMA_PEERS);
+        assertThat(queries.subList(2, queries.size())).contains(selectSchemaPeer(3))
+                .doesNotContain(SELECT_SCHEMA_PEERS, selectSchemaPeer(2));
+
+        primeVersions(VERSION1, VERSION1, VERSION1);
+        assertThat(agreement.get(1, TimeUnit.SECONDS)).isTrue();
+
+        queries = schemaQueries();
+        assertThat(queries.get(queries.size() - 1)).isEqualTo(SELECT_SCHEMA_PEERS);
+        assertThat(queries.get(queries.size() - 3)).isEqualTo(selectSchemaPeer(3));
+        assertThat(Collections.frequency(queries, SELECT_SCHEMA_PEERS)).isEqualTo(2);
+    }
+
+    @Test(groups = "short")
+    public void should_back_off_between_checks_and_give_up_at_deadline() throws Exception {
+        primeVersions(VERSION1, VERSION2, VERSION1);
+        long start = System.nanoTime();
+        ListenableFuture<Boolean> agreement = waitForSchemaAgreement(1);
+
+        assertThat(agreement.get(5, TimeUnit.SECONDS)).isFalse();
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+        assertThat(elapsedMillis).isGreaterThanOrEqualTo(1000).isLessThan(2000);
+
+        // The delays are 10, 20, 40, 80, 160 then 200 ms, so about 9 targeted checks fit in 1 second.
+        // Without backoff there would be about 100, with the maximum delay from the start about 5.
+        int targetedChecks = Collections.frequency(schemaQueries(), selectSchemaPeer(2));
+        assertThat(targetedChecks).isBetween(6, 10);
+
+        // No more checks once the deadline is reached
+        scassandras.node(1).activityClient().clearAllRecordedActivity();
+        TimeUnit.MILLISECONDS.sleep(2 * SchemaAgreementWaiter.MAX_DELAY_MILLIS);
+        assertThat(schemaQueries()).isEmpty();
+    }
+
+    @Test(groups = "short")
+    public void should_check_again_on_events() throws Exception {
+        primeVersions(VERSION1, VERSION2, VERSION1);
+        ListenableFuture<Boolean> agreement = waitForSchemaAgreement(10);
+        // Let the delay reach its maximum
+        TimeUnit.MILLISECONDS.sleep(1000);
+        scassandras.node(1).activityClient().clearAllRecordedActivity();
+
+        // Each event triggers a check, whereas at most one scheduled check happens in the meantime
+        for (int i = 0; i < 5; i++) {
+            cluster.manager.controlConnection.onSchemaAgreementEvent();
+            TimeUnit.MILLISECONDS.sleep(20);
+        }
+        assertThat(Collections.frequency(schemaQueries(), selectSchemaPeer(2))).isGreaterThanOrEqualTo(3);
+        assertThat(agreement.isDone()).isFalse();
+
+        primeVersions(VERSION1, VERSION1, VERSION1);
+        cluster.manager.controlConnection.onSchemaAgreementEvent();
+        assertThat(agreement.get(1, TimeUnit.SECONDS)).isTrue();
+    }
+
+    private ListenableFuture<Boolean> waitForSchemaAgreement(int maxWaitSeconds) {
+        cluster.getConfiguration().getProtocolOptions().maxSchemaAgreementWaitSeconds = maxWaitSeconds;
+        ControlConnection controlConnection = cluster.manager.controlConnection;
+        return controlConnection.waitForSchemaAgreementAsync(controlConnection.connectionRef.get());
+    }
+
+    private void primeVersions(java.util.UUID local, java.util.UUID peer2, java.util.UUID peer3) {
+        PrimingClient client = scassandras.node(1).primingClient();
+        // Prime the full check last, so that it never sees an older state than the targeted ones
+        List<Map<String, ?>> rows = new ArrayList<Map<String, ?>>();
+        for (int node = 2; node <= 3; node++) {
+            Map<String, Object> row = new HashMap<String, Object>();
+            row.put("peer", address(node));
+            row.put("rpc_address", address(node));
+            row.put("schema_version", node == 2 ? peer2 : peer3);
+            rows.add(row);
+            client.prime(PrimingRequest.queryBuilder()
+                    .withQuery(selectSchemaPeer(node))
+                    .withThen(then().withColumnTypes(column("peer", INET), column("rpc_address", INET), column("schema_version", UUID))
+                            .withRows(row).build())
+                    .build());
+        }
+        client.prime(PrimingRequest.queryBuilder()
+                .withQuery(SELECT_SCHEMA_LOCAL)
+                .withThen(then().withColumnTypes(column("schema_version", UUID))
+                        .withRows(Collections.singletonMap("schema_version", local)).build())
+                .build());
+        client.prime(PrimingRequest.queryBuilder()
+                .withQuery(SELECT_SCHEMA_PEERS)
+                .withThen(then().withColumnTypes(column("peer", INET), column("rpc_address", INET), column("schema_version", UUID))
+                        .withRows(rows).build())
+                .build());
+    }
+
+    private String address(int node) {
+        return scassandras.address(node).getAddress().getHostAddress();
+    }
+
+    private String selectSchemaPeer(int node) {
+        return SELECT_SCHEMA_PEERS + " WHERE peer='" + address(node) + "'";
+    }
+
+    private List<String> schemaQueries() {
+        List<String> result = new ArrayList<String>();
+        for (Query query : scassandras.node(1).activityClient().retrieveQueries())
+            if (query.getQuery().startsWith(SELECT_SCHEMA_LOCAL) || query.getQuery().startsWith(SELECT_SCHEMA_PEERS))
+                result.add(query.getQuery());
+        return result;
+    }
+}
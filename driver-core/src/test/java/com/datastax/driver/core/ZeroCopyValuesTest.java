@@ -0,0 +1,169 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.core;
+
+import io.netty.buffer.AbstractByteBufAllocator;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.Unpooled;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.embedded.EmbeddedChannel;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class ZeroCopyValuesTest {
+
+    private static final MD5Digest STATEMENT_ID = MD5Digest.wrap(new byte[16]);
+
+    @Test(groups = "unit")
+    public void should_not_copy_large_direct_values() {
+        ByteBuffer large = directBuffer(CBUtil.ZERO_COPY_THRESHOLD, (byte) 1);
+        ByteBuffer small = ByteBuffer.wrap(new byte[]{2, 3, 4});
+        ByteBuffer otherLarge = directBuffer(CBUtil.ZERO_COPY_THRESHOLD + 10, (byte) 5);
+
+        ByteBuf body = encode(execute(Arrays.asList(large, small, otherLarge)));
+        try {
+            assertThat(body).isInstanceOf(CompositeByteBuf.class);
+            // the values are shared, not copied
+            assertThat(((CompositeByteBuf) body).numComponents()).isEqualTo(4);
+            assertThat(body.capacity()).isEqualTo(body.writerIndex());
+            assertThat(body).isEqualTo(encodeFlat(execute(Arrays.asList(large, small, otherLarge))));
+        } finally {
+            body.release();
+        }
+        // the original buffers are left untouched
+        assertThat(large.remaining()).isEqualTo(CBUtil.ZERO_COPY_THRESHOLD);
+        assertThat(large.get(0)).isEqualTo((byte) 1);
+    }
+
+    @Test(groups = "unit")
+    public void should_allocate_the_rest_of_the_message_once() {
+        List<ByteBuffer> values = new ArrayList<ByteBuffer>();
+        for (int i = 0; i < 5; i++) {
+            values.add(directBuffer(CBUtil.ZERO_COPY_THRESHOLD, (byte) i));
+            values.add(ByteBuffer.wrap(new byte[]{(byte) i}));
+        }
+        Requests.Execute execute = execute(values);
+        RecordingAllocator allocator = new RecordingAllocator();
+
+        ByteBuf body = encode(execute, allocator);
+        int flatSize = encodeFlat(execute).writerIndex();
+        try {
+            assertThat(allocator.buffers).hasSize(1);
+            assertThat(allocator.buffers.get(0).capacity()).isEqualTo(flatSize - 5 * CBUtil.ZERO_COPY_THRESHOLD);
+            assertThat(body.capacity()).isEqualTo(flatSize);
+            assertThat(body).isEqualTo(encodeFlat(execute));
+        } finally {
+            body.release();
+        }
+        assertThat(allocator.buffers.get(0).refCnt()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_copy_heap_and_small_direct_values() {
+        ByteBuffer heap = ByteBuffer.wrap(new byte[CBUtil.ZERO_COPY_THRESHOLD]);
+        ByteBuffer smallDirect = directBuffer(10, (byte) 1);
+
+        ByteBuf body = encode(execute(Arrays.asList(heap, smallDirect)));
+        try {
+            assertThat(body).isNotInstanceOf(CompositeByteBuf.class);
+        } finally {
+            body.release();
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_encode_the_same_request_several_times() {
+        ByteBuffer large = directBuffer(CBUtil.ZERO_COPY_THRESHOLD, (byte) 1);
+        Requests.Execute execute = execute(Collections.singletonList(large));
+
+        // e.g. a retry or a speculative execution
+        ByteBuf first = encode(execute);
+        ByteBuf second = encode(execute);
+        try {
+            assertThat(first).isEqualTo(second);
+        } finally {
+            first.release();
+            second.release();
+        }
+    }
+
+    private static Requests.Execute execute(List<ByteBuffer> values) {
+        Requests.QueryProtocolOptions options = new Requests.QueryProtocolOptions(Message.Request.Type.EXECUTE,
+                ConsistencyLevel.ONE, values, Collections.<String, ByteBuffer>emptyMap(),
+                false, -1, null, ConsistencyLevel.SERIAL, Long.MIN_VALUE);
+        return new Requests.Execute(STATEMENT_ID, options, false);
+    }
+
+    private static ByteBuf encode(Message.Request request) {
+        return encode(request, UnpooledByteBufAllocator.DEFAULT);
+    }
+
+    private static ByteBuf encode(Message.Request request, ByteBufAllocator allocator) {
+        EmbeddedChannel channel = new EmbeddedChannel(new Message.ProtocolEncoder(ProtocolVersion.V4));
+        channel.config().setAllocator(allocator);
+        channel.writeOutbound(request.setStreamId(1));
+        Frame frame = (Frame) channel.readOutbound();
+        channel.finish();
+        return frame.body;
+    }
+
+    private static ByteBuf encodeFlat(Requests.Execute request) {
+        ByteBuf body = Unpooled.buffer();
+        Requests.Execute.coder.encode(request, body, ProtocolVersion.V4);
+        return body;
+    }
+
+    private static ByteBuffer directBuffer(int size, byte content) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(size);
+        while (buffer.hasRemaining())
+            buffer.put(content);
+        buffer.flip();
+        return buffer;
+    }
+
+    private static class RecordingAllocator extends AbstractByteBufAllocator {
+        final List<ByteBuf> buffers = new ArrayList<ByteBuf>();
+
+        @Override
+        protected ByteBuf newHeapBuffer(int initialCapacity, int maxCapacity) {
+            return record(UnpooledByteBufAllocator.DEFAULT.heapBuffer(initialCapacity, maxCapacity));
+        }
+
+        @Override
+        protected ByteBuf newDirectBuffer(int initialCapacity, int maxCapacity) {
+            return record(UnpooledByteBufAllocator.DEFAULT.directBuffer(initialCapacity, maxCapacity));
+        }
+
+        @Override
+        public boolean isDirectBufferPooled() {
+            return false;
+        }
+
+        private ByteBuf record(ByteBuf buffer) {
+            buffers.add(buffer);
+            return buffer;
+        }
+    }
+}
@@ -15,6 +15,10 @@
  */
 package com.datastax.driver.core.policies;
 
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
 import org.testng.annotations.Test;
 
 import javax.naming.NamingException;
@@ -22,6 +26,9 @@ import javax.naming.directory.BasicAttributes;
 import javax.naming.directory.InitialDirContext;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
 
 import static org.assertj.core.api.Assertions.assertThat;
 import static org.mockito.Mockito.*;
@@ -50,6 +57,19 @@ public class EC2MultiRegionAddressTranslatorTest {
         assertThat(translator.translate(address)).isEqualTo(address);
     }
 
+    @Test(groups = "unit")
+    public void should_not_look_up_again_right_after_first_lookup_failed() throws Exception {
+        InitialDirContext mock = mock(InitialDirContext.class);
+        when(mock.getAttributes(anyString(), any(String[].class)))
+                .thenThrow(new NamingException("Problem resolving address (not really)."));
+        EC2MultiRegionAddressTranslator translator = new EC2MultiRegionAddressTranslator(mock);
+
+        InetSocketAddress address = new InetSocketAddress("192.0.2.5", 9042);
+        assertThat(translator.translate(address)).isEqualTo(address);
+        assertThat(translator.translate(address)).isEqualTo(address);
+        verify(mock, times(1)).getAttributes("5.2.0.192.in-addr.arpa", new String[]{"PTR"});
+    }
+
     @Test(groups = "unit")
     public void should_return_new_address_when_match_found() throws Exception {
         InetSocketAddress expectedAddress = new InetSocketAddress("54.32.55.66", 9042);
@@ -63,6 +83,40 @@ public class EC2MultiRegionAddressTranslatorTest {
         assertThat(translator.translate(address)).isEqualTo(expectedAddress);
     }
 
+    @Test(groups = "unit")
+    public void should_cache_translation() throws Exception {
+        InetSocketAddress expectedAddress = new InetSocketAddress("54.32.55.66", 9042);
+
+        InitialDirContext mock = mock(InitialDirContext.class);
+        when(mock.getAttributes("5.2.0.192.in-addr.arpa", new String[]{"PTR"}))
+                .thenReturn(new BasicAttributes("PTR", expectedAddress.getHostName()));
+        EC2MultiRegionAddressTranslator translator = new EC2MultiRegionAddressTranslator(mock);
+
+        InetSocketAddress address = new InetSocketAddress("192.0.2.5", 9042);
+        assertThat(translator.translate(address)).isEqualTo(expectedAddress);
+        assertThat(translator.translate(address)).isEqualTo(expectedAddress);
+        verify(mock, times(1)).getAttributes("5.2.0.192.in-addr.arpa", new String[]{"PTR"});
+    }
+
+    @Test(groups = "unit")
+    public void should_keep_last_known_translation_when_refresh_fails() throws Exception {
+        InetSocketAddress expectedAddress = new InetSocketAddress("54.32.55.66", 9042);
+
+        InitialDirContext mock = mock(InitialDirContext.class);
+        when(mock.getAttributes("5.2.0.192.in-addr.arpa", new String[]{"PTR"}))
+                .thenReturn(new BasicAttributes("PTR", expectedAddress.getHostName()))
+                .thenThrow(new NamingException("Problem resolving address (not really)."));
+        // a TTL of 0 refreshes on every access
+        EC2MultiRegionAddressTranslator translator =
+                new EC2MultiRegionAddressTranslator(mock, 0, MoreExecutors.sameThreadExecutor());
+
+        InetSocketAddress address = new InetSocketAddress("192.0.2.5", 9042);
+        assertThat(translator.translate(address)).isEqualTo(expectedAddress);
+        assertThat(translator.translate(address)).isEqualTo(expectedAddress);
+        assertThat(translator.translate(address)).isEqualTo(expectedAddress);
+        verify(mock, times(3)).getAttributes("5.2.0.192.in-addr.arpa", new String[]{"PTR"});
+    }
+
     @Test(groups = "unit")
     public void should_close_context_when_closed() throws Exception {
         InitialDirContext mock = mock(InitialDirContext.class);
@@ -75,6 +129,48 @@ public class EC2MultiRegionAddressTranslatorTest {
         verify(mock).close();
     }
 
+    @Test(groups = "unit")
+    public void should_wait_for_lookups_in_progress_before_closing_context() throws Exception {
+        final CountDownLatch lookupStarted = new CountDownLatch(1);
+        final CountDownLatch lookupReleased = new CountDownLatch(1);
+        InitialDirContext mock = mock(InitialDirContext.class);
+        when(mock.getAttributes(anyString(), any(String[].class))).thenAnswer(new Answer<BasicAttributes>() {
+            @Override
+            public BasicAttributes answer(InvocationOnMock invocation) throws Throwable {
+                lookupStarted.countDown();
+                // ignore the interruption from shutdownNow(), like a DNS query would
+                Uninterruptibles.awaitUninterruptibly(lookupReleased);
+                return new BasicAttributes();
+            }
+        });
+        final EC2MultiRegionAddressTranslator translator =
+                new EC2MultiRegionAddressTranslator(mock, 0, Executors.newSingleThreadExecutor());
+        Thread lookup = new Thread() {
+            @Override
+            public void run() {
+                translator.translate(new InetSocketAddress("192.0.2.5", 9042));
+            }
+        };
+        lookup.start();
+        assertThat(lookupStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        Thread close = new Thread() {
+            @Override
+            public void run() {
+                translator.close();
+            }
+        };
+        close.start();
+
+        close.join(200);
+        assertThat(close.isAlive()).isTrue();
+        verify(mock, never()).close();
+
+        lookupReleased.countDown();
+        close.join(10000);
+        lookup.join(10000);
+        verify(mock).close();
+    }
+
     @Test(groups = "unit")
     public void should_build_reversed_domain_name_for_ip_v4() throws Exception {
         InetAddress address = InetAddress.getByName("192.0.2.5");
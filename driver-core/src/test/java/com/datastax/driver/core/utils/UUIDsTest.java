@@ -21,6 +21,7 @@ import org.testng.annotations.Test;
 
 import java.nio.ByteBuffer;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Random;
 import java.util.Set;
 import java.util.UUID;
@@ -95,6 +96,55 @@ public class UUIDsTest {
         }
     }
 
+    @Test(groups = "unit")
+    public void bulkUniquenessAndOrderingTest() {
+        int nbGenerated = 1000000;
+        Set<UUID> generated = new HashSet<UUID>(nbGenerated);
+        long previous = UUIDs.timeBased().timestamp();
+
+        // Large enough batches to span several milliseconds
+        for (int i = 0; i < nbGenerated / 25000; i++) {
+            List<UUID> batch = UUIDs.timeBased(25000);
+            assertEquals(batch.size(), 25000);
+            for (UUID uuid : batch) {
+                assertEquals(uuid.version(), 1);
+                long current = uuid.timestamp();
+                assert previous < current : String.format("previous = %d >= %d = current", previous, current);
+                previous = current;
+                generated.add(uuid);
+            }
+        }
+        assertEquals(generated.size(), nbGenerated);
+        assertTrue(UUIDs.timeBased(0).isEmpty());
+    }
+
+    @Test(groups = "unit")
+    public void multiThreadBulkUniquenessTest() throws Exception {
+        int nbThread = 10;
+        final int nbGenerated = 10000;
+        final Set<UUID> generated = new ConcurrentSkipListSet<UUID>();
+
+        Thread[] generators = new Thread[nbThread];
+        for (int i = 0; i < nbThread; i++) {
+            generators[i] = new Thread() {
+                @Override
+                public void run() {
+                    for (int j = 0; j < nbGenerated / 100; j++) {
+                        generated.addAll(UUIDs.timeBased(50));
+                        generated.add(UUIDs.timeBased());
+                        generated.addAll(UUIDs.timeBased(49));
+                    }
+                }
+            };
+        }
+        for (int i = 0; i < nbThread; i++)
+            generators[i].start();
+        for (int i = 0; i < nbThread; i++)
+            generators[i].join();
+
+        assertEquals(generated.size(), nbThread * nbGenerated);
+    }
+
     @Test(groups = "unit")
     public void startEndOfTest() {
 
@@ -20,13 +20,15 @@ import com.datastax.driver.core.ParseUtils;
 import com.datastax.driver.core.ProtocolVersion;
 import com.datastax.driver.core.TypeCodec;
 import com.datastax.driver.core.exceptions.InvalidTypeException;
-import com.datastax.driver.core.utils.Bytes;
-import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.databind.JavaType;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.type.TypeFactory;
+import com.fasterxml.jackson.databind.util.ByteBufferBackedInputStream;
 import com.google.common.reflect.TypeToken;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.nio.ByteBuffer;
 
@@ -48,11 +50,24 @@ import java.nio.ByteBuffer;
  *   <version>2.6.3</version>
  * </dependency>
  * }</pre>
+ * <p/>
+ * Values are read from and written to raw UTF-8 bytes, without going through an intermediary {@code String}; the
+ * {@link ObjectReader} and {@link ObjectWriter} for the codec's Java type are created once, and each thread reuses
+ * its own output buffer.
  */
 public class JacksonJsonCodec<T> extends TypeCodec<T> {
 
+    // Output buffers above this size are not kept for reuse
+    private static final int MAX_REUSED_BUFFER_SIZE = 64 * 1024;
+
+    private static final ThreadLocal<OutputBuffer> OUTPUT_BUFFERS = new ThreadLocal<OutputBuffer>();
+
     private final ObjectMapper objectMapper;
 
+    // Lazily initialized since toJacksonJavaType() can be overridden
+    private volatile ObjectReader reader;
+    private volatile ObjectWriter writer;
+
     /**
      * Creates a new instance for the provided {@code javaClass},
      * using a default, newly-allocated {@link ObjectMapper}.
@@ -98,20 +113,33 @@ public class JacksonJsonCodec<T> extends TypeCodec<T> {
     public ByteBuffer serialize(T value, ProtocolVersion protocolVersion) throws InvalidTypeException {
         if (value == null)
             return null;
+        OutputBuffer buffer = OUTPUT_BUFFERS.get();
+        if (buffer == null)
+            buffer = new OutputBuffer();
+        else
+            // Clear it in case the serialization of value needs a buffer itself
+            OUTPUT_BUFFERS.set(null);
         try {
-            return ByteBuffer.wrap(objectMapper.writeValueAsBytes(value));
-        } catch (JsonProcessingException e) {
+            writer().writeValue(buffer, value);
+            return ByteBuffer.wrap(buffer.toByteArray());
+        } catch (IOException e) {
             throw new InvalidTypeException(e.getMessage(), e);
+        } finally {
+            if (buffer.capacity() <= MAX_REUSED_BUFFER_SIZE) {
+                buffer.reset();
+                OUTPUT_BUFFERS.set(buffer);
+            }
         }
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public T deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
         if (bytes == null)
             return null;
         try {
-            return (T) objectMapper.readValue(Bytes.getArray(bytes), toJacksonJavaType());
+            if (bytes.hasArray())
+                return reader().readValue(bytes.array(), bytes.arrayOffset() + bytes.position(), bytes.remaining());
+            return reader().readValue(new ByteBufferBackedInputStream(bytes.duplicate()));
         } catch (IOException e) {
             throw new InvalidTypeException(e.getMessage(), e);
         }
@@ -123,7 +151,7 @@ public class JacksonJsonCodec<T> extends TypeCodec<T> {
             return "NULL";
         String json;
         try {
-            json = objectMapper.writeValueAsString(value);
+            json = writer().writeValueAsString(value);
         } catch (IOException e) {
             throw new InvalidTypeException(e.getMessage(), e);
         }
@@ -131,7 +159,6 @@ public class JacksonJsonCodec<T> extends TypeCodec<T> {
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public T parse(String value) throws InvalidTypeException {
         if (value == null || value.isEmpty() || value.equalsIgnoreCase("NULL"))
             return null;
@@ -139,7 +166,7 @@ public class JacksonJsonCodec<T> extends TypeCodec<T> {
             throw new InvalidTypeException("JSON strings must be enclosed by single quotes");
         String json = ParseUtils.unquote(value);
         try {
-            return (T) objectMapper.readValue(json, toJacksonJavaType());
+            return reader().readValue(json);
         } catch (IOException e) {
             throw new InvalidTypeException(e.getMessage(), e);
         }
@@ -155,4 +182,27 @@ public class JacksonJsonCodec<T> extends TypeCodec<T> {
         return TypeFactory.defaultInstance().constructType(getJavaType().getType());
     }
 
+    private ObjectReader reader() {
+        ObjectReader reader = this.reader;
+        if (reader == null)
+            this.reader = reader = objectMapper.readerFor(toJacksonJavaType());
+        return reader;
+    }
+
+    private ObjectWriter writer() {
+        ObjectWriter writer = this.writer;
+        if (writer == null)
+            this.writer = writer = objectMapper.writerFor(toJacksonJavaType());
+        return writer;
+    }
+
+    private static class OutputBuffer extends ByteArrayOutputStream {
+        OutputBuffer() {
+            super(1024);
+        }
+
+        int capacity() {
+            return buf.length;
+        }
+    }
 }
@@ -0,0 +1,151 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.lazy;
+
+import com.datastax.driver.core.CodecUtils;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * A codec that maps a CQL {@code list} to a read-only {@link List} view, that decodes its elements on demand from the
+ * serialized value instead of copying them all into a new collection.
+ * <p/>
+ * This is useful to scan large collections once: iterating over the view decodes one element at a time, and no
+ * intermediary collection is ever allocated. Elements are not cached, so each access decodes the element again;
+ * random access ({@link List#get(int)}) first indexes the positions of all elements, once per view.
+ * <p/>
+ * The built-in collection codecs take precedence over registered codecs, so this codec must be passed explicitly
+ * when reading a column: {@code row.get("l", new LazyListCodec<String>(TypeCodec.varchar()))}.
+ * <p/>
+ * For lists of numbers, see also {@link NumericListViewCodec}, which avoids boxing.
+ *
+ * @param <E> The Java type of the list elements.
+ */
+public class LazyListCodec<E> extends TypeCodec<List<E>> {
+
+    private final TypeCodec<E> elementCodec;
+    private final TypeCodec<List<E>> listCodec;
+
+    public LazyListCodec(TypeCodec<E> elementCodec) {
+        super(DataType.list(elementCodec.getCqlType()), listOf(elementCodec.getJavaType()));
+        this.elementCodec = elementCodec;
+        this.listCodec = TypeCodec.list(elementCodec);
+    }
+
+    @Override
+    public ByteBuffer serialize(List<E> value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        return listCodec.serialize(value, protocolVersion);
+    }
+
+    @Override
+    public List<E> deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (bytes == null || bytes.remaining() == 0)
+            return Collections.emptyList();
+        ByteBuffer input = bytes.duplicate();
+        int size = CodecUtils.readSize(input, protocolVersion);
+        return new LazyList<E>(input, size, elementCodec, protocolVersion);
+    }
+
+    @Override
+    public List<E> parse(String value) throws InvalidTypeException {
+        return listCodec.parse(value);
+    }
+
+    @Override
+    public String format(List<E> value) throws InvalidTypeException {
+        return listCodec.format(value);
+    }
+
+    @SuppressWarnings("serial")
+    private static <E> TypeToken<List<E>> listOf(TypeToken<E> elementType) {
+        return new TypeToken<List<E>>() {
+        }.where(new TypeParameter<E>() {
+        }, elementType);
+    }
+
+    private static class LazyList<E> extends AbstractList<E> {
+        // positioned on the first element
+        private final ByteBuffer elements;
+        private final int size;
+        private final TypeCodec<E> elementCodec;
+        private final ProtocolVersion protocolVersion;
+        private volatile int[] positions;
+
+        LazyList(ByteBuffer elements, int size, TypeCodec<E> elementCodec, ProtocolVersion protocolVersion) {
+            this.elements = elements;
+            this.size = size;
+            this.elementCodec = elementCodec;
+            this.protocolVersion = protocolVersion;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public E get(int index) {
+            if (index < 0 || index >= size)
+                throw new IndexOutOfBoundsException(String.format("Index: %d, size: %d", index, size));
+            int[] positions = this.positions;
+            if (positions == null) {
+                positions = new int[size];
+                ByteBuffer input = elements.duplicate();
+                for (int i = 0; i < size; i++) {
+                    positions[i] = input.position();
+                    CodecUtils.readValue(input, protocolVersion);
+                }
+                this.positions = positions;
+            }
+            ByteBuffer input = elements.duplicate();
+            input.position(positions[index]);
+            return elementCodec.deserialize(CodecUtils.readValue(input, protocolVersion), protocolVersion);
+        }
+
+        @Override
+        public Iterator<E> iterator() {
+            final ByteBuffer input = elements.duplicate();
+            return new Iterator<E>() {
+                private int next;
+
+                @Override
+                public boolean hasNext() {
+                    return next < size;
+                }
+
+                @Override
+                public E next() {
+                    if (next >= size)
+                        throw new NoSuchElementException();
+                    next += 1;
+                    return elementCodec.deserialize(CodecUtils.readValue(input, protocolVersion), protocolVersion);
+                }
+
+                @Override
+                public void remove() {
+                    throw new UnsupportedOperationException();
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,144 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.lazy;
+
+import com.datastax.driver.core.CodecUtils;
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+import com.google.common.reflect.TypeParameter;
+import com.google.common.reflect.TypeToken;
+
+import java.nio.ByteBuffer;
+import java.util.*;
+
+/**
+ * A codec that maps a CQL {@code map} to a read-only {@link Map} view, that decodes its entries on demand from the
+ * serialized value instead of copying them all into a new map.
+ * <p/>
+ * This is useful to scan large maps once: iterating over the {@link Map#entrySet() entries}, keys or values of the
+ * view decodes one entry at a time. The view is not indexed: lookups such as {@link Map#get(Object)} scan the entries
+ * sequentially, so prefer the default codec if the map is accessed by key.
+ * <p/>
+ * The built-in collection codecs take precedence over registered codecs, so this codec must be passed explicitly
+ * when reading a column: {@code row.get("m", new LazyMapCodec<String, Integer>(TypeCodec.varchar(), TypeCodec.cint()))}.
+ *
+ * @param <K> The Java type of the map keys.
+ * @param <V> The Java type of the map values.
+ */
+public class LazyMapCodec<K, V> extends TypeCodec<Map<K, V>> {
+
+    private final TypeCodec<K> keyCodec;
+    private final TypeCodec<V> valueCodec;
+    private final TypeCodec<Map<K, V>> mapCodec;
+
+    public LazyMapCodec(TypeCodec<K> keyCodec, TypeCodec<V> valueCodec) {
+        super(DataType.map(keyCodec.getCqlType(), valueCodec.getCqlType()),
+                mapOf(keyCodec.getJavaType(), valueCodec.getJavaType()));
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.mapCodec = TypeCodec.map(keyCodec, valueCodec);
+    }
+
+    @Override
+    public ByteBuffer serialize(Map<K, V> value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        return mapCodec.serialize(value, protocolVersion);
+    }
+
+    @Override
+    public Map<K, V> deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (bytes == null || bytes.remaining() == 0)
+            return Collections.emptyMap();
+        ByteBuffer input = bytes.duplicate();
+        int size = CodecUtils.readSize(input, protocolVersion);
+        return new LazyMap(input, size, protocolVersion);
+    }
+
+    @Override
+    public Map<K, V> parse(String value) throws InvalidTypeException {
+        return mapCodec.parse(value);
+    }
+
+    @Override
+    public String format(Map<K, V> value) throws InvalidTypeException {
+        return mapCodec.format(value);
+    }
+
+    @SuppressWarnings("serial")
+    private static <K, V> TypeToken<Map<K, V>> mapOf(TypeToken<K> keyType, TypeToken<V> valueType) {
+        return new TypeToken<Map<K, V>>() {
+        }.where(new TypeParameter<K>() {
+        }, keyType).where(new TypeParameter<V>() {
+        }, valueType);
+    }
+
+    private class LazyMap extends AbstractMap<K, V> {
+        // positioned on the first entry
+        private final ByteBuffer entries;
+        private final int size;
+        private final ProtocolVersion protocolVersion;
+
+        LazyMap(ByteBuffer entries, int size, ProtocolVersion protocolVersion) {
+            this.entries = entries;
+            this.size = size;
+            this.protocolVersion = protocolVersion;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public Set<Entry<K, V>> entrySet() {
+            return new AbstractSet<Entry<K, V>>() {
+                @Override
+                public int size() {
+                    return size;
+                }
+
+                @Override
+                public Iterator<Entry<K, V>> iterator() {
+                    final ByteBuffer input = entries.duplicate();
+                    return new Iterator<Entry<K, V>>() {
+                        private int next;
+
+                        @Override
+                        public boolean hasNext() {
+                            return next < size;
+                        }
+
+                        @Override
+                        public Entry<K, V> next() {
+                            if (next >= size)
+                                throw new NoSuchElementException();
+                            next += 1;
+                            K key = keyCodec.deserialize(CodecUtils.readValue(input, protocolVersion), protocolVersion);
+                            V value = valueCodec.deserialize(CodecUtils.readValue(input, protocolVersion), protocolVersion);
+                            return new SimpleImmutableEntry<K, V>(key, value);
+                        }
+
+                        @Override
+                        public void remove() {
+                            throw new UnsupportedOperationException();
+                        }
+                    };
+                }
+            };
+        }
+    }
+}
@@ -0,0 +1,205 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.lazy;
+
+import com.datastax.driver.core.DataType;
+
+import java.nio.ByteBuffer;
+
+/**
+ * A read-only view over a serialized CQL {@code list} or {@code set} of numbers, that reads its elements as Java
+ * primitives directly from the serialized value.
+ * <p/>
+ * Instances are obtained with {@link NumericListViewCodec}. Accessing elements performs no allocation:
+ * <pre>
+ * NumericListViewCodec codec = new NumericListViewCodec(DataType.list(DataType.bigint()));
+ * ...
+ * NumericListView view = row.get("measures", codec);
+ * long sum = 0;
+ * for (int i = 0; i < view.size(); i++)
+ *     sum += view.getLong(i);
+ * </pre>
+ * Elements can be read with any accessor that can represent them without loss: for example, the elements of a
+ * {@code list<int>} can be read with {@link #getInt(int)}, {@link #getLong(int)} or {@link #getDouble(int)}, but not
+ * with {@link #getFloat(int)}.
+ */
+public final class NumericListView {
+
+    static final NumericListView EMPTY = new NumericListView(ByteBuffer.allocate(0), 0, DataType.Name.INT, 4, 4);
+
+    // positioned on the first element
+    private final ByteBuffer elements;
+    private final int size;
+    private final DataType.Name elementType;
+    private final int sizeOfSize;
+    private final int sizeOfElement;
+
+    NumericListView(ByteBuffer elements, int size, DataType.Name elementType, int sizeOfSize, int sizeOfElement) {
+        this.elements = elements;
+        this.size = size;
+        this.elementType = elementType;
+        this.sizeOfSize = sizeOfSize;
+        this.sizeOfElement = sizeOfElement;
+    }
+
+    /**
+     * Returns the number of elements.
+     *
+     * @return the number of elements.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns the CQL type of the elements.
+     *
+     * @return the CQL type of the elements.
+     */
+    public DataType.Name getElementType() {
+        return elementType;
+    }
+
+    /**
+     * Returns an element as a Java {@code int}.
+     *
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IllegalStateException     if the elements are not {@code tinyint}, {@code smallint} or {@code int}.
+     * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+     */
+    public int getInt(int index) {
+        int position = position(index);
+        switch (elementType) {
+            case TINYINT:
+                return elements.get(position);
+            case SMALLINT:
+                return elements.getShort(position);
+            case INT:
+                return elements.getInt(position);
+            default:
+                throw conversionError("int");
+        }
+    }
+
+    /**
+     * Returns an element as a Java {@code long}.
+     *
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IllegalStateException     if the elements are not {@code tinyint}, {@code smallint}, {@code int},
+     *                                   {@code bigint} or {@code timestamp}.
+     * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+     */
+    public long getLong(int index) {
+        switch (elementType) {
+            case BIGINT:
+            case TIMESTAMP:
+                return elements.getLong(position(index));
+            case FLOAT:
+            case DOUBLE:
+                throw conversionError("long");
+            default:
+                return getInt(index);
+        }
+    }
+
+    /**
+     * Returns an element as a Java {@code float}.
+     *
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IllegalStateException     if the elements are not {@code tinyint}, {@code smallint} or {@code float}.
+     * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+     */
+    public float getFloat(int index) {
+        switch (elementType) {
+            case FLOAT:
+                return elements.getFloat(position(index));
+            case TINYINT:
+            case SMALLINT:
+                return getInt(index);
+            default:
+                throw conversionError("float");
+        }
+    }
+
+    /**
+     * Returns an element as a Java {@code double}.
+     *
+     * @param index the index of the element.
+     * @return the element.
+     * @throws IllegalStateException     if the elements are {@code bigint} or {@code timestamp}.
+     * @throws IndexOutOfBoundsException if {@code index} is out of bounds.
+     */
+    public double getDouble(int index) {
+        switch (elementType) {
+            case DOUBLE:
+                return elements.getDouble(position(index));
+            case FLOAT:
+                return elements.getFloat(position(index));
+            case BIGINT:
+            case TIMESTAMP:
+                throw conversionError("double");
+            default:
+                return getInt(index);
+        }
+    }
+
+    ByteBuffer getElements() {
+        return elements.duplicate();
+    }
+
+    int getSizeOfSize() {
+        return sizeOfSize;
+    }
+
+    int getSizeOfElement() {
+        return sizeOfElement;
+    }
+
+    private int position(int index) {
+        if (index < 0 || index >= size)
+            throw new IndexOutOfBoundsException(String.format("Index: %d, size: %d", index, size));
+        // skip the sizes of the previous elements and of this one
+        return elements.position() + index * (sizeOfSize + sizeOfElement) + sizeOfSize;
+    }
+
+    private IllegalStateException conversionError(String javaType) {
+        return new IllegalStateException(String.format("Cannot read elements of type %s as %s",
+                elementType.toString().toLowerCase(), javaType));
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("[");
+        for (int i = 0; i < size; i++) {
+            if (i > 0)
+                sb.append(',');
+            switch (elementType) {
+                case FLOAT:
+                    sb.append(getFloat(i));
+                    break;
+                case DOUBLE:
+                    sb.append(getDouble(i));
+                    break;
+                default:
+                    sb.append(getLong(i));
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
@@ -0,0 +1,126 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.lazy;
+
+import com.datastax.driver.core.*;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A codec that maps a CQL {@code list} or {@code set} of numbers to a {@link NumericListView}, that reads its elements
+ * as Java primitives directly from the serialized value, without boxing them or allocating an intermediary
+ * collection or array.
+ * <p/>
+ * Supported element types are {@code tinyint}, {@code smallint}, {@code int}, {@code bigint}, {@code timestamp},
+ * {@code float} and {@code double}.
+ * <p/>
+ * This codec must be passed explicitly when reading a column: {@code row.get("l", codec)}.
+ */
+public class NumericListViewCodec extends TypeCodec<NumericListView> {
+
+    private final DataType.Name elementType;
+    private final int sizeOfElement;
+
+    /**
+     * @param cqlType the CQL type; must be a list or a set of a supported numeric type.
+     */
+    public NumericListViewCodec(DataType cqlType) {
+        super(cqlType, NumericListView.class);
+        checkArgument(cqlType.getName() == DataType.Name.LIST || cqlType.getName() == DataType.Name.SET,
+                "Expected a list or set type, got %s", cqlType);
+        this.elementType = cqlType.getTypeArguments().get(0).getName();
+        this.sizeOfElement = sizeOf(elementType);
+    }
+
+    @Override
+    public ByteBuffer serialize(NumericListView value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (value == null)
+            return null;
+        if (value.getElementType() != elementType && value.size() > 0)
+            throw new InvalidTypeException(String.format("Expected elements of type %s, got %s",
+                    elementType, value.getElementType()));
+        int size = value.size();
+        boolean isProtocolV3OrAbove = protocolVersion.compareTo(ProtocolVersion.V2) > 0;
+        checkArgument(isProtocolV3OrAbove || size < 65536,
+                "Native protocol version %d supports up to 65535 elements in any collection - but collection contains %d elements",
+                protocolVersion.toInt(), size);
+        int sizeOfSize = isProtocolV3OrAbove ? 4 : 2;
+        ByteBuffer output = ByteBuffer.allocate(sizeOfSize + size * (sizeOfSize + sizeOfElement));
+        CodecUtils.writeSize(output, size, protocolVersion);
+        ByteBuffer input = value.getElements();
+        for (int i = 0; i < size; i++) {
+            input.position(input.position() + value.getSizeOfSize());
+            CodecUtils.writeSize(output, sizeOfElement, protocolVersion);
+            for (int b = 0; b < sizeOfElement; b++)
+                output.put(input.get());
+        }
+        output.flip();
+        return output;
+    }
+
+    @Override
+    public NumericListView deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (bytes == null || bytes.remaining() == 0)
+            return NumericListView.EMPTY;
+        int sizeOfSize = protocolVersion.compareTo(ProtocolVersion.V2) > 0 ? 4 : 2;
+        ByteBuffer input = bytes.duplicate();
+        int size = CodecUtils.readSize(input, protocolVersion);
+        if (input.remaining() != size * (sizeOfSize + sizeOfElement))
+            throw new InvalidTypeException(String.format("Invalid serialized size for a collection of %d %s",
+                    size, elementType.toString().toLowerCase()));
+        return new NumericListView(input, size, elementType, sizeOfSize, sizeOfElement);
+    }
+
+    @Override
+    public NumericListView parse(String value) throws InvalidTypeException {
+        if (value == null || value.isEmpty() || value.equalsIgnoreCase("NULL"))
+            return null;
+        TypeCodec<Object> codec = CodecRegistry.DEFAULT_INSTANCE.codecFor(getCqlType());
+        ProtocolVersion protocolVersion = ProtocolVersion.NEWEST_SUPPORTED;
+        return deserialize(codec.serialize(codec.parse(value), protocolVersion), protocolVersion);
+    }
+
+    @Override
+    public String format(NumericListView value) throws InvalidTypeException {
+        if (value == null)
+            return "NULL";
+        String elements = value.toString();
+        return getCqlType().getName() == DataType.Name.SET
+                ? "{" + elements.substring(1, elements.length() - 1) + "}"
+                : elements;
+    }
+
+    private static int sizeOf(DataType.Name elementType) {
+        switch (elementType) {
+            case TINYINT:
+                return 1;
+            case SMALLINT:
+                return 2;
+            case INT:
+            case FLOAT:
+                return 4;
+            case BIGINT:
+            case TIMESTAMP:
+            case DOUBLE:
+                return 8;
+            default:
+                throw new IllegalArgumentException("Unsupported element type " + elementType);
+        }
+    }
+}
@@ -0,0 +1,236 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.primitives;
+
+import java.util.Arrays;
+
+import static com.datastax.driver.extras.codecs.primitives.PrimitiveCollections.*;
+
+/**
+ * A map of Java primitive {@code int} keys to {@code double} values, backed by an open-addressing hash table, that
+ * does not box its entries.
+ * <p/>
+ * This class is designed as a container for the values of CQL {@code map<int,double>} columns (see
+ * {@link IntDoubleMapCodec}): it supports insertions and lookups, but not the removal of individual entries. It is not
+ * thread-safe.
+ */
+public class IntDoubleHashMap {
+
+    // package-private so that the codec can iterate over the slots directly
+    int[] keys;
+    double[] values;
+    boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    /**
+     * Creates a new, empty map.
+     */
+    public IntDoubleHashMap() {
+        this(8);
+    }
+
+    /**
+     * Creates a new, empty map, sized to hold {@code expectedSize} entries without resizing.
+     *
+     * @param expectedSize the expected number of entries.
+     */
+    public IntDoubleHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Associates a value with a key, replacing the previous value if there was one.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return {@code true} if the map did not already contain {@code key}.
+     */
+    public boolean put(int key, double value) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key) {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        used[slot] = true;
+        if (++size > resizeThreshold)
+            resize(keys.length << 1);
+        return true;
+    }
+
+    /**
+     * Returns the value associated with a key.
+     *
+     * @param key          the key.
+     * @param defaultValue the value to return if the map does not contain {@code key}.
+     * @return the value.
+     */
+    public double get(int key, double defaultValue) {
+        int slot = find(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    /**
+     * Returns whether this map contains a key.
+     *
+     * @param key the key.
+     * @return whether this map contains {@code key}.
+     */
+    public boolean containsKey(int key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns the number of entries in this map.
+     *
+     * @return the number of entries in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this map is empty.
+     *
+     * @return whether this map is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the entries of this map.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Returns the keys of this map, in the same order as {@link #values()}.
+     *
+     * @return a new array containing the keys of this map.
+     */
+    public int[] keys() {
+        int[] result = new int[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot])
+                result[i++] = keys[slot];
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values of this map, in the same order as {@link #keys()}.
+     *
+     * @return a new array containing the values of this map.
+     */
+    public double[] values() {
+        double[] result = new double[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot])
+                result[i++] = values[slot];
+        }
+        return result;
+    }
+
+    private int find(int key) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key)
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new int[capacity];
+        values = new double[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity == MAX_CAPACITY ? Integer.MAX_VALUE : (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void resize(int capacity) {
+        int[] oldKeys = keys;
+        double[] oldValues = values;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (used[slot])
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this)
+            return true;
+        if (!(other instanceof IntDoubleHashMap))
+            return false;
+        IntDoubleHashMap that = (IntDoubleHashMap) other;
+        if (that.size != this.size)
+            return false;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                int thatSlot = that.find(keys[slot]);
+                if (thatSlot < 0 || Double.compare(that.values[thatSlot], values[slot]) != 0)
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                long bits = Double.doubleToLongBits(values[slot]);
+                hashCode += keys[slot] ^ (int) (bits ^ (bits >>> 32));
+            }
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        int[] sortedKeys = keys();
+        Arrays.sort(sortedKeys);
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < sortedKeys.length; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(sortedKeys[i]).append('=').append(get(sortedKeys[i], 0));
+        }
+        return sb.append('}').toString();
+    }
+}
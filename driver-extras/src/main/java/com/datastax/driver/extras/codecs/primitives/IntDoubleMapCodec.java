@@ -0,0 +1,127 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.primitives;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+
+import static com.datastax.driver.extras.codecs.primitives.PrimitiveCollections.*;
+
+/**
+ * A codec that maps the CQL type {@code map<int,double>} to an {@link IntDoubleHashMap}.
+ * <p/>
+ * Note that this codec is designed for performance: entries are read and written directly at their position in the
+ * fixed-width serialized form, without boxing them or allocating intermediary objects.
+ */
+public class IntDoubleMapCodec extends TypeCodec<IntDoubleHashMap> {
+
+    public static final IntDoubleMapCodec instance = new IntDoubleMapCodec();
+
+    private static final int SIZE_OF_KEY = 4;
+    private static final int SIZE_OF_VALUE = 8;
+
+    private final TypeCodec<Map<Integer, Double>> mapCodec = TypeCodec.map(TypeCodec.cint(), TypeCodec.cdouble());
+
+    public IntDoubleMapCodec() {
+        super(DataType.map(DataType.cint(), DataType.cdouble()), IntDoubleHashMap.class);
+    }
+
+    @Override
+    public ByteBuffer serialize(IntDoubleHashMap value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (value == null)
+            return null;
+        int size = value.size();
+        checkCollectionSize(size, protocolVersion);
+        int sizeOfSize = sizeOfSize(protocolVersion);
+        int stride = 2 * sizeOfSize + SIZE_OF_KEY + SIZE_OF_VALUE;
+        ByteBuffer output = ByteBuffer.allocate(sizeOfSize + size * stride);
+        putSize(output, 0, size, sizeOfSize);
+        int position = sizeOfSize;
+        int[] keys = value.keys;
+        double[] values = value.values;
+        boolean[] used = value.used;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                putSize(output, position, SIZE_OF_KEY, sizeOfSize);
+                output.putInt(position + sizeOfSize, keys[slot]);
+                int valuePosition = position + sizeOfSize + SIZE_OF_KEY;
+                putSize(output, valuePosition, SIZE_OF_VALUE, sizeOfSize);
+                output.putDouble(valuePosition + sizeOfSize, values[slot]);
+                position += stride;
+            }
+        }
+        return output;
+    }
+
+    @Override
+    public IntDoubleHashMap deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (bytes == null || bytes.remaining() == 0)
+            return new IntDoubleHashMap();
+        int sizeOfSize = sizeOfSize(protocolVersion);
+        int stride = 2 * sizeOfSize + SIZE_OF_KEY + SIZE_OF_VALUE;
+        int position = bytes.position();
+        checkRemaining(bytes, position, sizeOfSize);
+        int size = getSize(bytes, position, sizeOfSize);
+        position += sizeOfSize;
+        checkRemaining(bytes, position, (long) size * stride);
+        IntDoubleHashMap map = new IntDoubleHashMap(size);
+        for (int i = 0; i < size; i++) {
+            checkElementSize(getSize(bytes, position, sizeOfSize), SIZE_OF_KEY);
+            int key = bytes.getInt(position + sizeOfSize);
+            int valuePosition = position + sizeOfSize + SIZE_OF_KEY;
+            checkElementSize(getSize(bytes, valuePosition, sizeOfSize), SIZE_OF_VALUE);
+            map.put(key, bytes.getDouble(valuePosition + sizeOfSize));
+            position += stride;
+        }
+        return map;
+    }
+
+    @Override
+    public IntDoubleHashMap parse(String value) throws InvalidTypeException {
+        Map<Integer, Double> map = mapCodec.parse(value);
+        if (map == null)
+            return null;
+        IntDoubleHashMap result = new IntDoubleHashMap(map.size());
+        for (Map.Entry<Integer, Double> entry : map.entrySet())
+            result.put(entry.getKey(), entry.getValue());
+        return result;
+    }
+
+    @Override
+    public String format(IntDoubleHashMap value) throws InvalidTypeException {
+        if (value == null)
+            return "NULL";
+        StringBuilder sb = new StringBuilder("{");
+        int[] keys = value.keys;
+        double[] values = value.values;
+        boolean[] used = value.used;
+        boolean first = true;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                if (!first)
+                    sb.append(',');
+                sb.append(keys[slot]).append(':').append(TypeCodec.cdouble().format(values[slot]));
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.primitives;
+
+import java.util.Arrays;
+
+import static com.datastax.driver.extras.codecs.primitives.PrimitiveCollections.*;
+
+/**
+ * A set of Java primitive {@code long} values, backed by an open-addressing hash table, that does not box its
+ * elements.
+ * <p/>
+ * This class is designed as a container for the values of CQL {@code set<bigint>} columns (see {@link LongSetCodec}):
+ * it supports additions and lookups, but not the removal of individual elements. It is not thread-safe.
+ */
+public class LongHashSet {
+
+    // package-private so that the codec can iterate over the slots directly
+    long[] keys;
+    boolean[] used;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    /**
+     * Creates a new, empty set.
+     */
+    public LongHashSet() {
+        this(8);
+    }
+
+    /**
+     * Creates a new, empty set, sized to hold {@code expectedSize} elements without resizing.
+     *
+     * @param expectedSize the expected number of elements.
+     */
+    public LongHashSet(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Adds an element to this set.
+     *
+     * @param key the element.
+     * @return {@code true} if the set did not already contain it.
+     */
+    public boolean add(long key) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key)
+                return false;
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        used[slot] = true;
+        if (++size > resizeThreshold)
+            resize(keys.length << 1);
+        return true;
+    }
+
+    /**
+     * Returns whether this set contains an element.
+     *
+     * @param key the element.
+     * @return whether this set contains {@code key}.
+     */
+    public boolean contains(long key) {
+        int slot = mix(key) & mask;
+        while (used[slot]) {
+            if (keys[slot] == key)
+                return true;
+            slot = (slot + 1) & mask;
+        }
+        return false;
+    }
+
+    /**
+     * Returns the number of elements in this set.
+     *
+     * @return the number of elements in this set.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this set is empty.
+     *
+     * @return whether this set is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the elements of this set.
+     */
+    public void clear() {
+        Arrays.fill(used, false);
+        size = 0;
+    }
+
+    /**
+     * Returns the elements of this set, in no particular order.
+     *
+     * @return a new array containing the elements of this set.
+     */
+    public long[] toArray() {
+        long[] result = new long[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot])
+                result[i++] = keys[slot];
+        }
+        return result;
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        used = new boolean[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity == MAX_CAPACITY ? Integer.MAX_VALUE : (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void resize(int capacity) {
+        long[] oldKeys = keys;
+        boolean[] oldUsed = used;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldUsed[i]) {
+                int slot = mix(oldKeys[i]) & mask;
+                while (used[slot])
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                used[slot] = true;
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this)
+            return true;
+        if (!(other instanceof LongHashSet))
+            return false;
+        LongHashSet that = (LongHashSet) other;
+        if (that.size != this.size)
+            return false;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot] && !that.contains(keys[slot]))
+                return false;
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot])
+                hashCode += (int) (keys[slot] ^ (keys[slot] >>> 32));
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        long[] elements = toArray();
+        Arrays.sort(elements);
+        return Arrays.toString(elements);
+    }
+}
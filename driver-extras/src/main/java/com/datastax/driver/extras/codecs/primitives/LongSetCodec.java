@@ -0,0 +1,118 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.primitives;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+import java.nio.ByteBuffer;
+import java.util.Set;
+
+import static com.datastax.driver.extras.codecs.primitives.PrimitiveCollections.*;
+
+/**
+ * A codec that maps the CQL type {@code set<bigint>} to a {@link LongHashSet}.
+ * <p/>
+ * Note that this codec is designed for performance: elements are read and written directly at their position in the
+ * fixed-width serialized form, without boxing them or allocating intermediary objects.
+ */
+public class LongSetCodec extends TypeCodec<LongHashSet> {
+
+    public static final LongSetCodec instance = new LongSetCodec();
+
+    private static final int SIZE_OF_ELEMENT = 8;
+
+    private final TypeCodec<Set<Long>> setCodec = TypeCodec.set(TypeCodec.bigint());
+
+    public LongSetCodec() {
+        super(DataType.set(DataType.bigint()), LongHashSet.class);
+    }
+
+    @Override
+    public ByteBuffer serialize(LongHashSet value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (value == null)
+            return null;
+        int size = value.size();
+        checkCollectionSize(size, protocolVersion);
+        int sizeOfSize = sizeOfSize(protocolVersion);
+        int stride = sizeOfSize + SIZE_OF_ELEMENT;
+        ByteBuffer output = ByteBuffer.allocate(sizeOfSize + size * stride);
+        putSize(output, 0, size, sizeOfSize);
+        int position = sizeOfSize;
+        long[] keys = value.keys;
+        boolean[] used = value.used;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                putSize(output, position, SIZE_OF_ELEMENT, sizeOfSize);
+                output.putLong(position + sizeOfSize, keys[slot]);
+                position += stride;
+            }
+        }
+        return output;
+    }
+
+    @Override
+    public LongHashSet deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (bytes == null || bytes.remaining() == 0)
+            return new LongHashSet();
+        int sizeOfSize = sizeOfSize(protocolVersion);
+        int stride = sizeOfSize + SIZE_OF_ELEMENT;
+        int position = bytes.position();
+        checkRemaining(bytes, position, sizeOfSize);
+        int size = getSize(bytes, position, sizeOfSize);
+        position += sizeOfSize;
+        checkRemaining(bytes, position, (long) size * stride);
+        LongHashSet set = new LongHashSet(size);
+        for (int i = 0; i < size; i++) {
+            checkElementSize(getSize(bytes, position, sizeOfSize), SIZE_OF_ELEMENT);
+            set.add(bytes.getLong(position + sizeOfSize));
+            position += stride;
+        }
+        return set;
+    }
+
+    @Override
+    public LongHashSet parse(String value) throws InvalidTypeException {
+        Set<Long> set = setCodec.parse(value);
+        if (set == null)
+            return null;
+        LongHashSet result = new LongHashSet(set.size());
+        for (Long element : set)
+            result.add(element);
+        return result;
+    }
+
+    @Override
+    public String format(LongHashSet value) throws InvalidTypeException {
+        if (value == null)
+            return "NULL";
+        StringBuilder sb = new StringBuilder("{");
+        long[] keys = value.keys;
+        boolean[] used = value.used;
+        boolean first = true;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (used[slot]) {
+                if (!first)
+                    sb.append(',');
+                sb.append(keys[slot]);
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.primitives;
+
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+import java.nio.ByteBuffer;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Helpers shared by the open-addressing collections and their codecs.
+ */
+class PrimitiveCollections {
+
+    static final float LOAD_FACTOR = 0.75f;
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /**
+     * Returns the smallest power of two that can hold {@code expectedSize} elements without exceeding the load factor.
+     */
+    static int capacityFor(int expectedSize) {
+        checkArgument(expectedSize >= 0, "expectedSize must be positive (was %s)", expectedSize);
+        long needed = (long) Math.ceil(Math.max(expectedSize, 2) / LOAD_FACTOR);
+        if (needed > MAX_CAPACITY)
+            return MAX_CAPACITY;
+        int capacity = Integer.highestOneBit((int) needed);
+        return capacity < needed ? capacity << 1 : capacity;
+    }
+
+    // Spreads the bits of the keys, since linear probing degrades quickly with clustered hashes
+    static int mix(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    static int mix(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /*
+     * Encoding of collections in the native protocol:
+     * [number of elements] [size of element 1][element 1] [size of element 2][element 2]...
+     * (for maps, each entry is encoded as its key followed by its value).
+     * Sizes are encoded on 2 bytes in protocol v1 and v2, 4 bytes otherwise.
+     */
+
+    static int sizeOfSize(ProtocolVersion protocolVersion) {
+        return protocolVersion.compareTo(ProtocolVersion.V2) > 0 ? 4 : 2;
+    }
+
+    static void checkCollectionSize(int size, ProtocolVersion protocolVersion) {
+        checkArgument(protocolVersion.compareTo(ProtocolVersion.V2) > 0 || size < 65536,
+                "Native protocol version %d supports up to 65535 elements in any collection - but collection contains %d elements",
+                protocolVersion.toInt(), size);
+    }
+
+    static void putSize(ByteBuffer output, int position, int size, int sizeOfSize) {
+        if (sizeOfSize == 4)
+            output.putInt(position, size);
+        else
+            output.putShort(position, (short) size);
+    }
+
+    static int getSize(ByteBuffer input, int position, int sizeOfSize) {
+        return sizeOfSize == 4 ? input.getInt(position) : input.getShort(position) & 0xFFFF;
+    }
+
+    static void checkRemaining(ByteBuffer input, int position, long needed) {
+        if (input.limit() - position < needed)
+            throw new InvalidTypeException("Not enough bytes to deserialize collection");
+    }
+
+    static void checkElementSize(int actual, int expected) {
+        if (actual != expected)
+            throw new InvalidTypeException(String.format("Invalid element size: expected %d bytes, got %d", expected, actual));
+    }
+}
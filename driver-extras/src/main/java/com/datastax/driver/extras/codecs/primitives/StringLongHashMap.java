@@ -0,0 +1,233 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.primitives;
+
+import java.util.Arrays;
+
+import static com.datastax.driver.extras.codecs.primitives.PrimitiveCollections.*;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A map of {@link String} keys to Java primitive {@code long} values, backed by an open-addressing hash table, that
+ * does not box its values.
+ * <p/>
+ * This class is designed as a container for the values of CQL {@code map<text,bigint>} columns (see
+ * {@link StringLongMapCodec}): it supports insertions and lookups, but not the removal of individual entries. Keys
+ * cannot be {@code null}. It is not thread-safe.
+ */
+public class StringLongHashMap {
+
+    // package-private so that the codec can iterate over the slots directly; null keys denote empty slots
+    String[] keys;
+    long[] values;
+    private int size;
+    private int mask;
+    private int resizeThreshold;
+
+    /**
+     * Creates a new, empty map.
+     */
+    public StringLongHashMap() {
+        this(8);
+    }
+
+    /**
+     * Creates a new, empty map, sized to hold {@code expectedSize} entries without resizing.
+     *
+     * @param expectedSize the expected number of entries.
+     */
+    public StringLongHashMap(int expectedSize) {
+        allocate(capacityFor(expectedSize));
+    }
+
+    /**
+     * Associates a value with a key, replacing the previous value if there was one.
+     *
+     * @param key   the key.
+     * @param value the value.
+     * @return {@code true} if the map did not already contain {@code key}.
+     */
+    public boolean put(String key, long value) {
+        checkNotNull(key, "key cannot be null");
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key)) {
+                values[slot] = value;
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = key;
+        values[slot] = value;
+        if (++size > resizeThreshold)
+            resize(keys.length << 1);
+        return true;
+    }
+
+    /**
+     * Returns the value associated with a key.
+     *
+     * @param key          the key.
+     * @param defaultValue the value to return if the map does not contain {@code key}.
+     * @return the value.
+     */
+    public long get(String key, long defaultValue) {
+        int slot = find(key);
+        return slot < 0 ? defaultValue : values[slot];
+    }
+
+    /**
+     * Returns whether this map contains a key.
+     *
+     * @param key the key.
+     * @return whether this map contains {@code key}.
+     */
+    public boolean containsKey(String key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns the number of entries in this map.
+     *
+     * @return the number of entries in this map.
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns whether this map is empty.
+     *
+     * @return whether this map is empty.
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Removes all the entries of this map.
+     */
+    public void clear() {
+        Arrays.fill(keys, null);
+        size = 0;
+    }
+
+    /**
+     * Returns the keys of this map, in the same order as {@link #values()}.
+     *
+     * @return a new array containing the keys of this map.
+     */
+    public String[] keys() {
+        String[] result = new String[size];
+        int i = 0;
+        for (String key : keys) {
+            if (key != null)
+                result[i++] = key;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the values of this map, in the same order as {@link #keys()}.
+     *
+     * @return a new array containing the values of this map.
+     */
+    public long[] values() {
+        long[] result = new long[size];
+        int i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null)
+                result[i++] = values[slot];
+        }
+        return result;
+    }
+
+    private int find(String key) {
+        if (key == null)
+            return -1;
+        int slot = mix(key.hashCode()) & mask;
+        while (keys[slot] != null) {
+            if (keys[slot].equals(key))
+                return slot;
+            slot = (slot + 1) & mask;
+        }
+        return -1;
+    }
+
+    private void allocate(int capacity) {
+        keys = new String[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        resizeThreshold = capacity == MAX_CAPACITY ? Integer.MAX_VALUE : (int) (capacity * LOAD_FACTOR);
+    }
+
+    private void resize(int capacity) {
+        String[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        for (int i = 0; i < oldKeys.length; i++) {
+            if (oldKeys[i] != null) {
+                int slot = mix(oldKeys[i].hashCode()) & mask;
+                while (keys[slot] != null)
+                    slot = (slot + 1) & mask;
+                keys[slot] = oldKeys[i];
+                values[slot] = oldValues[i];
+            }
+        }
+    }
+
+    @Override
+    public boolean equals(Object other) {
+        if (other == this)
+            return true;
+        if (!(other instanceof StringLongHashMap))
+            return false;
+        StringLongHashMap that = (StringLongHashMap) other;
+        if (that.size != this.size)
+            return false;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                int thatSlot = that.find(keys[slot]);
+                if (thatSlot < 0 || that.values[thatSlot] != values[slot])
+                    return false;
+            }
+        }
+        return true;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCode = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null)
+                hashCode += keys[slot].hashCode() ^ (int) (values[slot] ^ (values[slot] >>> 32));
+        }
+        return hashCode;
+    }
+
+    @Override
+    public String toString() {
+        String[] sortedKeys = keys();
+        Arrays.sort(sortedKeys);
+        StringBuilder sb = new StringBuilder("{");
+        for (int i = 0; i < sortedKeys.length; i++) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append(sortedKeys[i]).append('=').append(get(sortedKeys[i], 0));
+        }
+        return sb.append('}').toString();
+    }
+}
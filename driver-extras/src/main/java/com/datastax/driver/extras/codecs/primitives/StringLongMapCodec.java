@@ -0,0 +1,153 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.primitives;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ParseUtils;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Map;
+
+import static com.datastax.driver.extras.codecs.primitives.PrimitiveCollections.*;
+
+/**
+ * A codec that maps the CQL type {@code map<varchar,bigint>} to a {@link StringLongHashMap}.
+ * <p/>
+ * Note that this codec is designed for performance: values are read and written directly at their position in the
+ * serialized form, without boxing them; keys are decoded from the UTF-8 bytes without intermediary copies.
+ */
+public class StringLongMapCodec extends TypeCodec<StringLongHashMap> {
+
+    public static final StringLongMapCodec instance = new StringLongMapCodec();
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final int SIZE_OF_VALUE = 8;
+
+    private final TypeCodec<Map<String, Long>> mapCodec = TypeCodec.map(TypeCodec.varchar(), TypeCodec.bigint());
+
+    public StringLongMapCodec() {
+        super(DataType.map(DataType.varchar(), DataType.bigint()), StringLongHashMap.class);
+    }
+
+    @Override
+    public ByteBuffer serialize(StringLongHashMap value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (value == null)
+            return null;
+        int size = value.size();
+        checkCollectionSize(size, protocolVersion);
+        int sizeOfSize = sizeOfSize(protocolVersion);
+        String[] keys = value.keys;
+        long[] values = value.values;
+
+        // Keys have variable lengths: encode them first to compute the total size
+        byte[][] encodedKeys = new byte[size][];
+        int totalSize = sizeOfSize + size * (2 * sizeOfSize + SIZE_OF_VALUE);
+        int i = 0;
+        for (String key : keys) {
+            if (key != null) {
+                encodedKeys[i] = key.getBytes(UTF_8);
+                totalSize += encodedKeys[i].length;
+                i += 1;
+            }
+        }
+
+        ByteBuffer output = ByteBuffer.allocate(totalSize);
+        putSize(output, 0, size, sizeOfSize);
+        output.position(sizeOfSize);
+        i = 0;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                byte[] encodedKey = encodedKeys[i++];
+                putSize(output, output.position(), encodedKey.length, sizeOfSize);
+                output.position(output.position() + sizeOfSize);
+                output.put(encodedKey);
+                putSize(output, output.position(), SIZE_OF_VALUE, sizeOfSize);
+                output.putLong(output.position() + sizeOfSize, values[slot]);
+                output.position(output.position() + sizeOfSize + SIZE_OF_VALUE);
+            }
+        }
+        output.flip();
+        return output;
+    }
+
+    @Override
+    public StringLongHashMap deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (bytes == null || bytes.remaining() == 0)
+            return new StringLongHashMap();
+        int sizeOfSize = sizeOfSize(protocolVersion);
+        int position = bytes.position();
+        checkRemaining(bytes, position, sizeOfSize);
+        int size = getSize(bytes, position, sizeOfSize);
+        position += sizeOfSize;
+        StringLongHashMap map = new StringLongHashMap(size);
+        byte[] scratch = bytes.hasArray() ? null : new byte[64];
+        for (int i = 0; i < size; i++) {
+            checkRemaining(bytes, position, sizeOfSize);
+            int keyLength = getSize(bytes, position, sizeOfSize);
+            position += sizeOfSize;
+            checkRemaining(bytes, position, keyLength + sizeOfSize + SIZE_OF_VALUE);
+            String key;
+            if (bytes.hasArray()) {
+                key = new String(bytes.array(), bytes.arrayOffset() + position, keyLength, UTF_8);
+            } else {
+                if (scratch.length < keyLength)
+                    scratch = new byte[keyLength];
+                for (int b = 0; b < keyLength; b++)
+                    scratch[b] = bytes.get(position + b);
+                key = new String(scratch, 0, keyLength, UTF_8);
+            }
+            position += keyLength;
+            checkElementSize(getSize(bytes, position, sizeOfSize), SIZE_OF_VALUE);
+            map.put(key, bytes.getLong(position + sizeOfSize));
+            position += sizeOfSize + SIZE_OF_VALUE;
+        }
+        return map;
+    }
+
+    @Override
+    public StringLongHashMap parse(String value) throws InvalidTypeException {
+        Map<String, Long> map = mapCodec.parse(value);
+        if (map == null)
+            return null;
+        StringLongHashMap result = new StringLongHashMap(map.size());
+        for (Map.Entry<String, Long> entry : map.entrySet())
+            result.put(entry.getKey(), entry.getValue());
+        return result;
+    }
+
+    @Override
+    public String format(StringLongHashMap value) throws InvalidTypeException {
+        if (value == null)
+            return "NULL";
+        StringBuilder sb = new StringBuilder("{");
+        String[] keys = value.keys;
+        long[] values = value.values;
+        boolean first = true;
+        for (int slot = 0; slot < keys.length; slot++) {
+            if (keys[slot] != null) {
+                if (!first)
+                    sb.append(',');
+                sb.append(ParseUtils.quote(keys[slot])).append(':').append(values[slot]);
+                first = false;
+            }
+        }
+        return sb.append('}').toString();
+    }
+}
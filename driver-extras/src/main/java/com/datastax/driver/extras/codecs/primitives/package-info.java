@@ -0,0 +1,21 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+/**
+ * This package contains {@link com.datastax.driver.core.TypeCodec TypeCodec} instances
+ * that map CQL sets and maps of fixed-width types to collections of Java primitives,
+ * backed by open-addressing hash tables.
+ */
+package com.datastax.driver.extras.codecs.primitives;
@@ -0,0 +1,206 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.text;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.datastax.driver.core.exceptions.InvalidTypeException;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A codec for CQL {@code varchar} or {@code ascii} columns with a small number of distinct values
+ * (for example a status, a country or an event type), that returns the same {@link String} instance
+ * every time it decodes the same value.
+ * <p/>
+ * Decoded values are kept in a fixed-size dictionary indexed by the hash of their serialized form;
+ * a hit returns the shared instance without copying or decoding the bytes. When two values hash to
+ * the same slot, the most recent one replaces the other, so memory usage stays bounded whatever the
+ * actual cardinality of the column, but the codec degrades to plain decoding for columns that are
+ * not low-cardinality. Values longer than a configurable threshold are never stored.
+ * <p/>
+ * The built-in codecs take precedence over registered codecs for {@code varchar <-> String}, so
+ * this codec must be passed explicitly when reading the columns it applies to:
+ * <pre>
+ * DictionaryStringCodec statusCodec = new DictionaryStringCodec(1024);
+ * for (Row row : rs) {
+ *     String status = row.get("status", statusCodec);
+ *     ...
+ * }
+ * </pre>
+ * Instances are thread-safe; use one instance per column (or group of columns that share the same
+ * values) to keep the dictionary effective.
+ */
+public class DictionaryStringCodec extends TypeCodec<String> {
+
+    /**
+     * The default maximum length of a value stored in the dictionary, in bytes.
+     */
+    public static final int DEFAULT_MAX_VALUE_LENGTH = 128;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final Charset US_ASCII = Charset.forName("US-ASCII");
+
+    private final TypeCodec<String> innerCodec;
+    private final Charset charset;
+    private final int maxValueLength;
+    private final Entry[] entries;
+    private final int mask;
+
+    /**
+     * Creates a new instance for CQL {@code varchar}.
+     *
+     * @param dictionarySize the number of slots of the dictionary (rounded up to the next power of two).
+     */
+    public DictionaryStringCodec(int dictionarySize) {
+        this(TypeCodec.varchar(), dictionarySize, DEFAULT_MAX_VALUE_LENGTH);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param innerCodec     the codec used to serialize, format and parse values, either
+     *                       {@link TypeCodec#varchar()} or {@link TypeCodec#ascii()}.
+     * @param dictionarySize the number of slots of the dictionary (rounded up to the next power of two).
+     * @param maxValueLength the maximum length of a value stored in the dictionary, in bytes.
+     */
+    public DictionaryStringCodec(TypeCodec<String> innerCodec, int dictionarySize, int maxValueLength) {
+        super(innerCodec.getCqlType(), String.class);
+        checkArgument(dictionarySize > 0 && dictionarySize <= (1 << 30),
+                "dictionarySize must be between 1 and 2^30 (was %s)", dictionarySize);
+        checkArgument(maxValueLength > 0, "maxValueLength must be strictly positive (was %s)", maxValueLength);
+        this.innerCodec = innerCodec;
+        this.charset = innerCodec.getCqlType().getName() == DataType.Name.ASCII ? US_ASCII : UTF_8;
+        this.maxValueLength = maxValueLength;
+        int size = Integer.highestOneBit(dictionarySize);
+        if (size < dictionarySize)
+            size <<= 1;
+        this.entries = new Entry[size];
+        this.mask = size - 1;
+    }
+
+    @Override
+    public ByteBuffer serialize(String value, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        return innerCodec.serialize(value, protocolVersion);
+    }
+
+    /**
+     * {@inheritDoc}
+     * <p/>
+     * Implementation note: like the built-in codecs, this method maps {@code null}s to {@code null}s
+     * and empty buffers to empty strings.
+     */
+    @Override
+    public String deserialize(ByteBuffer bytes, ProtocolVersion protocolVersion) throws InvalidTypeException {
+        if (bytes == null)
+            return null;
+        int length = bytes.remaining();
+        if (length == 0)
+            return "";
+        if (length > maxValueLength)
+            return decode(bytes, length, isAscii(bytes, length));
+
+        int start = bytes.position();
+        int hash = 1;
+        boolean ascii = true;
+        for (int i = start; i < start + length; i++) {
+            byte b = bytes.get(i);
+            hash = 31 * hash + b;
+            ascii &= b >= 0;
+        }
+        int slot = (hash ^ (hash >>> 16)) & mask;
+
+        // Entries are immutable, so racy reads of the array are safe
+        Entry entry = entries[slot];
+        if (entry != null && entry.hash == hash && entry.matches(bytes, start, length))
+            return entry.value;
+
+        byte[] copy = new byte[length];
+        bytes.duplicate().get(copy);
+        String value = ascii ? decodeAscii(copy) : new String(copy, charset);
+        entries[slot] = new Entry(copy, hash, value);
+        return value;
+    }
+
+    @Override
+    public String parse(String value) throws InvalidTypeException {
+        return innerCodec.parse(value);
+    }
+
+    @Override
+    public String format(String value) throws InvalidTypeException {
+        return innerCodec.format(value);
+    }
+
+    private String decode(ByteBuffer bytes, int length, boolean ascii) {
+        if (bytes.hasArray()) {
+            int offset = bytes.arrayOffset() + bytes.position();
+            return ascii
+                    ? decodeAscii(bytes.array(), offset, length)
+                    : new String(bytes.array(), offset, length, charset);
+        }
+        byte[] array = new byte[length];
+        bytes.duplicate().get(array);
+        return ascii ? decodeAscii(array) : new String(array, charset);
+    }
+
+    private static boolean isAscii(ByteBuffer bytes, int length) {
+        int start = bytes.position();
+        for (int i = start; i < start + length; i++) {
+            if (bytes.get(i) < 0)
+                return false;
+        }
+        return true;
+    }
+
+    private static String decodeAscii(byte[] bytes) {
+        return decodeAscii(bytes, 0, bytes.length);
+    }
+
+    // ASCII bytes map directly to chars, which is cheaper than going through a CharsetDecoder
+    private static String decodeAscii(byte[] bytes, int offset, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++)
+            chars[i] = (char) bytes[offset + i];
+        return new String(chars);
+    }
+
+    private static class Entry {
+        final byte[] bytes;
+        final int hash;
+        final String value;
+
+        Entry(byte[] bytes, int hash, String value) {
+            this.bytes = bytes;
+            this.hash = hash;
+            this.value = value;
+        }
+
+        boolean matches(ByteBuffer buffer, int start, int length) {
+            if (bytes.length != length)
+                return false;
+            for (int i = 0; i < length; i++) {
+                if (bytes[i] != buffer.get(start + i))
+                    return false;
+            }
+            return true;
+        }
+    }
+}
@@ -0,0 +1,526 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.counters;
+
+import com.codahale.metrics.*;
+import com.datastax.driver.core.*;
+import com.datastax.driver.core.exceptions.NoHostAvailableException;
+import com.datastax.driver.core.exceptions.UnavailableException;
+import com.datastax.driver.core.utils.MoreFutures;
+import com.google.common.util.concurrent.*;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Aggregates counter increments on the client, and periodically writes the merged deltas to Cassandra.
+ * <p/>
+ * Incrementing a counter is relatively expensive for Cassandra (each update requires a read and a lock on
+ * the replicas), so applications that increment the same few counters at a high rate can reduce the load
+ * dramatically by merging the increments:
+ * <pre>
+ * PreparedStatement incrementViews = session.prepare(
+ *         "UPDATE page_views SET views = views + ? WHERE page = ?");
+ * CounterAggregator aggregator = CounterAggregator.builder(session)
+ *         .withName("page-views")
+ *         .withFlushInterval(1, TimeUnit.SECONDS)
+ *         .build();
+ *
+ * aggregator.increment(incrementViews, 1, "index.html");
+ * ...
+ * aggregator.close(); // writes the remaining deltas
+ * </pre>
+ * The statements passed to {@link #increment(PreparedStatement, long, Object...)} must take the delta as their
+ * first bind variable, followed by the values that identify the counter (usually the primary key).
+ * <p/>
+ * Deltas are accumulated per statement and key values without locking, and flushed when the
+ * {@link Builder#withFlushInterval(long, TimeUnit) flush interval} elapses, when the number of pending counters
+ * reaches {@link Builder#withMaxPendingCounters(int) a threshold}, when {@link #flush()} is called, and when the
+ * aggregator is closed. A flush executes one update per counter, with a bounded number of concurrent requests.
+ * <p/>
+ * Note that this trades durability for throughput: pending deltas are lost if the application crashes. Since
+ * counter updates are not idempotent, a delta whose update fails is only re-added to the pending deltas if the
+ * failure guarantees that it was not applied (no host available, or not enough replicas alive) and the aggregator
+ * is not closed; otherwise it is dropped and logged.
+ * <p/>
+ * If metrics are enabled on the cluster, the aggregator registers the following metrics, prefixed with
+ * {@code counter-aggregator.<name>}: {@code pending-counters} (the number of counters with a pending delta),
+ * {@code flush-latency} (the duration of flushes) and {@code failed-deltas} (the number of deltas that could not
+ * be written).
+ */
+public class CounterAggregator implements Closeable {
+
+    private static final Logger logger = LoggerFactory.getLogger(CounterAggregator.class);
+
+    // marks a cell that is being flushed; increments must retry with a new cell
+    private static final long SEALED = Long.MIN_VALUE;
+
+    private final Session session;
+    private final int maxPendingCounters;
+    private final int maxConcurrentRequests;
+
+    private final ConcurrentMap<CounterKey, AtomicLong> cells = new ConcurrentHashMap<CounterKey, AtomicLong>();
+    private final AtomicInteger pendingCounters = new AtomicInteger();
+
+    private final ScheduledExecutorService scheduler;
+    private final ScheduledFuture<?> periodicFlush;
+    private final AtomicBoolean sizeFlushScheduled = new AtomicBoolean();
+    private final Map<ListenableFuture<Void>, Boolean> flushesInProgress = new ConcurrentHashMap<ListenableFuture<Void>, Boolean>();
+    private volatile boolean closed;
+    private volatile ListenableFuture<Void> closeFuture;
+
+    private final MetricRegistry registry;
+    private final String metricPrefix;
+    private final Timer flushLatency;
+    private final Counter failedDeltas;
+
+    private CounterAggregator(Builder builder) {
+        this.session = builder.session;
+        this.maxPendingCounters = builder.maxPendingCounters;
+        this.maxConcurrentRequests = builder.maxConcurrentRequests;
+
+        Metrics metrics = session.getCluster().getMetrics();
+        this.registry = metrics == null ? null : metrics.getRegistry();
+        this.metricPrefix = MetricRegistry.name("counter-aggregator", builder.name);
+        if (registry == null) {
+            this.flushLatency = new Timer();
+            this.failedDeltas = new Counter();
+        } else {
+            this.flushLatency = registry.timer(MetricRegistry.name(metricPrefix, "flush-latency"));
+            this.failedDeltas = registry.counter(MetricRegistry.name(metricPrefix, "failed-deltas"));
+            String gaugeName = MetricRegistry.name(metricPrefix, "pending-counters");
+            registry.remove(gaugeName);
+            registry.register(gaugeName, new Gauge<Integer>() {
+                @Override
+                public Integer getValue() {
+                    return pendingCounters.get();
+                }
+            });
+        }
+
+        this.scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("counter-aggregator-" + builder.name + "-%d")
+                .setDaemon(true)
+                .build());
+        this.periodicFlush = scheduler.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                flush();
+            }
+        }, builder.flushIntervalMillis, builder.flushIntervalMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a new builder for a counter aggregator that writes through the given session.
+     *
+     * @param session the session to write the counters with.
+     * @return the builder.
+     */
+    public static Builder builder(Session session) {
+        return new Builder(session);
+    }
+
+    /**
+     * Adds a delta to a counter.
+     * <p/>
+     * This method does not block and does not execute any request, the delta will be written by the
+     * next flush.
+     *
+     * @param statement the statement that updates the counter; it must take the delta as its first
+     *                  bind variable, followed by {@code keyValues}.
+     * @param delta     the delta to add (it can be negative).
+     * @param keyValues the values of the remaining bind variables of {@code statement}.
+     * @throws IllegalStateException if this aggregator is closed.
+     */
+    public void increment(PreparedStatement statement, long delta, Object... keyValues) {
+        if (closed)
+            throw new IllegalStateException("Can't increment a counter on a closed CounterAggregator");
+        checkNotNull(statement);
+        add(new CounterKey(statement, keyValues), delta);
+    }
+
+    private void add(CounterKey key, long delta) {
+        if (delta == 0)
+            return;
+        while (true) {
+            AtomicLong cell = cells.get(key);
+            if (cell == null) {
+                cell = new AtomicLong();
+                AtomicLong previous = cells.putIfAbsent(key, cell);
+                if (previous != null) {
+                    cell = previous;
+                } else if (pendingCounters.incrementAndGet() >= maxPendingCounters) {
+                    scheduleFlush();
+                }
+            }
+            long current = cell.get();
+            if (current == SEALED) {
+                // being flushed, help remove it and start a new one
+                cells.remove(key, cell);
+                continue;
+            }
+            if (cell.compareAndSet(current, current + delta))
+                return;
+        }
+    }
+
+    private void scheduleFlush() {
+        if (sizeFlushScheduled.compareAndSet(false, true)) {
+            try {
+                scheduler.execute(new Runnable() {
+                    @Override
+                    public void run() {
+                        sizeFlushScheduled.set(false);
+                        flush();
+                    }
+                });
+            } catch (RejectedExecutionException e) {
+                // closed, the final flush will take care of it
+                sizeFlushScheduled.set(false);
+            }
+        }
+    }
+
+    /**
+     * Writes all pending deltas now.
+     *
+     * @return a future that completes when all the deltas have been written (or have failed).
+     */
+    public ListenableFuture<Void> flush() {
+        List<CounterKey> keys = new ArrayList<CounterKey>();
+        List<Long> deltas = new ArrayList<Long>();
+        for (Map.Entry<CounterKey, AtomicLong> entry : cells.entrySet()) {
+            AtomicLong cell = entry.getValue();
+            long delta = cell.getAndSet(SEALED);
+            if (delta == SEALED)
+                continue;
+            cells.remove(entry.getKey(), cell);
+            pendingCounters.decrementAndGet();
+            if (delta != 0) {
+                keys.add(entry.getKey());
+                deltas.add(delta);
+            }
+        }
+        if (keys.isEmpty())
+            return MoreFutures.VOID_SUCCESS;
+
+        final Flush flush = new Flush(keys, deltas);
+        flushesInProgress.put(flush.result, Boolean.TRUE);
+        flush.result.addListener(new Runnable() {
+            @Override
+            public void run() {
+                flushesInProgress.remove(flush.result);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+        flush.start();
+        return flush.result;
+    }
+
+    /**
+     * Returns the number of counters that currently have a pending delta.
+     *
+     * @return the number of pending counters.
+     */
+    public int getPendingCounters() {
+        return pendingCounters.get();
+    }
+
+    /**
+     * Stops the periodic flushes and writes all pending deltas.
+     * <p/>
+     * Calls to {@link #increment(PreparedStatement, long, Object...)} that are concurrent to this method
+     * might be lost; subsequent calls fail.
+     *
+     * @return a future that completes when all the pending deltas have been written (or have failed).
+     */
+    public ListenableFuture<Void> closeAsync() {
+        synchronized (this) {
+            if (closeFuture != null)
+                return closeFuture;
+            // From now on, deltas that fail are not re-added (see Flush#launchNext)
+            closed = true;
+            periodicFlush.cancel(false);
+            List<ListenableFuture<Void>> flushes = new ArrayList<ListenableFuture<Void>>(flushesInProgress.keySet());
+            flushes.add(flush());
+            // Flushes that were in progress might have re-added deltas before noticing the close, write them too
+            closeFuture = Futures.transform(Futures.successfulAsList(flushes), new AsyncFunction<List<Void>, Void>() {
+                @Override
+                public ListenableFuture<Void> apply(List<Void> input) {
+                    return flush();
+                }
+            });
+        }
+        closeFuture.addListener(new Runnable() {
+            @Override
+            public void run() {
+                scheduler.shutdown();
+                if (registry != null)
+                    registry.removeMatching(new MetricFilter() {
+                        @Override
+                        public boolean matches(String name, Metric metric) {
+                            return name.startsWith(metricPrefix + ".");
+                        }
+                    });
+            }
+        }, MoreExecutors.sameThreadExecutor());
+        return closeFuture;
+    }
+
+    /**
+     * Stops the periodic flushes and writes all pending deltas, waiting until they are written.
+     *
+     * @see #closeAsync()
+     */
+    @Override
+    public void close() {
+        // the future never fails, individual failures are logged
+        Futures.getUnchecked(closeAsync());
+    }
+
+    /**
+     * The updates of a flush, executed with a bounded number of concurrent requests.
+     */
+    private class Flush {
+        private final Queue<Integer> toLaunch = new ConcurrentLinkedQueue<Integer>();
+        private final List<CounterKey> keys;
+        private final List<Long> deltas;
+        private final AtomicInteger remaining;
+        // Launches requested but not performed yet; only the thread that increments it from 0 launches
+        private final AtomicInteger launchRequests = new AtomicInteger();
+        private final Timer.Context timer = flushLatency.time();
+        final SettableFuture<Void> result = SettableFuture.create();
+
+        Flush(List<CounterKey> keys, List<Long> deltas) {
+            this.keys = keys;
+            this.deltas = deltas;
+            this.remaining = new AtomicInteger(keys.size());
+            for (int i = 0; i < keys.size(); i++)
+                toLaunch.add(i);
+        }
+
+        void start() {
+            for (int i = 0; i < Math.min(maxConcurrentRequests, keys.size()); i++)
+                requestLaunch();
+        }
+
+        /**
+         * Launches the next update, unless another call is already launching on this or another thread, in which
+         * case it will do it. Requests completed synchronously (for example if the session is closed) would
+         * otherwise recurse once per key.
+         */
+        private void requestLaunch() {
+            if (launchRequests.getAndIncrement() > 0)
+                return;
+            do {
+                launchNext();
+            } while (launchRequests.decrementAndGet() > 0);
+        }
+
+        private void launchNext() {
+            Integer next = toLaunch.poll();
+            if (next == null)
+                return;
+            final CounterKey key = keys.get(next);
+            final long delta = deltas.get(next);
+            ListenableFuture<ResultSet> future;
+            try {
+                future = session.executeAsync(key.bind(delta));
+            } catch (Exception e) {
+                future = Futures.immediateFailedFuture(e);
+            }
+            Futures.addCallback(future, new FutureCallback<ResultSet>() {
+                @Override
+                public void onSuccess(ResultSet rs) {
+                    done();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    if (!closed && (t instanceof NoHostAvailableException || t instanceof UnavailableException)) {
+                        // not applied, it's safe to try again later
+                        add(key, delta);
+                    } else {
+                        failedDeltas.inc();
+                        logger.warn(String.format("Could not write counter delta %d for %s", delta, key), t);
+                    }
+                    done();
+                }
+            }, MoreExecutors.sameThreadExecutor());
+        }
+
+        private void done() {
+            if (remaining.decrementAndGet() == 0) {
+                timer.stop();
+                result.set(null);
+            } else {
+                requestLaunch();
+            }
+        }
+    }
+
+    private static class CounterKey {
+        private final PreparedStatement statement;
+        private final Object[] keyValues;
+        private final int hashCode;
+
+        CounterKey(PreparedStatement statement, Object[] keyValues) {
+            this.statement = statement;
+            // the caller might reuse the varargs array
+            this.keyValues = keyValues.clone();
+            this.hashCode = 31 * System.identityHashCode(statement) + Arrays.hashCode(this.keyValues);
+        }
+
+        BoundStatement bind(long delta) {
+            Object[] values = new Object[keyValues.length + 1];
+            values[0] = delta;
+            System.arraycopy(keyValues, 0, values, 1, keyValues.length);
+            return statement.bind(values);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            if (other == this)
+                return true;
+            if (!(other instanceof CounterKey))
+                return false;
+            CounterKey that = (CounterKey) other;
+            return this.statement == that.statement && Arrays.equals(this.keyValues, that.keyValues);
+        }
+
+        @Override
+        public int hashCode() {
+            return hashCode;
+        }
+
+        @Override
+        public String toString() {
+            return statement.getQueryString() + " " + Arrays.toString(keyValues);
+        }
+    }
+
+    /**
+     * Helper class to build {@link CounterAggregator} instances.
+     */
+    public static class Builder {
+
+        /**
+         * The default flush interval: one second.
+         */
+        public static final long DEFAULT_FLUSH_INTERVAL_MILLIS = 1000;
+
+        /**
+         * The default number of pending counters that triggers a flush: 10000.
+         */
+        public static final int DEFAULT_MAX_PENDING_COUNTERS = 10000;
+
+        /**
+         * The default maximum number of concurrent requests of a flush: 32.
+         */
+        public static final int DEFAULT_MAX_CONCURRENT_REQUESTS = 32;
+
+        private final Session session;
+        private String name = "default";
+        private long flushIntervalMillis = DEFAULT_FLUSH_INTERVAL_MILLIS;
+        private int maxPendingCounters = DEFAULT_MAX_PENDING_COUNTERS;
+        private int maxConcurrentRequests = DEFAULT_MAX_CONCURRENT_REQUESTS;
+
+        private Builder(Session session) {
+            this.session = checkNotNull(session);
+        }
+
+        /**
+         * Sets the name of the aggregator, used to name its metrics and thread.
+         * <p/>
+         * It should be unique among the aggregators of a cluster. The default is {@code "default"}.
+         *
+         * @param name the name.
+         * @return this builder.
+         */
+        public Builder withName(String name) {
+            this.name = checkNotNull(name);
+            return this;
+        }
+
+        /**
+         * Sets the interval between two periodic flushes.
+         * <p/>
+         * This bounds how long a delta can stay on the client. The default is
+         * {@link #DEFAULT_FLUSH_INTERVAL_MILLIS}.
+         *
+         * @param interval the interval; must be strictly positive.
+         * @param unit     the unit of {@code interval}.
+         * @return this builder.
+         * @throws IllegalArgumentException if {@code interval <= 0}.
+         */
+        public Builder withFlushInterval(long interval, TimeUnit unit) {
+            checkArgument(interval > 0, "Flush interval must be strictly positive, got %s", interval);
+            this.flushIntervalMillis = unit.toMillis(interval);
+            return this;
+        }
+
+        /**
+         * Sets the number of pending counters that triggers a flush before the end of the flush interval.
+         * <p/>
+         * This bounds the memory used by the aggregator. The default is {@link #DEFAULT_MAX_PENDING_COUNTERS}.
+         *
+         * @param maxPendingCounters the number of pending counters; must be strictly positive.
+         * @return this builder.
+         * @throws IllegalArgumentException if {@code maxPendingCounters <= 0}.
+         */
+        public Builder withMaxPendingCounters(int maxPendingCounters) {
+            checkArgument(maxPendingCounters > 0, "Max pending counters must be strictly positive, got %s", maxPendingCounters);
+            this.maxPendingCounters = maxPendingCounters;
+            return this;
+        }
+
+        /**
+         * Sets the maximum number of concurrent requests of a flush.
+         * <p/>
+         * The default is {@link #DEFAULT_MAX_CONCURRENT_REQUESTS}.
+         *
+         * @param maxConcurrentRequests the number of requests; must be strictly positive.
+         * @return this builder.
+         * @throws IllegalArgumentException if {@code maxConcurrentRequests <= 0}.
+         */
+        public Builder withMaxConcurrentRequests(int maxConcurrentRequests) {
+            checkArgument(maxConcurrentRequests > 0, "Max concurrent requests must be strictly positive, got %s", maxConcurrentRequests);
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * Builds the aggregator, and starts its periodic flushes.
+         *
+         * @return the aggregator.
+         */
+        public CounterAggregator build() {
+            return new CounterAggregator(this);
+        }
+    }
+}
@@ -0,0 +1,434 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.export;
+
+import com.datastax.driver.core.*;
+import com.google.common.util.concurrent.Uninterruptibles;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.Charset;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes the rows of a {@link ResultSet} to an {@link OutputStream} or a {@link WritableByteChannel}, as
+ * <a href="http://jsonlines.org/">JSON lines</a> or <a href="https://tools.ietf.org/html/rfc4180">CSV</a>.
+ * <p/>
+ * Cells of the most common types (textual types, integers, booleans, floating-point numbers, timestamps, UUIDs and
+ * blobs) are formatted straight from their serialized form, without creating intermediate Java objects; text values
+ * are copied as UTF-8 bytes. Other types are deserialized with the {@link CodecRegistry} provided at construction:
+ * {@code decimal}, {@code varint} and {@code time} are written as numbers, {@code inet} and {@code date} as strings,
+ * and any other type (collections, tuples, UDTs...) as a string containing its CQL literal.
+ * Timestamps are written as the number of milliseconds since the Epoch.
+ * <p/>
+ * The result set is iterated across pages; the next page is fetched in the background once the current one is almost
+ * consumed, but never more than one page ahead. Since writing blocks when the output does not keep up (for a
+ * non-blocking channel, this writer waits until it accepts more bytes), rows are never read from Cassandra faster
+ * than they can be written.
+ * <p/>
+ * Instances of this class are immutable and thread-safe; a given result set should only be written once.
+ */
+public class ResultSetWriter {
+
+    /**
+     * The output formats supported by {@link ResultSetWriter}.
+     */
+    public enum Format {
+        /**
+         * One JSON object per row, mapping column names to values, followed by a new line.
+         */
+        JSON_LINES,
+        /**
+         * Comma-separated values, with CRLF line endings.
+         */
+        CSV
+    }
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+    private static final byte[] HEX = "0123456789abcdef".getBytes(UTF_8);
+    private static final byte[] NULL = "null".getBytes(UTF_8);
+    private static final byte[] TRUE = "true".getBytes(UTF_8);
+    private static final byte[] FALSE = "false".getBytes(UTF_8);
+
+    private static final int BUFFER_SIZE = 8192;
+    // fetch the next page when fewer rows are left in the current one
+    private static final int PREFETCH_THRESHOLD = 100;
+
+    private final Format format;
+    private final CodecRegistry codecRegistry;
+    private final boolean csvHeader;
+
+    /**
+     * Creates a new instance that uses the {@link CodecRegistry#DEFAULT_INSTANCE default codec registry} and, for
+     * CSV, writes a header line with the column names.
+     *
+     * @param format the output format.
+     */
+    public ResultSetWriter(Format format) {
+        this(format, CodecRegistry.DEFAULT_INSTANCE, true);
+    }
+
+    /**
+     * Creates a new instance.
+     *
+     * @param format        the output format.
+     * @param codecRegistry the registry used to deserialize the cells that are not formatted from their serialized
+     *                      form.
+     * @param csvHeader     whether to write a header line with the column names, when {@code format} is
+     *                      {@link Format#CSV}.
+     */
+    public ResultSetWriter(Format format, CodecRegistry codecRegistry, boolean csvHeader) {
+        this.format = format;
+        this.codecRegistry = codecRegistry;
+        this.csvHeader = csvHeader;
+    }
+
+    /**
+     * Writes all the remaining rows of a result set to a stream.
+     * <p/>
+     * The stream is flushed, but not closed, when this method returns.
+     *
+     * @param resultSet the result set.
+     * @param out       the stream.
+     * @return the number of rows written.
+     * @throws IOException if the stream throws it.
+     */
+    public long write(ResultSet resultSet, final OutputStream out) throws IOException {
+        long rows = write(resultSet, new Output() {
+            @Override
+            void flush(byte[] bytes, int length) throws IOException {
+                out.write(bytes, 0, length);
+            }
+        });
+        out.flush();
+        return rows;
+    }
+
+    /**
+     * Writes all the remaining rows of a result set to a channel.
+     * <p/>
+     * The channel is not closed when this method returns.
+     *
+     * @param resultSet the result set.
+     * @param channel   the channel.
+     * @return the number of rows written.
+     * @throws IOException if the channel throws it.
+     */
+    public long write(ResultSet resultSet, final WritableByteChannel channel) throws IOException {
+        return write(resultSet, new Output() {
+            @Override
+            void flush(byte[] bytes, int length) throws IOException {
+                ByteBuffer buffer = ByteBuffer.wrap(bytes, 0, length);
+                while (buffer.hasRemaining()) {
+                    if (channel.write(buffer) == 0)
+                        Uninterruptibles.sleepUninterruptibly(1, TimeUnit.MILLISECONDS);
+                }
+            }
+        });
+    }
+
+    private long write(ResultSet resultSet, Output output) throws IOException {
+        ColumnDefinitions definitions = resultSet.getColumnDefinitions();
+        int size = definitions.size();
+        DataType[] types = new DataType[size];
+        byte[][] names = new byte[size][];
+        for (int i = 0; i < size; i++) {
+            types[i] = definitions.getType(i);
+            names[i] = definitions.getName(i).getBytes(UTF_8);
+        }
+
+        if (format == Format.CSV && csvHeader) {
+            for (int i = 0; i < size; i++) {
+                if (i > 0)
+                    output.write((byte) ',');
+                output.writeCsvString(ByteBuffer.wrap(names[i]));
+            }
+            output.writeCrLf();
+        }
+
+        long rows = 0;
+        for (Row row : resultSet) {
+            if (resultSet.getAvailableWithoutFetching() <= PREFETCH_THRESHOLD && !resultSet.isFullyFetched())
+                resultSet.fetchMoreResults();
+
+            if (format == Format.JSON_LINES)
+                output.write((byte) '{');
+            for (int i = 0; i < size; i++) {
+                if (format == Format.JSON_LINES) {
+                    if (i > 0)
+                        output.write((byte) ',');
+                    output.writeJsonString(ByteBuffer.wrap(names[i]));
+                    output.write((byte) ':');
+                } else if (i > 0) {
+                    output.write((byte) ',');
+                }
+                writeCell(row, i, types[i], output);
+            }
+            if (format == Format.JSON_LINES) {
+                output.write((byte) '}');
+                output.write((byte) '\n');
+            } else {
+                output.writeCrLf();
+            }
+            rows += 1;
+        }
+        output.flush();
+        return rows;
+    }
+
+    private void writeCell(Row row, int i, DataType type, Output output) throws IOException {
+        ByteBuffer bytes = row.getBytesUnsafe(i);
+        // Cassandra also accepts empty values for types that have no empty representation, treat them as null
+        if (bytes == null || (bytes.remaining() == 0 && !hasEmptyValue(type))) {
+            writeNull(output);
+            return;
+        }
+        int start = bytes.position();
+        switch (type.getName()) {
+            case ASCII:
+            case TEXT:
+            case VARCHAR:
+                writeString(bytes, output);
+                break;
+            case INT:
+                output.writeLong(bytes.getInt(start));
+                break;
+            case BIGINT:
+            case COUNTER:
+            case TIMESTAMP:
+                output.writeLong(bytes.getLong(start));
+                break;
+            case SMALLINT:
+                output.writeLong(bytes.getShort(start));
+                break;
+            case TINYINT:
+                output.writeLong(bytes.get(start));
+                break;
+            case BOOLEAN:
+                output.write(bytes.get(start) != 0 ? TRUE : FALSE);
+                break;
+            case FLOAT:
+                writeFloatingPoint(bytes.getFloat(start), output);
+                break;
+            case DOUBLE:
+                writeFloatingPoint(bytes.getDouble(start), output);
+                break;
+            case UUID:
+            case TIMEUUID:
+                if (format == Format.JSON_LINES)
+                    output.write((byte) '"');
+                for (int b = 0; b < 16; b++) {
+                    if (b == 4 || b == 6 || b == 8 || b == 10)
+                        output.write((byte) '-');
+                    output.writeHex(bytes.get(start + b));
+                }
+                if (format == Format.JSON_LINES)
+                    output.write((byte) '"');
+                break;
+            case BLOB:
+                if (format == Format.JSON_LINES)
+                    output.write((byte) '"');
+                output.write((byte) '0');
+                output.write((byte) 'x');
+                for (int b = start; b < bytes.limit(); b++)
+                    output.writeHex(bytes.get(b));
+                if (format == Format.JSON_LINES)
+                    output.write((byte) '"');
+                break;
+            default:
+                writeDeserialized(row, i, type, output);
+        }
+    }
+
+    private void writeDeserialized(Row row, int i, DataType type, Output output) throws IOException {
+        TypeCodec<Object> codec = codecRegistry.codecFor(type);
+        Object value = row.get(i, codec);
+        if (value == null) {
+            writeNull(output);
+            return;
+        }
+        switch (type.getName()) {
+            case DECIMAL:
+            case VARINT:
+            case TIME:
+                output.write(value.toString().getBytes(UTF_8));
+                break;
+            case INET:
+                writeString(ByteBuffer.wrap(((InetAddress) value).getHostAddress().getBytes(UTF_8)), output);
+                break;
+            case DATE:
+                writeString(ByteBuffer.wrap(value.toString().getBytes(UTF_8)), output);
+                break;
+            default:
+                writeString(ByteBuffer.wrap(codec.format(value).getBytes(UTF_8)), output);
+        }
+    }
+
+    private static boolean hasEmptyValue(DataType type) {
+        switch (type.getName()) {
+            case ASCII:
+            case TEXT:
+            case VARCHAR:
+            case BLOB:
+                return true;
+            default:
+                return false;
+        }
+    }
+
+    private void writeNull(Output output) throws IOException {
+        if (format == Format.JSON_LINES)
+            output.write(NULL);
+    }
+
+    private void writeString(ByteBuffer utf8, Output output) throws IOException {
+        if (format == Format.JSON_LINES)
+            output.writeJsonString(utf8);
+        else
+            output.writeCsvString(utf8);
+    }
+
+    private void writeFloatingPoint(double value, Output output) throws IOException {
+        // JSON has no representation for NaN and infinities
+        if (format == Format.JSON_LINES && (Double.isNaN(value) || Double.isInfinite(value)))
+            output.write(NULL);
+        else
+            output.write(Double.toString(value).getBytes(UTF_8));
+    }
+
+    private void writeFloatingPoint(float value, Output output) throws IOException {
+        if (format == Format.JSON_LINES && (Float.isNaN(value) || Float.isInfinite(value)))
+            output.write(NULL);
+        else
+            output.write(Float.toString(value).getBytes(UTF_8));
+    }
+
+    /**
+     * Accumulates bytes in a buffer, and flushes it to the actual output when it is full.
+     */
+    private static abstract class Output {
+        private final byte[] buffer = new byte[BUFFER_SIZE];
+        private final byte[] digits = new byte[20];
+        private int position;
+
+        abstract void flush(byte[] bytes, int length) throws IOException;
+
+        void flush() throws IOException {
+            if (position > 0) {
+                flush(buffer, position);
+                position = 0;
+            }
+        }
+
+        void write(byte b) throws IOException {
+            if (position == buffer.length)
+                flush();
+            buffer[position++] = b;
+        }
+
+        void write(byte[] bytes) throws IOException {
+            for (byte b : bytes)
+                write(b);
+        }
+
+        void writeCrLf() throws IOException {
+            write((byte) '\r');
+            write((byte) '\n');
+        }
+
+        void writeHex(byte b) throws IOException {
+            write(HEX[(b >> 4) & 0xF]);
+            write(HEX[b & 0xF]);
+        }
+
+        void writeLong(long value) throws IOException {
+            if (value == Long.MIN_VALUE) {
+                write(Long.toString(value).getBytes(UTF_8));
+                return;
+            }
+            if (value < 0) {
+                write((byte) '-');
+                value = -value;
+            }
+            int i = digits.length;
+            do {
+                digits[--i] = (byte) ('0' + value % 10);
+                value /= 10;
+            } while (value > 0);
+            while (i < digits.length)
+                write(digits[i++]);
+        }
+
+        // Multi-byte UTF-8 sequences never contain bytes below 0x80, so they can be copied as is
+        void writeJsonString(ByteBuffer utf8) throws IOException {
+            write((byte) '"');
+            for (int i = utf8.position(); i < utf8.limit(); i++) {
+                byte b = utf8.get(i);
+                switch (b) {
+                    case '"':
+                    case '\\':
+                        write((byte) '\\');
+                        write(b);
+                        break;
+                    case '\n':
+                        write((byte) '\\');
+                        write((byte) 'n');
+                        break;
+                    case '\r':
+                        write((byte) '\\');
+                        write((byte) 'r');
+                        break;
+                    case '\t':
+                        write((byte) '\\');
+                        write((byte) 't');
+                        break;
+                    default:
+                        if (b >= 0 && b < 0x20) {
+                            write((byte) '\\');
+                            write((byte) 'u');
+                            write((byte) '0');
+                            write((byte) '0');
+                            writeHex(b);
+                        } else {
+                            write(b);
+                        }
+                }
+            }
+            write((byte) '"');
+        }
+
+        void writeCsvString(ByteBuffer utf8) throws IOException {
+            boolean quote = false;
+            for (int i = utf8.position(); i < utf8.limit() && !quote; i++) {
+                byte b = utf8.get(i);
+                quote = b == ',' || b == '"' || b == '\r' || b == '\n';
+            }
+            if (quote)
+                write((byte) '"');
+            for (int i = utf8.position(); i < utf8.limit(); i++) {
+                byte b = utf8.get(i);
+                if (b == '"')
+                    write((byte) '"');
+                write(b);
+            }
+            if (quote)
+                write((byte) '"');
+        }
+    }
+}
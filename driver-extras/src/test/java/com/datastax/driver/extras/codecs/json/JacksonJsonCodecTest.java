@@ -24,6 +24,7 @@ import com.google.common.base.Objects;
 import com.google.common.collect.Lists;
 import org.testng.annotations.Test;
 
+import java.nio.ByteBuffer;
 import java.util.ArrayList;
 
 import static com.datastax.driver.core.querybuilder.QueryBuilder.*;
@@ -80,6 +81,30 @@ public class JacksonJsonCodecTest extends CCMTestsSupport {
         assertThat(codec.parse(null)).isNull();
     }
 
+    @Test(groups = "unit")
+    public void should_serialize_and_deserialize_raw_bytes() {
+        JacksonJsonCodec<User> codec = new JacksonJsonCodec<User>(User.class);
+        User user = new User(1, "Zoë");
+        ByteBuffer bytes = codec.serialize(user, ProtocolVersion.V4);
+        assertThat(bytes).isEqualTo(TypeCodec.varchar().serialize("{\"id\":1,\"name\":\"Zoë\"}", ProtocolVersion.V4));
+        assertThat(codec.deserialize(bytes, ProtocolVersion.V4)).isEqualTo(user);
+        // buffers are reused between calls
+        assertThat(codec.serialize(new User(2, "Bob"), ProtocolVersion.V4))
+                .isEqualTo(TypeCodec.varchar().serialize("{\"id\":2,\"name\":\"Bob\"}", ProtocolVersion.V4));
+        // slices and direct buffers
+        ByteBuffer slice = ByteBuffer.allocate(bytes.remaining() + 2);
+        slice.position(1);
+        slice.put(bytes.duplicate());
+        slice.position(1);
+        slice.limit(slice.capacity() - 1);
+        assertThat(codec.deserialize(slice, ProtocolVersion.V4)).isEqualTo(user);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.remaining());
+        direct.put(bytes.duplicate());
+        direct.flip();
+        assertThat(codec.deserialize(direct, ProtocolVersion.V4)).isEqualTo(user);
+        assertThat(direct.position()).isEqualTo(0);
+    }
+
     @Test(groups = "short")
     @CassandraVersion(major = 2.0)
     public void should_use_custom_codec_with_simple_statements() {
@@ -0,0 +1,123 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.lazy;
+
+import com.datastax.driver.core.DataType;
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Lists;
+import com.google.common.collect.Sets;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+
+import static com.datastax.driver.core.ProtocolVersion.V2;
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.testng.Assert.fail;
+
+public class LazyCodecsTest {
+
+    @Test(groups = "unit")
+    public void should_decode_list_elements_on_demand() {
+        for (ProtocolVersion version : new ProtocolVersion[]{V2, V4}) {
+            List<String> expected = Lists.newArrayList("a", "bb", "ccc");
+            ByteBuffer bytes = TypeCodec.list(TypeCodec.varchar()).serialize(expected, version);
+            LazyListCodec<String> codec = new LazyListCodec<String>(TypeCodec.varchar());
+
+            List<String> view = codec.deserialize(bytes, version);
+
+            assertThat(view).hasSize(3).containsExactlyElementsOf(expected);
+            assertThat(view.get(2)).isEqualTo("ccc");
+            assertThat(view.get(0)).isEqualTo("a");
+            assertThat(codec.serialize(view, version)).isEqualTo(bytes);
+            assertThat(codec.format(view)).isEqualTo("['a','bb','ccc']");
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_not_allow_modifications_of_views() {
+        LazyListCodec<Integer> codec = new LazyListCodec<Integer>(TypeCodec.cint());
+        List<Integer> view = codec.deserialize(TypeCodec.list(TypeCodec.cint()).serialize(Lists.newArrayList(1), V4), V4);
+        Iterator<Integer> iterator = view.iterator();
+        iterator.next();
+        try {
+            iterator.remove();
+            fail("Expected an UnsupportedOperationException");
+        } catch (UnsupportedOperationException e) {
+            // expected
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_map_entries_on_demand() {
+        Map<String, Integer> expected = ImmutableMap.of("a", 1, "b", 2);
+        ByteBuffer bytes = TypeCodec.map(TypeCodec.varchar(), TypeCodec.cint()).serialize(expected, V4);
+        LazyMapCodec<String, Integer> codec = new LazyMapCodec<String, Integer>(TypeCodec.varchar(), TypeCodec.cint());
+
+        Map<String, Integer> view = codec.deserialize(bytes, V4);
+
+        assertThat(view).hasSize(2).containsExactly(entry("a", 1), entry("b", 2));
+        assertThat(view.get("b")).isEqualTo(2);
+        assertThat(view).isEqualTo(expected);
+        assertThat(codec.deserialize(null, V4)).isEmpty();
+    }
+
+    @Test(groups = "unit")
+    public void should_read_numeric_elements_as_primitives() {
+        for (ProtocolVersion version : new ProtocolVersion[]{V2, V4}) {
+            ByteBuffer bytes = TypeCodec.list(TypeCodec.cint()).serialize(Lists.newArrayList(1, -2, 3), version);
+            NumericListViewCodec codec = new NumericListViewCodec(DataType.list(DataType.cint()));
+
+            NumericListView view = codec.deserialize(bytes, version);
+
+            assertThat(view.size()).isEqualTo(3);
+            assertThat(view.getInt(1)).isEqualTo(-2);
+            assertThat(view.getLong(2)).isEqualTo(3L);
+            assertThat(view.getDouble(0)).isEqualTo(1.0);
+            assertThat(codec.format(view)).isEqualTo("[1,-2,3]");
+            assertThat(codec.serialize(view, version)).isEqualTo(bytes);
+            // re-encode for another protocol version
+            ProtocolVersion other = version == V2 ? V4 : V2;
+            assertThat(codec.serialize(view, other))
+                    .isEqualTo(TypeCodec.list(TypeCodec.cint()).serialize(Lists.newArrayList(1, -2, 3), other));
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_parse_numeric_sets() {
+        NumericListViewCodec codec = new NumericListViewCodec(DataType.set(DataType.cdouble()));
+
+        NumericListView view = codec.parse("{1.5,2.5}");
+
+        assertThat(view.getDouble(0)).isEqualTo(1.5);
+        assertThat(view.getDouble(1)).isEqualTo(2.5);
+        assertThat(codec.format(view)).isEqualTo("{1.5,2.5}");
+        assertThat(TypeCodec.set(TypeCodec.cdouble()).deserialize(codec.serialize(view, V4), V4))
+                .isEqualTo(Sets.newHashSet(1.5, 2.5));
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalStateException.class)
+    public void should_not_read_doubles_as_longs() {
+        NumericListViewCodec codec = new NumericListViewCodec(DataType.list(DataType.cdouble()));
+        codec.parse("[1.5]").getLong(0);
+    }
+}
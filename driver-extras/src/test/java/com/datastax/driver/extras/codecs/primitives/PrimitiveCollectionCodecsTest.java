@@ -0,0 +1,136 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.primitives;
+
+import com.datastax.driver.core.ProtocolVersion;
+import com.datastax.driver.core.TypeCodec;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.Sets;
+import org.testng.annotations.DataProvider;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+import static com.datastax.driver.core.ProtocolVersion.V2;
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class PrimitiveCollectionCodecsTest {
+
+    @DataProvider(name = "PrimitiveCollectionCodecsTest.versions")
+    public static Object[][] versions() {
+        return new Object[][]{{V2}, {V4}};
+    }
+
+    @Test(groups = "unit", dataProvider = "PrimitiveCollectionCodecsTest.versions")
+    public void should_serialize_and_deserialize_int_sets(ProtocolVersion version) {
+        Set<Integer> expected = new HashSet<Integer>();
+        IntHashSet set = new IntHashSet();
+        for (int i = -500; i < 500; i += 3) {
+            expected.add(i);
+            set.add(i);
+        }
+        set.add(0);
+        expected.add(0);
+
+        ByteBuffer bytes = IntSetCodec.instance.serialize(set, version);
+
+        assertThat(TypeCodec.set(TypeCodec.cint()).deserialize(bytes, version)).isEqualTo(expected);
+        IntHashSet decoded = IntSetCodec.instance.deserialize(
+                TypeCodec.set(TypeCodec.cint()).serialize(expected, version), version);
+        assertThat(decoded).isEqualTo(set);
+        assertThat(decoded.size()).isEqualTo(expected.size());
+        assertThat(decoded.contains(-500)).isTrue();
+        assertThat(decoded.contains(-499)).isFalse();
+    }
+
+    @Test(groups = "unit", dataProvider = "PrimitiveCollectionCodecsTest.versions")
+    public void should_serialize_and_deserialize_long_sets(ProtocolVersion version) {
+        Set<Long> expected = Sets.newHashSet(Long.MIN_VALUE, -1L, 0L, 42L, Long.MAX_VALUE);
+        LongHashSet set = LongSetCodec.instance.deserialize(TypeCodec.set(TypeCodec.bigint()).serialize(expected, version), version);
+
+        assertThat(set.size()).isEqualTo(5);
+        assertThat(set.contains(Long.MIN_VALUE)).isTrue();
+        assertThat(TypeCodec.set(TypeCodec.bigint()).deserialize(LongSetCodec.instance.serialize(set, version), version))
+                .isEqualTo(expected);
+    }
+
+    @Test(groups = "unit", dataProvider = "PrimitiveCollectionCodecsTest.versions")
+    public void should_serialize_and_deserialize_int_double_maps(ProtocolVersion version) {
+        Map<Integer, Double> expected = ImmutableMap.of(1, 1.5, 2, -2.5, 0, 0.0);
+        TypeCodec<Map<Integer, Double>> defaultCodec = TypeCodec.map(TypeCodec.cint(), TypeCodec.cdouble());
+
+        IntDoubleHashMap map = IntDoubleMapCodec.instance.deserialize(defaultCodec.serialize(expected, version), version);
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get(2, Double.NaN)).isEqualTo(-2.5);
+        assertThat(map.get(3, Double.NaN)).isNaN();
+        assertThat(defaultCodec.deserialize(IntDoubleMapCodec.instance.serialize(map, version), version)).isEqualTo(expected);
+    }
+
+    @Test(groups = "unit", dataProvider = "PrimitiveCollectionCodecsTest.versions")
+    public void should_serialize_and_deserialize_string_long_maps(ProtocolVersion version) {
+        Map<String, Long> expected = ImmutableMap.of("a", 1L, "Zoë", -2L, "", 3L);
+        TypeCodec<Map<String, Long>> defaultCodec = TypeCodec.map(TypeCodec.varchar(), TypeCodec.bigint());
+        ByteBuffer bytes = defaultCodec.serialize(expected, version);
+        ByteBuffer direct = ByteBuffer.allocateDirect(bytes.remaining());
+        direct.put(bytes.duplicate());
+        direct.flip();
+
+        StringLongHashMap map = StringLongMapCodec.instance.deserialize(bytes, version);
+
+        assertThat(map.size()).isEqualTo(3);
+        assertThat(map.get("Zoë", 0)).isEqualTo(-2L);
+        assertThat(StringLongMapCodec.instance.deserialize(direct, version)).isEqualTo(map);
+        assertThat(defaultCodec.deserialize(StringLongMapCodec.instance.serialize(map, version), version)).isEqualTo(expected);
+    }
+
+    @Test(groups = "unit")
+    public void should_format_and_parse() {
+        IntHashSet set = IntSetCodec.instance.parse("{1,2,3}");
+        assertThat(set.toString()).isEqualTo("[1, 2, 3]");
+        assertThat(IntSetCodec.instance.parse(IntSetCodec.instance.format(set))).isEqualTo(set);
+
+        StringLongHashMap map = StringLongMapCodec.instance.parse("{'a':1,'it''s':2}");
+        assertThat(map.get("it's", 0)).isEqualTo(2L);
+        assertThat(StringLongMapCodec.instance.parse(StringLongMapCodec.instance.format(map))).isEqualTo(map);
+
+        IntDoubleHashMap doubles = IntDoubleMapCodec.instance.parse("{1:1.5}");
+        assertThat(IntDoubleMapCodec.instance.format(doubles)).isEqualTo("{1:1.5}");
+        assertThat(IntSetCodec.instance.parse("NULL")).isNull();
+        assertThat(IntSetCodec.instance.format(null)).isEqualTo("NULL");
+    }
+
+    @Test(groups = "unit")
+    public void should_grow_past_initial_capacity() {
+        LongHashSet set = new LongHashSet(1);
+        StringLongHashMap map = new StringLongHashMap(1);
+        for (long i = 0; i < 10000; i++) {
+            assertThat(set.add(i * 31)).isTrue();
+            map.put(Long.toString(i), i);
+        }
+        assertThat(set.add(31)).isFalse();
+        assertThat(set.size()).isEqualTo(10000);
+        assertThat(map.size()).isEqualTo(10000);
+        for (long i = 0; i < 10000; i++) {
+            assertThat(set.contains(i * 31)).isTrue();
+            assertThat(map.get(Long.toString(i), -1)).isEqualTo(i);
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.codecs.text;
+
+import com.datastax.driver.core.TypeCodec;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class DictionaryStringCodecTest {
+
+    @Test(groups = "unit")
+    public void should_return_same_instance_for_same_value() {
+        DictionaryStringCodec codec = new DictionaryStringCodec(16);
+
+        String first = codec.deserialize(serialize("ACTIVE"), V4);
+        String second = codec.deserialize(serialize("ACTIVE"), V4);
+
+        assertThat(first).isEqualTo("ACTIVE");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_non_ascii_values() {
+        DictionaryStringCodec codec = new DictionaryStringCodec(16);
+
+        String first = codec.deserialize(serialize("Zürich"), V4);
+        String second = codec.deserialize(serialize("Zürich"), V4);
+
+        assertThat(first).isEqualTo("Zürich");
+        assertThat(second).isSameAs(first);
+    }
+
+    @Test(groups = "unit")
+    public void should_decode_slices_and_direct_buffers() {
+        DictionaryStringCodec codec = new DictionaryStringCodec(16);
+        ByteBuffer slice = ByteBuffer.wrap("xxFRANCEyy".getBytes());
+        slice.position(2);
+        slice.limit(8);
+        ByteBuffer direct = ByteBuffer.allocateDirect(6);
+        direct.put(serialize("FRANCE"));
+        direct.flip();
+
+        String first = codec.deserialize(slice, V4);
+        String second = codec.deserialize(direct, V4);
+
+        assertThat(first).isEqualTo("FRANCE");
+        assertThat(second).isSameAs(first);
+        // the input buffers are not consumed
+        assertThat(slice.position()).isEqualTo(2);
+        assertThat(direct.position()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_store_long_values() {
+        DictionaryStringCodec codec = new DictionaryStringCodec(TypeCodec.varchar(), 16, 4);
+
+        String first = codec.deserialize(serialize("too long"), V4);
+        String second = codec.deserialize(serialize("too long"), V4);
+
+        assertThat(second).isEqualTo(first);
+        assertThat(second).isNotSameAs(first);
+    }
+
+    @Test(groups = "unit")
+    public void should_stay_correct_when_values_collide() {
+        // a single slot: every value replaces the previous one
+        DictionaryStringCodec codec = new DictionaryStringCodec(1);
+
+        for (int i = 0; i < 10; i++) {
+            assertThat(codec.deserialize(serialize("a"), V4)).isEqualTo("a");
+            assertThat(codec.deserialize(serialize("b"), V4)).isEqualTo("b");
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_handle_null_and_empty_values() {
+        DictionaryStringCodec codec = new DictionaryStringCodec(16);
+
+        assertThat(codec.deserialize(null, V4)).isNull();
+        assertThat(codec.deserialize(ByteBuffer.allocate(0), V4)).isEmpty();
+        assertThat(codec.serialize(null, V4)).isNull();
+        assertThat(codec.format("foo")).isEqualTo("'foo'");
+        assertThat(codec.parse("'foo'")).isEqualTo("foo");
+    }
+
+    private static ByteBuffer serialize(String value) {
+        return TypeCodec.varchar().serialize(value, V4);
+    }
+}
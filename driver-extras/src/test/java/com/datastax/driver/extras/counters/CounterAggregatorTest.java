@@ -0,0 +1,248 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.counters;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.*;
+import com.datastax.driver.core.exceptions.NoHostAvailableException;
+import com.google.common.util.concurrent.AbstractFuture;
+import org.mockito.Matchers;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.net.InetSocketAddress;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.testng.Assert.fail;
+
+public class CounterAggregatorTest {
+
+    private Session session;
+    private PreparedStatement statement;
+    // the sum of the written deltas, by key
+    private ConcurrentMap<Object, AtomicLong> written;
+    private AtomicInteger failuresToSimulate;
+    private Map<Statement, Object[]> boundValues;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        written = new ConcurrentHashMap<Object, AtomicLong>();
+        failuresToSimulate = new AtomicInteger();
+        boundValues = Collections.synchronizedMap(new IdentityHashMap<Statement, Object[]>());
+
+        Cluster cluster = mock(Cluster.class);
+        session = mock(Session.class);
+        when(session.getCluster()).thenReturn(cluster);
+
+        statement = mock(PreparedStatement.class);
+        when(statement.bind(Matchers.<Object>anyVararg())).thenAnswer(new Answer<BoundStatement>() {
+            @Override
+            public BoundStatement answer(InvocationOnMock invocation) throws Throwable {
+                BoundStatement bs = mock(BoundStatement.class);
+                boundValues.put(bs, invocation.getArguments());
+                return bs;
+            }
+        });
+        when(session.executeAsync(any(Statement.class))).thenAnswer(new Answer<ResultSetFuture>() {
+            @Override
+            public ResultSetFuture answer(InvocationOnMock invocation) throws Throwable {
+                CompletedFuture future = new CompletedFuture();
+                if (failuresToSimulate.getAndDecrement() > 0) {
+                    future.setException(new NoHostAvailableException(Collections.<InetSocketAddress, Throwable>emptyMap()));
+                } else {
+                    Object[] values = boundValues.get(invocation.getArguments()[0]);
+                    AtomicLong sum = written.get(values[1]);
+                    if (sum == null) {
+                        AtomicLong previous = written.putIfAbsent(values[1], sum = new AtomicLong());
+                        if (previous != null)
+                            sum = previous;
+                    }
+                    sum.addAndGet((Long) values[0]);
+                    future.set(null);
+                }
+                return future;
+            }
+        });
+    }
+
+    @Test(groups = "unit")
+    public void should_merge_increments_of_the_same_counter() throws Exception {
+        CounterAggregator aggregator = newAggregator();
+        for (int i = 0; i < 1000; i++)
+            aggregator.increment(statement, 1, "a");
+        aggregator.increment(statement, 2, "b");
+        aggregator.increment(statement, -1, "b");
+        assertThat(aggregator.getPendingCounters()).isEqualTo(2);
+
+        aggregator.flush().get();
+
+        assertThat(written).hasSize(2);
+        assertThat(written.get("a").get()).isEqualTo(1000);
+        assertThat(written.get("b").get()).isEqualTo(1);
+        assertThat(aggregator.getPendingCounters()).isEqualTo(0);
+        aggregator.close();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_lose_concurrent_increments() throws InterruptedException {
+        final CounterAggregator aggregator = newAggregator();
+        int threads = 4;
+        final int incrementsPerThread = 20000;
+        final CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < incrementsPerThread; i++)
+                        aggregator.increment(statement, 1, "key" + (i % 3));
+                    done.countDown();
+                }
+            }.start();
+        }
+        while (done.getCount() > 0)
+            aggregator.flush();
+        aggregator.close();
+
+        long total = 0;
+        for (AtomicLong sum : written.values())
+            total += sum.get();
+        assertThat(total).isEqualTo(threads * incrementsPerThread);
+    }
+
+    @Test(groups = "unit")
+    public void should_keep_delta_if_update_was_not_applied() throws Exception {
+        CounterAggregator aggregator = newAggregator();
+        aggregator.increment(statement, 5, "a");
+        failuresToSimulate.set(1);
+
+        aggregator.flush().get();
+        assertThat(written).isEmpty();
+        assertThat(aggregator.getPendingCounters()).isEqualTo(1);
+
+        aggregator.flush().get();
+        assertThat(written.get("a").get()).isEqualTo(5);
+        aggregator.close();
+    }
+
+    @Test(groups = "unit")
+    public void should_flush_many_counters_completed_synchronously() throws Exception {
+        CounterAggregator aggregator = CounterAggregator.builder(session)
+                .withFlushInterval(1, TimeUnit.HOURS)
+                .withMaxPendingCounters(Integer.MAX_VALUE)
+                .withMaxConcurrentRequests(1)
+                .build();
+        // the futures returned by the session are already complete, so each update completes during its launch
+        for (int i = 0; i < 20000; i++)
+            aggregator.increment(statement, 1, i);
+
+        aggregator.flush().get();
+
+        assertThat(written).hasSize(20000);
+        aggregator.close();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_be_affected_by_changes_to_key_values_array() throws Exception {
+        CounterAggregator aggregator = newAggregator();
+        Object[] keyValues = new Object[]{"a"};
+        aggregator.increment(statement, 1, keyValues);
+        keyValues[0] = "b";
+        aggregator.increment(statement, 2, keyValues);
+
+        aggregator.flush().get();
+
+        assertThat(written.get("a").get()).isEqualTo(1);
+        assertThat(written.get("b").get()).isEqualTo(2);
+        aggregator.close();
+    }
+
+    @Test(groups = "unit")
+    public void should_flush_on_close_and_reject_increments_after() {
+        CounterAggregator aggregator = newAggregator();
+        aggregator.increment(statement, 3, "a");
+
+        aggregator.close();
+
+        assertThat(written.get("a").get()).isEqualTo(3);
+        try {
+            aggregator.increment(statement, 1, "a");
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+    }
+
+    @Test(groups = "unit")
+    public void should_count_unapplied_delta_as_failed_once_closed() {
+        MetricRegistry registry = new MetricRegistry();
+        Metrics metrics = mock(Metrics.class);
+        when(metrics.getRegistry()).thenReturn(registry);
+        when(session.getCluster().getMetrics()).thenReturn(metrics);
+        CounterAggregator aggregator = newAggregator();
+        Counter failedDeltas = registry.counter("counter-aggregator.default.failed-deltas");
+        aggregator.increment(statement, 3, "a");
+        failuresToSimulate.set(Integer.MAX_VALUE);
+
+        aggregator.close();
+
+        // the delta is not re-added, since nothing would write it
+        assertThat(written).isEmpty();
+        assertThat(aggregator.getPendingCounters()).isEqualTo(0);
+        assertThat(failedDeltas.getCount()).isEqualTo(1);
+    }
+
+    private CounterAggregator newAggregator() {
+        return CounterAggregator.builder(session)
+                .withFlushInterval(1, TimeUnit.HOURS)
+                .withMaxConcurrentRequests(2)
+                .build();
+    }
+
+    private static class CompletedFuture extends AbstractFuture<ResultSet> implements ResultSetFuture {
+        @Override
+        public boolean set(ResultSet value) {
+            return super.set(value);
+        }
+
+        @Override
+        public boolean setException(Throwable throwable) {
+            return super.setException(throwable);
+        }
+
+        @Override
+        public ResultSet getUninterruptibly() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public ResultSet getUninterruptibly(long timeout, TimeUnit unit) {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.extras.export;
+
+import com.datastax.driver.core.*;
+import com.google.common.collect.Lists;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.util.List;
+import java.util.UUID;
+
+import static com.datastax.driver.core.ProtocolVersion.V4;
+import static com.datastax.driver.extras.export.ResultSetWriter.Format.CSV;
+import static com.datastax.driver.extras.export.ResultSetWriter.Format.JSON_LINES;
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyInt;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+public class ResultSetWriterTest {
+
+    private static final UUID ID = UUID.fromString("f81d4fae-7dec-11d0-a765-00a0c91e6bf6");
+
+    private ResultSet resultSet;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        ColumnDefinitions definitions = mock(ColumnDefinitions.class);
+        when(definitions.size()).thenReturn(6);
+        String[] names = {"id", "name", "age", "score", "tags", "data"};
+        DataType[] types = {DataType.uuid(), DataType.text(), DataType.cint(), DataType.cdouble(),
+                DataType.list(DataType.text()), DataType.blob()};
+        for (int i = 0; i < names.length; i++) {
+            when(definitions.getName(i)).thenReturn(names[i]);
+            when(definitions.getType(i)).thenReturn(types[i]);
+        }
+
+        List<Row> rows = Lists.newArrayList(
+                row(TypeCodec.uuid().serialize(ID, V4),
+                        TypeCodec.varchar().serialize("Zoë \"Z\", the 1st", V4),
+                        TypeCodec.cint().serialize(-42, V4),
+                        TypeCodec.cdouble().serialize(1.5, V4),
+                        TypeCodec.list(TypeCodec.varchar()).serialize(Lists.newArrayList("a", "b"), V4),
+                        ByteBuffer.wrap(new byte[]{(byte) 0xCA, (byte) 0xFE})),
+                row(TypeCodec.uuid().serialize(ID, V4), null, null, null, null, null));
+
+        resultSet = mock(ResultSet.class);
+        when(resultSet.getColumnDefinitions()).thenReturn(definitions);
+        when(resultSet.iterator()).thenReturn(rows.iterator());
+        when(resultSet.isFullyFetched()).thenReturn(true);
+    }
+
+    @Test(groups = "unit")
+    public void should_write_json_lines() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = new ResultSetWriter(JSON_LINES).write(resultSet, out);
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString("UTF-8")).isEqualTo(
+                "{\"id\":\"f81d4fae-7dec-11d0-a765-00a0c91e6bf6\",\"name\":\"Zoë \\\"Z\\\", the 1st\",\"age\":-42,"
+                        + "\"score\":1.5,\"tags\":\"['a','b']\",\"data\":\"0xcafe\"}\n"
+                        + "{\"id\":\"f81d4fae-7dec-11d0-a765-00a0c91e6bf6\",\"name\":null,\"age\":null,"
+                        + "\"score\":null,\"tags\":null,\"data\":null}\n");
+    }
+
+    @Test(groups = "unit")
+    public void should_write_csv_to_channel() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        long count = new ResultSetWriter(CSV).write(resultSet, Channels.newChannel(out));
+
+        assertThat(count).isEqualTo(2);
+        assertThat(out.toString("UTF-8")).isEqualTo(
+                "id,name,age,score,tags,data\r\n"
+                        + "f81d4fae-7dec-11d0-a765-00a0c91e6bf6,\"Zoë \"\"Z\"\", the 1st\",-42,1.5,\"['a','b']\",0xcafe\r\n"
+                        + "f81d4fae-7dec-11d0-a765-00a0c91e6bf6,,,,,\r\n");
+    }
+
+    @Test(groups = "unit")
+    public void should_write_results_larger_than_buffer() throws Exception {
+        ColumnDefinitions definitions = mock(ColumnDefinitions.class);
+        when(definitions.size()).thenReturn(1);
+        when(definitions.getName(0)).thenReturn("v");
+        when(definitions.getType(0)).thenReturn(DataType.bigint());
+        List<Row> rows = Lists.newArrayList();
+        for (long i = 0; i < 10000; i++)
+            rows.add(row(TypeCodec.bigint().serialize(i * 1000000, V4)));
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getColumnDefinitions()).thenReturn(definitions);
+        when(resultSet.iterator()).thenReturn(rows.iterator());
+        when(resultSet.isFullyFetched()).thenReturn(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new ResultSetWriter(CSV, CodecRegistry.DEFAULT_INSTANCE, false).write(resultSet, out);
+
+        String[] lines = out.toString("UTF-8").split("\r\n");
+        assertThat(lines).hasSize(10000);
+        assertThat(lines[9999]).isEqualTo("9999000000");
+    }
+
+    @Test(groups = "unit")
+    public void should_write_empty_values() throws Exception {
+        ColumnDefinitions definitions = mock(ColumnDefinitions.class);
+        when(definitions.size()).thenReturn(6);
+        String[] names = {"i", "v", "d", "u", "t", "b"};
+        DataType[] types = {DataType.cint(), DataType.varint(), DataType.cdouble(), DataType.uuid(),
+                DataType.text(), DataType.blob()};
+        ByteBuffer[] values = new ByteBuffer[names.length];
+        for (int i = 0; i < names.length; i++) {
+            when(definitions.getName(i)).thenReturn(names[i]);
+            when(definitions.getType(i)).thenReturn(types[i]);
+            values[i] = ByteBuffer.allocate(0);
+        }
+        List<Row> rows = Lists.newArrayList(row(values));
+        ResultSet resultSet = mock(ResultSet.class);
+        when(resultSet.getColumnDefinitions()).thenReturn(definitions);
+        when(resultSet.iterator()).thenReturn(rows.iterator());
+        when(resultSet.isFullyFetched()).thenReturn(true);
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        new ResultSetWriter(JSON_LINES).write(resultSet, out);
+
+        // only strings and blobs have an empty representation
+        assertThat(out.toString("UTF-8")).isEqualTo(
+                "{\"i\":null,\"v\":null,\"d\":null,\"u\":null,\"t\":\"\",\"b\":\"0x\"}\n");
+    }
+
+    private static Row row(final ByteBuffer... values) {
+        Row row = mock(Row.class);
+        for (int i = 0; i < values.length; i++)
+            when(row.getBytesUnsafe(i)).thenReturn(values[i]);
+        when(row.get(anyInt(), any(TypeCodec.class))).thenAnswer(new Answer<Object>() {
+            @Override
+            public Object answer(InvocationOnMock invocation) throws Throwable {
+                int i = (Integer) invocation.getArguments()[0];
+                TypeCodec<?> codec = (TypeCodec<?>) invocation.getArguments()[1];
+                return codec.deserialize(values[i], V4);
+            }
+        });
+        return row;
+    }
+}
@@ -38,6 +38,17 @@ class AccessorMapper<T> {
         this.handler = new AccessorInvocationHandler<T>(this);
     }
 
+    /**
+     * Returns the implementation generated by the annotation processor if there is one, otherwise a dynamic proxy.
+     */
+    T createInstance() {
+        GeneratedAccessor generated = ReflectionUtils.newGeneratedInstance(daoClass, GeneratedAccessor.SUFFIX, GeneratedAccessor.class);
+        if (generated == null)
+            return createProxy();
+        generated.bind(this);
+        return daoClass.cast(generated);
+    }
+
     @SuppressWarnings("unchecked")
     T createProxy() {
         try {
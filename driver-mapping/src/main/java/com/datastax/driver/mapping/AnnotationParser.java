@@ -95,7 +95,8 @@ class AnnotationParser {
             ksName = Metadata.quote(loggedKeyspace);
         }
 
-        EntityMapper<T> mapper = new EntityMapper<T>(entityClass, ksName, tableName, writeConsistency, readConsistency);
+        GeneratedEntityHelper<T> helper = ReflectionUtils.newGeneratedInstance(entityClass, GeneratedEntityHelper.SUFFIX, GeneratedEntityHelper.class);
+        EntityMapper<T> mapper = new EntityMapper<T>(entityClass, ksName, tableName, writeConsistency, readConsistency, helper);
         TableMetadata tableMetadata = mappingManager.getSession().getCluster().getMetadata().getKeyspace(ksName).getTable(tableName);
 
         if (tableMetadata == null)
@@ -117,7 +118,7 @@ class AnnotationParser {
                     ? "col" + columnCounter.incrementAndGet()
                     : null;
 
-            PropertyMapper propertyMapper = new PropertyMapper(entityClass, propertyName, alias, field, property);
+            PropertyMapper propertyMapper = new PropertyMapper(entityClass, propertyName, alias, field, property, helper);
 
             if (mappingManager.isCassandraV1 && propertyMapper.isComputed())
                 throw new UnsupportedOperationException("Computed properties are not supported with native protocol v1");
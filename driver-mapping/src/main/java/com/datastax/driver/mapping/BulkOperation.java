@@ -0,0 +1,99 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.google.common.base.Function;
+import com.google.common.util.concurrent.FutureCallback;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Applies an asynchronous operation to a list of inputs, with a bounded number of operations in flight.
+ * <p/>
+ * The results are returned in the order of the inputs. The first failure fails the whole operation, and
+ * no new operations are started after it (the ones in flight are not cancelled).
+ */
+class BulkOperation<I, R> {
+
+    private final List<I> inputs;
+    private final Function<I, ListenableFuture<R>> operation;
+    private final Object[] results;
+    private final SettableFuture<List<R>> future = SettableFuture.create();
+
+    private final AtomicInteger next = new AtomicInteger();
+    private final AtomicInteger remaining;
+    // number of launches requested, used to launch from a loop instead of recursively when operations complete immediately
+    private final AtomicInteger pendingLaunches = new AtomicInteger();
+
+    private BulkOperation(List<I> inputs, Function<I, ListenableFuture<R>> operation) {
+        this.inputs = inputs;
+        this.operation = operation;
+        this.results = new Object[inputs.size()];
+        this.remaining = new AtomicInteger(inputs.size());
+    }
+
+    static <I, R> ListenableFuture<List<R>> execute(List<I> inputs, int maxInFlight, Function<I, ListenableFuture<R>> operation) {
+        if (inputs.isEmpty())
+            return Futures.immediateFuture(Collections.<R>emptyList());
+        BulkOperation<I, R> bulk = new BulkOperation<I, R>(inputs, operation);
+        for (int i = 0; i < Math.min(maxInFlight, inputs.size()); i++)
+            bulk.launchNext();
+        return bulk.future;
+    }
+
+    private void launchNext() {
+        if (pendingLaunches.getAndIncrement() != 0)
+            return;
+        do {
+            final int i = next.getAndIncrement();
+            if (i >= inputs.size() || future.isDone())
+                continue;
+            ListenableFuture<R> result;
+            try {
+                result = operation.apply(inputs.get(i));
+            } catch (Throwable t) {
+                future.setException(t);
+                continue;
+            }
+            Futures.addCallback(result, new FutureCallback<R>() {
+                @Override
+                public void onSuccess(R result) {
+                    results[i] = result;
+                    if (remaining.decrementAndGet() == 0)
+                        complete();
+                    else
+                        launchNext();
+                }
+
+                @Override
+                public void onFailure(Throwable t) {
+                    future.setException(t);
+                }
+            });
+        } while (pendingLaunches.decrementAndGet() != 0);
+    }
+
+    @SuppressWarnings("unchecked")
+    private void complete() {
+        future.set((List<R>) Arrays.asList(results));
+    }
+}
@@ -0,0 +1,199 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.Metrics;
+import com.datastax.driver.core.Row;
+import com.google.common.cache.*;
+
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * The read-through cache of a {@link Mapper}, keyed by primary key.
+ * <p/>
+ * Writes issued through the mapper invalidate the corresponding key. To avoid caching the result of a read
+ * that raced with a write, reads capture the invalidation counter of their key before they are sent, and their
+ * result is discarded if the key was invalidated in the meantime. Counters are striped by key hash, so that a
+ * steady rate of writes only prevents the caching of the few reads that share a stripe with them.
+ * <p/>
+ * There is one instance per mapped class and {@link MappingManager}, shared by all the mappers created for that
+ * class (they are re-created after schema changes).
+ */
+class EntityCache<T> {
+
+    // rough per-entry overhead of the cache entry, the key list and the entity, on top of the column values
+    private static final int ENTRY_OVERHEAD = 128;
+
+    // must be a power of two
+    private static final int INVALIDATION_STRIPES = 64;
+
+    private final Cache<List<Object>, CachedEntity<T>> cache;
+    private final AtomicLongArray invalidations = new AtomicLongArray(INVALIDATION_STRIPES);
+    private final AtomicLong estimatedBytes = new AtomicLong();
+
+    private final MetricRegistry registry;
+    private final String metricPrefix;
+
+    private volatile boolean closed;
+
+    EntityCache(EntityCacheOptions options, Metrics metrics, Class<?> entityClass) {
+        this.cache = CacheBuilder.newBuilder()
+                .maximumSize(options.getMaximumSize())
+                .expireAfterWrite(options.getTimeToLive(TimeUnit.MILLISECONDS), TimeUnit.MILLISECONDS)
+                .recordStats()
+                .removalListener(new RemovalListener<List<Object>, CachedEntity<T>>() {
+                    @Override
+                    public void onRemoval(RemovalNotification<List<Object>, CachedEntity<T>> notification) {
+                        CachedEntity<T> value = notification.getValue();
+                        if (value != null)
+                            estimatedBytes.addAndGet(-value.size);
+                    }
+                })
+                .build();
+        this.registry = metrics == null ? null : metrics.getRegistry();
+        this.metricPrefix = MetricRegistry.name("mapper-cache", entityClass.getName());
+        if (registry != null)
+            registerMetrics();
+    }
+
+    /**
+     * Returns the current invalidation counter of a key, to pass to {@link #put(List, Object, Row, long)}.
+     */
+    long invalidations(List<Object> primaryKey) {
+        return invalidations.get(stripe(primaryKey));
+    }
+
+    T get(List<Object> primaryKey) {
+        if (closed)
+            return null;
+        CachedEntity<T> cached = cache.getIfPresent(primaryKey);
+        return cached == null ? null : cached.entity;
+    }
+
+    void put(List<Object> primaryKey, T entity, Row row, long invalidationsBeforeRead) {
+        if (closed || invalidations.get(stripe(primaryKey)) != invalidationsBeforeRead)
+            return;
+        int size = ENTRY_OVERHEAD;
+        for (int i = 0; i < row.getColumnDefinitions().size(); i++) {
+            ByteBuffer bytes = row.getBytesUnsafe(i);
+            if (bytes != null)
+                size += bytes.remaining();
+        }
+        estimatedBytes.addAndGet(size);
+        cache.put(primaryKey, new CachedEntity<T>(entity, size));
+        // A write may have invalidated the key between the check above and the put, in which case it did not remove
+        // the stale entity. It does not matter if it happens after the put, since it will then remove it.
+        if (closed || invalidations.get(stripe(primaryKey)) != invalidationsBeforeRead)
+            cache.invalidate(primaryKey);
+    }
+
+    void invalidate(List<Object> primaryKey) {
+        invalidations.incrementAndGet(stripe(primaryKey));
+        cache.invalidate(primaryKey);
+    }
+
+    void invalidateAll() {
+        for (int i = 0; i < INVALIDATION_STRIPES; i++)
+            invalidations.incrementAndGet(i);
+        cache.invalidateAll();
+    }
+
+    CacheStats stats() {
+        return cache.stats();
+    }
+
+    long size() {
+        return cache.size();
+    }
+
+    long estimatedBytes() {
+        return estimatedBytes.get();
+    }
+
+    /**
+     * Invalidates all entries and unregisters the metrics. After that, the cache ignores reads and writes from the
+     * mappers that still reference it.
+     */
+    void close() {
+        closed = true;
+        invalidateAll();
+        if (registry != null) {
+            for (String name : new String[]{"hits", "misses", "hit-rate", "size", "estimated-bytes"})
+                registry.remove(MetricRegistry.name(metricPrefix, name));
+        }
+    }
+
+    private static int stripe(List<Object> primaryKey) {
+        int h = primaryKey.hashCode();
+        return (h ^ (h >>> 16)) & (INVALIDATION_STRIPES - 1);
+    }
+
+    private void registerMetrics() {
+        register("hits", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return stats().hitCount();
+            }
+        });
+        register("misses", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return stats().missCount();
+            }
+        });
+        register("hit-rate", new Gauge<Double>() {
+            @Override
+            public Double getValue() {
+                return stats().hitRate();
+            }
+        });
+        register("size", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return size();
+            }
+        });
+        register("estimated-bytes", new Gauge<Long>() {
+            @Override
+            public Long getValue() {
+                return estimatedBytes();
+            }
+        });
+    }
+
+    private void register(String name, Gauge<?> gauge) {
+        // another manager of the same cluster might have enabled a cache for the same class, the last one wins
+        String fullName = MetricRegistry.name(metricPrefix, name);
+        registry.remove(fullName);
+        registry.register(fullName, gauge);
+    }
+
+    private static class CachedEntity<T> {
+        private final T entity;
+        private final int size;
+
+        CachedEntity(T entity, int size) {
+            this.entity = entity;
+            this.size = size;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import java.util.concurrent.TimeUnit;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * Options of the read-through entity cache of a {@link Mapper}.
+ * <p/>
+ * The cache is disabled by default; it is enabled per entity class with
+ * {@link MappingManager#enableCache(Class, EntityCacheOptions)}.
+ */
+public class EntityCacheOptions {
+
+    /**
+     * The default maximum number of entities in the cache.
+     */
+    public static final long DEFAULT_MAXIMUM_SIZE = 10000;
+
+    /**
+     * The default time-to-live of cached entities, in milliseconds.
+     */
+    public static final long DEFAULT_TIME_TO_LIVE_MILLIS = 60000;
+
+    private volatile long maximumSize = DEFAULT_MAXIMUM_SIZE;
+    private volatile long timeToLiveMillis = DEFAULT_TIME_TO_LIVE_MILLIS;
+
+    /**
+     * Returns the maximum number of entities in the cache.
+     *
+     * @return the maximum number of entities in the cache.
+     */
+    public long getMaximumSize() {
+        return maximumSize;
+    }
+
+    /**
+     * Sets the maximum number of entities in the cache. When it is reached,
+     * the least recently used entities are evicted.
+     *
+     * @param maximumSize the maximum number of entities; must be strictly positive.
+     * @return this {@code EntityCacheOptions} object.
+     * @throws IllegalArgumentException if {@code maximumSize <= 0}.
+     */
+    public EntityCacheOptions setMaximumSize(long maximumSize) {
+        checkArgument(maximumSize > 0, "Maximum size must be strictly positive, got %s", maximumSize);
+        this.maximumSize = maximumSize;
+        return this;
+    }
+
+    /**
+     * Returns the time after which a cached entity expires.
+     *
+     * @param unit the unit of the result.
+     * @return the time-to-live of cached entities.
+     */
+    public long getTimeToLive(TimeUnit unit) {
+        return unit.convert(timeToLiveMillis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Sets the time after which a cached entity expires, counted from the moment it was read
+     * from Cassandra.
+     * <p/>
+     * This bounds how stale a cached entity can get because of writes from other clients: writes
+     * issued through the same {@code Mapper} invalidate the cache immediately.
+     *
+     * @param timeToLive the time-to-live; must be strictly positive.
+     * @param unit       the unit of {@code timeToLive}.
+     * @return this {@code EntityCacheOptions} object.
+     * @throws IllegalArgumentException if {@code timeToLive <= 0}.
+     */
+    public EntityCacheOptions setTimeToLive(long timeToLive, TimeUnit unit) {
+        checkArgument(timeToLive > 0, "Time-to-live must be strictly positive, got %s", timeToLive);
+        this.timeToLiveMillis = unit.toMillis(timeToLive);
+        return this;
+    }
+}
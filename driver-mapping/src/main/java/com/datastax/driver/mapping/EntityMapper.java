@@ -17,6 +17,7 @@ package com.datastax.driver.mapping;
 
 import com.datastax.driver.core.ConsistencyLevel;
 
+import java.lang.reflect.Constructor;
 import java.util.ArrayList;
 import java.util.List;
 
@@ -34,8 +35,15 @@ class EntityMapper<T> {
 
     final List<PropertyMapper> allColumns = new ArrayList<PropertyMapper>();
 
-    EntityMapper(Class<T> entityClass, String keyspace, String table, ConsistencyLevel writeConsistency, ConsistencyLevel readConsistency) {
+    // Generated by the annotation processor, null if it was not run on the entity class
+    final GeneratedEntityHelper<T> helper;
+
+    // Looked up on first use, looking it up for each new entity is expensive. Races are harmless.
+    private volatile Constructor<T> constructor;
+
+    EntityMapper(Class<T> entityClass, String keyspace, String table, ConsistencyLevel writeConsistency, ConsistencyLevel readConsistency, GeneratedEntityHelper<T> helper) {
         this.entityClass = entityClass;
+        this.helper = helper;
         this.keyspace = keyspace;
         this.table = table;
         this.writeConsistency = writeConsistency;
@@ -59,7 +67,12 @@ class EntityMapper<T> {
     }
 
     T newEntity() {
-        return ReflectionUtils.newInstance(entityClass);
+        if (helper != null)
+            return helper.newInstance();
+        Constructor<T> constructor = this.constructor;
+        if (constructor == null)
+            this.constructor = constructor = ReflectionUtils.findConstructor(entityClass);
+        return ReflectionUtils.newInstance(constructor);
     }
 
 }
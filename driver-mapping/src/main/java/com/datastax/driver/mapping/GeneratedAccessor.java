@@ -0,0 +1,110 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.datastax.driver.mapping.annotations.Accessor;
+import com.datastax.driver.mapping.processor.MappingProcessor;
+
+import java.lang.reflect.Method;
+
+/**
+ * Base class for the accessor implementations generated by {@link MappingProcessor}.
+ * <p/>
+ * For an interface {@code com.example.UserAccessor} annotated with {@link Accessor}, the processor
+ * generates {@code com.example.UserAccessor_MappingImpl}, that implements each method with a direct call
+ * to {@link #invoke(int, Object[])}. When {@link MappingManager#createAccessor(Class)} finds such a class,
+ * it returns an instance of it instead of a {@link java.lang.reflect.Proxy dynamic proxy}.
+ * <p/>
+ * This class is not meant to be extended by client code.
+ */
+public abstract class GeneratedAccessor {
+
+    /**
+     * The suffix appended to the name of the accessor interface to form the name of its generated implementation.
+     */
+    public static final String SUFFIX = "_MappingImpl";
+
+    private static final Object[] NO_ARGS = new Object[0];
+
+    private final Class<?> accessorClass;
+    private final Method[] methods;
+
+    // set once by the mapping manager, before the instance is published
+    private MethodMapper[] mappers;
+
+    /**
+     * Creates a new instance.
+     *
+     * @param accessorClass the accessor interface implemented by this class.
+     * @param methods       the methods of the interface; their position in this array is the index
+     *                      passed to {@link #invoke(int, Object[])}.
+     */
+    protected GeneratedAccessor(Class<?> accessorClass, Method... methods) {
+        this.accessorClass = accessorClass;
+        this.methods = methods;
+    }
+
+    /**
+     * Looks up a public method, for use in the initialization of generated classes.
+     *
+     * @param type           the type declaring the method.
+     * @param name           the name of the method.
+     * @param parameterTypes the types of the method's parameters.
+     * @return the method.
+     */
+    protected static Method method(Class<?> type, String name, Class<?>... parameterTypes) {
+        try {
+            return type.getMethod(name, parameterTypes);
+        } catch (NoSuchMethodException e) {
+            throw new IllegalStateException(String.format("Method %s not found in %s, the generated accessor "
+                    + "implementation is probably out of date", name, type), e);
+        }
+    }
+
+    /**
+     * Executes the query associated to a method.
+     *
+     * @param method the index of the method.
+     * @param args   the arguments of the method, or {@code null} if it has none.
+     * @return the result of the method.
+     */
+    protected final Object invoke(int method, Object[] args) {
+        return mappers[method].invoke(args == null ? NO_ARGS : args);
+    }
+
+    void bind(AccessorMapper<?> accessorMapper) {
+        MethodMapper[] mappers = new MethodMapper[methods.length];
+        for (MethodMapper mapper : accessorMapper.methods) {
+            for (int i = 0; i < methods.length; i++) {
+                if (methods[i].equals(mapper.method)) {
+                    mappers[i] = mapper;
+                    break;
+                }
+            }
+        }
+        for (int i = 0; i < methods.length; i++) {
+            if (mappers[i] == null)
+                throw new IllegalStateException(String.format("No query found for method %s in %s, the generated "
+                        + "accessor implementation %s is probably out of date", methods[i].getName(), accessorClass.getName(), getClass().getName()));
+        }
+        this.mappers = mappers;
+    }
+
+    @Override
+    public String toString() {
+        return accessorClass.getSimpleName() + " implementation generated by the Cassandra driver mapper";
+    }
+}
@@ -0,0 +1,90 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.datastax.driver.mapping.annotations.Table;
+import com.datastax.driver.mapping.processor.MappingProcessor;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Base class for the entity helpers generated by {@link MappingProcessor}.
+ * <p/>
+ * For an entity class {@code com.example.User} annotated with {@link Table}, the processor
+ * generates {@code com.example.User_MappingHelper}, that creates instances and reads or writes
+ * properties with plain Java calls. When {@link MappingManager#mapper(Class)} finds such a class
+ * for an entity, it uses it instead of reflection; properties that the helper does not cover
+ * (for example private fields without a public getter and setter) are still accessed reflectively.
+ * <p/>
+ * This class is not meant to be extended by client code.
+ *
+ * @param <T> the type of the entity.
+ */
+public abstract class GeneratedEntityHelper<T> {
+
+    /**
+     * The suffix appended to the name of the entity class to form the name of its generated helper.
+     */
+    public static final String SUFFIX = "_MappingHelper";
+
+    private final Map<String, Integer> indexes = new HashMap<String, Integer>();
+
+    /**
+     * Creates a new helper.
+     *
+     * @param properties the names of the properties handled by this helper; their position in this
+     *                   array is the index passed to {@link #getValue(Object, int)} and
+     *                   {@link #setValue(Object, int, Object)}.
+     */
+    protected GeneratedEntityHelper(String... properties) {
+        for (int i = 0; i < properties.length; i++)
+            indexes.put(properties[i], i);
+    }
+
+    /**
+     * Creates a new, empty instance of the entity.
+     *
+     * @return the new instance.
+     */
+    public abstract T newInstance();
+
+    /**
+     * Reads a property from an entity.
+     *
+     * @param entity   the entity.
+     * @param property the index of the property.
+     * @return the value of the property.
+     */
+    public abstract Object getValue(T entity, int property);
+
+    /**
+     * Writes a property of an entity.
+     *
+     * @param entity   the entity.
+     * @param property the index of the property.
+     * @param value    the new value of the property.
+     */
+    public abstract void setValue(T entity, int property, Object value);
+
+    /**
+     * Returns the index of the given property, or -1 if this helper does not handle it.
+     */
+    int indexOf(String property) {
+        Integer index = indexes.get(property);
+        return index == null ? -1 : index;
+    }
+}
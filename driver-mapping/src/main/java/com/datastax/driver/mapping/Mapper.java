@@ -26,10 +26,12 @@ import com.google.common.base.Function;
 import com.google.common.base.Functions;
 import com.google.common.base.Objects;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.Lists;
 import com.google.common.util.concurrent.*;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.nio.ByteBuffer;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
@@ -63,6 +65,20 @@ public class Mapper<T> {
 
     private static final EnumMap<Option.Type, Option> NO_OPTIONS = new EnumMap<Option.Type, Option>(Option.Type.class);
 
+    /**
+     * The default value for {@link #setMaxConcurrentBulkRequests(int)}.
+     */
+    public static final int DEFAULT_MAX_CONCURRENT_BULK_REQUESTS = 64;
+
+    /**
+     * The maximum number of statements in the batches built by bulk operations, see
+     * {@link #setBulkWritesBatchedByPartition(boolean)}.
+     */
+    public static final int MAX_STATEMENTS_PER_BATCH = 100;
+
+    private volatile int maxConcurrentBulkRequests = DEFAULT_MAX_CONCURRENT_BULK_REQUESTS;
+    private volatile boolean bulkWritesBatchedByPartition;
+
     private final Function<ResultSet, T> mapOneFunction;
     final Function<ResultSet, T> mapOneFunctionWithoutAliases;
     final Function<ResultSet, Result<T>> mapAllFunctionWithoutAliases;
@@ -103,6 +119,10 @@ public class Mapper<T> {
         return manager.getSession();
     }
 
+    private CodecRegistry codecRegistry() {
+        return session().getCluster().getConfiguration().getCodecRegistry();
+    }
+
     ListenableFuture<PreparedStatement> getPreparedQueryAsync(QueryType type, Set<PropertyMapper> columns, EnumMap<Option.Type, Option> options) {
 
         final MapperQueryKey pqk = new MapperQueryKey(type, columns, options);
@@ -144,6 +164,12 @@ public class Mapper<T> {
         return klass;
     }
 
+    // null unless enabled with MappingManager.enableCache. Owned by the manager, so that mappers re-created
+    // after a schema change share it with the instances that clients still hold.
+    EntityCache<T> getCache() {
+        return manager.getCache(klass);
+    }
+
     /**
      * The {@code TableMetadata} for this mapper.
      *
@@ -304,7 +330,7 @@ public class Mapper<T> {
      * @return a future on the completion of the save operation.
      */
     public ListenableFuture<Void> saveAsync(T entity) {
-        return submitVoidQueryAsync(saveQueryAsync(entity, this.defaultSaveOptions));
+        return submitWriteAsync(primaryKeyOf(entity), saveQueryAsync(entity, this.defaultSaveOptions));
     }
 
     /**
@@ -317,7 +343,7 @@ public class Mapper<T> {
      * @return a future on the completion of the save operation.
      */
     public ListenableFuture<Void> saveAsync(T entity, Option... options) {
-        return submitVoidQueryAsync(saveQueryAsync(entity, toMapWithDefaults(options, this.defaultSaveOptions)));
+        return submitWriteAsync(primaryKeyOf(entity), saveQueryAsync(entity, toMapWithDefaults(options, this.defaultSaveOptions)));
     }
 
     private ListenableFuture<Void> submitVoidQueryAsync(ListenableFuture<BoundStatement> bsFuture) {
@@ -330,6 +356,40 @@ public class Mapper<T> {
         return Futures.transform(rsFuture, TO_NULL);
     }
 
+    private ListenableFuture<Void> submitWriteAsync(final List<Object> primaryKey, ListenableFuture<BoundStatement> bsFuture) {
+        final EntityCache<T> cache = getCache();
+        if (cache == null)
+            return submitVoidQueryAsync(bsFuture);
+        // Invalidate before, so that reads in flight don't cache the old value, and after, to evict
+        // anything that was read in between. Also after a failure, since the write might have been applied.
+        cache.invalidate(primaryKey);
+        ListenableFuture<Void> future = submitVoidQueryAsync(bsFuture);
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                cache.invalidate(primaryKey);
+            }
+        }, MoreExecutors.sameThreadExecutor());
+        return future;
+    }
+
+    private List<Object> primaryKeyOf(T entity) {
+        List<Object> pks = new ArrayList<Object>(mapper.primaryKeySize());
+        for (int i = 0; i < mapper.primaryKeySize(); i++) {
+            pks.add(mapper.getPrimaryKeyColumn(i).getValue(entity));
+        }
+        return pks;
+    }
+
+    private static List<Object> primaryKeyOf(Object... objects) {
+        List<Object> pks = new ArrayList<Object>(objects.length);
+        for (Object o : objects) {
+            if (!(o instanceof Option))
+                pks.add(o);
+        }
+        return pks;
+    }
+
     /**
      * Creates a query to fetch entity given its PRIMARY KEY.
      * <p/>
@@ -382,7 +442,7 @@ public class Mapper<T> {
         if (primaryKeys.size() != mapper.primaryKeySize())
             throw new IllegalArgumentException(String.format("Invalid number of PRIMARY KEY columns provided, %d expected but got %d", mapper.primaryKeySize(), primaryKeys.size()));
 
-        return Futures.transform(getPreparedQueryAsync(QueryType.GET, options), new Function<PreparedStatement, BoundStatement>() {
+        return Futures.transform(getPreparedQueryAsync(QueryType.GET, projection(options), options), new Function<PreparedStatement, BoundStatement>() {
             @Override
             public BoundStatement apply(PreparedStatement input) {
                 BoundStatement bs = new MapperBoundStatement(input);
@@ -409,6 +469,26 @@ public class Mapper<T> {
         });
     }
 
+    /**
+     * Returns the columns selected by a GET query: those of the {@link Option#columns(String...) columns} option
+     * (plus the primary key) in the mapping order, or an empty set to select all columns.
+     */
+    private Set<PropertyMapper> projection(EnumMap<Option.Type, Option> options) {
+        Option.Columns option = (Option.Columns) options.get(Option.Type.COLUMNS);
+        if (option == null)
+            return Collections.emptySet();
+        Set<String> names = new HashSet<String>(Arrays.asList(option.names));
+        Set<PropertyMapper> columns = new LinkedHashSet<PropertyMapper>();
+        for (PropertyMapper column : mapper.allColumns) {
+            boolean isPrimaryKey = column.isPartitionKey() || column.isClusteringColumn();
+            if (isPrimaryKey | names.remove(column.toString()) | names.remove(column.columnName))
+                columns.add(column);
+        }
+        if (!names.isEmpty())
+            throw new IllegalArgumentException(String.format("Unknown properties or columns %s for %s", names, klass.getName()));
+        return columns;
+    }
+
     /**
      * Fetch an entity based on its primary key.
      * <p/>
@@ -445,6 +525,10 @@ public class Mapper<T> {
      *                                  at least one of those values is {@code null}.
      */
     public ListenableFuture<T> getAsync(final Object... objects) {
+        final EntityCache<T> cache = getCache();
+        // only plain lookups go through the cache, options like the consistency level or tracing require a real read
+        if (cache != null && !hasOptions(objects))
+            return getCachedAsync(cache, Arrays.asList(objects));
         ListenableFuture<BoundStatement> bsFuture = getQueryAsync(objects);
         ListenableFuture<ResultSet> rsFuture = Futures.transform(bsFuture, new AsyncFunction<BoundStatement, ResultSet>() {
             @Override
@@ -455,6 +539,40 @@ public class Mapper<T> {
         return Futures.transform(rsFuture, mapOneFunction);
     }
 
+    private ListenableFuture<T> getCachedAsync(final EntityCache<T> cache, final List<Object> primaryKey) {
+        T cached = cache.get(primaryKey);
+        if (cached != null)
+            return Futures.immediateFuture(cached);
+
+        final long invalidations = cache.invalidations(primaryKey);
+        ListenableFuture<BoundStatement> bsFuture = getQueryAsync(primaryKey, new EnumMap<Option.Type, Option>(defaultGetOptions));
+        ListenableFuture<ResultSet> rsFuture = Futures.transform(bsFuture, new AsyncFunction<BoundStatement, ResultSet>() {
+            @Override
+            public ListenableFuture<ResultSet> apply(BoundStatement bs) throws Exception {
+                return session().executeAsync(bs);
+            }
+        });
+        return Futures.transform(rsFuture, new Function<ResultSet, T>() {
+            @Override
+            public T apply(ResultSet rs) {
+                Row row = rs.one();
+                if (row == null)
+                    return null;
+                T entity = map(rs).map(row);
+                cache.put(primaryKey, entity, row, invalidations);
+                return entity;
+            }
+        });
+    }
+
+    private static boolean hasOptions(Object... objects) {
+        for (Object o : objects) {
+            if (o instanceof Option)
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Creates a query that can be used to delete the provided entity.
      * <p/>
@@ -554,11 +672,7 @@ public class Mapper<T> {
     }
 
     private ListenableFuture<BoundStatement> deleteQueryAsync(T entity, EnumMap<Option.Type, Option> options) {
-        List<Object> pks = new ArrayList<Object>();
-        for (int i = 0; i < mapper.primaryKeySize(); i++) {
-            pks.add(mapper.getPrimaryKeyColumn(i).getValue(entity));
-        }
-        return deleteQueryAsync(pks, options);
+        return deleteQueryAsync(primaryKeyOf(entity), options);
     }
 
     private ListenableFuture<BoundStatement> deleteQueryAsync(Object... objects) {
@@ -649,7 +763,7 @@ public class Mapper<T> {
      * @return a future on the completion of the deletion.
      */
     public ListenableFuture<Void> deleteAsync(T entity) {
-        return submitVoidQueryAsync(deleteQueryAsync(entity, defaultDeleteOptions));
+        return submitWriteAsync(primaryKeyOf(entity), deleteQueryAsync(entity, defaultDeleteOptions));
     }
 
     /**
@@ -662,7 +776,7 @@ public class Mapper<T> {
      * @return a future on the completion of the deletion.
      */
     public ListenableFuture<Void> deleteAsync(T entity, Option... options) {
-        return submitVoidQueryAsync(deleteQueryAsync(entity, toMapWithDefaults(options, defaultDeleteOptions)));
+        return submitWriteAsync(primaryKeyOf(entity), deleteQueryAsync(entity, toMapWithDefaults(options, defaultDeleteOptions)));
     }
 
     /**
@@ -700,7 +814,229 @@ public class Mapper<T> {
      *                                  at least one of those values is {@code null}.
      */
     public ListenableFuture<Void> deleteAsync(Object... objects) {
-        return submitVoidQueryAsync(deleteQueryAsync(objects));
+        return submitWriteAsync(primaryKeyOf(objects), deleteQueryAsync(objects));
+    }
+
+    /**
+     * Saves a group of entities mapped by this mapper.
+     * <p/>
+     * This method is basically equivalent to calling {@link #save(Object, Option...)} for each entity, except that
+     * the statements are executed concurrently (see {@link #setMaxConcurrentBulkRequests(int)}) and, optionally,
+     * grouped into unlogged batches by partition (see {@link #setBulkWritesBatchedByPartition(boolean)}).
+     * <p/>
+     * If one of the statements fails, no new statements are sent, and the first error is thrown; some
+     * of the entities may have been saved.
+     *
+     * @param entities the entities to save.
+     * @param options  the options to add to the SAVE queries.
+     */
+    public void saveAll(Iterable<T> entities, Option... options) {
+        try {
+            Uninterruptibles.getUninterruptibly(saveAllAsync(entities, options));
+        } catch (ExecutionException e) {
+            throw DriverThrowables.propagateCause(e);
+        }
+    }
+
+    /**
+     * Saves a group of entities mapped by this mapper asynchronously.
+     * <p/>
+     * See {@link #saveAll(Iterable, Option...)} for details.
+     *
+     * @param entities the entities to save.
+     * @param options  the options to add to the SAVE queries.
+     * @return a future on the completion of all the save operations.
+     */
+    public ListenableFuture<Void> saveAllAsync(Iterable<T> entities, Option... options) {
+        final EnumMap<Option.Type, Option> saveOptions = toMapWithDefaults(options, this.defaultSaveOptions);
+        List<T> entityList = Lists.newArrayList(entities);
+        if (!bulkWritesBatchedByPartition) {
+            return Futures.transform(BulkOperation.execute(entityList, maxConcurrentBulkRequests, new Function<T, ListenableFuture<Void>>() {
+                @Override
+                public ListenableFuture<Void> apply(T entity) {
+                    return submitWriteAsync(primaryKeyOf(entity), saveQueryAsync(entity, saveOptions));
+                }
+            }), TO_NULL);
+        }
+        List<List<Object>> primaryKeys = new ArrayList<List<Object>>(entityList.size());
+        List<ListenableFuture<BoundStatement>> statements = new ArrayList<ListenableFuture<BoundStatement>>(entityList.size());
+        for (T entity : entityList) {
+            primaryKeys.add(primaryKeyOf(entity));
+            statements.add(saveQueryAsync(entity, saveOptions));
+        }
+        return submitBatchedWritesAsync(primaryKeys, statements);
+    }
+
+    /**
+     * Fetches a group of entities based on their primary keys.
+     * <p/>
+     * This method is basically equivalent to calling {@link #get(Object...)} for each key, except that the queries
+     * are executed concurrently (see {@link #setMaxConcurrentBulkRequests(int)}).
+     *
+     * @param primaryKeys the primary keys of the entities to fetch. If the PRIMARY KEY of the mapped class is composed
+     *                    of a single column, each element is the value of that column; otherwise, each element must be an
+     *                    {@code Object[]} containing the values of the primary key columns, in order.
+     * @param options     the options to add to the GET queries.
+     * @return the entities, in the order of {@code primaryKeys}. Entities that don't exist are {@code null}.
+     * @throws IllegalArgumentException if one of the keys is invalid (see {@link #get(Object...)}).
+     */
+    public List<T> getAll(Iterable<?> primaryKeys, Option... options) {
+        try {
+            return Uninterruptibles.getUninterruptibly(getAllAsync(primaryKeys, options));
+        } catch (ExecutionException e) {
+            throw DriverThrowables.propagateCause(e);
+        }
+    }
+
+    /**
+     * Fetches a group of entities based on their primary keys asynchronously.
+     * <p/>
+     * See {@link #getAll(Iterable, Option...)} for details.
+     *
+     * @param primaryKeys the primary keys of the entities to fetch.
+     * @param options     the options to add to the GET queries.
+     * @return a future on the entities, in the order of {@code primaryKeys}.
+     */
+    public ListenableFuture<List<T>> getAllAsync(Iterable<?> primaryKeys, final Option... options) {
+        return BulkOperation.execute(Lists.newArrayList(primaryKeys), maxConcurrentBulkRequests, new Function<Object, ListenableFuture<T>>() {
+            @Override
+            public ListenableFuture<T> apply(Object primaryKey) {
+                List<Object> objects = primaryKeyValues(primaryKey);
+                objects.addAll(Arrays.asList(options));
+                return getAsync(objects.toArray());
+            }
+        });
+    }
+
+    /**
+     * Deletes a group of entities based on their primary keys.
+     * <p/>
+     * This method is basically equivalent to calling {@link #delete(Object...)} for each key, except that
+     * the statements are executed concurrently (see {@link #setMaxConcurrentBulkRequests(int)}) and, optionally,
+     * grouped into unlogged batches by partition (see {@link #setBulkWritesBatchedByPartition(boolean)}).
+     * <p/>
+     * If one of the statements fails, no new statements are sent, and the first error is thrown; some
+     * of the entities may have been deleted.
+     *
+     * @param primaryKeys the primary keys of the entities to delete, in the same format as for
+     *                    {@link #getAll(Iterable, Option...)}.
+     * @param options     the options to add to the DELETE queries.
+     * @throws IllegalArgumentException if one of the keys is invalid (see {@link #delete(Object...)}).
+     */
+    public void deleteAll(Iterable<?> primaryKeys, Option... options) {
+        try {
+            Uninterruptibles.getUninterruptibly(deleteAllAsync(primaryKeys, options));
+        } catch (ExecutionException e) {
+            throw DriverThrowables.propagateCause(e);
+        }
+    }
+
+    /**
+     * Deletes a group of entities based on their primary keys asynchronously.
+     * <p/>
+     * See {@link #deleteAll(Iterable, Option...)} for details.
+     *
+     * @param primaryKeys the primary keys of the entities to delete.
+     * @param options     the options to add to the DELETE queries.
+     * @return a future on the completion of all the deletions.
+     */
+    public ListenableFuture<Void> deleteAllAsync(Iterable<?> primaryKeys, Option... options) {
+        final EnumMap<Option.Type, Option> deleteOptions = toMapWithDefaults(options, defaultDeleteOptions);
+        List<List<Object>> keys = new ArrayList<List<Object>>();
+        for (Object primaryKey : primaryKeys)
+            keys.add(primaryKeyValues(primaryKey));
+        if (!bulkWritesBatchedByPartition) {
+            return Futures.transform(BulkOperation.execute(keys, maxConcurrentBulkRequests, new Function<List<Object>, ListenableFuture<Void>>() {
+                @Override
+                public ListenableFuture<Void> apply(List<Object> primaryKey) {
+                    return submitWriteAsync(primaryKey, deleteQueryAsync(primaryKey, deleteOptions));
+                }
+            }), TO_NULL);
+        }
+        List<ListenableFuture<BoundStatement>> statements = new ArrayList<ListenableFuture<BoundStatement>>(keys.size());
+        for (List<Object> primaryKey : keys)
+            statements.add(deleteQueryAsync(primaryKey, deleteOptions));
+        return submitBatchedWritesAsync(keys, statements);
+    }
+
+    private static List<Object> primaryKeyValues(Object primaryKey) {
+        return (primaryKey instanceof Object[])
+                ? new ArrayList<Object>(Arrays.asList((Object[]) primaryKey))
+                : Lists.newArrayList(primaryKey);
+    }
+
+    private ListenableFuture<Void> submitBatchedWritesAsync(final List<List<Object>> primaryKeys, List<ListenableFuture<BoundStatement>> statements) {
+        final EntityCache<T> cache = getCache();
+        if (cache != null) {
+            for (List<Object> primaryKey : primaryKeys)
+                cache.invalidate(primaryKey);
+        }
+        ListenableFuture<Void> future = Futures.transform(Futures.allAsList(statements), new AsyncFunction<List<BoundStatement>, Void>() {
+            @Override
+            public ListenableFuture<Void> apply(List<BoundStatement> statements) throws Exception {
+                return Futures.transform(BulkOperation.execute(groupByPartition(statements), maxConcurrentBulkRequests, new Function<Statement, ListenableFuture<ResultSet>>() {
+                    @Override
+                    public ListenableFuture<ResultSet> apply(Statement statement) {
+                        return session().executeAsync(statement);
+                    }
+                }), TO_NULL);
+            }
+        });
+        if (cache != null) {
+            // see submitWriteAsync
+            future.addListener(new Runnable() {
+                @Override
+                public void run() {
+                    for (List<Object> primaryKey : primaryKeys)
+                        cache.invalidate(primaryKey);
+                }
+            }, MoreExecutors.sameThreadExecutor());
+        }
+        return future;
+    }
+
+    /**
+     * Groups statements targeting the same partition into unlogged batches (of at most
+     * {@link #MAX_STATEMENTS_PER_BATCH} statements), in order of first appearance.
+     */
+    private List<Statement> groupByPartition(List<BoundStatement> statements) {
+        ProtocolVersion protocolVersion = session().getCluster().getConfiguration().getProtocolOptions().getProtocolVersion();
+        CodecRegistry codecRegistry = codecRegistry();
+        Map<ByteBuffer, List<BoundStatement>> partitions = new LinkedHashMap<ByteBuffer, List<BoundStatement>>();
+        List<Statement> groups = new ArrayList<Statement>();
+        for (BoundStatement statement : statements) {
+            ByteBuffer routingKey = statement.getRoutingKey(protocolVersion, codecRegistry);
+            if (routingKey == null) {
+                groups.add(statement);
+                continue;
+            }
+            List<BoundStatement> partition = partitions.get(routingKey);
+            if (partition == null)
+                partitions.put(routingKey, partition = new ArrayList<BoundStatement>());
+            partition.add(statement);
+        }
+        for (List<BoundStatement> partition : partitions.values()) {
+            for (List<BoundStatement> chunk : Lists.partition(partition, MAX_STATEMENTS_PER_BATCH))
+                groups.add(chunk.size() == 1 ? chunk.get(0) : newBatch(chunk));
+        }
+        return groups;
+    }
+
+    private static BatchStatement newBatch(List<BoundStatement> statements) {
+        BatchStatement batch = new BatchStatement(BatchStatement.Type.UNLOGGED);
+        batch.addAll(statements);
+        // statement-level settings are ignored inside a batch, apply them to the batch itself
+        BoundStatement first = statements.get(0);
+        if (first.getConsistencyLevel() != null)
+            batch.setConsistencyLevel(first.getConsistencyLevel());
+        if (first.isTracing())
+            batch.enableTracing();
+        boolean idempotent = true;
+        for (BoundStatement statement : statements)
+            idempotent &= Boolean.TRUE.equals(statement.isIdempotent());
+        if (idempotent)
+            batch.setIdempotent(true);
+        return batch;
     }
 
     /**
@@ -723,7 +1059,7 @@ public class Mapper<T> {
      */
     public Result<T> map(ResultSet resultSet) {
         boolean useAlias = !manager.isCassandraV1 && isFromMapperQuery(resultSet);
-        return new Result<T>(resultSet, mapper, useAlias);
+        return new Result<T>(resultSet, mapper, codecRegistry(), useAlias);
     }
 
     /**
@@ -761,7 +1097,7 @@ public class Mapper<T> {
     public Result<T> mapAliased(ResultSet resultSet) {
         return (manager.isCassandraV1)
                 ? map(resultSet) // no aliases
-                : new Result<T>(resultSet, mapper, true);
+                : new Result<T>(resultSet, mapper, codecRegistry(), true);
     }
 
     /**
@@ -819,6 +1155,32 @@ public class Mapper<T> {
         this.defaultDeleteOptions = NO_OPTIONS;
     }
 
+    /**
+     * Sets the maximum number of requests that bulk operations ({@link #saveAll(Iterable, Option...)},
+     * {@link #getAll(Iterable, Option...)}, {@link #deleteAll(Iterable, Option...)}) keep in flight at
+     * the same time. The default is {@link #DEFAULT_MAX_CONCURRENT_BULK_REQUESTS}.
+     *
+     * @param maxConcurrentBulkRequests the new value; must be strictly positive.
+     */
+    public void setMaxConcurrentBulkRequests(int maxConcurrentBulkRequests) {
+        checkArgument(maxConcurrentBulkRequests > 0, "maxConcurrentBulkRequests must be strictly positive, got %s", maxConcurrentBulkRequests);
+        this.maxConcurrentBulkRequests = maxConcurrentBulkRequests;
+    }
+
+    /**
+     * Sets whether the write statements of bulk operations ({@link #saveAll(Iterable, Option...)},
+     * {@link #deleteAll(Iterable, Option...)}) that target the same partition should be sent together, as
+     * unlogged batches. This is disabled by default.
+     * <p/>
+     * Single-partition unlogged batches are applied atomically and save round-trips, but large batches put more
+     * pressure on the coordinator; batches are limited to {@value #MAX_STATEMENTS_PER_BATCH} statements.
+     *
+     * @param bulkWritesBatchedByPartition whether to batch writes by partition.
+     */
+    public void setBulkWritesBatchedByPartition(boolean bulkWritesBatchedByPartition) {
+        this.bulkWritesBatchedByPartition = bulkWritesBatchedByPartition;
+    }
+
     private static EnumMap<Option.Type, Option> toMap(Option[] options) {
         EnumMap<Option.Type, Option> result = new EnumMap<Option.Type, Option>(Option.Type.class);
         for (Option option : options) {
@@ -855,7 +1217,7 @@ public class Mapper<T> {
      */
     public static abstract class Option {
 
-        enum Type {TTL, TIMESTAMP, CL, TRACING, SAVE_NULL_FIELDS}
+        enum Type {TTL, TIMESTAMP, CL, TRACING, SAVE_NULL_FIELDS, COLUMNS}
 
         final Type type;
 
@@ -929,6 +1291,22 @@ public class Mapper<T> {
             return new SaveNullFields(enabled);
         }
 
+        /**
+         * Creates a new Option object to restrict the columns read by a get operation. This option is
+         * valid only for get operations.
+         * <p/>
+         * Only the given columns (and the primary key columns, which are always read) are selected, and
+         * set on the returned entity; the other properties keep the default value given by the entity's
+         * constructor. This saves reading, transferring and decoding large columns that are not needed.
+         * The mapper prepares and caches a separate query for each distinct set of columns.
+         *
+         * @param names the names of the columns, or of the Java properties they are mapped to.
+         * @return the option.
+         */
+        public static Option columns(String... names) {
+            return new Columns(names);
+        }
+
         public Type getType() {
             return this.type;
         }
@@ -1088,6 +1466,42 @@ public class Mapper<T> {
             }
         }
 
+        static class Columns extends Option {
+
+            private final String[] names;
+
+            Columns(String... names) {
+                super(Type.COLUMNS);
+                checkArgument(names.length > 0, "Columns option requires at least one column");
+                this.names = names;
+            }
+
+            @Override
+            void appendTo(Insert.Options usings) {
+                throw new UnsupportedOperationException("shouldn't be called");
+            }
+
+            @Override
+            void appendTo(Delete.Options usings) {
+                throw new UnsupportedOperationException("shouldn't be called");
+            }
+
+            @Override
+            void addToPreparedStatement(BoundStatement bs, int i) {
+                // nothing to do, the columns are part of the query string and of the prepared query key
+            }
+
+            @Override
+            void checkValidFor(QueryType qt, MappingManager manager) {
+                checkArgument(qt == QueryType.GET, "Columns option is only allowed in get queries");
+            }
+
+            @Override
+            boolean isIncludedInQuery() {
+                return false;
+            }
+        }
+
         static class SaveNullFields extends Option {
 
             private final boolean saveNullFields;
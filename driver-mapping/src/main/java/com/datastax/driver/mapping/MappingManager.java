@@ -23,6 +23,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 /**
  * Mapping manager from which to obtain entity mappers.
@@ -37,6 +39,8 @@ public class MappingManager {
     private volatile Map<Class<?>, Mapper<?>> mappers = Collections.emptyMap();
     private volatile Map<Class<?>, MappedUDTCodec<?>> udtCodecs = Collections.emptyMap();
     private volatile Map<Class<?>, Object> accessors = Collections.emptyMap();
+    // one per class, shared by the successive mappers of that class
+    private final ConcurrentMap<Class<?>, EntityCache<?>> caches = new ConcurrentHashMap<Class<?>, EntityCache<?>>();
 
     /**
      * Creates a new {@code MappingManager} using the provided {@code Session}.
@@ -83,6 +87,7 @@ public class MappingManager {
                     while (it.hasNext()) {
                         Mapper<?> mapper = it.next();
                         if (mapper.getTableMetadata().equals(table)) {
+                            invalidateCache(mapper.getMappedClass());
                             LOGGER.error("Table {} has been removed; existing mappers for @Entity annotated {} will not work anymore", table.getName(), mapper.getMappedClass());
                             it.remove();
                         }
@@ -97,6 +102,7 @@ public class MappingManager {
                     while (it.hasNext()) {
                         Mapper<?> mapper = it.next();
                         if (mapper.getTableMetadata().equals(previous)) {
+                            invalidateCache(mapper.getMappedClass());
                             LOGGER.warn("Table {} has been altered; existing mappers for @Entity annotated {} might not work properly anymore",
                                     previous.getName(), mapper.getMappedClass());
                             it.remove();
@@ -216,6 +222,58 @@ public class MappingManager {
         return getAccessor(klass);
     }
 
+    /**
+     * Enables a read-through cache for the entities of the provided class.
+     * <p/>
+     * Once enabled, {@link Mapper#get(Object...)} and {@link Mapper#getAsync(Object...)} (when called without
+     * {@link Mapper.Option options}) serve entities from the cache, and only query Cassandra on a miss. Saves and deletes
+     * issued through the mapper invalidate the corresponding entity; entities are also evicted when the cache is full,
+     * when their time-to-live expires, and when the table is altered or dropped. Writes from other clients, or through
+     * other means than the mapper (for example {@link Mapper#saveQuery(Object)} or accessors) are only reflected after
+     * the time-to-live.
+     * <p/>
+     * Cached entities are shared between callers, and must not be modified.
+     * <p/>
+     * If the cluster has metrics enabled, the cache reports its hits, misses, hit rate, size and estimated memory
+     * usage under {@code mapper-cache.<entity class name>} in {@link Metrics#getRegistry()}.
+     * <p/>
+     * Calling this method again for the same class replaces the existing cache (its content is lost).
+     *
+     * @param <T>     the type of the class to cache.
+     * @param klass   the (annotated) class to cache.
+     * @param options the options of the cache.
+     */
+    public <T> void enableCache(Class<T> klass, EntityCacheOptions options) {
+        // validate the class before creating the cache
+        getMapper(klass);
+        EntityCache<?> previous = caches.put(klass, new EntityCache<T>(options, session.getCluster().getMetrics(), klass));
+        if (previous != null)
+            previous.close();
+    }
+
+    /**
+     * Disables the read-through cache for the entities of the provided class, if it was enabled with
+     * {@link #enableCache(Class, EntityCacheOptions)}.
+     *
+     * @param klass the (annotated) class.
+     */
+    public void disableCache(Class<?> klass) {
+        EntityCache<?> cache = caches.remove(klass);
+        if (cache != null)
+            cache.close();
+    }
+
+    @SuppressWarnings("unchecked")
+    <T> EntityCache<T> getCache(Class<T> klass) {
+        return (EntityCache<T>) caches.get(klass);
+    }
+
+    private void invalidateCache(Class<?> klass) {
+        EntityCache<?> cache = caches.get(klass);
+        if (cache != null)
+            cache.invalidateAll();
+    }
+
     @SuppressWarnings("unchecked")
     private <T> Mapper<T> getMapper(Class<T> klass) {
         Mapper<T> mapper = (Mapper<T>) mappers.get(klass);
@@ -262,7 +320,7 @@ public class MappingManager {
                 if (accessor == null) {
                     AccessorMapper<T> mapper = AnnotationParser.parseAccessor(klass, this);
                     mapper.prepare(this);
-                    accessor = mapper.createProxy();
+                    accessor = mapper.createInstance();
                     Map<Class<?>, Object> newAccessors = new HashMap<Class<?>, Object>(accessors);
                     newAccessors.put(klass, accessor);
                     accessors = newAccessors;
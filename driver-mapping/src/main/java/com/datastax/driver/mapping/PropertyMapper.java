@@ -35,7 +35,9 @@ import static com.google.common.base.Preconditions.checkArgument;
  * <p>
  * Properties can be either accessed through getter and setter pairs,
  * or by direct field access, depending on what is available in the
- * entity/UDT class.
+ * entity/UDT class. If the entity class was processed by the mapping
+ * annotation processor, the generated {@link GeneratedEntityHelper} is
+ * used instead of reflection.
  */
 class PropertyMapper {
 
@@ -51,7 +53,20 @@ class PropertyMapper {
     private final Method setter;
     private final Map<Class<? extends Annotation>, Annotation> annotations;
 
+    // whether to go through the getter and setter, or through direct field access; decided once and for all
+    private final boolean useGetter;
+    private final boolean useSetter;
+
+    // the generated helper that accesses this property without reflection, if any
+    private final GeneratedEntityHelper<Object> generated;
+    private final int generatedIndex;
+
     PropertyMapper(Class<?> baseClass, String propertyName, String alias, Field field, PropertyDescriptor property) {
+        this(baseClass, propertyName, alias, field, property, null);
+    }
+
+    @SuppressWarnings("unchecked")
+    PropertyMapper(Class<?> baseClass, String propertyName, String alias, Field field, PropertyDescriptor property, GeneratedEntityHelper<?> helper) {
         this.propertyName = propertyName;
         this.alias = alias;
         this.field = field;
@@ -64,12 +79,16 @@ class PropertyMapper {
             ReflectionUtils.tryMakeAccessible(getter);
         if (setter != null)
             ReflectionUtils.tryMakeAccessible(setter);
+        useGetter = getter != null && getter.isAccessible();
+        useSetter = setter != null && setter.isAccessible();
         if (!isTransient()) {
             checkArgument((field != null && field.isAccessible()) || (getter != null && getter.isAccessible()),
                     "Property '%s' is not readable", propertyName);
             checkArgument((field != null && field.isAccessible()) || (setter != null && setter.isAccessible()),
                     "Property '%s' is not writable", propertyName);
         }
+        generatedIndex = helper == null ? -1 : helper.indexOf(propertyName);
+        generated = generatedIndex < 0 ? null : (GeneratedEntityHelper<Object>) helper;
         columnName = inferColumnName();
         position = inferPosition();
         javaType = inferJavaType();
@@ -78,8 +97,10 @@ class PropertyMapper {
 
     Object getValue(Object entity) {
         try {
-            // try getter first, if available, otherwise direct field access
-            if (getter != null && getter.isAccessible())
+            // try the generated helper first, then the getter, otherwise direct field access
+            if (generated != null)
+                return generated.getValue(entity, generatedIndex);
+            else if (useGetter)
                 return getter.invoke(entity);
             else
                 return field.get(entity);
@@ -90,8 +111,10 @@ class PropertyMapper {
 
     void setValue(Object entity, Object value) {
         try {
-            // try setter first, if available, otherwise direct field access
-            if (setter != null && setter.isAccessible())
+            // try the generated helper first, then the setter, otherwise direct field access
+            if (generated != null)
+                generated.setValue(entity, generatedIndex, value);
+            else if (useSetter)
                 setter.invoke(entity, value);
             else
                 field.set(entity, value);
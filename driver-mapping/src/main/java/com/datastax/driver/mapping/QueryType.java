@@ -52,7 +52,8 @@ enum QueryType {
         @Override
         String makePreparedQueryString(TableMetadata table, EntityMapper<?> mapper, MappingManager manager, Set<PropertyMapper> columns, Collection<Mapper.Option> options) {
             Select.Selection selection = select();
-            for (PropertyMapper col : mapper.allColumns) {
+            // an empty set means all columns, otherwise it's a projection
+            for (PropertyMapper col : columns.isEmpty() ? mapper.allColumns : columns) {
                 Select.SelectionOrAlias column = col.isComputed()
                         ? selection.raw(col.columnName)
                         : selection.column(col.columnName);
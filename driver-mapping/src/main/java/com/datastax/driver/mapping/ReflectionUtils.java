@@ -32,24 +32,54 @@ import java.util.Map;
 class ReflectionUtils {
 
     static <T> T newInstance(Class<T> clazz) {
-        Constructor<T> publicConstructor;
+        return newInstance(findConstructor(clazz));
+    }
+
+    static <T> T newInstance(Constructor<T> constructor) {
         try {
-            publicConstructor = clazz.getConstructor();
+            return constructor.newInstance();
+        } catch (Exception e) {
+            throw new IllegalArgumentException("Can't create an instance of " + constructor.getDeclaringClass(), e);
+        }
+    }
+
+    /**
+     * Returns the no-arg constructor of the given class, made accessible if it is not public.
+     */
+    static <T> Constructor<T> findConstructor(Class<T> clazz) {
+        try {
+            return clazz.getConstructor();
         } catch (NoSuchMethodException e) {
             try {
                 // try private constructor
                 Constructor<T> privateConstructor = clazz.getDeclaredConstructor();
                 privateConstructor.setAccessible(true);
-                return privateConstructor.newInstance();
+                return privateConstructor;
             } catch (Exception e1) {
                 throw new IllegalArgumentException("Can't create an instance of " + clazz, e);
             }
         }
+    }
+
+    /**
+     * Returns an instance of the class generated by the mapping annotation processor for the given
+     * annotated type, or {@code null} if the processor was not run on it.
+     */
+    static <T> T newGeneratedInstance(Class<?> annotatedClass, String suffix, Class<T> expectedType) {
+        String name = annotatedClass.getName();
+        int i = name.lastIndexOf('.');
+        // nested classes: com.example.Outer$Inner => com.example.Outer_Inner_Suffix
+        String generatedName = name.substring(0, i + 1) + name.substring(i + 1).replace('$', '_') + suffix;
+        Class<?> generatedClass;
         try {
-            return publicConstructor.newInstance();
-        } catch (Exception e) {
-            throw new IllegalArgumentException("Can't create an instance of " + clazz, e);
+            generatedClass = Class.forName(generatedName, true, annotatedClass.getClassLoader());
+        } catch (ClassNotFoundException e) {
+            return null;
         }
+        if (!expectedType.isAssignableFrom(generatedClass))
+            throw new IllegalArgumentException(String.format("Generated class %s for %s should extend %s",
+                    generatedName, annotatedClass, expectedType.getName()));
+        return expectedType.cast(newInstance(generatedClass));
     }
 
     // for each key representing a property name,
@@ -30,36 +30,67 @@ public class Result<T> implements PagingIterable<Result<T>, T> {
     private final ResultSet rs;
     private final EntityMapper<T> mapper;
     private final boolean useAlias;
-
-    Result(ResultSet rs, EntityMapper<T> mapper) {
-        this(rs, mapper, false);
+    private final CodecRegistry codecRegistry;
+
+    // The columns to map, their index in the rows, and the codec to decode them with. This only depends on the
+    // column definitions, so it is resolved once and for all instead of looking up every column by name in each row.
+    // Pages usually share the same definitions, but simple statements may receive a new instance with each page.
+    private ColumnDefinitions resolvedDefinitions;
+    private PropertyMapper[] columns;
+    private int[] indexes;
+    private TypeCodec<Object>[] codecs;
+
+    Result(ResultSet rs, EntityMapper<T> mapper, CodecRegistry codecRegistry) {
+        this(rs, mapper, codecRegistry, false);
     }
 
-    Result(ResultSet rs, EntityMapper<T> mapper, boolean useAlias) {
+    Result(ResultSet rs, EntityMapper<T> mapper, CodecRegistry codecRegistry, boolean useAlias) {
         this.rs = rs;
         this.mapper = mapper;
+        this.codecRegistry = codecRegistry;
         this.useAlias = useAlias;
     }
 
-    private T map(Row row) {
+    T map(Row row) {
+        ColumnDefinitions definitions = row.getColumnDefinitions();
+        if (definitions != resolvedDefinitions)
+            resolve(definitions);
+
         T entity = mapper.newEntity();
+        for (int i = 0; i < columns.length; i++) {
+            Object value = row.get(indexes[i], codecs[i]);
+            if (shouldSetValue(value)) {
+                columns[i].setValue(entity, value);
+            }
+        }
+        return entity;
+    }
+
+    @SuppressWarnings("unchecked")
+    private void resolve(ColumnDefinitions definitions) {
+        List<PropertyMapper> columns = new ArrayList<PropertyMapper>(mapper.allColumns.size());
+        List<Integer> indexes = new ArrayList<Integer>(mapper.allColumns.size());
         for (PropertyMapper col : mapper.allColumns) {
             String name = col.alias != null && this.useAlias ? col.alias : col.columnName;
-            if (!row.getColumnDefinitions().contains(name))
+            int index = definitions.getIndexOf(name);
+            if (index < 0)
                 continue;
+            columns.add(col);
+            indexes.add(index);
+        }
 
-            Object value;
-            TypeCodec<Object> customCodec = col.customCodec;
-            if (customCodec != null)
-                value = row.get(name, customCodec);
-            else
-                value = row.get(name, col.javaType);
-
-            if (shouldSetValue(value)) {
-                col.setValue(entity, value);
-            }
+        this.columns = columns.toArray(new PropertyMapper[columns.size()]);
+        this.indexes = new int[columns.size()];
+        this.codecs = new TypeCodec[columns.size()];
+        for (int i = 0; i < this.columns.length; i++) {
+            PropertyMapper col = this.columns[i];
+            int index = indexes.get(i);
+            this.indexes[i] = index;
+            this.codecs[i] = col.customCodec != null
+                    ? col.customCodec
+                    : codecRegistry.codecFor(definitions.getType(index), col.javaType);
         }
-        return entity;
+        this.resolvedDefinitions = definitions;
     }
 
     private static boolean shouldSetValue(Object value) {
@@ -0,0 +1,391 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping.processor;
+
+import com.datastax.driver.mapping.GeneratedAccessor;
+import com.datastax.driver.mapping.GeneratedEntityHelper;
+import com.datastax.driver.mapping.annotations.Accessor;
+import com.datastax.driver.mapping.annotations.Table;
+
+import javax.annotation.processing.AbstractProcessor;
+import javax.annotation.processing.RoundEnvironment;
+import javax.annotation.processing.SupportedAnnotationTypes;
+import javax.lang.model.SourceVersion;
+import javax.lang.model.element.*;
+import javax.lang.model.type.DeclaredType;
+import javax.lang.model.type.ExecutableType;
+import javax.lang.model.type.PrimitiveType;
+import javax.lang.model.type.TypeKind;
+import javax.lang.model.type.TypeMirror;
+import javax.lang.model.util.ElementFilter;
+import javax.lang.model.util.Elements;
+import javax.lang.model.util.Types;
+import javax.tools.Diagnostic;
+import javax.tools.JavaFileObject;
+import java.beans.Introspector;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.*;
+
+/**
+ * An annotation processor that generates, at compile time, the classes that the object mapper
+ * would otherwise emulate with reflection:
+ * <ul>
+ * <li>for each class annotated with {@link Table}, a {@link GeneratedEntityHelper} that creates
+ * instances and accesses properties with plain Java calls;</li>
+ * <li>for each interface annotated with {@link Accessor}, a {@link GeneratedAccessor} that
+ * implements the interface without a dynamic proxy.</li>
+ * </ul>
+ * The processor is optional and not registered automatically; enable it with
+ * {@code -processor com.datastax.driver.mapping.processor.MappingProcessor} (or the equivalent
+ * option of your build tool). The mapper uses the generated classes when they are on the classpath,
+ * and falls back to reflection otherwise. Types that cannot be accessed from generated code
+ * (e.g. private nested classes) are skipped with a note.
+ */
+@SupportedAnnotationTypes({
+        "com.datastax.driver.mapping.annotations.Table",
+        "com.datastax.driver.mapping.annotations.Accessor"})
+public class MappingProcessor extends AbstractProcessor {
+
+    @Override
+    public SourceVersion getSupportedSourceVersion() {
+        return SourceVersion.latestSupported();
+    }
+
+    @Override
+    public boolean process(Set<? extends TypeElement> annotations, RoundEnvironment roundEnv) {
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(Table.class))) {
+            if (isAccessible(type, ElementKind.CLASS))
+                generateEntityHelper(type);
+        }
+        for (TypeElement type : ElementFilter.typesIn(roundEnv.getElementsAnnotatedWith(Accessor.class))) {
+            if (isAccessible(type, ElementKind.INTERFACE))
+                generateAccessor(type);
+        }
+        return false;
+    }
+
+    private boolean isAccessible(TypeElement type, ElementKind expectedKind) {
+        if (type.getKind() != expectedKind)
+            return skip(type, "it is not a " + expectedKind.name().toLowerCase());
+        if (type.getModifiers().contains(Modifier.ABSTRACT) && expectedKind == ElementKind.CLASS)
+            return skip(type, "it is abstract");
+        if (!type.getTypeParameters().isEmpty())
+            return skip(type, "it declares type parameters");
+        for (Element e = type; e instanceof TypeElement; e = e.getEnclosingElement()) {
+            if (e.getModifiers().contains(Modifier.PRIVATE))
+                return skip(type, "it is not visible from its package");
+            if (e.getEnclosingElement() instanceof TypeElement
+                    && !e.getModifiers().contains(Modifier.STATIC) && e.getKind() == ElementKind.CLASS)
+                return skip(type, "it is an inner class");
+        }
+        if (!(type.getEnclosingElement() instanceof PackageElement) && !(type.getEnclosingElement() instanceof TypeElement))
+            return skip(type, "it is a local class");
+        return true;
+    }
+
+    private boolean skip(Element element, String reason) {
+        processingEnv.getMessager().printMessage(Diagnostic.Kind.NOTE,
+                "Not generating mapping code for " + element + " because " + reason + "; it will be mapped with reflection", element);
+        return false;
+    }
+
+    private void generateEntityHelper(TypeElement entity) {
+        if (!hasNoArgConstructor(entity)) {
+            skip(entity, "it has no accessible no-arg constructor");
+            return;
+        }
+        String entityName = entity.getQualifiedName().toString();
+        List<String> names = new ArrayList<String>();
+        List<String> reads = new ArrayList<String>();
+        List<String> writes = new ArrayList<String>();
+        for (Map.Entry<String, String[]> property : scanProperties(entity).entrySet()) {
+            names.add(property.getKey());
+            reads.add(property.getValue()[0]);
+            writes.add(property.getValue()[1]);
+        }
+
+        PrintWriter out = createSourceFile(entity, GeneratedEntityHelper.SUFFIX);
+        if (out == null)
+            return;
+        try {
+            writeHeader(out, entity);
+            out.printf("public final class %s extends %s<%s> {%n%n",
+                    generatedSimpleName(entity, GeneratedEntityHelper.SUFFIX), GeneratedEntityHelper.class.getName(), entityName);
+            out.printf("    public %s() {%n", generatedSimpleName(entity, GeneratedEntityHelper.SUFFIX));
+            out.print("        super(");
+            for (int i = 0; i < names.size(); i++)
+                out.printf("%s\"%s\"", i == 0 ? "" : ", ", names.get(i));
+            out.printf(");%n    }%n%n");
+
+            out.printf("    @Override%n    public %s newInstance() {%n        return new %s();%n    }%n%n", entityName, entityName);
+
+            out.printf("    @Override%n    public Object getValue(%s entity, int property) {%n        switch (property) {%n", entityName);
+            for (int i = 0; i < reads.size(); i++)
+                out.printf("            case %d:%n                return %s;%n", i, reads.get(i));
+            out.printf("            default:%n                throw new IllegalArgumentException(\"Unknown property \" + property);%n        }%n    }%n%n");
+
+            out.printf("    @Override%n    public void setValue(%s entity, int property, Object value) {%n        switch (property) {%n", entityName);
+            for (int i = 0; i < writes.size(); i++)
+                out.printf("            case %d:%n                %s;%n                break;%n", i, writes.get(i));
+            out.printf("            default:%n                throw new IllegalArgumentException(\"Unknown property \" + property);%n        }%n    }%n}%n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private boolean hasNoArgConstructor(TypeElement entity) {
+        for (ExecutableElement constructor : ElementFilter.constructorsIn(entity.getEnclosedElements())) {
+            if (constructor.getParameters().isEmpty() && !constructor.getModifiers().contains(Modifier.PRIVATE))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Mirrors the way the mapper accesses properties at runtime: through the public getter and setter
+     * if there are any, otherwise through the field. Properties that generated code cannot reach are
+     * left out, the mapper will use reflection for them.
+     *
+     * @return for each property name, the Java expressions that read and write it.
+     */
+    private Map<String, String[]> scanProperties(TypeElement entity) {
+        Elements elements = processingEnv.getElementUtils();
+        Types types = processingEnv.getTypeUtils();
+        DeclaredType entityType = (DeclaredType) entity.asType();
+        PackageElement entityPackage = elements.getPackageOf(entity);
+
+        // fields, the most specific first
+        Map<String, VariableElement> fields = new HashMap<String, VariableElement>();
+        for (TypeElement type = entity; type != null; type = superclass(type)) {
+            for (VariableElement field : ElementFilter.fieldsIn(type.getEnclosedElements())) {
+                String name = field.getSimpleName().toString();
+                if (!field.getModifiers().contains(Modifier.STATIC) && !fields.containsKey(name))
+                    fields.put(name, field);
+            }
+        }
+
+        // public getters and setters, as the JavaBeans introspector would find them
+        Map<String, ExecutableElement> getters = new HashMap<String, ExecutableElement>();
+        Map<String, List<ExecutableElement>> setters = new HashMap<String, List<ExecutableElement>>();
+        for (ExecutableElement method : ElementFilter.methodsIn(elements.getAllMembers(entity))) {
+            Set<Modifier> modifiers = method.getModifiers();
+            if (!modifiers.contains(Modifier.PUBLIC) || modifiers.contains(Modifier.STATIC))
+                continue;
+            String name = method.getSimpleName().toString();
+            TypeMirror returnType = method.getReturnType();
+            if (method.getParameters().isEmpty() && returnType.getKind() != TypeKind.VOID) {
+                if (name.startsWith("get") && name.length() > 3)
+                    putGetter(getters, Introspector.decapitalize(name.substring(3)), method, false);
+                else if (name.startsWith("is") && name.length() > 2 && returnType.getKind() == TypeKind.BOOLEAN)
+                    putGetter(getters, Introspector.decapitalize(name.substring(2)), method, true);
+            } else if (method.getParameters().size() == 1 && name.startsWith("set") && name.length() > 3) {
+                String property = Introspector.decapitalize(name.substring(3));
+                List<ExecutableElement> candidates = setters.get(property);
+                if (candidates == null)
+                    setters.put(property, candidates = new ArrayList<ExecutableElement>());
+                candidates.add(method);
+            }
+        }
+
+        Set<String> names = new TreeSet<String>(fields.keySet());
+        names.addAll(getters.keySet());
+        names.addAll(setters.keySet());
+        names.remove("class");
+
+        Map<String, String[]> properties = new LinkedHashMap<String, String[]>();
+        for (String name : names) {
+            VariableElement field = fields.get(name);
+            boolean fieldAccessible = field != null && isAccessibleFrom(field, entityPackage, elements);
+            ExecutableElement getter = getters.get(name);
+            ExecutableElement setter = findSetter(setters.get(name), getter, entityType, types);
+
+            String read;
+            if (getter != null)
+                read = "entity." + getter.getSimpleName() + "()";
+            else if (fieldAccessible)
+                read = "entity." + name;
+            else
+                continue;
+
+            String write;
+            if ((setter != null || fieldAccessible)
+                    && (setter != null ? setter.getParameters().get(0).asType() : field.asType()).getKind() == TypeKind.ERROR)
+                continue;
+            if (setter != null) {
+                TypeMirror type = ((ExecutableType) types.asMemberOf(entityType, setter)).getParameterTypes().get(0);
+                write = "entity." + setter.getSimpleName() + "((" + castableName(type, types) + ") value)";
+            } else if (fieldAccessible && !field.getModifiers().contains(Modifier.FINAL)) {
+                TypeMirror type = types.asMemberOf(entityType, field);
+                write = "entity." + name + " = (" + castableName(type, types) + ") value";
+            } else
+                continue;
+
+            properties.put(name, new String[]{read, write});
+        }
+        return properties;
+    }
+
+    private static void putGetter(Map<String, ExecutableElement> getters, String property, ExecutableElement method, boolean isGetter) {
+        // like the introspector, prefer isXxx() over getXxx() for booleans
+        if (isGetter || !getters.containsKey(property))
+            getters.put(property, method);
+    }
+
+    private static ExecutableElement findSetter(List<ExecutableElement> candidates, ExecutableElement getter, DeclaredType entityType, Types types) {
+        if (candidates == null)
+            return null;
+        if (getter == null)
+            return candidates.size() == 1 ? candidates.get(0) : null;
+        // the setter must accept the type returned by the getter
+        TypeMirror propertyType = types.erasure(((ExecutableType) types.asMemberOf(entityType, getter)).getReturnType());
+        for (ExecutableElement candidate : candidates) {
+            TypeMirror parameterType = ((ExecutableType) types.asMemberOf(entityType, candidate)).getParameterTypes().get(0);
+            if (types.isSameType(types.erasure(parameterType), propertyType))
+                return candidate;
+        }
+        return null;
+    }
+
+    private static boolean isAccessibleFrom(VariableElement field, PackageElement pkg, Elements elements) {
+        Set<Modifier> modifiers = field.getModifiers();
+        if (modifiers.contains(Modifier.PUBLIC))
+            return true;
+        return !modifiers.contains(Modifier.PRIVATE) && elements.getPackageOf(field).equals(pkg);
+    }
+
+    private TypeElement superclass(TypeElement type) {
+        TypeMirror superclass = type.getSuperclass();
+        if (superclass.getKind() != TypeKind.DECLARED)
+            return null;
+        TypeElement element = (TypeElement) ((DeclaredType) superclass).asElement();
+        return element.getQualifiedName().contentEquals("java.lang.Object") ? null : element;
+    }
+
+    private static String castableName(TypeMirror type, Types types) {
+        if (type.getKind().isPrimitive())
+            return types.boxedClass((PrimitiveType) type).getQualifiedName().toString();
+        return types.erasure(type).toString();
+    }
+
+    private void generateAccessor(TypeElement accessor) {
+        Types types = processingEnv.getTypeUtils();
+        DeclaredType accessorType = (DeclaredType) accessor.asType();
+        String accessorName = accessor.getQualifiedName().toString();
+
+        List<ExecutableElement> methods = new ArrayList<ExecutableElement>();
+        for (ExecutableElement method : ElementFilter.methodsIn(processingEnv.getElementUtils().getAllMembers(accessor))) {
+            // skips default methods and the methods inherited from Object
+            if (!method.getModifiers().contains(Modifier.ABSTRACT) || method.getModifiers().contains(Modifier.STATIC))
+                continue;
+            if (!method.getTypeParameters().isEmpty()) {
+                skip(accessor, "method " + method.getSimpleName() + " declares type parameters");
+                return;
+            }
+            // unresolved types: the compiler reports them, don't add more errors in the generated code
+            if (method.getReturnType().getKind() == TypeKind.ERROR)
+                return;
+            for (VariableElement parameter : method.getParameters())
+                if (parameter.asType().getKind() == TypeKind.ERROR)
+                    return;
+            methods.add(method);
+        }
+
+        PrintWriter out = createSourceFile(accessor, GeneratedAccessor.SUFFIX);
+        if (out == null)
+            return;
+        try {
+            String simpleName = generatedSimpleName(accessor, GeneratedAccessor.SUFFIX);
+            writeHeader(out, accessor);
+            out.printf("public final class %s extends %s implements %s {%n%n", simpleName, GeneratedAccessor.class.getName(), accessorName);
+            out.printf("    private static final java.lang.reflect.Method[] METHODS = {%n");
+            for (ExecutableElement method : methods) {
+                out.printf("            method(%s.class, \"%s\"", accessorName, method.getSimpleName());
+                for (TypeMirror parameterType : ((ExecutableType) types.asMemberOf(accessorType, method)).getParameterTypes())
+                    out.printf(", %s.class", types.erasure(parameterType));
+                out.printf("),%n");
+            }
+            out.printf("    };%n%n");
+            out.printf("    public %s() {%n        super(%s.class, METHODS);%n    }%n", simpleName, accessorName);
+
+            for (int i = 0; i < methods.size(); i++) {
+                ExecutableElement method = methods.get(i);
+                ExecutableType methodType = (ExecutableType) types.asMemberOf(accessorType, method);
+                List<? extends TypeMirror> parameterTypes = methodType.getParameterTypes();
+                TypeMirror returnType = methodType.getReturnType();
+
+                out.printf("%n    @Override%n    public %s %s(", returnType, method.getSimpleName());
+                for (int j = 0; j < parameterTypes.size(); j++) {
+                    String parameterType = parameterTypes.get(j).toString();
+                    if (method.isVarArgs() && j == parameterTypes.size() - 1)
+                        parameterType = parameterType.substring(0, parameterType.length() - 2) + "...";
+                    out.printf("%s%s arg%d", j == 0 ? "" : ", ", parameterType, j);
+                }
+                out.printf(") {%n        ");
+
+                StringBuilder call = new StringBuilder("invoke(").append(i).append(", ");
+                if (parameterTypes.isEmpty()) {
+                    call.append("null");
+                } else {
+                    call.append("new Object[]{");
+                    for (int j = 0; j < parameterTypes.size(); j++)
+                        call.append(j == 0 ? "" : ", ").append("arg").append(j);
+                    call.append("}");
+                }
+                call.append(")");
+
+                if (returnType.getKind() == TypeKind.VOID)
+                    out.printf("%s;%n", call);
+                else
+                    out.printf("return (%s) %s;%n", returnType.getKind().isPrimitive() ? castableName(returnType, types) : returnType, call);
+                out.printf("    }%n");
+            }
+            out.printf("}%n");
+        } finally {
+            out.close();
+        }
+    }
+
+    private PrintWriter createSourceFile(TypeElement type, String suffix) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        String simpleName = generatedSimpleName(type, suffix);
+        String name = packageName.isEmpty() ? simpleName : packageName + "." + simpleName;
+        try {
+            JavaFileObject file = processingEnv.getFiler().createSourceFile(name, type);
+            return new PrintWriter(file.openWriter());
+        } catch (IOException e) {
+            processingEnv.getMessager().printMessage(Diagnostic.Kind.ERROR, "Could not create " + name + ": " + e, type);
+            return null;
+        }
+    }
+
+    private void writeHeader(PrintWriter out, TypeElement type) {
+        String packageName = processingEnv.getElementUtils().getPackageOf(type).getQualifiedName().toString();
+        if (!packageName.isEmpty())
+            out.printf("package %s;%n%n", packageName);
+        out.printf("/**%n * Generated by %s from {@link %s}, do not edit.%n */%n", getClass().getName(), type.getQualifiedName());
+        out.printf("@SuppressWarnings({\"unchecked\", \"rawtypes\"})%n");
+    }
+
+    /**
+     * Flattens nested types, so that the generated class is always top-level: {@code Outer.Inner} gives
+     * {@code Outer_Inner<suffix>}. This must match the name that the mapper looks up at runtime.
+     */
+    private String generatedSimpleName(TypeElement type, String suffix) {
+        String binaryName = processingEnv.getElementUtils().getBinaryName(type).toString();
+        return binaryName.substring(binaryName.lastIndexOf('.') + 1).replace('$', '_') + suffix;
+    }
+}
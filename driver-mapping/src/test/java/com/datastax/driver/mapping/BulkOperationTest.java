@@ -0,0 +1,99 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.google.common.base.Function;
+import com.google.common.collect.Lists;
+import com.google.common.util.concurrent.Futures;
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.SettableFuture;
+import org.testng.annotations.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.testng.Assert.fail;
+
+public class BulkOperationTest {
+
+    @Test(groups = "unit")
+    public void should_limit_requests_in_flight_and_keep_input_order() throws Exception {
+        final List<SettableFuture<String>> inFlight = new ArrayList<SettableFuture<String>>();
+        ListenableFuture<List<String>> result = BulkOperation.execute(Lists.newArrayList(0, 1, 2, 3, 4), 2,
+                new Function<Integer, ListenableFuture<String>>() {
+                    @Override
+                    public ListenableFuture<String> apply(Integer input) {
+                        SettableFuture<String> future = SettableFuture.create();
+                        inFlight.add(future);
+                        return future;
+                    }
+                });
+
+        assertThat(inFlight).hasSize(2);
+        // complete out of order
+        inFlight.get(1).set("1");
+        assertThat(inFlight).hasSize(3);
+        inFlight.get(0).set("0");
+        inFlight.get(2).set("2");
+        assertThat(inFlight).hasSize(5);
+        inFlight.get(4).set("4");
+        assertThat(result.isDone()).isFalse();
+        inFlight.get(3).set("3");
+
+        assertThat(result.get()).containsExactly("0", "1", "2", "3", "4");
+    }
+
+    @Test(groups = "unit")
+    public void should_not_recurse_when_operations_complete_immediately() throws Exception {
+        List<Integer> inputs = new ArrayList<Integer>();
+        for (int i = 0; i < 100000; i++)
+            inputs.add(i);
+
+        List<Integer> result = BulkOperation.execute(inputs, 1, new Function<Integer, ListenableFuture<Integer>>() {
+            @Override
+            public ListenableFuture<Integer> apply(Integer input) {
+                return Futures.immediateFuture(input);
+            }
+        }).get();
+
+        assertThat(result).isEqualTo(inputs);
+    }
+
+    @Test(groups = "unit")
+    public void should_stop_at_first_failure() throws Exception {
+        final List<Integer> launched = new ArrayList<Integer>();
+        ListenableFuture<List<Integer>> result = BulkOperation.execute(Lists.newArrayList(0, 1, 2, 3), 1,
+                new Function<Integer, ListenableFuture<Integer>>() {
+                    @Override
+                    public ListenableFuture<Integer> apply(Integer input) {
+                        launched.add(input);
+                        if (input == 1)
+                            throw new IllegalArgumentException("bad key");
+                        return Futures.immediateFuture(input);
+                    }
+                });
+
+        try {
+            result.get();
+            fail("Expected an ExecutionException");
+        } catch (ExecutionException e) {
+            assertThat(e.getCause()).isInstanceOf(IllegalArgumentException.class).hasMessage("bad key");
+        }
+        assertThat(launched).containsExactly(0, 1);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.datastax.driver.core.*;
+import com.datastax.driver.mapping.annotations.PartitionKey;
+import com.datastax.driver.mapping.annotations.Table;
+import org.mockito.ArgumentCaptor;
+import org.mockito.invocation.InvocationOnMock;
+import org.mockito.stubbing.Answer;
+import org.testng.annotations.Test;
+
+import java.nio.ByteBuffer;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.*;
+
+public class EntityCacheTest {
+
+    private static final List<Object> KEY = Collections.<Object>singletonList(1);
+
+    @Test(groups = "unit")
+    public void should_cache_and_invalidate_entities() {
+        EntityCache<String> cache = new EntityCache<String>(new EntityCacheOptions(), null, String.class);
+
+        assertThat(cache.get(KEY)).isNull();
+        cache.put(KEY, "foo", row(10), cache.invalidations(KEY));
+        assertThat(cache.get(KEY)).isEqualTo("foo");
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.estimatedBytes()).isGreaterThan(10);
+
+        cache.invalidate(KEY);
+        assertThat(cache.get(KEY)).isNull();
+        assertThat(cache.estimatedBytes()).isEqualTo(0);
+        assertThat(cache.stats().hitCount()).isEqualTo(1);
+        assertThat(cache.stats().missCount()).isEqualTo(2);
+    }
+
+    @Test(groups = "unit")
+    public void should_not_cache_read_that_raced_with_write() {
+        EntityCache<String> cache = new EntityCache<String>(new EntityCacheOptions(), null, String.class);
+
+        long beforeRead = cache.invalidations(KEY);
+        // a write happens while the read is in flight
+        cache.invalidate(KEY);
+        cache.put(KEY, "stale", row(10), beforeRead);
+
+        assertThat(cache.get(KEY)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_not_cache_read_when_write_completes_during_put() {
+        final EntityCache<String> cache = new EntityCache<String>(new EntityCacheOptions(), null, String.class);
+        Row row = row(10);
+        // the write completes while the read is being stored, after its invalidation counter was checked
+        when(row.getBytesUnsafe(0)).thenAnswer(new Answer<ByteBuffer>() {
+            @Override
+            public ByteBuffer answer(InvocationOnMock invocation) throws Throwable {
+                cache.invalidate(KEY);
+                return ByteBuffer.allocate(10);
+            }
+        });
+
+        cache.put(KEY, "stale", row, cache.invalidations(KEY));
+
+        assertThat(cache.get(KEY)).isNull();
+        assertThat(cache.estimatedBytes()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_cache_read_concurrent_with_write_to_another_key() {
+        EntityCache<String> cache = new EntityCache<String>(new EntityCacheOptions(), null, String.class);
+        // find a key that does not share the invalidation counter of KEY
+        List<Object> otherKey = null;
+        for (int i = 2; otherKey == null; i++) {
+            List<Object> candidate = Collections.<Object>singletonList(i);
+            long before = cache.invalidations(KEY);
+            cache.invalidate(candidate);
+            if (cache.invalidations(KEY) == before)
+                otherKey = candidate;
+        }
+
+        long beforeRead = cache.invalidations(KEY);
+        cache.invalidate(otherKey);
+        cache.put(KEY, "foo", row(10), beforeRead);
+
+        assertThat(cache.get(KEY)).isEqualTo("foo");
+    }
+
+    @Test(groups = "unit")
+    public void should_ignore_reads_and_writes_once_closed() {
+        EntityCache<String> cache = new EntityCache<String>(new EntityCacheOptions(), null, String.class);
+        cache.put(KEY, "foo", row(10), cache.invalidations(KEY));
+
+        cache.close();
+        assertThat(cache.get(KEY)).isNull();
+        cache.put(KEY, "foo", row(10), cache.invalidations(KEY));
+        assertThat(cache.size()).isEqualTo(0);
+    }
+
+    @Test(groups = "unit")
+    public void should_share_cache_between_mappers_of_the_same_class() {
+        Session session = mock(Session.class);
+        Cluster cluster = mock(Cluster.class);
+        when(session.getCluster()).thenReturn(cluster);
+        Metadata metadata = mock(Metadata.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        KeyspaceMetadata keyspace = mock(KeyspaceMetadata.class);
+        when(metadata.getKeyspace(anyString())).thenReturn(keyspace);
+        TableMetadata table = mock(TableMetadata.class);
+        when(keyspace.getTable(anyString())).thenReturn(table);
+        when(table.getColumn(anyString())).thenReturn(mock(ColumnMetadata.class));
+        MappingManager manager = new MappingManager(session, ProtocolVersion.V4);
+        ArgumentCaptor<SchemaChangeListener> listener = ArgumentCaptor.forClass(SchemaChangeListener.class);
+        verify(cluster).register(listener.capture());
+
+        Mapper<CachedEntity> before = manager.mapper(CachedEntity.class);
+        manager.enableCache(CachedEntity.class, new EntityCacheOptions());
+        EntityCache<CachedEntity> cache = before.getCache();
+        assertThat(cache).isNotNull();
+
+        // the mapper is re-created, but clients might still hold the previous one
+        listener.getValue().onTableChanged(table, table);
+        Mapper<CachedEntity> after = manager.mapper(CachedEntity.class);
+        assertThat(after).isNotSameAs(before);
+        assertThat(after.getCache()).isSameAs(cache);
+
+        manager.disableCache(CachedEntity.class);
+        assertThat(before.getCache()).isNull();
+        assertThat(after.getCache()).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_evict_when_full() {
+        EntityCache<String> cache = new EntityCache<String>(new EntityCacheOptions().setMaximumSize(1), null, String.class);
+
+        cache.put(KEY, "foo", row(10), cache.invalidations(KEY));
+        List<Object> otherKey = Collections.<Object>singletonList(2);
+        cache.put(otherKey, "bar", row(10), cache.invalidations(otherKey));
+
+        assertThat(cache.size()).isEqualTo(1);
+        assertThat(cache.get(KEY)).isNull();
+    }
+
+    @Test(groups = "unit")
+    public void should_expose_metrics() {
+        MetricRegistry registry = new MetricRegistry();
+        Metrics metrics = mock(Metrics.class);
+        when(metrics.getRegistry()).thenReturn(registry);
+        EntityCache<String> cache = new EntityCache<String>(new EntityCacheOptions(), metrics, String.class);
+
+        cache.put(KEY, "foo", row(10), cache.invalidations(KEY));
+        cache.get(KEY);
+
+        assertThat(gauge(registry, "hits").getValue()).isEqualTo(1L);
+        assertThat(gauge(registry, "misses").getValue()).isEqualTo(0L);
+        assertThat(gauge(registry, "size").getValue()).isEqualTo(1L);
+        assertThat((Long) gauge(registry, "estimated-bytes").getValue()).isGreaterThan(10L);
+
+        cache.close();
+        assertThat(registry.getGauges()).isEmpty();
+    }
+
+    private static Gauge<?> gauge(MetricRegistry registry, String name) {
+        return registry.getGauges().get("mapper-cache.java.lang.String." + name);
+    }
+
+    private static Row row(int size) {
+        Row row = mock(Row.class);
+        ColumnDefinitions definitions = mock(ColumnDefinitions.class);
+        when(row.getColumnDefinitions()).thenReturn(definitions);
+        when(definitions.size()).thenReturn(1);
+        when(row.getBytesUnsafe(0)).thenReturn(ByteBuffer.allocate(size));
+        return row;
+    }
+
+    @Table(keyspace = "ks", name = "cached")
+    public static class CachedEntity {
+        @PartitionKey
+        private int id;
+
+        public int getId() {
+            return id;
+        }
+
+        public void setId(int id) {
+            this.id = id;
+        }
+    }
+}
@@ -0,0 +1,118 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.datastax.driver.core.*;
+import com.datastax.driver.mapping.annotations.ClusteringColumn;
+import com.datastax.driver.mapping.annotations.Column;
+import com.datastax.driver.mapping.annotations.PartitionKey;
+import com.datastax.driver.mapping.annotations.Table;
+import com.google.common.util.concurrent.SettableFuture;
+import org.mockito.ArgumentCaptor;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+
+@SuppressWarnings("unused")
+public class MapperProjectionTest {
+
+    private MappingManager mappingManager;
+    private Session session;
+
+    @BeforeMethod(groups = "unit")
+    public void setup() {
+        mappingManager = mock(MappingManager.class);
+        session = mock(Session.class);
+        when(mappingManager.getSession()).thenReturn(session);
+        Cluster cluster = mock(Cluster.class);
+        when(session.getCluster()).thenReturn(cluster);
+        Metadata metadata = mock(Metadata.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        KeyspaceMetadata keyspace = mock(KeyspaceMetadata.class);
+        when(metadata.getKeyspace(anyString())).thenReturn(keyspace);
+        TableMetadata table = mock(TableMetadata.class);
+        when(keyspace.getTable(anyString())).thenReturn(table);
+        when(keyspace.getName()).thenReturn("ks");
+        when(table.getKeyspace()).thenReturn(keyspace);
+        when(table.getName()).thenReturn("products");
+        ColumnMetadata column = mock(ColumnMetadata.class);
+        when(table.getColumn(anyString())).thenReturn(column);
+        when(session.prepareAsync(any(RegularStatement.class))).thenReturn(SettableFuture.<PreparedStatement>create());
+    }
+
+    @Table(keyspace = "ks", name = "products")
+    public static class Product {
+        @PartitionKey
+        private int id;
+        @ClusteringColumn
+        private int version;
+        private String name;
+        @Column(name = "long_description")
+        private String description;
+        private double price;
+
+        public int getId() { return id; }
+        public void setId(int id) { this.id = id; }
+        public int getVersion() { return version; }
+        public void setVersion(int version) { this.version = version; }
+        public String getName() { return name; }
+        public void setName(String name) { this.name = name; }
+        public String getDescription() { return description; }
+        public void setDescription(String description) { this.description = description; }
+        public double getPrice() { return price; }
+        public void setPrice(double price) { this.price = price; }
+    }
+
+    @Test(groups = "unit")
+    public void should_select_only_projected_columns_and_primary_key() {
+        Mapper<Product> mapper = newMapper();
+
+        mapper.getAsync(1, 2, Mapper.Option.columns("price", "long_description"));
+
+        String query = preparedQuery();
+        assertThat(query).startsWith("SELECT id AS col").contains("version AS col", "price AS col", "long_description AS col");
+        assertThat(query).doesNotContain("name");
+    }
+
+    @Test(groups = "unit")
+    public void should_prepare_one_query_per_column_set() {
+        Mapper<Product> mapper = newMapper();
+
+        mapper.getAsync(1, 2, Mapper.Option.columns("price", "name"));
+        mapper.getAsync(1, 2, Mapper.Option.columns("name", "price"));
+        mapper.getAsync(1, 2);
+
+        verify(session, times(2)).prepareAsync(any(RegularStatement.class));
+    }
+
+    @Test(groups = "unit", expectedExceptions = IllegalArgumentException.class,
+            expectedExceptionsMessageRegExp = ".*Unknown properties or columns \\[foo\\].*")
+    public void should_fail_on_unknown_column() {
+        newMapper().getAsync(1, 2, Mapper.Option.columns("name", "foo"));
+    }
+
+    private Mapper<Product> newMapper() {
+        return new Mapper<Product>(mappingManager, Product.class, AnnotationParser.parseEntity(Product.class, mappingManager));
+    }
+
+    private String preparedQuery() {
+        ArgumentCaptor<RegularStatement> captor = ArgumentCaptor.forClass(RegularStatement.class);
+        verify(session).prepareAsync(captor.capture());
+        return captor.getValue().getQueryString();
+    }
+}
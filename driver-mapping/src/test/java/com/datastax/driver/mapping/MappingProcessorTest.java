@@ -0,0 +1,165 @@
+/*
+ *      Copyright (C) 2012-2015 DataStax Inc.
+ *
+ *   Licensed under the Apache License, Version 2.0 (the "License");
+ *   you may not use this file except in compliance with the License.
+ *   You may obtain a copy of the License at
+ *
+ *      http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *   Unless required by applicable law or agreed to in writing, software
+ *   distributed under the License is distributed on an "AS IS" BASIS,
+ *   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *   See the License for the specific language governing permissions and
+ *   limitations under the License.
+ */
+package com.datastax.driver.mapping;
+
+import com.datastax.driver.core.*;
+import com.datastax.driver.mapping.annotations.Table;
+import com.datastax.driver.mapping.processor.MappingProcessor;
+import com.google.common.io.Files;
+import org.testng.annotations.BeforeClass;
+import org.testng.annotations.Test;
+
+import javax.tools.*;
+import java.io.File;
+import java.lang.reflect.Method;
+import java.net.URI;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.*;
+import static org.testng.Assert.fail;
+
+public class MappingProcessorTest {
+
+    private static final String USER = "package test;\n"
+            + "import com.datastax.driver.mapping.annotations.*;\n"
+            + "@Table(keyspace = \"ks\", name = \"users\")\n"
+            + "public class User {\n"
+            + "    @PartitionKey private int id;\n"
+            + "    String name;\n"
+            + "    private String secret;\n"
+            + "    public int getId() { return id; }\n"
+            + "    public void setId(int id) { this.id = id + 1; }\n"
+            + "}\n";
+
+    private static final String USER_ACCESSOR = "package test;\n"
+            + "import com.datastax.driver.mapping.Result;\n"
+            + "import com.datastax.driver.mapping.annotations.*;\n"
+            + "@Accessor\n"
+            + "public interface UserAccessor {\n"
+            + "    @Query(\"SELECT * FROM ks.users\") Result<User> getAll();\n"
+            + "    @Query(\"SELECT * FROM ks.users WHERE id = ?\") User getOne(int id);\n"
+            + "    @Query(\"SELECT * FROM ks.users WHERE id IN ?\") void touch(int[] ids, String... names);\n"
+            + "}\n";
+
+    private ClassLoader classLoader;
+
+    private MappingManager mappingManager;
+
+    @BeforeClass(groups = "unit")
+    public void compile() throws Exception {
+        File output = Files.createTempDir();
+        JavaCompiler compiler = ToolProvider.getSystemJavaCompiler();
+        String classpath = System.getProperty("java.class.path")
+                + File.pathSeparator + location(Table.class)
+                + File.pathSeparator + location(Session.class);
+        JavaCompiler.CompilationTask task = compiler.getTask(null, null, null,
+                Arrays.asList("-d", output.getPath(), "-classpath", classpath, "-Xlint:none"),
+                null, Arrays.asList(source("test/User", USER), source("test/UserAccessor", USER_ACCESSOR)));
+        task.setProcessors(Collections.singleton(new MappingProcessor()));
+        assertThat(task.call()).isTrue();
+        classLoader = new URLClassLoader(new URL[]{output.toURI().toURL()}, getClass().getClassLoader());
+
+        mappingManager = mock(MappingManager.class);
+        Session session = mock(Session.class);
+        when(mappingManager.getSession()).thenReturn(session);
+        Cluster cluster = mock(Cluster.class);
+        when(session.getCluster()).thenReturn(cluster);
+        Metadata metadata = mock(Metadata.class);
+        when(cluster.getMetadata()).thenReturn(metadata);
+        KeyspaceMetadata keyspace = mock(KeyspaceMetadata.class);
+        when(metadata.getKeyspace(anyString())).thenReturn(keyspace);
+        TableMetadata table = mock(TableMetadata.class);
+        when(keyspace.getTable(anyString())).thenReturn(table);
+        ColumnMetadata column = mock(ColumnMetadata.class);
+        when(table.getColumn(anyString())).thenReturn(column);
+    }
+
+    @Test(groups = "unit")
+    @SuppressWarnings("unchecked")
+    public void should_generate_entity_helper() throws Exception {
+        Class<Object> userClass = (Class<Object>) classLoader.loadClass("test.User");
+        EntityMapper<Object> mapper = AnnotationParser.parseEntity(userClass, mappingManager);
+
+        assertThat(mapper.helper).isNotNull();
+        // private fields are only covered if they have a getter and a setter
+        assertThat(mapper.helper.indexOf("id")).isGreaterThanOrEqualTo(0);
+        assertThat(mapper.helper.indexOf("name")).isGreaterThanOrEqualTo(0);
+        assertThat(mapper.helper.indexOf("secret")).isEqualTo(-1);
+
+        Object user = mapper.newEntity();
+        assertThat(user).isInstanceOf(userClass);
+        for (PropertyMapper property : mapper.allColumns) {
+            if (property.columnName.equals("id")) {
+                property.setValue(user, 1);
+                // goes through the setter
+                assertThat(property.getValue(user)).isEqualTo(2);
+            } else {
+                property.setValue(user, "foo");
+                assertThat(property.getValue(user)).isEqualTo("foo");
+            }
+        }
+    }
+
+    @Test(groups = "unit")
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void should_generate_accessor_implementation() throws Exception {
+        Class<?> accessorClass = classLoader.loadClass("test.UserAccessor");
+        List<MethodMapper> methods = new ArrayList<MethodMapper>();
+        for (Method method : accessorClass.getMethods())
+            methods.add(new MethodMapper(method, "SELECT * FROM ks.users", new MethodMapper.ParamMapper[0], null, -1, false, null));
+        AccessorMapper<?> mapper = new AccessorMapper(accessorClass, methods);
+
+        Object accessor = mapper.createInstance();
+
+        assertThat(accessor).isInstanceOf(GeneratedAccessor.class).isInstanceOf(accessorClass);
+        assertThat(accessor.toString()).isEqualTo("UserAccessor implementation generated by the Cassandra driver mapper");
+    }
+
+    @Test(groups = "unit")
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public void should_fail_to_bind_generated_accessor_with_unmapped_method() throws Exception {
+        Class<?> accessorClass = classLoader.loadClass("test.UserAccessor");
+        Method getAll = accessorClass.getMethod("getAll");
+        AccessorMapper<?> mapper = new AccessorMapper(accessorClass, Collections.singletonList(
+                new MethodMapper(getAll, "SELECT * FROM ks.users", new MethodMapper.ParamMapper[0], null, -1, false, null)));
+
+        try {
+            mapper.createInstance();
+            fail("Expected an IllegalStateException");
+        } catch (IllegalStateException e) {
+            assertThat(e.getMessage()).contains("test.UserAccessor").contains("getOne");
+        }
+    }
+
+    private static String location(Class<?> clazz) throws Exception {
+        return new File(clazz.getProtectionDomain().getCodeSource().getLocation().toURI()).getPath();
+    }
+
+    private static JavaFileObject source(String name, final String code) {
+        return new SimpleJavaFileObject(URI.create("string:///" + name + ".java"), JavaFileObject.Kind.SOURCE) {
+            @Override
+            public CharSequence getCharContent(boolean ignoreEncodingErrors) {
+                return code;
+            }
+        };
+    }
+}